@@ -0,0 +1,65 @@
+package com.realestate.interest;
+
+import java.time.LocalDate;
+
+// Day-count conventions used to turn a date range into a number of days and a year fraction.
+// Dates can be passed as LocalDate or as epoch days (LocalDate.toEpochDay()); the latter is what the batch APIs use.
+public enum DayCount {
+    // Actual days; year fraction splits the range into leap (366) and non-leap (365) year portions (ISDA)
+    ACTUAL_ACTUAL,
+    // Actual days over a 360-day year
+    ACTUAL_360,
+    // Every month has 30 days and the year 360 (30/360 bond basis)
+    THIRTY_360,
+    // Actual days over a fixed 365-day year
+    ACTUAL_365F;
+
+    public long dayCount(long startEpochDay, long endEpochDay) {
+        if (this != THIRTY_360) {
+            return endEpochDay - startEpochDay;
+        }
+        int start = DayCountCalendar.packedDate(startEpochDay);
+        int end = DayCountCalendar.packedDate(endEpochDay);
+        int d1 = DayCountCalendar.day(start);
+        int d2 = DayCountCalendar.day(end);
+        if (d1 == 31) {
+            d1 = 30;
+        }
+        if (d2 == 31 && d1 == 30) {
+            d2 = 30;
+        }
+        return 360L * (DayCountCalendar.year(end) - DayCountCalendar.year(start))
+                + 30L * (DayCountCalendar.month(end) - DayCountCalendar.month(start))
+                + (d2 - d1);
+    }
+
+    public long dayCount(LocalDate start, LocalDate end) {
+        return dayCount(start.toEpochDay(), end.toEpochDay());
+    }
+
+    public double yearFraction(long startEpochDay, long endEpochDay) {
+        return switch (this) {
+            case ACTUAL_ACTUAL -> DayCountCalendar.actActYearFraction(startEpochDay, endEpochDay);
+            case ACTUAL_360 -> (endEpochDay - startEpochDay) / 360.0;
+            case THIRTY_360 -> dayCount(startEpochDay, endEpochDay) / 360.0;
+            case ACTUAL_365F -> (endEpochDay - startEpochDay) / 365.0;
+        };
+    }
+
+    public double yearFraction(LocalDate start, LocalDate end) {
+        return yearFraction(start.toEpochDay(), end.toEpochDay());
+    }
+
+    // Growth factor of daily compounding at annualRate / (days in the basis year) over the range
+    public double dailyCompoundFactor(double annualRate, long startEpochDay, long endEpochDay) {
+        return switch (this) {
+            case ACTUAL_ACTUAL -> {
+                long leapDays = DayCountCalendar.leapDaysBetween(startEpochDay, endEpochDay);
+                long otherDays = (endEpochDay - startEpochDay) - leapDays;
+                yield Math.pow(1 + annualRate / 365, otherDays) * Math.pow(1 + annualRate / 366, leapDays);
+            }
+            case ACTUAL_360, THIRTY_360 -> Math.pow(1 + annualRate / 360, dayCount(startEpochDay, endEpochDay));
+            case ACTUAL_365F -> Math.pow(1 + annualRate / 365, endEpochDay - startEpochDay);
+        };
+    }
+}
@@ -0,0 +1,107 @@
+package com.realestate.interest;
+
+import java.time.LocalDate;
+
+/* Precomputed calendar tables backing DayCount. Every day between FIRST_DATE and LAST_DATE gets a slot holding its
+packed year/month/day, its ACT/ACT (ISDA) ordinal (years since FIRST_DATE plus the elapsed fraction of the current
+year) and the running count of days that fall in leap years. Day counts and year fractions then reduce to two
+array lookups. Dates outside the range fall back to LocalDate arithmetic. */
+final class DayCountCalendar {
+
+    static final LocalDate FIRST_DATE = LocalDate.of(1900, 1, 1);
+    static final LocalDate LAST_DATE = LocalDate.of(2199, 12, 31);
+    static final long FIRST_EPOCH_DAY = FIRST_DATE.toEpochDay();
+    static final long LAST_EPOCH_DAY = LAST_DATE.toEpochDay();
+
+    // (year << 9) | (month << 5) | day
+    private static final int[] packedDates;
+    private static final double[] actActOrdinals;
+    // Number of leap-year days strictly before each slot; one extra slot at the end
+    private static final int[] leapDaysBefore;
+
+    static {
+        int size = (int) (LAST_EPOCH_DAY - FIRST_EPOCH_DAY + 1);
+        packedDates = new int[size];
+        actActOrdinals = new double[size];
+        leapDaysBefore = new int[size + 1];
+
+        LocalDate date = FIRST_DATE;
+        int index = 0;
+        while (index < size) {
+            int year = date.getYear();
+            int lengthOfYear = date.lengthOfYear();
+            boolean leap = date.isLeapYear();
+            for (int dayOfYear = 1; dayOfYear <= lengthOfYear; dayOfYear++, index++) {
+                LocalDate day = date.withDayOfYear(dayOfYear);
+                packedDates[index] = (year << 9) | (day.getMonthValue() << 5) | day.getDayOfMonth();
+                actActOrdinals[index] = (year - FIRST_DATE.getYear()) + (dayOfYear - 1) / (double) lengthOfYear;
+                leapDaysBefore[index + 1] = leapDaysBefore[index] + (leap ? 1 : 0);
+            }
+            date = date.plusYears(1).withDayOfYear(1);
+        }
+    }
+
+    private DayCountCalendar() {
+    }
+
+    static boolean inRange(long epochDay) {
+        return epochDay >= FIRST_EPOCH_DAY && epochDay <= LAST_EPOCH_DAY;
+    }
+
+    static int packedDate(long epochDay) {
+        if (inRange(epochDay)) {
+            return packedDates[(int) (epochDay - FIRST_EPOCH_DAY)];
+        }
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        return (date.getYear() << 9) | (date.getMonthValue() << 5) | date.getDayOfMonth();
+    }
+
+    static int year(int packedDate) {
+        return packedDate >> 9;
+    }
+
+    static int month(int packedDate) {
+        return (packedDate >> 5) & 0xF;
+    }
+
+    static int day(int packedDate) {
+        return packedDate & 0x1F;
+    }
+
+    static double actActYearFraction(long startEpochDay, long endEpochDay) {
+        if (inRange(startEpochDay) && inRange(endEpochDay)) {
+            return actActOrdinals[(int) (endEpochDay - FIRST_EPOCH_DAY)] - actActOrdinals[(int) (startEpochDay - FIRST_EPOCH_DAY)];
+        }
+        return actActOrdinal(endEpochDay) - actActOrdinal(startEpochDay);
+    }
+
+    // Number of days in [start, end) that fall in leap years
+    static long leapDaysBetween(long startEpochDay, long endEpochDay) {
+        if (inRange(startEpochDay) && inRange(endEpochDay)) {
+            return leapDaysBefore[(int) (endEpochDay - FIRST_EPOCH_DAY)] - leapDaysBefore[(int) (startEpochDay - FIRST_EPOCH_DAY)];
+        }
+        long sign = 1;
+        if (endEpochDay < startEpochDay) {
+            long swap = startEpochDay;
+            startEpochDay = endEpochDay;
+            endEpochDay = swap;
+            sign = -1;
+        }
+        long count = 0;
+        LocalDate date = LocalDate.ofEpochDay(startEpochDay);
+        while (date.toEpochDay() < endEpochDay) {
+            LocalDate nextYear = date.plusYears(1).withDayOfYear(1);
+            long segmentEnd = Math.min(nextYear.toEpochDay(), endEpochDay);
+            if (date.isLeapYear()) {
+                count += segmentEnd - date.toEpochDay();
+            }
+            date = nextYear;
+        }
+        return sign * count;
+    }
+
+    private static double actActOrdinal(long epochDay) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        return (date.getYear() - FIRST_DATE.getYear()) + (date.getDayOfYear() - 1) / (double) date.lengthOfYear();
+    }
+}
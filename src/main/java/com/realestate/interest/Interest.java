@@ -1,7 +1,13 @@
 package com.realestate.interest;
 
+import java.time.LocalDate;
+import java.util.stream.IntStream;
+
 public class Interest {
 
+    // Below this size the batch accrual methods stay on the calling thread
+    private static final int PARALLEL_THRESHOLD = 4096;
+
     // Compute the Simple Interest on a principal amount given an interest rate and time in years
     public static double simpleInterest(double principal, double interestRate, double time) {
         return principal * interestRate * time;
@@ -54,6 +60,15 @@ public class Interest {
         return TotalCompoundInterest(principal, interestRate, years, months, days) - principal;
     }
 
+    // Compute the Simple Interest accrued between two dates under the given day-count convention
+    public static double simpleInterest(double principal, double interestRate, LocalDate start, LocalDate end, DayCount dayCount) {
+        return principal * interestRate * dayCount.yearFraction(start, end);
+    }
+
+    public static double totalSimpleInterest(double principal, double interestRate, LocalDate start, LocalDate end, DayCount dayCount) {
+        return simpleInterest(principal, interestRate, start, end, dayCount) + principal;
+    }
+
     // Finds Simple Interest Rate given principal, end value, and time
     public static double findSimpleInterest(double principal, double endValue, double time) {
         if (principal == 0) {
@@ -104,6 +119,40 @@ public class Interest {
         return principal * Math.pow(1 + ratePerPeriod, n * years);
     }
 
+    // Compute daily compound interest (future value) between two dates, compounding per day of the convention's basis year
+    public static double dailyCompoundInterest(double principal, double annualRate, LocalDate start, LocalDate end, DayCount dayCount) {
+        return principal * dayCount.dailyCompoundFactor(annualRate, start.toEpochDay(), end.toEpochDay());
+    }
+
+    // Batch simple-interest accrual for a whole portfolio. Dates are epoch days (LocalDate.toEpochDay()),
+    // arrays are aligned by loan and the accrued interest of loan k is written to interestOut[k].
+    public static void accrueSimpleInterest(double[] balances, double[] rates, long[] startEpochDays, long[] endEpochDays,
+                                            DayCount dayCount, double[] interestOut) {
+        validateBatch(balances, rates, startEpochDays, endEpochDays, interestOut);
+        batchRange(balances.length).forEach(k ->
+                interestOut[k] = balances[k] * rates[k] * dayCount.yearFraction(startEpochDays[k], endEpochDays[k]));
+    }
+
+    // Same as above with daily compounding; interestOut[k] receives the interest (future value minus balance)
+    public static void accrueDailyCompoundInterest(double[] balances, double[] rates, long[] startEpochDays, long[] endEpochDays,
+                                                   DayCount dayCount, double[] interestOut) {
+        validateBatch(balances, rates, startEpochDays, endEpochDays, interestOut);
+        batchRange(balances.length).forEach(k ->
+                interestOut[k] = balances[k] * (dayCount.dailyCompoundFactor(rates[k], startEpochDays[k], endEpochDays[k]) - 1));
+    }
+
+    private static void validateBatch(double[] balances, double[] rates, long[] startEpochDays, long[] endEpochDays, double[] out) {
+        int n = balances.length;
+        if (rates.length != n || startEpochDays.length != n || endEpochDays.length != n || out.length < n) {
+            throw new IllegalArgumentException("All batch arrays must have the same length.");
+        }
+    }
+
+    private static IntStream batchRange(int n) {
+        IntStream range = IntStream.range(0, n);
+        return n >= PARALLEL_THRESHOLD ? range.parallel() : range;
+    }
+
     // Compute monthly compound rate
     public static double findMonthlyCompoundRate(double principal, double endValue, double years) {
         if (principal == 0) {
@@ -0,0 +1,376 @@
+package com.realestate.interest;
+
+import com.realestate.metrics.Counter;
+import com.realestate.metrics.Metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/* Iterative rate solver for the cases Interest cannot answer in closed form: IRR over cash-flow arrays,
+(irregularly timed) XIRR, yield to maturity and effective APR of loans with fees. Every solve starts with
+Newton-Raphson from a closed-form guess and falls back to Brent's method on a sign-changing bracket if Newton
+stalls or leaves the valid domain (rate > -1). Iteration counts are accumulated in lock-free counters and also
+reported to Metrics. */
+public class RateSolver {
+
+    public static final double TOLERANCE = 1e-12;
+    public static final int MAX_ITERATIONS = 100;
+
+    // Below this size batch entry points stay on the calling thread
+    private static final int PARALLEL_THRESHOLD = 1024;
+    private static final double MIN_RATE = -1 + 1e-9;
+
+    private static final LongAdder solveCount = new LongAdder();
+    private static final LongAdder iterationCount = new LongAdder();
+    private static final LongAdder fallbackCount = new LongAdder();
+
+    // Internal objective: returns f(r) and writes f'(r) into slope[0]
+    private interface Objective {
+        double value(double rate, double[] slope);
+    }
+
+    //------------------------------------- IRR / YTM -------------------------------------//
+
+    // Periodic IRR of cash flows at t = 0, 1, 2, ... (cashFlows[0] is usually the negative investment)
+    public static double irr(double[] cashFlows) {
+        return irr(cashFlows, irrGuess(cashFlows), null, 0);
+    }
+
+    public static double irr(double[] cashFlows, double guess) {
+        return irr(cashFlows, guess, null, 0);
+    }
+
+    // Yield per period that prices the given future cash flows (paid at t = 1, 2, ...) at the given price
+    public static double yieldToMaturity(double price, double[] cashFlows) {
+        if (price <= 0) {
+            throw new IllegalArgumentException("Price must be greater than 0.");
+        }
+        double[] flows = new double[cashFlows.length + 1];
+        flows[0] = -price;
+        System.arraycopy(cashFlows, 0, flows, 1, cashFlows.length);
+        return irr(flows);
+    }
+
+    // Annual IRR of cash flows happening at arbitrary times (in years from the first flow)
+    public static double xirr(double[] cashFlows, double[] times) {
+        validateCashFlows(cashFlows);
+        if (times == null || times.length != cashFlows.length) {
+            throw new IllegalArgumentException("Cash flows and times must have the same length.");
+        }
+        Objective npv = (rate, slope) -> {
+            double value = 0;
+            double derivative = 0;
+            double base = 1 + rate;
+            for (int k = 0; k < cashFlows.length; k++) {
+                double discounted = cashFlows[k] * Math.pow(base, -times[k]);
+                value += discounted;
+                derivative -= times[k] * discounted / base;
+            }
+            slope[0] = derivative;
+            return value;
+        };
+        return solve(npv, closedFormGuess(cashFlows, times), null, 0);
+    }
+
+    private static double irr(double[] cashFlows, double guess, int[] iterationsOut, int index) {
+        validateCashFlows(cashFlows);
+        Objective npv = (rate, slope) -> {
+            // Accumulate the discount factor instead of calling Math.pow per period
+            double v = 1 / (1 + rate);
+            double factor = 1;
+            double value = 0;
+            double derivative = 0;
+            for (int t = 0; t < cashFlows.length; t++) {
+                value += cashFlows[t] * factor;
+                derivative -= t * cashFlows[t] * factor * v;
+                factor *= v;
+            }
+            slope[0] = derivative;
+            return value;
+        };
+        return solve(npv, guess, iterationsOut, index);
+    }
+
+    //------------------------------------- APR -------------------------------------//
+
+    /* Nominal annual APR of a level-payment loan: the monthly rate i solving
+    amountFinanced = payment * (1 - (1 + i)^-term) / i, times 12. amountFinanced is the principal net of fees.
+    guessAnnualRate is typically the note rate, which is the closed-form answer when there are no fees. */
+    public static double effectiveAPR(double amountFinanced, double payment, int term, double guessAnnualRate) {
+        return effectiveAPR(amountFinanced, payment, term, guessAnnualRate, null, 0);
+    }
+
+    public static double effectiveAPR(double principal, double fees, double payment, int term, double guessAnnualRate) {
+        return effectiveAPR(principal - fees, payment, term, guessAnnualRate);
+    }
+
+    private static double effectiveAPR(double amountFinanced, double payment, int term, double guessAnnualRate,
+                                       int[] iterationsOut, int index) {
+        if (amountFinanced <= 0) {
+            throw new IllegalArgumentException("Amount financed must be greater than 0.");
+        }
+        if (payment <= 0) {
+            throw new IllegalArgumentException("Payment must be greater than 0.");
+        }
+        if (term <= 0) {
+            throw new IllegalArgumentException("Term cannot be negative or zero.");
+        }
+        Objective annuity = (i, slope) -> {
+            if (Math.abs(i) < 1e-10) {
+                // Series expansion around 0 to avoid 0/0
+                slope[0] = -payment * term * (term + 1) / 2.0;
+                return payment * term - amountFinanced;
+            }
+            double discount = Math.pow(1 + i, -term);
+            double factor = (1 - discount) / i;
+            slope[0] = payment * (term * discount / (1 + i) - factor) / i;
+            return payment * factor - amountFinanced;
+        };
+        return 12 * solve(annuity, guessAnnualRate / 12, iterationsOut, index);
+    }
+
+    //------------------------------------- Batch entry points -------------------------------------//
+
+    /* Solves the APR of many loans at once. Inputs are aligned by index; results go into aprOut and, if not null,
+    the iterations used for each loan go into iterationsOut. guessAnnualRates may be null (no warm start). */
+    public static void effectiveAPRBatch(double[] amountsFinanced, double[] payments, int[] terms,
+                                         double[] guessAnnualRates, double[] aprOut, int[] iterationsOut) {
+        int n = amountsFinanced.length;
+        if (payments.length != n || terms.length != n || aprOut.length < n
+                || (guessAnnualRates != null && guessAnnualRates.length != n)
+                || (iterationsOut != null && iterationsOut.length < n)) {
+            throw new IllegalArgumentException("All batch arrays must have the same length.");
+        }
+        range(n).forEach(k -> {
+            double guess = guessAnnualRates != null
+                    ? guessAnnualRates[k]
+                    : 12 * Interest.findCompoundInterestRate(amountsFinanced[k], payments[k] * terms[k], terms[k] / 2.0);
+            aprOut[k] = effectiveAPR(amountsFinanced[k], payments[k], terms[k], guess, iterationsOut, k);
+        });
+    }
+
+    public static double[] effectiveAPRBatch(double[] amountsFinanced, double[] payments, int[] terms, double[] guessAnnualRates) {
+        double[] out = new double[amountsFinanced.length];
+        effectiveAPRBatch(amountsFinanced, payments, terms, guessAnnualRates, out, null);
+        return out;
+    }
+
+    public static void irrBatch(double[][] cashFlows, double[] irrOut, int[] iterationsOut) {
+        int n = cashFlows.length;
+        if (irrOut.length < n || (iterationsOut != null && iterationsOut.length < n)) {
+            throw new IllegalArgumentException("Output arrays are shorter than the batch.");
+        }
+        range(n).forEach(k -> irrOut[k] = irr(cashFlows[k], irrGuess(cashFlows[k]), iterationsOut, k));
+    }
+
+    public static double[] irrBatch(double[][] cashFlows) {
+        double[] out = new double[cashFlows.length];
+        irrBatch(cashFlows, out, null);
+        return out;
+    }
+
+    private static IntStream range(int n) {
+        IntStream stream = IntStream.range(0, n);
+        return n >= PARALLEL_THRESHOLD ? stream.parallel() : stream;
+    }
+
+    //------------------------------------- Metrics -------------------------------------//
+
+    public static long getSolveCount() {
+        return solveCount.sum();
+    }
+
+    public static long getIterationCount() {
+        return iterationCount.sum();
+    }
+
+    // Number of solves where Newton did not converge and Brent had to finish the job
+    public static long getFallbackCount() {
+        return fallbackCount.sum();
+    }
+
+    public static double getAverageIterations() {
+        long solves = solveCount.sum();
+        return solves == 0 ? 0 : (double) iterationCount.sum() / solves;
+    }
+
+    // Resets the solver's own counters; the Metrics counters are left alone
+    public static void resetMetrics() {
+        solveCount.reset();
+        iterationCount.reset();
+        fallbackCount.reset();
+    }
+
+    //------------------------------------- Helper methods -------------------------------------//
+
+    private static void validateCashFlows(double[] cashFlows) {
+        if (cashFlows == null || cashFlows.length < 2) {
+            throw new IllegalArgumentException("At least two cash flows are required.");
+        }
+    }
+
+    // Collapses the flows into one outflow and one inflow at the value-weighted time and uses the compound rate formula
+    private static double irrGuess(double[] cashFlows) {
+        double[] times = new double[cashFlows.length];
+        for (int t = 0; t < times.length; t++) {
+            times[t] = t;
+        }
+        return closedFormGuess(cashFlows, times);
+    }
+
+    private static double closedFormGuess(double[] cashFlows, double[] times) {
+        double outflow = 0;
+        double inflow = 0;
+        for (int k = 0; k < cashFlows.length; k++) {
+            if (cashFlows[k] < 0) {
+                outflow -= cashFlows[k];
+            } else {
+                inflow += cashFlows[k];
+            }
+        }
+        if (outflow == 0 || inflow == 0) {
+            return 0.1;
+        }
+        double outflowTime = 0;
+        double inflowTime = 0;
+        for (int k = 0; k < cashFlows.length; k++) {
+            if (cashFlows[k] < 0) {
+                outflowTime -= cashFlows[k] * times[k] / outflow;
+            } else {
+                inflowTime += cashFlows[k] * times[k] / inflow;
+            }
+        }
+        double time = Math.abs(inflowTime - outflowTime);
+        if (time == 0) {
+            return 0.1;
+        }
+        double guess = Interest.findCompoundInterestRate(outflow, inflow, time);
+        return Double.isFinite(guess) && guess > MIN_RATE ? guess : 0.1;
+    }
+
+    private static double solve(Objective objective, double guess, int[] iterationsOut, int index) {
+        double[] slope = new double[1];
+        double rate = Double.isFinite(guess) && guess > MIN_RATE ? guess : 0.1;
+        int iterations = 0;
+        boolean converged = false;
+
+        while (iterations < MAX_ITERATIONS) {
+            iterations++;
+            double value = objective.value(rate, slope);
+            if (slope[0] == 0 || !Double.isFinite(value) || !Double.isFinite(slope[0])) {
+                break;
+            }
+            double next = rate - value / slope[0];
+            if (!(next > MIN_RATE)) {
+                break;
+            }
+            if (Math.abs(next - rate) <= TOLERANCE * Math.max(1, Math.abs(rate))) {
+                rate = next;
+                converged = true;
+                break;
+            }
+            rate = next;
+        }
+
+        if (!converged) {
+            fallbackCount.increment();
+            Metrics.increment(Counter.RATE_SOLVER_FALLBACKS);
+            int[] brentIterations = new int[1];
+            rate = brent(objective, guess, slope, brentIterations);
+            iterations += brentIterations[0];
+        }
+
+        solveCount.increment();
+        iterationCount.add(iterations);
+        Metrics.increment(Counter.RATE_SOLVER_SOLVES);
+        Metrics.add(Counter.RATE_SOLVER_ITERATIONS, iterations);
+        if (iterationsOut != null) {
+            iterationsOut[index] = iterations;
+        }
+        return rate;
+    }
+
+    // Brent's method (inverse quadratic interpolation with bisection safeguard) on an expanded bracket around the guess
+    private static double brent(Objective objective, double guess, double[] slope, int[] iterationsOut) {
+        double center = Double.isFinite(guess) && guess > MIN_RATE ? guess : 0.1;
+        double step = 0.05;
+        double a = Math.max(MIN_RATE, center - step);
+        double b = center + step;
+        double fa = objective.value(a, slope);
+        double fb = objective.value(b, slope);
+        int expansions = 0;
+        while (fa * fb > 0) {
+            if (++expansions > 60) {
+                throw new ArithmeticException("Could not bracket a rate for the given cash flows.");
+            }
+            step *= 2;
+            a = Math.max(MIN_RATE, center - step);
+            b = center + step;
+            fa = objective.value(a, slope);
+            fb = objective.value(b, slope);
+        }
+
+        double c = a;
+        double fc = fa;
+        double d = b - a;
+        double e = d;
+        int iterations = 0;
+        while (iterations < MAX_ITERATIONS) {
+            iterations++;
+            if (fb * fc > 0) {
+                c = a;
+                fc = fa;
+                d = b - a;
+                e = d;
+            }
+            if (Math.abs(fc) < Math.abs(fb)) {
+                a = b;
+                b = c;
+                c = a;
+                fa = fb;
+                fb = fc;
+                fc = fa;
+            }
+            double tol = 2 * Math.ulp(b) + 0.5 * TOLERANCE;
+            double m = 0.5 * (c - b);
+            if (Math.abs(m) <= tol || fb == 0) {
+                break;
+            }
+            if (Math.abs(e) < tol || Math.abs(fa) <= Math.abs(fb)) {
+                d = m;
+                e = m;
+            } else {
+                double s = fb / fa;
+                double p;
+                double q;
+                if (a == c) {
+                    p = 2 * m * s;
+                    q = 1 - s;
+                } else {
+                    double r = fb / fc;
+                    q = fa / fc;
+                    p = s * (2 * m * q * (q - r) - (b - a) * (r - 1));
+                    q = (q - 1) * (r - 1) * (s - 1);
+                }
+                if (p > 0) {
+                    q = -q;
+                } else {
+                    p = -p;
+                }
+                if (2 * p < Math.min(3 * m * q - Math.abs(tol * q), Math.abs(e * q))) {
+                    e = d;
+                    d = p / q;
+                } else {
+                    d = m;
+                    e = m;
+                }
+            }
+            a = b;
+            fa = fb;
+            b += Math.abs(d) > tol ? d : (m > 0 ? tol : -tol);
+            fb = objective.value(b, slope);
+        }
+        iterationsOut[0] = iterations;
+        return b;
+    }
+}
@@ -0,0 +1,13 @@
+package com.realestate.metrics;
+
+// Monotonic event counters
+public enum Counter {
+    ARM_SCHEDULE_CACHE_HIT,
+    ARM_SCHEDULE_CACHE_MISS,
+    HISTORIES_RESAMPLED,
+    OPTIMIZER_ITERATIONS,
+    RATE_SOLVER_SOLVES,
+    RATE_SOLVER_ITERATIONS,
+    RATE_SOLVER_FALLBACKS,
+    RATE_RESETS
+}
@@ -0,0 +1,70 @@
+package com.realestate.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Default live recorder: LongAdder counters and one LatencyHistogram per operation, plus JFR events for long runs
+public class LongAdderRecorder implements MetricsRecorder {
+    private final LongAdder[] counters = new LongAdder[Counter.values().length];
+    private final LatencyHistogram[] timers = new LatencyHistogram[Operation.values().length];
+
+    public LongAdderRecorder() {
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+        for (int i = 0; i < timers.length; i++) {
+            timers[i] = new LatencyHistogram();
+        }
+    }
+
+    @Override
+    public Timing time(Operation operation, long size) {
+        OperationEvent event = new OperationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        return () -> {
+            timers[operation.ordinal()].record(System.nanoTime() - start);
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = operation.name();
+                event.size = size;
+                event.commit();
+            }
+        };
+    }
+
+    @Override
+    public void add(Counter counter, long delta) {
+        counters[counter.ordinal()].add(delta);
+    }
+
+    public LatencyHistogram getHistogram(Operation operation) {
+        return timers[operation.ordinal()];
+    }
+
+    @Override
+    public MetricsSnapshot snapshot() {
+        Map<Counter, Long> counterValues = new EnumMap<>(Counter.class);
+        for (Counter counter : Counter.values()) {
+            counterValues.put(counter, counters[counter.ordinal()].sum());
+        }
+        Map<Operation, MetricsSnapshot.TimerStats> timerValues = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = timers[operation.ordinal()];
+            timerValues.put(operation, new MetricsSnapshot.TimerStats(histogram.getCount(), histogram.getMean(),
+                    histogram.getPercentile(50), histogram.getPercentile(99), histogram.getMax()));
+        }
+        return new MetricsSnapshot(counterValues, timerValues);
+    }
+
+    @Override
+    public void reset() {
+        for (LongAdder counter : counters) {
+            counter.reset();
+        }
+        for (LatencyHistogram timer : timers) {
+            timer.reset();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.realestate.metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/* Static facade the library's hot paths report to. It is off by default: the installed recorder is
+MetricsRecorder.NOOP, so instrumented code costs one field read and an empty (inlined) call. Enable it with
+Metrics.enable() or -Drealestatelib.metrics=true. */
+public final class Metrics {
+    public static final String ENABLE_PROPERTY = "realestatelib.metrics";
+    public static final String MBEAN_NAME = "com.realestate:type=Metrics";
+
+    private static volatile MetricsRecorder recorder =
+            Boolean.getBoolean(ENABLE_PROPERTY) ? new LongAdderRecorder() : MetricsRecorder.NOOP;
+
+    private Metrics() {
+    }
+
+    public static Timing time(Operation operation) {
+        return recorder.time(operation, 0);
+    }
+
+    public static Timing time(Operation operation, long size) {
+        return recorder.time(operation, size);
+    }
+
+    // Runs body as one timed operation and returns its result
+    public static <T> T timed(Operation operation, Supplier<T> body) {
+        return timed(operation, 0, body);
+    }
+
+    public static <T> T timed(Operation operation, long size, Supplier<T> body) {
+        Timing timing = recorder.time(operation, size);
+        try {
+            return body.get();
+        } finally {
+            timing.close();
+        }
+    }
+
+    public static void increment(Counter counter) {
+        recorder.add(counter, 1);
+    }
+
+    public static void add(Counter counter, long delta) {
+        recorder.add(counter, delta);
+    }
+
+    public static MetricsSnapshot snapshot() {
+        return recorder.snapshot();
+    }
+
+    public static void reset() {
+        recorder.reset();
+    }
+
+    public static boolean isEnabled() {
+        return recorder != MetricsRecorder.NOOP;
+    }
+
+    // Installs a fresh LongAdderRecorder unless a live recorder is already installed
+    public static synchronized void enable() {
+        if (!isEnabled()) {
+            recorder = new LongAdderRecorder();
+        }
+    }
+
+    public static void disable() {
+        recorder = MetricsRecorder.NOOP;
+    }
+
+    public static void setRecorder(MetricsRecorder newRecorder) {
+        if (newRecorder == null) {
+            throw new IllegalArgumentException("Recorder cannot be null, use MetricsRecorder.NOOP.");
+        }
+        recorder = newRecorder;
+    }
+
+    public static MetricsRecorder getRecorder() {
+        return recorder;
+    }
+
+    // Registers the JMX view once; further calls are no-ops
+    public static void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MBean(), new ObjectName(MBEAN_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // Already registered
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register metrics MBean.", e);
+        }
+    }
+
+    private static final class MBean implements MetricsMXBean {
+        @Override
+        public boolean isEnabled() {
+            return Metrics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean enabled) {
+            if (enabled) {
+                enable();
+            } else {
+                disable();
+            }
+        }
+
+        @Override
+        public Map<String, Long> getCounters() {
+            Map<String, Long> values = new LinkedHashMap<>();
+            snapshot().getCounters().forEach((counter, value) -> values.put(counter.name(), value));
+            return values;
+        }
+
+        @Override
+        public Map<String, Long> getTimerCounts() {
+            return timerValues(MetricsSnapshot.TimerStats::getCount);
+        }
+
+        @Override
+        public Map<String, Long> getTimerP50Nanos() {
+            return timerValues(MetricsSnapshot.TimerStats::getP50Nanos);
+        }
+
+        @Override
+        public Map<String, Long> getTimerP99Nanos() {
+            return timerValues(MetricsSnapshot.TimerStats::getP99Nanos);
+        }
+
+        @Override
+        public Map<String, Long> getTimerMaxNanos() {
+            return timerValues(MetricsSnapshot.TimerStats::getMaxNanos);
+        }
+
+        @Override
+        public void reset() {
+            Metrics.reset();
+        }
+
+        private static Map<String, Long> timerValues(ToLongFunction<MetricsSnapshot.TimerStats> value) {
+            Map<String, Long> values = new LinkedHashMap<>();
+            snapshot().getTimers().forEach((operation, stats) -> values.put(operation.name(), value.applyAsLong(stats)));
+            return values;
+        }
+    }
+}
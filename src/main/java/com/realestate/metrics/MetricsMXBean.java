@@ -0,0 +1,22 @@
+package com.realestate.metrics;
+
+import java.util.Map;
+
+// JMX view of the metrics, registered by Metrics.registerMBean() as com.realestate:type=Metrics
+public interface MetricsMXBean {
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    Map<String, Long> getCounters();
+
+    Map<String, Long> getTimerCounts();
+
+    Map<String, Long> getTimerP50Nanos();
+
+    Map<String, Long> getTimerP99Nanos();
+
+    Map<String, Long> getTimerMaxNanos();
+
+    void reset();
+}
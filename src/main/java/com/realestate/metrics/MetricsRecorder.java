@@ -0,0 +1,33 @@
+package com.realestate.metrics;
+
+// Backend behind the Metrics facade. NOOP does nothing and allocates nothing.
+public interface MetricsRecorder {
+    MetricsRecorder NOOP = new MetricsRecorder() {
+        @Override
+        public Timing time(Operation operation, long size) {
+            return Timing.NOOP;
+        }
+
+        @Override
+        public void add(Counter counter, long delta) {
+        }
+
+        @Override
+        public MetricsSnapshot snapshot() {
+            return MetricsSnapshot.EMPTY;
+        }
+
+        @Override
+        public void reset() {
+        }
+    };
+
+    // size describes the problem size (assets, months, ...) and is attached to JFR events
+    Timing time(Operation operation, long size);
+
+    void add(Counter counter, long delta);
+
+    MetricsSnapshot snapshot();
+
+    void reset();
+}
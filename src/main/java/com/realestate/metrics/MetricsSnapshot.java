@@ -0,0 +1,83 @@
+package com.realestate.metrics;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+// Immutable point-in-time copy of all counters and timers
+public final class MetricsSnapshot {
+    static final MetricsSnapshot EMPTY = new MetricsSnapshot(new EnumMap<>(Counter.class), new EnumMap<>(Operation.class));
+
+    private final Map<Counter, Long> counters;
+    private final Map<Operation, TimerStats> timers;
+
+    MetricsSnapshot(Map<Counter, Long> counters, Map<Operation, TimerStats> timers) {
+        this.counters = Collections.unmodifiableMap(counters);
+        this.timers = Collections.unmodifiableMap(timers);
+    }
+
+    public long getCount(Counter counter) {
+        return counters.getOrDefault(counter, 0L);
+    }
+
+    public TimerStats getTimer(Operation operation) {
+        return timers.getOrDefault(operation, TimerStats.EMPTY);
+    }
+
+    public Map<Counter, Long> getCounters() {
+        return counters;
+    }
+
+    public Map<Operation, TimerStats> getTimers() {
+        return timers;
+    }
+
+    // Latency statistics of one operation, in nanoseconds
+    public static final class TimerStats {
+        static final TimerStats EMPTY = new TimerStats(0, 0, 0, 0, 0);
+
+        private final long count;
+        private final double meanNanos;
+        private final long p50Nanos;
+        private final long p99Nanos;
+        private final long maxNanos;
+
+        TimerStats(long count, double meanNanos, long p50Nanos, long p99Nanos, long maxNanos) {
+            this.count = count;
+            this.meanNanos = meanNanos;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMeanNanos() {
+            return meanNanos;
+        }
+
+        public long getP50Nanos() {
+            return p50Nanos;
+        }
+
+        public long getP99Nanos() {
+            return p99Nanos;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "TimerStats { Count: " + count + ", Mean: " + meanNanos + ", P50: " + p50Nanos + ", P99: " + p99Nanos + ", Max: " + maxNanos + " }";
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "MetricsSnapshot { Counters: " + counters + ", Timers: " + timers + " }";
+    }
+}
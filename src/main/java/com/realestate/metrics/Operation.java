@@ -0,0 +1,11 @@
+package com.realestate.metrics;
+
+// Timed hot-path operations. Each gets a latency histogram (nanoseconds) and a JFR event when it runs long.
+public enum Operation {
+    SCHEDULE_GENERATION,
+    COVARIANCE_BUILD,
+    HISTORY_CLEANING,
+    PORTFOLIO_OPTIMIZATION,
+    RATE_RESET,
+    PORTFOLIO_BATCH
+}
@@ -0,0 +1,23 @@
+package com.realestate.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+// JFR event for long-running library operations. Only operations above the threshold are committed to a recording.
+@Name("com.realestate.Operation")
+@Label("Real Estate Library Operation")
+@Category({"Real Estate Library"})
+@Description("Schedule generation, covariance build, history cleaning or portfolio optimization that ran long")
+@Threshold("10 ms")
+@StackTrace(false)
+class OperationEvent extends jdk.jfr.Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("Size")
+    long size;
+}
@@ -0,0 +1,10 @@
+package com.realestate.metrics;
+
+// Handle for one timed operation; Metrics.timed(...) opens and closes one around a block of code
+public interface Timing extends AutoCloseable {
+    Timing NOOP = () -> { };
+
+    // Stops the timer and records the elapsed time
+    @Override
+    void close();
+}
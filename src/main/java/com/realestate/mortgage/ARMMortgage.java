@@ -1,7 +1,12 @@
 package com.realestate.mortgage;
+import com.realestate.metrics.Counter;
+import com.realestate.metrics.Metrics;
+import com.realestate.metrics.Operation;
+
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 
 public class ARMMortgage extends AbstractMortgage {
@@ -12,8 +17,7 @@ public class ARMMortgage extends AbstractMortgage {
         setPrincipal(principal);
         setInterestRate(interestRate);
         setTerm(term, termType);
-        this.rateChanges = (rateChanges != null) ? rateChanges : new ArrayList<>();
-        this.rateChanges.sort(Comparator.comparingInt(RateChange::getMonth)); // Sort the list by month, otherwise higher changes out of order would be disregarded
+        this.rateChanges = sortedCopy(rateChanges);
         validateRateChanges();
     }
     // Constructor when no rate changes
@@ -27,6 +31,7 @@ public class ARMMortgage extends AbstractMortgage {
     }
 
     // Return the interest rate for a specific month
+    @Override
     public double getRateForMonth(int month) {
         double rate = interestRate;
         for (RateChange rc : rateChanges) {
@@ -39,35 +44,53 @@ public class ARMMortgage extends AbstractMortgage {
         return rate;
     }
 
-    // Getter and Setter for rateChanges
+    // Getter and Setter for rateChanges. The mortgage keeps its own sorted copy, so callers' lists are never mutated
     public List<RateChange> getRateChanges() {
-        return rateChanges;
+        return Collections.unmodifiableList(rateChanges);
     }
 
     public void setRateChanges(List<RateChange> rateChanges) {
-        this.rateChanges = rateChanges;
+        List<RateChange> previous = this.rateChanges;
+        this.rateChanges = sortedCopy(rateChanges);
+        try {
+            validateRateChanges();
+        } catch (IllegalArgumentException e) {
+            this.rateChanges = previous;
+            throw e;
+        }
+        invalidateCaches();
+    }
+
+    @Override
+    public MortgageSpec toSpec() {
+        return MortgageSpec.adjustable(principal, interestRate, term, rateChanges);
+    }
+
+    @Override
+    int[] rateResetMonths() {
+        // A change at month 0 or 1 already applies to the first month
+        return rateChanges.stream().mapToInt(RateChange::getMonth).filter(month -> month > 1).distinct().toArray();
+    }
+
+    @Override
+    protected void invalidateCaches() {
+        super.invalidateCaches();
+        cachedSchedule = null;
     }
 
+    // Read through the lazy view: at most a checkpoint interval of months is walked, nothing is materialized
     public double calculateMonthlyPayment(int month) {
         checkMonthValidity(month);
-        List<AmortizationEntry> schedule = generateAmortizationSchedule();
-        // Since the list is 0-indexed, we access the entry using month-1.
-        return schedule.get(month - 1).getPayment();
+        return getScheduleView().getPayment(month);
     }
 
     public double calculateMonthlyPayment() { // If no month is specified, use the first month
-        int month = 1;
-        double monthlyInterestRate = getRateForMonth(month) / 12;
-        return principal * monthlyInterestRate / (1 - Math.pow(1 + monthlyInterestRate, -term));
+        return AnnuityFactors.payment(principal, getRateForMonth(1), term);
     }
 
+    // Cumulative queries read the prefix sums of the cached base schedule, O(1) once it is built
     public double calculateTotalInterest() {
-        List<AmortizationEntry> schedule = generateAmortizationSchedule();
-        double totalInterest = 0;
-        for (AmortizationEntry entry : schedule) {
-            totalInterest += entry.getInterestPaid();
-        }
-        return totalInterest;
+        return getBaseSchedule().getTotalInterest();
     }
 
     public double calculateTotalCost() {
@@ -76,52 +99,28 @@ public class ARMMortgage extends AbstractMortgage {
 
     public double calculateRemainingPayments(int monthsPaid) {
         checkMonthValidity(monthsPaid);
-        List<AmortizationEntry> schedule = generateAmortizationSchedule();
-        double totalPaid = 0;
-        for (int i = 0; i < monthsPaid; i++) {
-            totalPaid += schedule.get(i).getPayment();
-        }
-        return calculateTotalCost() - totalPaid;
+        return calculateTotalCost() - getBaseSchedule().getPaymentsThrough(monthsPaid);
     }
 
     public double calculateRemainingBalance(int monthsPaid) {
         checkMonthValidity(monthsPaid);
-        List<AmortizationEntry> schedule = generateAmortizationSchedule();
-
-        return schedule.get(monthsPaid - 1).getEndingBalance();
+        return getScheduleView().getEndingBalance(monthsPaid);
     }
 
     public List<AmortizationEntry> generateAmortizationSchedule() {
         if (cachedSchedule != null) {
+            Metrics.increment(Counter.ARM_SCHEDULE_CACHE_HIT);
             return cachedSchedule;
         }
-        List<AmortizationEntry> schedule = new ArrayList<>();
-
-        double currentBalance = principal;
-
-        for (int i = 1; i <= term; i++) {
-            double monthlyInterestRate = getRateForMonth(i) / 12;
-            int remainingTerm = term - i + 1; // Remaining periods, including the current month
-            double interestForTheMonth = currentBalance * monthlyInterestRate;
-
-            // Calculate the monthly payment based on the current balance and the remaining term
-            double monthlyPayment = currentBalance * monthlyInterestRate / (1 - Math.pow(1 + monthlyInterestRate, -remainingTerm));
-
-            double principalForTheMonth = monthlyPayment - interestForTheMonth;
-            double endingBalance = currentBalance - principalForTheMonth;
-
-            AmortizationEntry entry = new AmortizationEntry();
-            entry.setBeginningBalance(currentBalance);
-            entry.setPayment(monthlyPayment);
-            entry.setInterestPaid(interestForTheMonth);
-            entry.setPrincipalPaid(principalForTheMonth);
-            entry.setEndingBalance(endingBalance);
-
-            schedule.add(entry);
+        Metrics.increment(Counter.ARM_SCHEDULE_CACHE_MISS);
+        cachedSchedule = Metrics.timed(Operation.SCHEDULE_GENERATION, term, this::buildAmortizationSchedule);
+        return cachedSchedule;
+    }
 
-            currentBalance = endingBalance;
-        }
-        cachedSchedule = schedule;
+    private List<AmortizationEntry> buildAmortizationSchedule() {
+        List<AmortizationEntry> schedule = new ArrayList<>(term);
+        streamSchedule((month, beginningBalance, payment, interestPaid, principalPaid, endingBalance) ->
+                schedule.add(new AmortizationEntry(beginningBalance, payment, interestPaid, principalPaid, endingBalance)));
         return schedule;
     }
 
@@ -130,8 +129,8 @@ public class ARMMortgage extends AbstractMortgage {
 
     // Nested RateChange class. Month validation has to happen outside as we have no access to the object's term time
     public static class RateChange {
-        private int month;   // The month number when the rate changes
-        private double rate; // The new rate starting this month
+        private final int month;   // The month number when the rate changes
+        private final double rate; // The new rate starting this month
 
         public RateChange(int month, double rate) {
             if (rate <= 0) {
@@ -147,6 +146,35 @@ public class ARMMortgage extends AbstractMortgage {
         public double getRate() {
             return rate;
         }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof RateChange)) {
+                return false;
+            }
+            RateChange other = (RateChange) o;
+            return month == other.month && Double.compare(rate, other.rate) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * month + Double.hashCode(rate);
+        }
+
+        @Override
+        public String toString() {
+            return "RateChange { Month: " + month + ", Rate: " + rate + " }";
+        }
+    }
+
+    // Sort the copy by month, otherwise higher changes out of order would be disregarded
+    private static List<RateChange> sortedCopy(List<RateChange> rateChanges) {
+        List<RateChange> copy = (rateChanges != null) ? new ArrayList<>(rateChanges) : new ArrayList<>();
+        copy.sort(Comparator.comparingInt(RateChange::getMonth));
+        return copy;
     }
 
     // We use this function to validate month within the RateChange objects, because we do not know the term time
@@ -1,17 +1,26 @@
 package com.realestate.mortgage;
 
+import com.realestate.interest.RateSolver;
+
+import java.util.Arrays;
 import java.util.List;
 
 public abstract class AbstractMortgage {
+    // Balances below this are treated as paid off (guards against rounding in the last payment)
+    protected static final double PAYOFF_TOLERANCE = 1e-6;
+
     protected double principal;
     protected double interestRate;
     protected int term; // in months
+    private volatile AmortizationTable baseSchedule; // Lazily built, shared by scenario evaluations
+    private volatile LazySchedule scheduleView;
 
     public void setPrincipal(double principal) {
         if(principal <= 0) {
             throw new IllegalArgumentException("Principal cannot be negative or zero.");
         }
         this.principal = principal;
+        invalidateCaches();
     }
 
     public double getPrincipal() {
@@ -23,6 +32,7 @@ public abstract class AbstractMortgage {
             throw new IllegalArgumentException("Initial rate cannot be negative or zero.");
         }
         this.interestRate = interestRate;
+        invalidateCaches();
     }
 
     public double getInterestRate() {
@@ -40,6 +50,7 @@ public abstract class AbstractMortgage {
         } else {
             throw new IllegalArgumentException("Invalid term type. Use 'y' for years or 'm' for months.");
         }
+        invalidateCaches();
     }
     public int getTerm() {
         return term;
@@ -55,6 +66,36 @@ public abstract class AbstractMortgage {
         }
     }
 
+    // Drops everything derived from principal, rate and term. Subclasses with their own caches extend this.
+    protected void invalidateCaches() {
+        baseSchedule = null;
+        scheduleView = null;
+    }
+
+    // Annual interest rate applied in the given month. Constant unless the subclass adjusts it.
+    public double getRateForMonth(int month) {
+        return interestRate;
+    }
+
+    // Scheduled payment of a month given the balance at its start. The default re-amortizes the balance over the
+    // remaining term at that month's rate; loans with a level payment override it.
+    protected double scheduledPayment(int month, double beginningBalance) {
+        return AnnuityFactors.payment(beginningBalance, getRateForMonth(month), term - month + 1);
+    }
+
+    // True when every month pays the same amount, so schedule walks can skip re-amortizing
+    boolean hasLevelPayment() {
+        return false;
+    }
+
+    // Months after the first where getRateForMonth changes, sorted; lazy schedules checkpoint there
+    int[] rateResetMonths() {
+        return new int[0];
+    }
+
+    // Immutable snapshot of the current terms, e.g. to intern and share across threads
+    public abstract MortgageSpec toSpec();
+
     // Calculates the monthly payment for the mortgage
     public abstract double calculateMonthlyPayment();
 
@@ -70,6 +111,125 @@ public abstract class AbstractMortgage {
 
     public abstract List<AmortizationEntry> generateAmortizationSchedule();
 
+    /* Walks the schedule month by month and hands each row to the sink without building entries, so callers that
+    only aggregate need no per-loan memory. The default re-amortizes the balance every month at that month's rate
+    (which is what an ARM does); level-payment loans override it. */
+    public void streamSchedule(ScheduleSink sink) {
+        double currentBalance = principal;
+        for (int month = 1; month <= term; month++) {
+            double annualRate = getRateForMonth(month);
+            int remainingTerm = term - month + 1; // Remaining periods, including the current month
+            double interestForTheMonth = currentBalance * (annualRate / 12);
+            double monthlyPayment = AnnuityFactors.payment(currentBalance, annualRate, remainingTerm);
+            double principalForTheMonth = monthlyPayment - interestForTheMonth;
+            double endingBalance = currentBalance - principalForTheMonth;
+            sink.accept(month, currentBalance, monthlyPayment, interestForTheMonth, principalForTheMonth, endingBalance);
+            currentBalance = endingBalance;
+        }
+    }
+
+    // Effective annual percentage rate when upfront fees are paid out of the principal.
+    // Solved as the IRR of the payment stream against the net amount financed, warm-started from the note rate.
+    public double calculateAPR(double fees) {
+        if (fees < 0 || fees >= principal) {
+            throw new IllegalArgumentException("Fees must be non-negative and smaller than the principal.");
+        }
+        List<AmortizationEntry> schedule = generateAmortizationSchedule();
+        double[] cashFlows = new double[schedule.size() + 1];
+        cashFlows[0] = -(principal - fees);
+        for (int i = 0; i < schedule.size(); i++) {
+            cashFlows[i + 1] = schedule.get(i).getPayment();
+        }
+        return 12 * RateSolver.irr(cashFlows, interestRate / 12);
+    }
+
+    // Base schedule as an immutable table, computed once and reused until principal, rate or term change
+    public AmortizationTable getBaseSchedule() {
+        AmortizationTable table = baseSchedule;
+        if (table == null) {
+            table = AmortizationTable.of(generateAmortizationSchedule());
+            baseSchedule = table;
+        }
+        return table;
+    }
+
+    // Sum of the payments made in months 1..monthsPaid
+    public double calculateCumulativePayments(int monthsPaid) {
+        checkMonthValidity(monthsPaid);
+        return getBaseSchedule().getPaymentsThrough(monthsPaid);
+    }
+
+    // Sum of the interest paid in months 1..monthsPaid
+    public double calculateCumulativeInterest(int monthsPaid) {
+        checkMonthValidity(monthsPaid);
+        return getBaseSchedule().getInterestPaidThrough(monthsPaid);
+    }
+
+    // Lazy schedule for callers that only read a few months; shared until principal, rate or term change
+    public LazySchedule getScheduleView() {
+        LazySchedule view = scheduleView;
+        if (view == null) {
+            view = new LazySchedule(this, LazySchedule.DEFAULT_CHECKPOINT_INTERVAL);
+            scheduleView = view;
+        }
+        return view;
+    }
+
+    // Lazy schedule with a custom checkpoint spacing (smaller means faster random access, more memoized balances)
+    public LazySchedule getScheduleView(int checkpointInterval) {
+        return new LazySchedule(this, checkpointInterval);
+    }
+
+    //------------------------------------- Prepayment scenarios -------------------------------------//
+
+    // Evaluates an extra-payment scenario. Months before the first divergent month are taken from the cached
+    // base schedule; only the remainder is projected.
+    public PrepaymentResult evaluatePrepayment(PrepaymentScenario scenario) {
+        AmortizationTable base = getBaseSchedule();
+        double baseTotalInterest = base.getTotalInterest();
+        int branchMonth = scenario.firstDivergentMonth();
+        if (branchMonth > term) {
+            return new PrepaymentResult(term, baseTotalInterest, baseTotalInterest, term, base.getPayment(term));
+        }
+        double[] projection = projectPrepayment(branchMonth, base.getBeginningBalance(branchMonth), scenario);
+        double totalInterest = base.getInterestPaidThrough(branchMonth - 1) + projection[1];
+        return new PrepaymentResult((int) projection[0], totalInterest, baseTotalInterest, term, projection[2]);
+    }
+
+    // Evaluates a grid of scenarios in parallel; results are aligned with the input list
+    public PrepaymentResult[] evaluatePrepaymentGrid(List<PrepaymentScenario> scenarios) {
+        getBaseSchedule(); // Build the shared base once before fanning out
+        return scenarios.parallelStream()
+                .map(this::evaluatePrepayment)
+                .toArray(PrepaymentResult[]::new);
+    }
+
+    /* Projects the loan from fromMonth (1-based) with the given balance at the start of that month.
+    Returns {payoff month, interest paid from fromMonth on, last scheduled payment}. This default steps month by
+    month using getRateForMonth. The payment is taken from scheduledPayment at fromMonth and only re-amortized at a
+    rate reset or, with a recast, right after the lump sum; in between it is held, so extra payments shorten the loan
+    rather than lowering the payment. Subclasses with a closed form override it. */
+    protected double[] projectPrepayment(int fromMonth, double balance, PrepaymentScenario scenario) {
+        int[] resets = rateResetMonths();
+        int recastMonth = scenario.isRecast() && scenario.getLumpSum() > 0 ? scenario.getLumpSumMonth() + 1 : 0;
+        double interest = 0;
+        double payment = 0;
+        for (int month = fromMonth; month <= term; month++) {
+            double interestForTheMonth = balance * getRateForMonth(month) / 12;
+            if (month == fromMonth || month == recastMonth || Arrays.binarySearch(resets, month) >= 0) {
+                payment = scheduledPayment(month, balance);
+            }
+            double due = balance + interestForTheMonth;
+            double paid = payment + scenario.extraFor(month);
+            interest += interestForTheMonth;
+            if (paid >= due - PAYOFF_TOLERANCE) {
+                return new double[]{month, interest, payment};
+            }
+            balance = due - paid;
+        }
+        return new double[]{term, interest, payment};
+    }
+
     public static class AmortizationEntry {
         private double beginningBalance;
         private double payment;
@@ -0,0 +1,114 @@
+package com.realestate.mortgage;
+
+import com.realestate.mortgage.AbstractMortgage.AmortizationEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/* Immutable, column-oriented amortization schedule. Unlike a List<AmortizationEntry> it can be cached and shared
+between threads without copying. Months are 1-based like the rest of the mortgage API.
+
+Running totals of payment, interest and principal are kept as prefix-sum columns (slot m holds months 1..m), so
+every cumulative query is O(1). They are summed in month order, exactly like a loop over the schedule would. */
+public final class AmortizationTable {
+    private final double[] beginningBalance;
+    private final double[] payment;
+    private final double[] interestPaid;
+    private final double[] principalPaid;
+    private final double[] endingBalance;
+    private final double[] cumulativePayment;
+    private final double[] cumulativeInterest;
+    private final double[] cumulativePrincipal;
+
+    // Takes ownership of the arrays, which must all have the same length
+    AmortizationTable(double[] beginningBalance, double[] payment, double[] interestPaid, double[] principalPaid, double[] endingBalance) {
+        this.beginningBalance = beginningBalance;
+        this.payment = payment;
+        this.interestPaid = interestPaid;
+        this.principalPaid = principalPaid;
+        this.endingBalance = endingBalance;
+        this.cumulativePayment = prefixSums(payment);
+        this.cumulativeInterest = prefixSums(interestPaid);
+        this.cumulativePrincipal = prefixSums(principalPaid);
+    }
+
+    public static AmortizationTable of(List<AmortizationEntry> schedule) {
+        int size = schedule.size();
+        double[] beginning = new double[size];
+        double[] payment = new double[size];
+        double[] interest = new double[size];
+        double[] principal = new double[size];
+        double[] ending = new double[size];
+        for (int i = 0; i < size; i++) {
+            AmortizationEntry entry = schedule.get(i);
+            beginning[i] = entry.getBeginningBalance();
+            payment[i] = entry.getPayment();
+            interest[i] = entry.getInterestPaid();
+            principal[i] = entry.getPrincipalPaid();
+            ending[i] = entry.getEndingBalance();
+        }
+        return new AmortizationTable(beginning, payment, interest, principal, ending);
+    }
+
+    public int size() {
+        return payment.length;
+    }
+
+    public double getBeginningBalance(int month) {
+        return beginningBalance[month - 1];
+    }
+
+    public double getPayment(int month) {
+        return payment[month - 1];
+    }
+
+    public double getInterestPaid(int month) {
+        return interestPaid[month - 1];
+    }
+
+    public double getPrincipalPaid(int month) {
+        return principalPaid[month - 1];
+    }
+
+    public double getEndingBalance(int month) {
+        return endingBalance[month - 1];
+    }
+
+    // Sum of interest paid in months 1..month (0 returns 0)
+    public double getInterestPaidThrough(int month) {
+        return cumulativeInterest[month];
+    }
+
+    public double getPaymentsThrough(int month) {
+        return cumulativePayment[month];
+    }
+
+    public double getPrincipalPaidThrough(int month) {
+        return cumulativePrincipal[month];
+    }
+
+    public double getTotalInterest() {
+        return cumulativeInterest[size()];
+    }
+
+    public double getTotalPayments() {
+        return cumulativePayment[size()];
+    }
+
+    // Copies the table into fresh (mutable) entries
+    public List<AmortizationEntry> toEntries() {
+        List<AmortizationEntry> entries = new ArrayList<>(size());
+        for (int i = 0; i < size(); i++) {
+            entries.add(new AmortizationEntry(beginningBalance[i], payment[i], interestPaid[i], principalPaid[i], endingBalance[i]));
+        }
+        return entries;
+    }
+
+    private static double[] prefixSums(double[] values) {
+        double[] sums = new double[values.length + 1];
+        for (int i = 0; i < values.length; i++) {
+            sums[i + 1] = sums[i] + values[i];
+        }
+        return sums;
+    }
+}
@@ -0,0 +1,79 @@
+package com.realestate.mortgage;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/* Shared lookup table for the annuity factor 1 - (1 + r/12)^-n, the denominator of every level-payment formula.
+Rate sheets quote in 1/8-point steps, so rates k/800 (k = 1..MAX_RATE_STEP) and terms 1..MAX_TERM months are
+tabulated; a rate row is built the first time it is needed and then shared by all threads.
+
+Accuracy contract: a rate is on the grid only if it is exactly the double k / 800.0, and every table entry is
+computed with the same expression as the fallback, so lookups are bitwise identical to the formula. Anything else
+(off-grid rates, longer terms, or the table switched off) goes through Math.pow as before. */
+public final class AnnuityFactors {
+    public static final int STEPS_PER_UNIT = 800; // 1/8 of a percentage point
+    public static final int MAX_RATE_STEP = 200;  // 25%
+    public static final int MAX_TERM = 480;       // 40 years, enough for every remaining term of a 30-year ARM
+
+    private static final AtomicReferenceArray<double[]> ROWS = new AtomicReferenceArray<>(MAX_RATE_STEP + 1);
+    private static volatile boolean enabled = true;
+
+    private AnnuityFactors() {
+    }
+
+    // 1 - (1 + annualRate/12)^-months
+    public static double factor(double annualRate, int months) {
+        if (enabled && months >= 1 && months <= MAX_TERM) {
+            int step = (int) Math.rint(annualRate * STEPS_PER_UNIT);
+            if (step >= 1 && step <= MAX_RATE_STEP && step / (double) STEPS_PER_UNIT == annualRate) {
+                double[] row = ROWS.get(step);
+                if (row == null) {
+                    row = buildRow(step);
+                }
+                return row[months];
+            }
+        }
+        return formula(annualRate, months);
+    }
+
+    // Level payment that amortizes balance over months at annualRate
+    public static double payment(double balance, double annualRate, int months) {
+        return balance * (annualRate / 12) / factor(annualRate, months);
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    // Off forces the formula everywhere (e.g. to compare timings); results are the same either way
+    public static void setEnabled(boolean enabled) {
+        AnnuityFactors.enabled = enabled;
+    }
+
+    // Rate rows built so far
+    public static int getCachedRowCount() {
+        int count = 0;
+        for (int step = 0; step <= MAX_RATE_STEP; step++) {
+            if (ROWS.get(step) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    //------------------------------------- Helper classes/ methods -------------------------------------//
+
+    private static double formula(double annualRate, int months) {
+        double monthlyInterestRate = annualRate / 12;
+        return 1 - Math.pow(1 + monthlyInterestRate, -months);
+    }
+
+    // Racing threads build identical rows, so whichever lands first is kept
+    private static double[] buildRow(int step) {
+        double annualRate = step / (double) STEPS_PER_UNIT;
+        double[] row = new double[MAX_TERM + 1];
+        for (int months = 1; months <= MAX_TERM; months++) {
+            row[months] = formula(annualRate, months);
+        }
+        return ROWS.compareAndSet(step, null, row) ? row : ROWS.get(step);
+    }
+}
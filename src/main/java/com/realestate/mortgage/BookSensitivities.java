@@ -0,0 +1,83 @@
+package com.realestate.mortgage;
+
+// Sensitivities of a whole book as primitive columns aligned with the input list, plus book totals
+public final class BookSensitivities {
+    private final double[] presentValues;
+    private final double[] modifiedDurations;
+    private final double[] convexities;
+    private final double[] totalInterest;
+    private final double[] totalInterestDeltas;
+    private final double[] totalInterestGammas;
+
+    BookSensitivities(int size) {
+        this.presentValues = new double[size];
+        this.modifiedDurations = new double[size];
+        this.convexities = new double[size];
+        this.totalInterest = new double[size];
+        this.totalInterestDeltas = new double[size];
+        this.totalInterestGammas = new double[size];
+    }
+
+    void set(int k, Sensitivities sensitivities) {
+        presentValues[k] = sensitivities.getPresentValue();
+        modifiedDurations[k] = sensitivities.getModifiedDuration();
+        convexities[k] = sensitivities.getConvexity();
+        totalInterest[k] = sensitivities.getTotalInterest();
+        totalInterestDeltas[k] = sensitivities.getTotalInterestDelta();
+        totalInterestGammas[k] = sensitivities.getTotalInterestGamma();
+    }
+
+    public int size() {
+        return presentValues.length;
+    }
+
+    public double getPresentValue(int k) {
+        return presentValues[k];
+    }
+
+    public double getModifiedDuration(int k) {
+        return modifiedDurations[k];
+    }
+
+    public double getConvexity(int k) {
+        return convexities[k];
+    }
+
+    public double getDV01(int k) {
+        return modifiedDurations[k] * presentValues[k] * 0.0001;
+    }
+
+    public double getTotalInterest(int k) {
+        return totalInterest[k];
+    }
+
+    public double getTotalInterestDelta(int k) {
+        return totalInterestDeltas[k];
+    }
+
+    public double getTotalInterestGamma(int k) {
+        return totalInterestGammas[k];
+    }
+
+    public double getTotalPresentValue() {
+        double total = 0;
+        for (double value : presentValues) {
+            total += value;
+        }
+        return total;
+    }
+
+    public double getTotalDV01() {
+        double total = 0;
+        for (int k = 0; k < size(); k++) {
+            total += getDV01(k);
+        }
+        return total;
+    }
+
+    // PV-weighted modified duration of the book
+    public double getModifiedDuration() {
+        double totalPresentValue = getTotalPresentValue();
+        return totalPresentValue == 0 ? 0 : getTotalDV01() / (totalPresentValue * 0.0001);
+    }
+}
@@ -1,4 +1,8 @@
 package com.realestate.mortgage;
+import com.realestate.interest.RateSolver;
+import com.realestate.metrics.Metrics;
+import com.realestate.metrics.Operation;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -10,9 +14,13 @@ public class FixedRateMortgage extends AbstractMortgage{
         setTerm(term, termType);
     }
 
+    @Override
+    public MortgageSpec toSpec() {
+        return MortgageSpec.fixed(principal, interestRate, term);
+    }
+
     public double calculateMonthlyPayment() {
-        double monthlyInterestRate = interestRate / 12;
-        return principal * monthlyInterestRate / (1 - Math.pow(1 + monthlyInterestRate, -term));
+        return AnnuityFactors.payment(principal, interestRate, term);
     }
 
     public double calculateTotalInterest() {
@@ -25,6 +33,15 @@ public class FixedRateMortgage extends AbstractMortgage{
         return monthlyPayment * term;
     }
 
+    // Level payments let the solver work on the annuity equation directly instead of the full schedule
+    @Override
+    public double calculateAPR(double fees) {
+        if (fees < 0 || fees >= principal) {
+            throw new IllegalArgumentException("Fees must be non-negative and smaller than the principal.");
+        }
+        return RateSolver.effectiveAPR(principal, fees, calculateMonthlyPayment(), term, interestRate);
+    }
+
     public double calculateRemainingPayments(int monthsPaid) {
         checkMonthValidity(monthsPaid);
         double monthlyInterestRate = interestRate / 12;
@@ -46,29 +63,101 @@ public class FixedRateMortgage extends AbstractMortgage{
         return remainingPrincipal;
     }
 
+    @Override
+    protected double scheduledPayment(int month, double beginningBalance) {
+        return getBaseSchedule().getPayment(month);
+    }
+
+    /* Closed-form projection: between the months where the payment changes (extra payments starting, the lump sum,
+    a recast) the balance follows B_k = B(1 + r)^k - P((1 + r)^k - 1) / r, and the payoff month solves B_k = 0. */
+    @Override
+    protected double[] projectPrepayment(int fromMonth, double balance, PrepaymentScenario scenario) {
+        double monthlyInterestRate = interestRate / 12;
+        double payment = calculateMonthlyPayment();
+        double extra = scenario.getExtraMonthlyPayment();
+        int extraStart = extra > 0 ? scenario.getExtraStartMonth() : Integer.MAX_VALUE;
+        int lumpSumMonth = scenario.getLumpSum() > 0 ? scenario.getLumpSumMonth() : Integer.MAX_VALUE;
+        double interest = 0;
+        int month = fromMonth;
+
+        while (month <= term) {
+            double monthlyPayment = payment + (month >= extraStart ? extra : 0);
+            int segmentEnd = term;
+            if (extraStart > month) {
+                segmentEnd = Math.min(segmentEnd, extraStart - 1);
+            }
+            if (lumpSumMonth >= month) {
+                segmentEnd = Math.min(segmentEnd, lumpSumMonth);
+            }
+            int months = segmentEnd - month + 1;
+
+            int monthsToPayoff = monthsToPayoff(balance, monthlyInterestRate, monthlyPayment);
+            if (monthsToPayoff <= months) {
+                double lastBalance = balanceAfter(balance, monthlyInterestRate, monthlyPayment, monthsToPayoff - 1);
+                interest += (monthsToPayoff - 1) * monthlyPayment + lastBalance * (1 + monthlyInterestRate) - balance;
+                return new double[]{month + monthsToPayoff - 1, interest, payment};
+            }
+            double endBalance = balanceAfter(balance, monthlyInterestRate, monthlyPayment, months);
+            interest += months * monthlyPayment - (balance - endBalance);
+            balance = endBalance;
+            month = segmentEnd + 1;
+
+            if (segmentEnd == lumpSumMonth) {
+                balance -= scenario.getLumpSum();
+                if (balance <= PAYOFF_TOLERANCE) {
+                    return new double[]{lumpSumMonth, interest, payment};
+                }
+                if (scenario.isRecast() && month <= term) {
+                    payment = AnnuityFactors.payment(balance, interestRate, term - lumpSumMonth);
+                }
+            }
+        }
+        return new double[]{term, interest, payment};
+    }
+
+    private static double balanceAfter(double balance, double monthlyInterestRate, double payment, int months) {
+        double growth = Math.pow(1 + monthlyInterestRate, months);
+        return balance * growth - payment * (growth - 1) / monthlyInterestRate;
+    }
+
+    // Number of payments needed to clear the balance (the last one may be partial)
+    private static int monthsToPayoff(double balance, double monthlyInterestRate, double payment) {
+        double ratio = 1 - monthlyInterestRate * balance / payment;
+        if (ratio <= 0) {
+            return Integer.MAX_VALUE;
+        }
+        double months = -Math.log(ratio) / Math.log1p(monthlyInterestRate);
+        return (int) Math.max(1, Math.ceil(months - 1e-9));
+    }
+
     public List<AmortizationEntry> generateAmortizationSchedule() {
-        List<AmortizationEntry> schedule = new ArrayList<>();
+        return Metrics.timed(Operation.SCHEDULE_GENERATION, term, () -> buildAmortizationSchedule());
+    }
 
+    @Override
+    boolean hasLevelPayment() {
+        return true;
+    }
+
+    // Level payment, so the payment is computed once rather than re-amortized every month
+    @Override
+    public void streamSchedule(ScheduleSink sink) {
         double currentBalance = principal;
         double monthlyPayment = calculateMonthlyPayment();
 
-        for (int i = 0; i < term; i++) {
+        for (int month = 1; month <= term; month++) {
             double interestForTheMonth = currentBalance * (interestRate / 12);
             double principalForTheMonth = monthlyPayment - interestForTheMonth;
             double endingBalance = currentBalance - principalForTheMonth;
-
-            AmortizationEntry entry = new AmortizationEntry();
-            entry.setBeginningBalance(currentBalance);
-            entry.setPayment(monthlyPayment);
-            entry.setInterestPaid(interestForTheMonth);
-            entry.setPrincipalPaid(principalForTheMonth);
-            entry.setEndingBalance(endingBalance);
-
-            schedule.add(entry);
-
+            sink.accept(month, currentBalance, monthlyPayment, interestForTheMonth, principalForTheMonth, endingBalance);
             currentBalance = endingBalance;
         }
+    }
 
+    private List<AmortizationEntry> buildAmortizationSchedule() {
+        List<AmortizationEntry> schedule = new ArrayList<>(term);
+        streamSchedule((month, beginningBalance, payment, interestPaid, principalPaid, endingBalance) ->
+                schedule.add(new AmortizationEntry(beginningBalance, payment, interestPaid, principalPaid, endingBalance)));
         return schedule;
     }
 }
@@ -0,0 +1,185 @@
+package com.realestate.mortgage;
+
+import com.realestate.mortgage.AbstractMortgage.AmortizationEntry;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/* Read-only amortization schedule that computes rows on access instead of materializing the whole term. The
+beginning balance is memoized at checkpoints (month 1, every K months after that, and every month where the rate
+resets), so a random access walks at most K months from the nearest checkpoint; checkpoints are filled in the
+first time something past them is read. Iteration walks the schedule sequentially in O(1) per row.
+
+Rows match generateAmortizationSchedule() / streamSchedule() exactly. The view captures the loan's terms when it
+is created, so later changes to the mortgage are not reflected (AbstractMortgage.getScheduleView() hands out a
+fresh view after a change). Months are 1-based in the getters and 0-based in get(index) like any List; entries
+returned by get() are fresh copies. */
+public final class LazySchedule extends AbstractList<AmortizationEntry> implements RandomAccess {
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 12;
+
+    private final double principal;
+    private final int term;
+    private final boolean levelPayment;
+    private final double payment; // Only used with a level payment
+    private final int[] segmentStarts; // First month of each constant-rate segment
+    private final double[] segmentRates;
+    private final int[] checkpointMonths;
+    private final double[] checkpointBalances;
+    private int computedCheckpoints = 1; // Checkpoints [0, computedCheckpoints) are filled in
+
+    LazySchedule(AbstractMortgage mortgage, int checkpointInterval) {
+        if (checkpointInterval <= 0) {
+            throw new IllegalArgumentException("Checkpoint interval must be greater than 0.");
+        }
+        this.principal = mortgage.getPrincipal();
+        this.term = mortgage.getTerm();
+        this.levelPayment = mortgage.hasLevelPayment();
+        this.payment = levelPayment ? mortgage.calculateMonthlyPayment() : Double.NaN;
+
+        int[] resets = mortgage.rateResetMonths();
+        segmentStarts = new int[resets.length + 1];
+        segmentRates = new double[resets.length + 1];
+        segmentStarts[0] = 1;
+        System.arraycopy(resets, 0, segmentStarts, 1, resets.length);
+        for (int s = 0; s < segmentStarts.length; s++) {
+            segmentRates[s] = mortgage.getRateForMonth(segmentStarts[s]);
+        }
+
+        // Regular checkpoints merged with the reset months
+        int[] months = new int[(term - 1) / checkpointInterval + 1 + resets.length];
+        int count = 0;
+        for (int month = 1; month <= term; month += checkpointInterval) {
+            months[count++] = month;
+        }
+        System.arraycopy(resets, 0, months, count, resets.length);
+        checkpointMonths = Arrays.stream(months).distinct().sorted().toArray();
+        checkpointBalances = new double[checkpointMonths.length];
+        checkpointBalances[0] = principal;
+    }
+
+    @Override
+    public int size() {
+        return term;
+    }
+
+    @Override
+    public AmortizationEntry get(int index) {
+        if (index < 0 || index >= term) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + term);
+        }
+        int month = index + 1;
+        double beginning = beginningBalance(month);
+        double interest = interest(month, beginning);
+        double monthlyPayment = payment(month, beginning);
+        return new AmortizationEntry(beginning, monthlyPayment, interest, monthlyPayment - interest,
+                beginning - (monthlyPayment - interest));
+    }
+
+    public double getBeginningBalance(int month) {
+        return beginningBalance(checkMonth(month));
+    }
+
+    public double getPayment(int month) {
+        return payment(checkMonth(month), beginningBalance(month));
+    }
+
+    public double getInterestPaid(int month) {
+        return interest(checkMonth(month), beginningBalance(month));
+    }
+
+    public double getPrincipalPaid(int month) {
+        double beginning = beginningBalance(checkMonth(month));
+        return payment(month, beginning) - interest(month, beginning);
+    }
+
+    public double getEndingBalance(int month) {
+        double beginning = beginningBalance(checkMonth(month));
+        return beginning - (payment(month, beginning) - interest(month, beginning));
+    }
+
+    // Sequential walk, one step per row
+    @Override
+    public Iterator<AmortizationEntry> iterator() {
+        return new Iterator<AmortizationEntry>() {
+            private int month = 1;
+            private double balance = principal;
+
+            @Override
+            public boolean hasNext() {
+                return month <= term;
+            }
+
+            @Override
+            public AmortizationEntry next() {
+                if (month > term) {
+                    throw new NoSuchElementException();
+                }
+                double interest = interest(month, balance);
+                double monthlyPayment = payment(month, balance);
+                double ending = balance - (monthlyPayment - interest);
+                AmortizationEntry entry = new AmortizationEntry(balance, monthlyPayment, interest, monthlyPayment - interest, ending);
+                balance = ending;
+                month++;
+                return entry;
+            }
+        };
+    }
+
+    // Checkpoints memoized so far (month 1 is always there)
+    public int getComputedCheckpointCount() {
+        return computedCheckpoints;
+    }
+
+    //------------------------------------- Helper classes/ methods -------------------------------------//
+
+    private int checkMonth(int month) {
+        if (month <= 0 || month > term) {
+            throw new IllegalArgumentException("Month must be between 1 and " + term + ".");
+        }
+        return month;
+    }
+
+    private double rate(int month) {
+        int s = Arrays.binarySearch(segmentStarts, month);
+        return segmentRates[s >= 0 ? s : -s - 2];
+    }
+
+    // Same arithmetic as the mortgages' own schedule walks, so results are bitwise identical
+    private double interest(int month, double beginningBalance) {
+        return beginningBalance * (rate(month) / 12);
+    }
+
+    private double payment(int month, double beginningBalance) {
+        return levelPayment ? payment : AnnuityFactors.payment(beginningBalance, rate(month), term - month + 1);
+    }
+
+    private double beginningBalance(int month) {
+        int c = Arrays.binarySearch(checkpointMonths, month);
+        if (c < 0) {
+            c = -c - 2;
+        }
+        return walk(checkpointMonths[c], checkpointBalance(c), month);
+    }
+
+    // Fills checkpoints up to c from the last filled one
+    private synchronized double checkpointBalance(int c) {
+        while (computedCheckpoints <= c) {
+            int previous = computedCheckpoints - 1;
+            checkpointBalances[computedCheckpoints] = walk(checkpointMonths[previous], checkpointBalances[previous],
+                    checkpointMonths[computedCheckpoints]);
+            computedCheckpoints++;
+        }
+        return checkpointBalances[c];
+    }
+
+    // Beginning balance of toMonth, given that of fromMonth
+    private double walk(int fromMonth, double balance, int toMonth) {
+        for (int month = fromMonth; month < toMonth; month++) {
+            balance -= payment(month, balance) - interest(month, balance);
+        }
+        return balance;
+    }
+}
@@ -0,0 +1,221 @@
+package com.realestate.mortgage;
+
+import com.realestate.mortgage.ARMMortgage.RateChange;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/* Columnar book of loans keyed by a numeric loan id, kept sorted by id. Rate paths use the CSR layout of
+MortgageBatch (resets of loan k are resetMonths/resetRates[resetOffsets[k] .. resetOffsets[k + 1])), so a tape
+feeds the batch kernels directly and can be cut into contiguous id ranges and shipped to another process. */
+public final class LoanTape {
+    // Shocked rates are floored here so the annuity formula stays defined
+    public static final double MIN_RATE = 0.0001;
+
+    private final long[] ids;
+    private final double[] principals;
+    private final double[] initialRates;
+    private final int[] terms;
+    private final int[] resetOffsets;
+    private final int[] resetMonths;
+    private final double[] resetRates;
+
+    public LoanTape(long[] ids, double[] principals, double[] initialRates, int[] terms,
+                    int[] resetOffsets, int[] resetMonths, double[] resetRates) {
+        int n = ids.length;
+        if (principals.length != n || initialRates.length != n || terms.length != n) {
+            throw new IllegalArgumentException("All loan arrays must have the same length.");
+        }
+        if (resetOffsets.length != n + 1 || resetMonths.length != resetRates.length
+                || resetOffsets[0] != 0 || resetOffsets[n] != resetMonths.length) {
+            throw new IllegalArgumentException("Reset offsets must have one slot per loan plus one and cover all resets.");
+        }
+        for (int k = 0; k < n; k++) {
+            if (principals[k] <= 0) {
+                throw new IllegalArgumentException("Principal cannot be negative or zero.");
+            }
+            if (initialRates[k] <= 0) {
+                throw new IllegalArgumentException("Initial rate cannot be negative or zero.");
+            }
+            if (terms[k] <= 0) {
+                throw new IllegalArgumentException("Term cannot be negative or zero.");
+            }
+            if (resetOffsets[k + 1] < resetOffsets[k]) {
+                throw new IllegalArgumentException("Reset offsets must be non-decreasing.");
+            }
+        }
+
+        // Sort by id, carrying each loan's rate path along
+        Integer[] order = IntStream.range(0, n).boxed().toArray(Integer[]::new);
+        Arrays.sort(order, Comparator.comparingLong(k -> ids[k]));
+        this.ids = new long[n];
+        this.principals = new double[n];
+        this.initialRates = new double[n];
+        this.terms = new int[n];
+        this.resetOffsets = new int[n + 1];
+        this.resetMonths = new int[resetMonths.length];
+        this.resetRates = new double[resetRates.length];
+        int r = 0;
+        for (int k = 0; k < n; k++) {
+            int source = order[k];
+            if (k > 0 && ids[source] == this.ids[k - 1]) {
+                throw new IllegalArgumentException("Duplicate loan id detected: " + ids[source]);
+            }
+            this.ids[k] = ids[source];
+            this.principals[k] = principals[source];
+            this.initialRates[k] = initialRates[source];
+            this.terms[k] = terms[source];
+            this.resetOffsets[k] = r;
+            for (int j = resetOffsets[source]; j < resetOffsets[source + 1]; j++, r++) {
+                this.resetMonths[r] = resetMonths[j];
+                this.resetRates[r] = resetRates[j];
+            }
+        }
+        this.resetOffsets[n] = r;
+    }
+
+    // Fixed-rate and adjustable specs, ids aligned with the list
+    public static LoanTape fromSpecs(long[] ids, List<MortgageSpec> specs) {
+        if (ids.length != specs.size()) {
+            throw new IllegalArgumentException("The size of the ids array and the specs list must be the same.");
+        }
+        int n = specs.size();
+        double[] principals = new double[n];
+        double[] rates = new double[n];
+        int[] terms = new int[n];
+        int[] offsets = new int[n + 1];
+        List<RateChange> changes = new ArrayList<>();
+        for (int k = 0; k < n; k++) {
+            MortgageSpec spec = specs.get(k);
+            principals[k] = spec.getPrincipal();
+            rates[k] = spec.getInterestRate();
+            terms[k] = spec.getTerm();
+            offsets[k] = changes.size();
+            changes.addAll(spec.getRateChanges());
+        }
+        offsets[n] = changes.size();
+        int[] months = new int[changes.size()];
+        double[] resetRates = new double[changes.size()];
+        for (int j = 0; j < changes.size(); j++) {
+            months[j] = changes.get(j).getMonth();
+            resetRates[j] = changes.get(j).getRate();
+        }
+        return new LoanTape(ids, principals, rates, terms, offsets, months, resetRates);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public long getId(int k) {
+        return ids[k];
+    }
+
+    public double getPrincipal(int k) {
+        return principals[k];
+    }
+
+    public double getInitialRate(int k) {
+        return initialRates[k];
+    }
+
+    public int getTerm(int k) {
+        return terms[k];
+    }
+
+    public int getResetCount() {
+        return resetMonths.length;
+    }
+
+    // Loans at positions [from, to), i.e. a contiguous id range
+    public LoanTape slice(int from, int to) {
+        if (from < 0 || to > size() || from > to) {
+            throw new IndexOutOfBoundsException("Slice [" + from + ", " + to + ") is outside of the tape.");
+        }
+        int[] offsets = new int[to - from + 1];
+        int base = resetOffsets[from];
+        for (int k = from; k <= to; k++) {
+            offsets[k - from] = resetOffsets[k] - base;
+        }
+        return new LoanTape(Arrays.copyOfRange(ids, from, to), Arrays.copyOfRange(principals, from, to),
+                Arrays.copyOfRange(initialRates, from, to), Arrays.copyOfRange(terms, from, to), offsets,
+                Arrays.copyOfRange(resetMonths, base, resetOffsets[to]), Arrays.copyOfRange(resetRates, base, resetOffsets[to]));
+    }
+
+    // Up to count contiguous id ranges with (nearly) equal loan counts; never returns empty shards
+    public List<LoanTape> shardByIdRange(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Shard count must be greater than 0.");
+        }
+        int shards = Math.min(count, Math.max(1, size()));
+        List<LoanTape> result = new ArrayList<>(shards);
+        for (int s = 0; s < shards; s++) {
+            int from = (int) ((long) size() * s / shards);
+            int to = (int) ((long) size() * (s + 1) / shards);
+            result.add(slice(from, to));
+        }
+        return result;
+    }
+
+    /* First payment, maximum payment and total interest per loan with every rate (initial and resets) moved by
+    shift, floored at MIN_RATE. Output arrays must hold size() entries. */
+    public void quote(double shift, double[] firstPaymentOut, double[] maxPaymentOut, double[] totalInterestOut) {
+        double[] shiftedInitial = new double[initialRates.length];
+        for (int k = 0; k < initialRates.length; k++) {
+            shiftedInitial[k] = Math.max(MIN_RATE, initialRates[k] + shift);
+        }
+        double[] shiftedResets = new double[resetRates.length];
+        for (int j = 0; j < resetRates.length; j++) {
+            shiftedResets[j] = Math.max(MIN_RATE, resetRates[j] + shift);
+        }
+        MortgageBatch.armQuotes(principals, shiftedInitial, terms, resetOffsets, resetMonths, shiftedResets,
+                firstPaymentOut, maxPaymentOut, totalInterestOut);
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        int n = size();
+        out.writeInt(n);
+        out.writeInt(resetMonths.length);
+        for (int k = 0; k < n; k++) {
+            out.writeLong(ids[k]);
+            out.writeDouble(principals[k]);
+            out.writeDouble(initialRates[k]);
+            out.writeInt(terms[k]);
+            out.writeInt(resetOffsets[k + 1] - resetOffsets[k]);
+        }
+        for (int j = 0; j < resetMonths.length; j++) {
+            out.writeInt(resetMonths[j]);
+            out.writeDouble(resetRates[j]);
+        }
+    }
+
+    public static LoanTape readFrom(DataInput in) throws IOException {
+        int n = in.readInt();
+        int resets = in.readInt();
+        long[] ids = new long[n];
+        double[] principals = new double[n];
+        double[] rates = new double[n];
+        int[] terms = new int[n];
+        int[] offsets = new int[n + 1];
+        for (int k = 0; k < n; k++) {
+            ids[k] = in.readLong();
+            principals[k] = in.readDouble();
+            rates[k] = in.readDouble();
+            terms[k] = in.readInt();
+            offsets[k + 1] = offsets[k] + in.readInt();
+        }
+        int[] months = new int[resets];
+        double[] resetRates = new double[resets];
+        for (int j = 0; j < resets; j++) {
+            months[j] = in.readInt();
+            resetRates[j] = in.readDouble();
+        }
+        return new LoanTape(ids, principals, rates, terms, offsets, months, resetRates);
+    }
+}
@@ -0,0 +1,83 @@
+package com.realestate.mortgage;
+
+import java.util.stream.IntStream;
+
+/* Primitive batch kernels for pricing many loans without creating mortgage objects. Inputs are aligned arrays
+(one slot per loan); rates are annual, terms are in months. ARM rate paths use a CSR layout: the resets of loan k
+are resetMonths/resetRates[resetOffsets[k] .. resetOffsets[k + 1]), sorted by month, with the same meaning as
+ARMMortgage.RateChange. Results match FixedRateMortgage and ARMMortgage up to floating-point rounding. */
+public class MortgageBatch {
+
+    // Below this size the kernels stay on the calling thread
+    private static final int PARALLEL_THRESHOLD = 4096;
+
+    public static void monthlyPayments(double[] principals, double[] annualRates, int[] terms, double[] paymentsOut) {
+        checkLengths(principals.length, annualRates.length, terms.length, paymentsOut.length);
+        range(principals.length).forEach(k -> paymentsOut[k] = AnnuityFactors.payment(principals[k], annualRates[k], terms[k]));
+    }
+
+    public static void totalInterest(double[] principals, double[] annualRates, int[] terms, double[] interestOut) {
+        monthlyPayments(principals, annualRates, terms, interestOut);
+        range(principals.length).forEach(k -> interestOut[k] = interestOut[k] * terms[k] - principals[k]);
+    }
+
+    /* ARM quotes: first payment, highest payment over the life of the loan and total interest. Each constant-rate
+    segment is re-amortized once and rolled forward in closed form, so the cost is O(resets) per loan. */
+    public static void armQuotes(double[] principals, double[] initialRates, int[] terms,
+                                 int[] resetOffsets, int[] resetMonths, double[] resetRates,
+                                 double[] firstPaymentOut, double[] maxPaymentOut, double[] totalInterestOut) {
+        int n = principals.length;
+        checkLengths(n, initialRates.length, terms.length, firstPaymentOut.length);
+        checkLengths(n, maxPaymentOut.length, totalInterestOut.length, n);
+        if (resetOffsets.length != n + 1 || resetMonths.length != resetRates.length) {
+            throw new IllegalArgumentException("Reset offsets must have one slot per loan plus one, and months and rates the same length.");
+        }
+        range(n).forEach(k -> {
+            int term = terms[k];
+            int next = resetOffsets[k];
+            int end = resetOffsets[k + 1];
+            double rate = initialRates[k];
+            while (next < end && resetMonths[next] <= 1) {
+                rate = resetRates[next++];
+            }
+
+            double balance = principals[k];
+            double interest = 0;
+            double firstPayment = 0;
+            double maxPayment = 0;
+            int month = 1;
+            while (month <= term) {
+                int segmentEnd = next < end ? Math.min(term, resetMonths[next] - 1) : term;
+                int months = segmentEnd - month + 1;
+                double monthlyInterestRate = rate / 12;
+                double payment = AnnuityFactors.payment(balance, rate, term - month + 1);
+                if (month == 1) {
+                    firstPayment = payment;
+                }
+                maxPayment = Math.max(maxPayment, payment);
+                double growth = Math.pow(1 + monthlyInterestRate, months);
+                double endBalance = balance * growth - payment * (growth - 1) / monthlyInterestRate;
+                interest += months * payment - (balance - endBalance);
+                balance = endBalance;
+                month = segmentEnd + 1;
+                if (next < end) {
+                    rate = resetRates[next++];
+                }
+            }
+            firstPaymentOut[k] = firstPayment;
+            maxPaymentOut[k] = maxPayment;
+            totalInterestOut[k] = interest;
+        });
+    }
+
+    private static void checkLengths(int n, int a, int b, int out) {
+        if (a != n || b != n || out < n) {
+            throw new IllegalArgumentException("All batch arrays must have the same length.");
+        }
+    }
+
+    private static IntStream range(int n) {
+        IntStream range = IntStream.range(0, n);
+        return n >= PARALLEL_THRESHOLD ? range.parallel() : range;
+    }
+}
@@ -0,0 +1,162 @@
+package com.realestate.mortgage;
+
+import com.realestate.mortgage.ARMMortgage.RateChange;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/* Immutable description of a loan's terms: principal, initial rate, term in months and (for ARMs) the rate path.
+Specs are safe to share between threads. intern() canonicalizes identical terms to one instance,
+and getSchedule() memoizes the amortization table on that instance, so every worker pricing the same rate-sheet
+loan reuses one schedule. The intern pool is unbounded; use it for repeating terms (rate sheets, products), not
+for one-off loans, and clearInternPool() when the sheet changes. */
+public final class MortgageSpec {
+    private static final ConcurrentHashMap<MortgageSpec, MortgageSpec> internPool = new ConcurrentHashMap<>();
+
+    private final double principal;
+    private final double interestRate;
+    private final int term; // in months
+    private final int[] resetMonths;
+    private final double[] resetRates;
+    private final int hash;
+    private volatile AmortizationTable schedule; // Memoized under the spec's lock, so every caller gets one table
+
+    private MortgageSpec(double principal, double interestRate, int term, int[] resetMonths, double[] resetRates) {
+        if (principal <= 0) {
+            throw new IllegalArgumentException("Principal cannot be negative or zero.");
+        }
+        if (interestRate <= 0) {
+            throw new IllegalArgumentException("Initial rate cannot be negative or zero.");
+        }
+        if (term <= 0) {
+            throw new IllegalArgumentException("Term cannot be negative or zero.");
+        }
+        this.principal = principal;
+        this.interestRate = interestRate;
+        this.term = term;
+        this.resetMonths = resetMonths;
+        this.resetRates = resetRates;
+        this.hash = Objects.hash(principal, interestRate, term, Arrays.hashCode(resetMonths), Arrays.hashCode(resetRates));
+    }
+
+    public static MortgageSpec fixed(double principal, double interestRate, int termMonths) {
+        return new MortgageSpec(principal, interestRate, termMonths, new int[0], new double[0]);
+    }
+
+    // Rate changes are copied and sorted; the caller's list is never touched
+    public static MortgageSpec adjustable(double principal, double interestRate, int termMonths, List<RateChange> rateChanges) {
+        List<RateChange> sorted = new ArrayList<>(rateChanges);
+        sorted.sort(Comparator.comparingInt(RateChange::getMonth));
+        int[] months = new int[sorted.size()];
+        double[] rates = new double[sorted.size()];
+        for (int i = 0; i < sorted.size(); i++) {
+            RateChange rc = sorted.get(i);
+            if (rc.getMonth() < 0 || rc.getMonth() > termMonths) {
+                throw new IllegalArgumentException("RateChange month is outside of the mortgage term range.");
+            }
+            if (i > 0 && rc.getMonth() == months[i - 1]) {
+                throw new IllegalArgumentException("Duplicate rate change month detected: " + rc.getMonth());
+            }
+            months[i] = rc.getMonth();
+            rates[i] = rc.getRate();
+        }
+        return new MortgageSpec(principal, interestRate, termMonths, months, rates);
+    }
+
+    // Canonical instance for these terms
+    public MortgageSpec intern() {
+        MortgageSpec existing = internPool.putIfAbsent(this, this);
+        return existing != null ? existing : this;
+    }
+
+    public static int internPoolSize() {
+        return internPool.size();
+    }
+
+    public static void clearInternPool() {
+        internPool.clear();
+    }
+
+    public double getPrincipal() {
+        return principal;
+    }
+
+    public double getInterestRate() {
+        return interestRate;
+    }
+
+    public int getTerm() {
+        return term;
+    }
+
+    public boolean isAdjustable() {
+        return resetMonths.length > 0;
+    }
+
+    public List<RateChange> getRateChanges() {
+        List<RateChange> rateChanges = new ArrayList<>(resetMonths.length);
+        for (int i = 0; i < resetMonths.length; i++) {
+            rateChanges.add(new RateChange(resetMonths[i], resetRates[i]));
+        }
+        return Collections.unmodifiableList(rateChanges);
+    }
+
+    // New mutable mortgage object with these terms (FixedRateMortgage or ARMMortgage)
+    public AbstractMortgage toMortgage() {
+        if (isAdjustable()) {
+            return new ARMMortgage(principal, interestRate, term, "m", getRateChanges());
+        }
+        return new FixedRateMortgage(principal, interestRate, term, "m");
+    }
+
+    // Amortization schedule for these terms, computed once per instance
+    public AmortizationTable getSchedule() {
+        AmortizationTable table = schedule;
+        if (table == null) {
+            synchronized (this) {
+                table = schedule;
+                if (table == null) {
+                    table = toMortgage().getBaseSchedule();
+                    schedule = table;
+                }
+            }
+        }
+        return table;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MortgageSpec)) {
+            return false;
+        }
+        MortgageSpec other = (MortgageSpec) o;
+        return Double.compare(principal, other.principal) == 0
+                && Double.compare(interestRate, other.interestRate) == 0
+                && term == other.term
+                && Arrays.equals(resetMonths, other.resetMonths)
+                && Arrays.equals(resetRates, other.resetRates);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "MortgageSpec { " +
+                "Principal: " + principal +
+                ", Interest Rate: " + interestRate +
+                ", Term: " + term +
+                ", Rate Changes: " + getRateChanges() +
+                " }";
+    }
+}
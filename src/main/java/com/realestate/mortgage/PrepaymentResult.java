@@ -0,0 +1,56 @@
+package com.realestate.mortgage;
+
+import java.time.LocalDate;
+
+// Outcome of a PrepaymentScenario compared with the base schedule of the same mortgage
+public final class PrepaymentResult {
+    private final int payoffMonth;
+    private final double totalInterest;
+    private final double baseTotalInterest;
+    private final int baseTerm;
+    private final double finalMonthlyPayment;
+
+    PrepaymentResult(int payoffMonth, double totalInterest, double baseTotalInterest, int baseTerm, double finalMonthlyPayment) {
+        this.payoffMonth = payoffMonth;
+        this.totalInterest = totalInterest;
+        this.baseTotalInterest = baseTotalInterest;
+        this.baseTerm = baseTerm;
+        this.finalMonthlyPayment = finalMonthlyPayment;
+    }
+
+    // Month (1-based) of the last payment
+    public int getPayoffMonth() {
+        return payoffMonth;
+    }
+
+    // Payoff date given the date of the first payment
+    public LocalDate getPayoffDate(LocalDate firstPaymentDate) {
+        return firstPaymentDate.plusMonths(payoffMonth - 1L);
+    }
+
+    public double getTotalInterest() {
+        return totalInterest;
+    }
+
+    public double getInterestSaved() {
+        return baseTotalInterest - totalInterest;
+    }
+
+    public int getMonthsSaved() {
+        return baseTerm - payoffMonth;
+    }
+
+    // Scheduled payment (without extras) after the last divergence, e.g. the lower payment after a recast
+    public double getFinalMonthlyPayment() {
+        return finalMonthlyPayment;
+    }
+
+    @Override
+    public String toString() {
+        return "PrepaymentResult { " +
+                "Payoff Month: " + payoffMonth +
+                ", Total Interest: " + totalInterest +
+                ", Interest Saved: " + getInterestSaved() +
+                " }";
+    }
+}
@@ -0,0 +1,92 @@
+package com.realestate.mortgage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/* A "what if the borrower pays more" scenario: an extra amount added to every payment from extraStartMonth on,
+and/or a one-off lump sum paid together with the payment of lumpSumMonth. With recast the lender re-amortizes
+the remaining balance over the remaining term after the lump sum, which lowers the payment instead of
+shortening the loan. Months are 1-based. */
+public final class PrepaymentScenario {
+    private final double extraMonthlyPayment;
+    private final int extraStartMonth;
+    private final double lumpSum;
+    private final int lumpSumMonth;
+    private final boolean recast;
+
+    public PrepaymentScenario(double extraMonthlyPayment, int extraStartMonth, double lumpSum, int lumpSumMonth, boolean recast) {
+        if (extraMonthlyPayment < 0 || lumpSum < 0) {
+            throw new IllegalArgumentException("Extra payments cannot be negative.");
+        }
+        if (extraStartMonth <= 0 || lumpSumMonth <= 0) {
+            throw new IllegalArgumentException("Month cannot be negative or zero.");
+        }
+        this.extraMonthlyPayment = extraMonthlyPayment;
+        this.extraStartMonth = extraStartMonth;
+        this.lumpSum = lumpSum;
+        this.lumpSumMonth = lumpSumMonth;
+        this.recast = recast;
+    }
+
+    // Extra amount on every payment, starting with the first one
+    public static PrepaymentScenario extraMonthly(double extraMonthlyPayment) {
+        return new PrepaymentScenario(extraMonthlyPayment, 1, 0, 1, false);
+    }
+
+    public static PrepaymentScenario lumpSum(double lumpSum, int month) {
+        return new PrepaymentScenario(0, 1, lumpSum, month, false);
+    }
+
+    public static PrepaymentScenario lumpSumWithRecast(double lumpSum, int month) {
+        return new PrepaymentScenario(0, 1, lumpSum, month, true);
+    }
+
+    // Cartesian grid of extra monthly amounts x lump sums paid in the given month
+    public static List<PrepaymentScenario> grid(double[] extraMonthlyPayments, double[] lumpSums, int lumpSumMonth) {
+        List<PrepaymentScenario> scenarios = new ArrayList<>(extraMonthlyPayments.length * lumpSums.length);
+        for (double extra : extraMonthlyPayments) {
+            for (double lump : lumpSums) {
+                scenarios.add(new PrepaymentScenario(extra, 1, lump, lumpSumMonth, false));
+            }
+        }
+        return scenarios;
+    }
+
+    // First month in which this scenario pays something different from the base schedule (Integer.MAX_VALUE if none)
+    public int firstDivergentMonth() {
+        int month = Integer.MAX_VALUE;
+        if (extraMonthlyPayment > 0) {
+            month = extraStartMonth;
+        }
+        if (lumpSum > 0) {
+            month = Math.min(month, lumpSumMonth);
+        }
+        return month;
+    }
+
+    public double getExtraMonthlyPayment() {
+        return extraMonthlyPayment;
+    }
+
+    public int getExtraStartMonth() {
+        return extraStartMonth;
+    }
+
+    public double getLumpSum() {
+        return lumpSum;
+    }
+
+    public int getLumpSumMonth() {
+        return lumpSumMonth;
+    }
+
+    public boolean isRecast() {
+        return recast;
+    }
+
+    // Extra principal paid on top of the scheduled payment in the given month
+    public double extraFor(int month) {
+        double extra = month >= extraStartMonth ? extraMonthlyPayment : 0;
+        return month == lumpSumMonth ? extra + lumpSum : extra;
+    }
+}
@@ -0,0 +1,242 @@
+package com.realestate.mortgage;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+import java.util.function.ToIntFunction;
+
+/* Streaming group-by over amortization schedules. Rows are folded into running sums per (group, month) as the
+schedule is generated (see AbstractMortgage.streamSchedule), so memory grows with groups × months, not with
+loans × months. Groups are plain ints chosen by the caller: a vintage year, a rate bucket, an ARM reset month, ...
+
+Cells live in an open-addressing table keyed by (group << 32 | month) with the sums in one flat double array, so
+there is no boxing and no per-cell object. An aggregator is not thread-safe: parallel runs build one per thread and
+merge() them at the end, which aggregate() does for a whole book. */
+public class ScheduleAggregator {
+
+    public enum Measure {
+        BEGINNING_BALANCE,
+        PAYMENT,
+        INTEREST_PAID,
+        PRINCIPAL_PAID,
+        ENDING_BALANCE
+    }
+
+    // Group for rollups that collapse everything, e.g. cash flow by month over the whole book
+    public static final int ALL = 0;
+
+    private static final int MEASURES = Measure.values().length;
+    private static final long EMPTY = Long.MIN_VALUE; // Month 0 of group Integer.MIN_VALUE, never a real key
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int PARALLEL_THRESHOLD = 64;
+
+    private long[] keys;
+    private double[] sums; // MEASURES per slot
+    private long[] counts;
+    private int mask;
+    private int size;
+    private long loanCount;
+
+    public ScheduleAggregator() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    // Every loan of the book under the group returned for it, in parallel partials for larger books
+    public static ScheduleAggregator aggregate(List<? extends AbstractMortgage> book, ToIntFunction<? super AbstractMortgage> grouping) {
+        if (book.size() < PARALLEL_THRESHOLD) {
+            ScheduleAggregator aggregator = new ScheduleAggregator();
+            for (AbstractMortgage mortgage : book) {
+                aggregator.add(grouping.applyAsInt(mortgage), mortgage);
+            }
+            return aggregator;
+        }
+        return book.parallelStream().collect(ScheduleAggregator::new,
+                (aggregator, mortgage) -> aggregator.add(grouping.applyAsInt(mortgage), mortgage),
+                ScheduleAggregator::merge);
+    }
+
+    // Rate buckets of the given width: bucket k holds note rates in [k * width, (k + 1) * width)
+    public static ToIntFunction<AbstractMortgage> byRateBucket(double width) {
+        if (width <= 0) {
+            throw new IllegalArgumentException("Bucket width cannot be negative or zero.");
+        }
+        return mortgage -> (int) Math.floor(mortgage.getInterestRate() / width + 1e-9);
+    }
+
+    // Month of the first rate reset; 0 for fixed-rate loans and ARMs without resets
+    public static ToIntFunction<AbstractMortgage> byFirstReset() {
+        return mortgage -> {
+            if (mortgage instanceof ARMMortgage) {
+                List<ARMMortgage.RateChange> changes = ((ARMMortgage) mortgage).getRateChanges();
+                return changes.isEmpty() ? 0 : changes.get(0).getMonth();
+            }
+            return 0;
+        };
+    }
+
+    public void add(int group, AbstractMortgage mortgage) {
+        loanCount++;
+        mortgage.streamSchedule(sinkFor(group));
+    }
+
+    // Sink folding rows into the given group, e.g. to aggregate schedules produced elsewhere
+    public ScheduleSink sinkFor(int group) {
+        return (month, beginningBalance, payment, interestPaid, principalPaid, endingBalance) -> {
+            int base = MEASURES * slot(key(group, month));
+            sums[base] += beginningBalance;
+            sums[base + 1] += payment;
+            sums[base + 2] += interestPaid;
+            sums[base + 3] += principalPaid;
+            sums[base + 4] += endingBalance;
+            counts[base / MEASURES]++;
+        };
+    }
+
+    // Adds other's cells into this one (other is left untouched)
+    public ScheduleAggregator merge(ScheduleAggregator other) {
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.keys[i] != EMPTY) {
+                int target = slot(other.keys[i]);
+                for (int m = 0; m < MEASURES; m++) {
+                    sums[MEASURES * target + m] += other.sums[MEASURES * i + m];
+                }
+                counts[target] += other.counts[i];
+            }
+        }
+        loanCount += other.loanCount;
+        return this;
+    }
+
+    // Same cells with groups mapped through regroup, e.g. rate buckets into coarser buckets or g -> ALL
+    public ScheduleAggregator rollup(IntUnaryOperator regroup) {
+        ScheduleAggregator result = new ScheduleAggregator();
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                int target = result.slot(key(regroup.applyAsInt(groupOf(keys[i])), monthOf(keys[i])));
+                for (int m = 0; m < MEASURES; m++) {
+                    result.sums[MEASURES * target + m] += sums[MEASURES * i + m];
+                }
+                result.counts[target] += counts[i];
+            }
+        }
+        result.loanCount = loanCount;
+        return result;
+    }
+
+    public ScheduleAggregator totals() {
+        return rollup(group -> ALL);
+    }
+
+    // Loans passed to add()
+    public long getLoanCount() {
+        return loanCount;
+    }
+
+    // Number of (group, month) cells
+    public int size() {
+        return size;
+    }
+
+    public int[] getGroups() {
+        return Arrays.stream(keys).filter(key -> key != EMPTY).mapToInt(ScheduleAggregator::groupOf).distinct().sorted().toArray();
+    }
+
+    public double get(int group, int month, Measure measure) {
+        int slot = find(key(group, month));
+        return slot < 0 ? 0 : sums[MEASURES * slot + measure.ordinal()];
+    }
+
+    // Rows (i.e. loans still amortizing) that went into a cell
+    public long getCount(int group, int month) {
+        int slot = find(key(group, month));
+        return slot < 0 ? 0 : counts[slot];
+    }
+
+    // Values of one group by month; index 0 is month 1, up to the group's last month
+    public double[] getSeries(int group, Measure measure) {
+        int lastMonth = 0;
+        for (long key : keys) {
+            if (key != EMPTY && groupOf(key) == group) {
+                lastMonth = Math.max(lastMonth, monthOf(key));
+            }
+        }
+        double[] series = new double[lastMonth];
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY && groupOf(keys[i]) == group) {
+                series[monthOf(keys[i]) - 1] = sums[MEASURES * i + measure.ordinal()];
+            }
+        }
+        return series;
+    }
+
+    //------------------------------------- Helper classes/ methods -------------------------------------//
+
+    private static long key(int group, int month) {
+        return ((long) group << 32) | (month & 0xFFFFFFFFL);
+    }
+
+    private static int groupOf(long key) {
+        return (int) (key >>> 32);
+    }
+
+    private static int monthOf(long key) {
+        return (int) key;
+    }
+
+    private int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private int find(long key) {
+        for (int i = hash(key); ; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return i;
+            }
+            if (keys[i] == EMPTY) {
+                return -1;
+            }
+        }
+    }
+
+    // Slot of key, inserting an empty cell if needed (linear probing, at most half full)
+    private int slot(long key) {
+        for (int i = hash(key); ; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return i;
+            }
+            if (keys[i] == EMPTY) {
+                if (2 * (size + 1) > keys.length) {
+                    grow();
+                    return slot(key);
+                }
+                keys[i] = key;
+                size++;
+                return i;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        sums = new double[MEASURES * capacity];
+        counts = new long[capacity];
+        mask = capacity - 1;
+        size = 0;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        double[] oldSums = sums;
+        long[] oldCounts = counts;
+        allocate(2 * oldKeys.length);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int target = slot(oldKeys[i]);
+                System.arraycopy(oldSums, MEASURES * i, sums, MEASURES * target, MEASURES);
+                counts[target] = oldCounts[i];
+            }
+        }
+    }
+}
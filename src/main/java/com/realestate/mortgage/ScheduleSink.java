@@ -0,0 +1,7 @@
+package com.realestate.mortgage;
+
+// Receives one amortization row at a time (months are 1-based), see AbstractMortgage.streamSchedule
+@FunctionalInterface
+public interface ScheduleSink {
+    void accept(int month, double beginningBalance, double payment, double interestPaid, double principalPaid, double endingBalance);
+}
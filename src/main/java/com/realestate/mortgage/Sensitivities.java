@@ -0,0 +1,75 @@
+package com.realestate.mortgage;
+
+/* Value and rate sensitivities of one loan. Yield measures treat the scheduled payments as fixed cash flows
+discounted monthly at an annual yield; the total-interest derivatives are with respect to a parallel shift of the
+note rate (all rates of an ARM move together). */
+public final class Sensitivities {
+    private final double presentValue;
+    private final double macaulayDuration;
+    private final double modifiedDuration;
+    private final double convexity;
+    private final double totalInterest;
+    private final double totalInterestDelta;
+    private final double totalInterestGamma;
+
+    Sensitivities(double presentValue, double macaulayDuration, double modifiedDuration, double convexity,
+                  double totalInterest, double totalInterestDelta, double totalInterestGamma) {
+        this.presentValue = presentValue;
+        this.macaulayDuration = macaulayDuration;
+        this.modifiedDuration = modifiedDuration;
+        this.convexity = convexity;
+        this.totalInterest = totalInterest;
+        this.totalInterestDelta = totalInterestDelta;
+        this.totalInterestGamma = totalInterestGamma;
+    }
+
+    public double getPresentValue() {
+        return presentValue;
+    }
+
+    // In years
+    public double getMacaulayDuration() {
+        return macaulayDuration;
+    }
+
+    // -(dPV/dy) / PV, in years
+    public double getModifiedDuration() {
+        return modifiedDuration;
+    }
+
+    // (d2PV/dy2) / PV
+    public double getConvexity() {
+        return convexity;
+    }
+
+    // Change in present value for a one basis point rise in yield (positive for a price drop)
+    public double getDV01() {
+        return modifiedDuration * presentValue * 0.0001;
+    }
+
+    public double getTotalInterest() {
+        return totalInterest;
+    }
+
+    // d(total interest) / d(note rate)
+    public double getTotalInterestDelta() {
+        return totalInterestDelta;
+    }
+
+    // d2(total interest) / d(note rate)2
+    public double getTotalInterestGamma() {
+        return totalInterestGamma;
+    }
+
+    @Override
+    public String toString() {
+        return "Sensitivities { " +
+                "PV: " + presentValue +
+                ", Modified Duration: " + modifiedDuration +
+                ", Convexity: " + convexity +
+                ", DV01: " + getDV01() +
+                ", Total Interest: " + totalInterest +
+                ", Interest Delta: " + totalInterestDelta +
+                " }";
+    }
+}
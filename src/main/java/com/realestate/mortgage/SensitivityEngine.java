@@ -0,0 +1,114 @@
+package com.realestate.mortgage;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/* Computes value, duration, convexity, DV01 and the first and second derivative of total interest with respect to
+the note rate in a single amortization pass. The balance is carried as a truncated Taylor triple
+(value, d/ds, d2/ds2) in the rate shift s, so no bumped mortgages or extra schedules are needed.
+
+Every month re-amortizes the balance over the remaining term at that month's rate (ARMMortgage's rule). For a
+level-payment loan this yields the same payment and the same derivatives as holding the payment fixed. */
+public class SensitivityEngine {
+
+    private static final int PARALLEL_THRESHOLD = 256;
+
+    // annualYield is the yield used to discount the scheduled payments (monthly compounding)
+    public static Sensitivities compute(AbstractMortgage mortgage, double annualYield) {
+        if (annualYield <= -12) {
+            throw new IllegalArgumentException("Yield must be greater than -1200%.");
+        }
+        int term = mortgage.getTerm();
+        double monthlyYield = annualYield / 12;
+        double discountStep = 1 / (1 + monthlyYield);
+
+        // Balance and its derivatives with respect to the rate shift
+        double balance = mortgage.getPrincipal();
+        double balance1 = 0;
+        double balance2 = 0;
+        double interest = 0;
+        double interest1 = 0;
+        double interest2 = 0;
+
+        double discount = 1;
+        double presentValue = 0;
+        double weightedTime = 0;  // sum of t * CF_t * v^t
+        double weightedTime2 = 0; // sum of t(t+1) * CF_t * v^t
+
+        for (int month = 1; month <= term; month++) {
+            double i = mortgage.getRateForMonth(month) / 12;
+            int remaining = term - month + 1;
+
+            // g(i) = i / (1 - (1+i)^-n) and its derivatives with respect to i
+            double a = Math.pow(1 + i, -remaining);
+            double a1 = -remaining * a / (1 + i);
+            double a2 = remaining * (remaining + 1.0) * a / ((1 + i) * (1 + i));
+            double d = 1 - a;
+            double d1 = -a1;
+            double d2 = -a2;
+            double g = i / d;
+            double n = d - i * d1;
+            double g1 = n / (d * d);
+            double g2 = (-i * d2 * d - 2 * n * d1) / (d * d * d);
+            // Chain rule for di/ds = 1/12
+            double gs = g1 / 12;
+            double gss = g2 / 144;
+
+            double payment = balance * g;
+            double payment1 = balance1 * g + balance * gs;
+            double payment2 = balance2 * g + 2 * balance1 * gs + balance * gss;
+
+            double monthInterest = balance * i;
+            double monthInterest1 = balance1 * i + balance / 12;
+            double monthInterest2 = balance2 * i + 2 * balance1 / 12;
+
+            interest += monthInterest;
+            interest1 += monthInterest1;
+            interest2 += monthInterest2;
+
+            balance += monthInterest - payment;
+            balance1 += monthInterest1 - payment1;
+            balance2 += monthInterest2 - payment2;
+
+            discount *= discountStep;
+            double discounted = payment * discount;
+            presentValue += discounted;
+            weightedTime += month * discounted;
+            weightedTime2 += month * (month + 1.0) * discounted;
+        }
+
+        // dPV/dy = -sum(t/12 * CF_t * v^(t+1)), d2PV/dy2 = sum(t(t+1)/144 * CF_t * v^(t+2))
+        double pvSlope = -weightedTime * discountStep / 12;
+        double pvCurvature = weightedTime2 * discountStep * discountStep / 144;
+        double macaulayDuration = weightedTime / presentValue / 12;
+        double modifiedDuration = -pvSlope / presentValue;
+        double convexity = pvCurvature / presentValue;
+        return new Sensitivities(presentValue, macaulayDuration, modifiedDuration, convexity, interest, interest1, interest2);
+    }
+
+    // Discounts each loan at its own note rate
+    public static Sensitivities compute(AbstractMortgage mortgage) {
+        return compute(mortgage, mortgage.getInterestRate());
+    }
+
+    public static BookSensitivities computeBook(List<? extends AbstractMortgage> book, double annualYield) {
+        BookSensitivities result = new BookSensitivities(book.size());
+        range(book.size()).forEach(k -> result.set(k, compute(book.get(k), annualYield)));
+        return result;
+    }
+
+    // annualYields aligned with the book
+    public static BookSensitivities computeBook(List<? extends AbstractMortgage> book, double[] annualYields) {
+        if (annualYields.length != book.size()) {
+            throw new IllegalArgumentException("The size of the book and the yields array must be the same.");
+        }
+        BookSensitivities result = new BookSensitivities(book.size());
+        range(book.size()).forEach(k -> result.set(k, compute(book.get(k), annualYields[k])));
+        return result;
+    }
+
+    private static IntStream range(int n) {
+        IntStream range = IntStream.range(0, n);
+        return n >= PARALLEL_THRESHOLD ? range.parallel() : range;
+    }
+}
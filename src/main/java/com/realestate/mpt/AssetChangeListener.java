@@ -0,0 +1,8 @@
+package com.realestate.mpt;
+
+// Notified by RealEstateAsset when its expected return changes, whether set directly or derived again by a setter
+@FunctionalInterface
+public interface AssetChangeListener {
+
+    void expectedReturnChanged(RealEstateAsset asset, double previousReturn, double newReturn);
+}
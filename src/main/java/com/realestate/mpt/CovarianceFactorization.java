@@ -0,0 +1,276 @@
+package com.realestate.mpt;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.EigenDecomposition;
+
+import java.util.Arrays;
+
+/* Factorization of a covariance matrix, built once and shared by every query until the covariance changes
+(MPT.covarianceFactorization() drops it together with the covariance).
+
+Pivoted Cholesky: P Σ P' = L L', taking the largest remaining diagonal as the pivot at each step. Sample
+covariances are often only positive semi-definite (fewer periods than assets) or slightly indefinite after
+cleaning, so once every remaining pivot is below relativeTolerance * max Σ_ii, the rest of the matrix is treated as
+numerically null and its Schur complement is replaced by that threshold times the identity. That is the smallest
+repair that leaves the well-determined directions untouched. getRank() tells how many pivots were real.
+The eigendecomposition is computed the first time something asks for it.
+
+Every operation writes into caller arrays and allocates nothing: solve and the factor products are O(n²), and the
+quadratic form reads the original matrix in one triangular pass. Immutable after construction, so it can be
+shared between threads. */
+public class CovarianceFactorization implements CovarianceOperator {
+    public static final double DEFAULT_RELATIVE_TOLERANCE = 1e-10;
+
+    private final double[][] matrix; // Shared, not copied
+    private final int n;
+    private final double[] factor;   // L packed by rows: L_ij at i(i+1)/2 + j
+    private final int[] pivots;      // Row k of L belongs to asset pivots[k]
+    private final int rank;
+    private final double repairShift;
+    private volatile EigenDecomposition eigenDecomposition;
+
+    public CovarianceFactorization(double[][] matrix) {
+        this(matrix, DEFAULT_RELATIVE_TOLERANCE);
+    }
+
+    public CovarianceFactorization(double[][] matrix, double relativeTolerance) {
+        if (relativeTolerance <= 0) {
+            throw new IllegalArgumentException("Tolerance cannot be negative or zero.");
+        }
+        this.n = matrix.length;
+        if (n == 0) {
+            throw new IllegalArgumentException("Covariance matrix cannot be empty.");
+        }
+        double maxDiagonal = 0;
+        for (int i = 0; i < n; i++) {
+            if (matrix[i].length != n) {
+                throw new IllegalArgumentException("Covariance matrix must be square.");
+            }
+            maxDiagonal = Math.max(maxDiagonal, matrix[i][i]);
+        }
+        if (!(maxDiagonal > 0)) {
+            throw new IllegalArgumentException("Covariance matrix cannot be zero.");
+        }
+        this.matrix = matrix;
+        this.repairShift = relativeTolerance * maxDiagonal;
+        this.pivots = new int[n];
+        this.factor = new double[n * (n + 1) / 2];
+        this.rank = factorize();
+    }
+
+    @Override
+    public int dimension() {
+        return n;
+    }
+
+    @Override
+    public double diagonal(int i) {
+        return matrix[i][i];
+    }
+
+    // out = Σx from the original matrix; x and out must be different arrays
+    @Override
+    public void multiply(double[] x, double[] out) {
+        for (int i = 0; i < n; i++) {
+            double[] row = matrix[i];
+            double sum = 0;
+            for (int j = 0; j < n; j++) {
+                sum += row[j] * x[j];
+            }
+            out[i] = sum;
+        }
+    }
+
+    // x'Σx over the lower triangle, no temporary vector
+    @Override
+    public double quadraticForm(double[] x) {
+        return DenseCovariance.quadraticForm(matrix, x, 0, n);
+    }
+
+    @Override
+    public void quadraticForms(double[][] x, int from, int to, double[] out) {
+        DenseCovariance.quadraticForms(matrix, x, from, to, out);
+    }
+
+    // Solves (repaired) Σ x = b; out may be the same array as b
+    public void solve(double[] b, double[] out) {
+        checkLength(b);
+        checkLength(out);
+        // Work in pivoted order in place: component k of the pivoted vectors lives at out[pivots[k]]
+        for (int k = 0; k < n; k++) {
+            int row = k * (k + 1) / 2;
+            double sum = b[pivots[k]];
+            for (int j = 0; j < k; j++) {
+                sum -= factor[row + j] * out[pivots[j]];
+            }
+            out[pivots[k]] = sum / factor[row + k];
+        }
+        for (int k = n - 1; k >= 0; k--) {
+            int row = k * (k + 1) / 2;
+            double value = out[pivots[k]] / factor[row + k];
+            out[pivots[k]] = value;
+            for (int j = 0; j < k; j++) {
+                out[pivots[j]] -= factor[row + j] * value;
+            }
+        }
+    }
+
+    // out = P'Lz, e.g. to turn independent standard normals into correlated returns; z and out must differ
+    public void multiplyByFactor(double[] z, double[] out) {
+        checkLength(z);
+        checkLength(out);
+        for (int k = 0; k < n; k++) {
+            int row = k * (k + 1) / 2;
+            double sum = 0;
+            for (int j = 0; j <= k; j++) {
+                sum += factor[row + j] * z[j];
+            }
+            out[pivots[k]] = sum;
+        }
+    }
+
+    // Pivots above the tolerance; n for a well-conditioned covariance
+    public int getRank() {
+        return rank;
+    }
+
+    public boolean isRepaired() {
+        return rank < n;
+    }
+
+    // Diagonal added to the numerically null part (relativeTolerance * max Σ_ii)
+    public double getRepairShift() {
+        return repairShift;
+    }
+
+    // log det of the repaired matrix
+    public double logDeterminant() {
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += Math.log(factor[k * (k + 1) / 2 + k]);
+        }
+        return 2 * sum;
+    }
+
+    // L_kj of the pivoted factor (0 above the diagonal)
+    public double getFactor(int k, int j) {
+        return j > k ? 0 : factor[k * (k + 1) / 2 + j];
+    }
+
+    public int[] getPivots() {
+        return pivots.clone();
+    }
+
+    // Eigendecomposition of the original matrix, computed on first use
+    public EigenDecomposition getEigenDecomposition() {
+        EigenDecomposition decomposition = eigenDecomposition;
+        if (decomposition == null) {
+            synchronized (this) {
+                decomposition = eigenDecomposition;
+                if (decomposition == null) {
+                    decomposition = new EigenDecomposition(new Array2DRowRealMatrix(matrix, false));
+                    eigenDecomposition = decomposition;
+                }
+            }
+        }
+        return decomposition;
+    }
+
+    // Largest first
+    public double[] getEigenvalues() {
+        double[] values = getEigenDecomposition().getRealEigenvalues().clone();
+        Arrays.sort(values);
+        for (int i = 0, j = values.length - 1; i < j; i++, j--) {
+            double value = values[i];
+            values[i] = values[j];
+            values[j] = value;
+        }
+        return values;
+    }
+
+    // λmax / λmin; infinite for a singular matrix
+    public double getConditionNumber() {
+        double[] values = getEigenvalues();
+        double smallest = values[values.length - 1];
+        return smallest <= 0 ? Double.POSITIVE_INFINITY : values[0] / smallest;
+    }
+
+    //------------------------------------- Helper classes/ methods -------------------------------------//
+
+    // Right-looking pivoted Cholesky on a full working copy; returns the number of real pivots
+    private int factorize() {
+        double[][] a = new double[n][];
+        for (int i = 0; i < n; i++) {
+            a[i] = matrix[i].clone();
+            pivots[i] = i;
+        }
+        int realPivots = n;
+        for (int k = 0; k < n; k++) {
+            int best = k;
+            for (int i = k + 1; i < n; i++) {
+                if (a[i][i] > a[best][best]) {
+                    best = i;
+                }
+            }
+            if (!(a[best][best] > repairShift)) {
+                realPivots = k;
+                break;
+            }
+            swap(a, k, best);
+            double pivot = Math.sqrt(a[k][k]);
+            a[k][k] = pivot;
+            for (int i = k + 1; i < n; i++) {
+                a[i][k] /= pivot;
+            }
+            for (int j = k + 1; j < n; j++) {
+                double ajk = a[j][k];
+                for (int i = j; i < n; i++) {
+                    a[i][j] -= a[i][k] * ajk;
+                }
+            }
+        }
+        // Trailing block: keep the computed columns, replace the remaining Schur complement by repairShift * I
+        double root = Math.sqrt(repairShift);
+        for (int k = 0; k < n; k++) {
+            int row = k * (k + 1) / 2;
+            for (int j = 0; j <= k; j++) {
+                factor[row + j] = j < realPivots ? a[k][j] : (j == k ? root : 0);
+            }
+        }
+        return realPivots;
+    }
+
+    // Symmetric swap of k < p, touching only the lower triangle (the only part the update keeps current)
+    private void swap(double[][] a, int k, int p) {
+        if (k == p) {
+            return;
+        }
+        for (int j = 0; j < k; j++) {
+            double value = a[k][j];
+            a[k][j] = a[p][j];
+            a[p][j] = value;
+        }
+        double diagonal = a[k][k];
+        a[k][k] = a[p][p];
+        a[p][p] = diagonal;
+        for (int i = k + 1; i < p; i++) {
+            double value = a[i][k];
+            a[i][k] = a[p][i];
+            a[p][i] = value;
+        }
+        for (int i = p + 1; i < n; i++) {
+            double value = a[i][k];
+            a[i][k] = a[i][p];
+            a[i][p] = value;
+        }
+        int pivot = pivots[k];
+        pivots[k] = pivots[p];
+        pivots[p] = pivot;
+    }
+
+    private void checkLength(double[] vector) {
+        if (vector.length != n) {
+            throw new IllegalArgumentException("Vector length must match the covariance dimension.");
+        }
+    }
+}
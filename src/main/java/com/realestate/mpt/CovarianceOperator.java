@@ -0,0 +1,33 @@
+package com.realestate.mpt;
+
+/* A covariance matrix seen only through Σx and its diagonal. The iterative optimizers and RiskDecomposition are
+written against this, so a dense matrix, a cached one or a factor model can be plugged in without forming Σ or
+its inverse. */
+public interface CovarianceOperator {
+
+    int dimension();
+
+    // Σ_ii, the variance of asset i
+    double diagonal(int i);
+
+    // out = Σx; x and out must be different arrays of length dimension()
+    void multiply(double[] x, double[] out);
+
+    // x'Σx
+    default double quadraticForm(double[] x) {
+        double[] product = new double[x.length];
+        multiply(x, product);
+        double value = 0;
+        for (int i = 0; i < x.length; i++) {
+            value += x[i] * product[i];
+        }
+        return value;
+    }
+
+    // out[c] = x[c]'Σx[c] for the rows c in [from, to) of x; dense implementations share each pass over Σ between rows
+    default void quadraticForms(double[][] x, int from, int to, double[] out) {
+        for (int c = from; c < to; c++) {
+            out[c] = quadraticForm(x[c]);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.realestate.mpt;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+// CovarianceOperator over a full n x n matrix. Σx runs over row blocks in parallel for large universes.
+public class DenseCovariance implements CovarianceOperator {
+    private static final int BLOCK_ROWS = 64;
+    private static final int PARALLEL_THRESHOLD = 256;
+
+    private final double[][] matrix;
+
+    // The matrix is shared, not copied
+    public DenseCovariance(double[][] matrix) {
+        for (double[] row : matrix) {
+            if (row.length != matrix.length) {
+                throw new IllegalArgumentException("Covariance matrix must be square.");
+            }
+        }
+        this.matrix = matrix;
+    }
+
+    @Override
+    public int dimension() {
+        return matrix.length;
+    }
+
+    @Override
+    public double diagonal(int i) {
+        return matrix[i][i];
+    }
+
+    @Override
+    public void multiply(double[] x, double[] out) {
+        int n = matrix.length;
+        int blocks = (n + BLOCK_ROWS - 1) / BLOCK_ROWS;
+        IntStream range = IntStream.range(0, blocks);
+        (n >= PARALLEL_THRESHOLD ? range.parallel() : range).forEach(block -> {
+            int end = Math.min(n, (block + 1) * BLOCK_ROWS);
+            for (int i = block * BLOCK_ROWS; i < end; i++) {
+                double[] row = matrix[i];
+                double sum = 0;
+                for (int j = 0; j < n; j++) {
+                    sum += row[j] * x[j];
+                }
+                out[i] = sum;
+            }
+        });
+    }
+
+    // x'Σx over the lower triangle without a temporary vector, row blocks summed in parallel for large universes
+    @Override
+    public double quadraticForm(double[] x) {
+        int n = matrix.length;
+        if (n < PARALLEL_THRESHOLD) {
+            return quadraticForm(matrix, x, 0, n);
+        }
+        int blocks = (n + BLOCK_ROWS - 1) / BLOCK_ROWS;
+        return IntStream.range(0, blocks).parallel()
+                .mapToDouble(block -> quadraticForm(matrix, x, block * BLOCK_ROWS, Math.min(n, (block + 1) * BLOCK_ROWS)))
+                .sum();
+    }
+
+    // Sequential; callers such as PortfolioBatch parallelize over blocks of rows of x instead
+    @Override
+    public void quadraticForms(double[][] x, int from, int to, double[] out) {
+        quadraticForms(matrix, x, from, to, out);
+    }
+
+    public double[][] getMatrix() {
+        return matrix;
+    }
+
+    // Contribution of rows [from, to) of the matrix to x'Σx
+    static double quadraticForm(double[][] matrix, double[] x, int from, int to) {
+        double value = 0;
+        for (int i = from; i < to; i++) {
+            double[] row = matrix[i];
+            double offDiagonal = 0;
+            for (int j = 0; j < i; j++) {
+                offDiagonal += row[j] * x[j];
+            }
+            value += x[i] * (row[i] * x[i] + 2 * offDiagonal);
+        }
+        return value;
+    }
+
+    /* x[c]'Σx[c] for c in [from, to), i.e. the diagonal of X Σ X' for that block of X. The lower triangle is read one
+    tile of BLOCK_ROWS rows at a time; each tile stays in cache while it is applied to every candidate, four at a time,
+    so each Σ_ij loaded from memory feeds four multiply-adds. */
+    static void quadraticForms(double[][] matrix, double[][] x, int from, int to, double[] out) {
+        int n = matrix.length;
+        Arrays.fill(out, from, to, 0.0);
+        for (int tileStart = 0; tileStart < n; tileStart += BLOCK_ROWS) {
+            int tileEnd = Math.min(n, tileStart + BLOCK_ROWS);
+            int c = from;
+            for (; c + 4 <= to; c += 4) {
+                double[] x0 = x[c];
+                double[] x1 = x[c + 1];
+                double[] x2 = x[c + 2];
+                double[] x3 = x[c + 3];
+                double q0 = 0;
+                double q1 = 0;
+                double q2 = 0;
+                double q3 = 0;
+                for (int i = tileStart; i < tileEnd; i++) {
+                    double[] row = matrix[i];
+                    double s0 = 0;
+                    double s1 = 0;
+                    double s2 = 0;
+                    double s3 = 0;
+                    for (int j = 0; j < i; j++) {
+                        double value = row[j];
+                        s0 += value * x0[j];
+                        s1 += value * x1[j];
+                        s2 += value * x2[j];
+                        s3 += value * x3[j];
+                    }
+                    double d = row[i];
+                    q0 += x0[i] * (d * x0[i] + 2 * s0);
+                    q1 += x1[i] * (d * x1[i] + 2 * s1);
+                    q2 += x2[i] * (d * x2[i] + 2 * s2);
+                    q3 += x3[i] * (d * x3[i] + 2 * s3);
+                }
+                out[c] += q0;
+                out[c + 1] += q1;
+                out[c + 2] += q2;
+                out[c + 3] += q3;
+            }
+            for (; c < to; c++) {
+                out[c] += quadraticForm(matrix, x[c], tileStart, tileEnd);
+            }
+        }
+    }
+}
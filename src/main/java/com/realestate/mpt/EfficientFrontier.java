@@ -0,0 +1,212 @@
+package com.realestate.mpt;
+
+import org.apache.commons.math3.optim.linear.NoFeasibleSolutionException;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/* Frontier of MPT.optimizedPortfolio(desiredRisk) over every risk level at once, kept current as expected returns
+change. That LP maximizes μ·w over the simplex with one linear risk row g·w <= b, g = 2Σw0 linearized at the
+portfolio's weights. An optimum needs at most two assets, and the best return for budget b is the upper concave hull
+of the points (g_i, μ_i) evaluated at b (flat beyond the best asset). So the whole frontier is the rising part of
+that hull, and a point on it is a binary search plus an interpolation.
+
+The frontier registers itself with the portfolio's assets. When an expected return changes, only that coefficient is
+updated and the hull is rebuilt in one O(n) pass over the order by g that was sorted up front (g does not depend on
+μ). That sorted order is the warm start for the next rebuild. After changing weights or histories, call refresh()
+to re-linearize and sort again. PortfolioConstraints are not covered; use MPT.optimizedPortfolio with them.
+
+The assets hold the frontier strongly until close() removes it, so a frontier that is dropped without being closed
+stays reachable from its assets (and keeps rebuilding on their changes) for as long as they live. Use it in
+try-with-resources or close it when done. */
+public final class EfficientFrontier implements AssetChangeListener, AutoCloseable {
+    private final MPT mpt;
+    private final List<RealEstateAsset> assets;
+    private final Map<RealEstateAsset, Integer> positions = new IdentityHashMap<>();
+    private final double[] expectedReturns;
+    private double[] riskCoefficients;
+    private int[] order;      // Assets by risk coefficient, then expected return
+    private int[] hull;       // Rising part of the upper hull, by increasing g
+    private int hullSize;
+    private long rebuildCount;
+    private boolean closed;
+
+    public EfficientFrontier(MPT mpt) {
+        this.mpt = mpt;
+        this.assets = mpt.getAssets();
+        if (assets.isEmpty()) {
+            throw new IllegalArgumentException("Portfolio cannot be empty.");
+        }
+        this.expectedReturns = new double[assets.size()];
+        for (int i = 0; i < assets.size(); i++) {
+            positions.put(assets.get(i), i);
+            expectedReturns[i] = assets.get(i).getExpectedReturn();
+        }
+        refresh();
+        for (RealEstateAsset asset : assets) {
+            asset.addChangeListener(this);
+        }
+    }
+
+    // Re-linearizes the risk row at the portfolio's current weights and covariance
+    public synchronized void refresh() {
+        mpt.historyCleaner();
+        riskCoefficients = mpt.linearizedPortfolioVarianceConstraint(mpt.getWeights());
+        double[] g = riskCoefficients;
+        order = IntStream.range(0, g.length).boxed()
+                .sorted(Comparator.<Integer>comparingDouble(i -> g[i]).thenComparingDouble(i -> expectedReturns[i]))
+                .mapToInt(Integer::intValue).toArray();
+        hull = new int[g.length];
+        rebuild();
+    }
+
+    @Override
+    public synchronized void expectedReturnChanged(RealEstateAsset asset, double previousReturn, double newReturn) {
+        Integer i = positions.get(asset);
+        if (i == null || closed) {
+            return;
+        }
+        expectedReturns[i] = newReturn;
+        // Ties on g are ordered by μ, so only the run of equal g around the asset can need reordering
+        int at = indexInOrder(i);
+        while (at > 0 && riskCoefficients[order[at - 1]] == riskCoefficients[i] && expectedReturns[order[at - 1]] > newReturn) {
+            order[at] = order[at - 1];
+            order[--at] = i;
+        }
+        while (at < order.length - 1 && riskCoefficients[order[at + 1]] == riskCoefficients[i] && expectedReturns[order[at + 1]] < newReturn) {
+            order[at] = order[at + 1];
+            order[++at] = i;
+        }
+        rebuild();
+    }
+
+    // Smallest feasible risk budget, the risk coefficient of the least risky asset
+    public synchronized double getMinRisk() {
+        return riskCoefficients[hull[0]];
+    }
+
+    // Budget beyond which the best return no longer improves (all in the highest-return asset)
+    public synchronized double getMaxRisk() {
+        return riskCoefficients[hull[hullSize - 1]];
+    }
+
+    // Optimal objective of optimizedPortfolio(desiredRisk)
+    public synchronized double maxExpectedReturn(double desiredRisk) {
+        int segment = segment(desiredRisk);
+        if (segment == hullSize - 1) {
+            return expectedReturns[hull[segment]];
+        }
+        double share = upperShare(segment, desiredRisk);
+        return (1 - share) * expectedReturns[hull[segment]] + share * expectedReturns[hull[segment + 1]];
+    }
+
+    public double[] maxExpectedReturns(double[] desiredRisks) {
+        double[] values = new double[desiredRisks.length];
+        for (int p = 0; p < desiredRisks.length; p++) {
+            values[p] = maxExpectedReturn(desiredRisks[p]);
+        }
+        return values;
+    }
+
+    // Optimal weights for the budget, aligned with MPT.getAssets(); at most two are non-zero
+    public synchronized double[] optimalWeights(double desiredRisk) {
+        int segment = segment(desiredRisk);
+        double[] weights = new double[assets.size()];
+        if (segment == hullSize - 1) {
+            weights[hull[segment]] = 1;
+        } else {
+            double share = upperShare(segment, desiredRisk);
+            weights[hull[segment]] = 1 - share;
+            weights[hull[segment + 1]] = share;
+        }
+        return weights;
+    }
+
+    // Assets on the frontier, from the least risky to the highest-return one
+    public synchronized List<RealEstateAsset> getVertices() {
+        return Arrays.stream(hull, 0, hullSize).mapToObj(assets::get).toList();
+    }
+
+    // Hull rebuilds so far, one per refresh() or expected-return change
+    public synchronized long getRebuildCount() {
+        return rebuildCount;
+    }
+
+    // Stops listening to the assets; the only way the assets let go of the frontier
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            for (RealEstateAsset asset : assets) {
+                asset.removeChangeListener(this);
+            }
+        }
+    }
+
+    //------------------------------------- Helper classes/ methods -------------------------------------//
+
+    // Monotone chain over the presorted order, stopped at the highest expected return
+    private void rebuild() {
+        double[] g = riskCoefficients;
+        double[] mu = expectedReturns;
+        hullSize = 0;
+        for (int p = 0; p < order.length; p++) {
+            int i = order[p];
+            if (p + 1 < order.length && g[order[p + 1]] == g[i]) {
+                continue; // Same risk, a better return follows
+            }
+            if (hullSize > 0 && mu[i] <= mu[hull[hullSize - 1]]) {
+                continue; // More risk for no more return never helps
+            }
+            while (hullSize >= 2) {
+                int a = hull[hullSize - 2];
+                int b = hull[hullSize - 1];
+                // Drop b unless it lies strictly above the chord from a to i
+                if ((mu[b] - mu[a]) * (g[i] - g[a]) > (mu[i] - mu[a]) * (g[b] - g[a])) {
+                    break;
+                }
+                hullSize--;
+            }
+            hull[hullSize++] = i;
+        }
+        rebuildCount++;
+    }
+
+    private int segment(double desiredRisk) {
+        double[] g = riskCoefficients;
+        if (desiredRisk < g[hull[0]]) {
+            throw new NoFeasibleSolutionException();
+        }
+        int low = 0;
+        int high = hullSize - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (g[hull[mid]] <= desiredRisk) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    // Weight of the right-hand vertex of the segment that spends exactly the budget
+    private double upperShare(int segment, double desiredRisk) {
+        double left = riskCoefficients[hull[segment]];
+        double right = riskCoefficients[hull[segment + 1]];
+        return (desiredRisk - left) / (right - left);
+    }
+
+    private int indexInOrder(int i) {
+        for (int p = 0; p < order.length; p++) {
+            if (order[p] == i) {
+                return p;
+            }
+        }
+        throw new IllegalStateException("Asset " + i + " is missing from the frontier order.");
+    }
+}
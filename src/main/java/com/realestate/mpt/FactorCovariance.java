@@ -0,0 +1,88 @@
+package com.realestate.mpt;
+
+import java.util.stream.IntStream;
+
+/* Factor-model covariance Σ = B F B' + D with n x k loadings B, a k x k factor covariance F and diagonal specific
+variances D. Σx costs O(nk) instead of O(n^2) and Σ is never formed. */
+public class FactorCovariance implements CovarianceOperator {
+    private static final int PARALLEL_THRESHOLD = 1024;
+
+    private final double[][] loadings;
+    private final double[][] factorCovariance;
+    private final double[] specificVariances;
+    private final int factors;
+
+    public FactorCovariance(double[][] loadings, double[][] factorCovariance, double[] specificVariances) {
+        if (loadings.length != specificVariances.length) {
+            throw new IllegalArgumentException("The number of loading rows and specific variances must be the same.");
+        }
+        this.factors = factorCovariance.length;
+        for (double[] row : loadings) {
+            if (row.length != factors) {
+                throw new IllegalArgumentException("Each loading row must have one entry per factor.");
+            }
+        }
+        for (double[] row : factorCovariance) {
+            if (row.length != factors) {
+                throw new IllegalArgumentException("Factor covariance matrix must be square.");
+            }
+        }
+        for (double variance : specificVariances) {
+            if (variance < 0) {
+                throw new IllegalArgumentException("Specific variance cannot be negative.");
+            }
+        }
+        this.loadings = loadings;
+        this.factorCovariance = factorCovariance;
+        this.specificVariances = specificVariances;
+    }
+
+    @Override
+    public int dimension() {
+        return specificVariances.length;
+    }
+
+    @Override
+    public double diagonal(int i) {
+        double[] b = loadings[i];
+        double sum = specificVariances[i];
+        for (int p = 0; p < factors; p++) {
+            double row = 0;
+            for (int q = 0; q < factors; q++) {
+                row += factorCovariance[p][q] * b[q];
+            }
+            sum += b[p] * row;
+        }
+        return sum;
+    }
+
+    @Override
+    public void multiply(double[] x, double[] out) {
+        int n = specificVariances.length;
+        // y = B'x, then z = F y
+        double[] y = new double[factors];
+        for (int i = 0; i < n; i++) {
+            double[] b = loadings[i];
+            for (int p = 0; p < factors; p++) {
+                y[p] += b[p] * x[i];
+            }
+        }
+        double[] z = new double[factors];
+        for (int p = 0; p < factors; p++) {
+            double sum = 0;
+            for (int q = 0; q < factors; q++) {
+                sum += factorCovariance[p][q] * y[q];
+            }
+            z[p] = sum;
+        }
+        IntStream range = IntStream.range(0, n);
+        (n >= PARALLEL_THRESHOLD ? range.parallel() : range).forEach(i -> {
+            double[] b = loadings[i];
+            double sum = specificVariances[i] * x[i];
+            for (int p = 0; p < factors; p++) {
+                sum += b[p] * z[p];
+            }
+            out[i] = sum;
+        });
+    }
+}
@@ -1,4 +1,7 @@
 package com.realestate.mpt;
+import com.realestate.metrics.Counter;
+import com.realestate.metrics.Metrics;
+import com.realestate.metrics.Operation;
 import org.apache.commons.math3.linear.*;
 import org.apache.commons.math3.optim.MaxIter;
 import org.apache.commons.math3.optim.PointValuePair;
@@ -9,13 +12,20 @@ import java.util.*;
 
 // MPT - Modern Portfolio Theory
 public class MPT {
-    private Map<RealEstateAsset, Double> assetsWeights; // Mapping of asset to its weight in the portfolio
+    private Map<RealEstateAsset, Double> assetsWeights; // Mapping of asset to its weight in the portfolio, in insertion order
+    private double[][] covarianceMatrix; // Cached; dropped whenever the asset set or the histories change
+    private CovarianceOperator covarianceOperator; // Cached view used by the volatility, gradient and optimizer kernels
+    private CovarianceFactorization covarianceFactorization; // Built on demand, dropped with the covariance
+    private boolean offHeapCovariance; // Keep returns and covariance off-heap, in packed-triangle form
+    private double[] lastOptimalWeights; // Result of the last optimization, kept for snapshots
+    private long historyStamp; // Sum of the assets' history versions when the caches were last known to be current
+    private long historyFingerprint; // Fingerprint of the histories as supplied, pinned before cleaning changes them; 0 = not pinned
     boolean cleanHistory; // Flags whether the historical returns of all assets in the portfolio have the same length
     String cleanMethod;
 
     // Default constructor, you can use addAsset to add more assets, cleanMethod provided
     public MPT(String cleanMethod) {
-        this.assetsWeights = new HashMap<>();
+        this.assetsWeights = new LinkedHashMap<>();
         cleanHistory = false;
         setClean(cleanMethod);
     }
@@ -26,8 +36,9 @@ public class MPT {
 //-----------
     // Constructor accepting a Map
     public MPT(Map<RealEstateAsset, Double> assetsWeights, String cleanMethod) {
-        this.assetsWeights = new HashMap<>(assetsWeights);
+        this.assetsWeights = new LinkedHashMap<>(assetsWeights);
         cleanHistory = PortfolioUtils.validateHistoricalReturnsLength(this.assetsWeights);
+        historyStamp = historyStamp();
         setClean(cleanMethod);
     }
 
@@ -41,11 +52,12 @@ public class MPT {
             throw new IllegalArgumentException("The size of assets list and weights list must be the same.");
         }
 
-        this.assetsWeights = new HashMap<>();
+        this.assetsWeights = new LinkedHashMap<>();
         for (int i = 0; i < assets.size(); i++) {
             this.assetsWeights.put(assets.get(i), weights.get(i));
         }
         cleanHistory = PortfolioUtils.validateHistoricalReturnsLength(assets);
+        historyStamp = historyStamp();
         setClean(cleanMethod);
     }
 
@@ -59,8 +71,41 @@ public class MPT {
     // The weight is the percentage of the portfolio that the asset comprises,
     // i.e. estimated value of the asset / total portfolio value. Use PortfolioUtils' helper function if needed
     public void addAsset(RealEstateAsset asset, double weight) {
-        assetsWeights.put(asset, weight);
-        cleanHistory = false;
+        if (assetsWeights.put(asset, weight) == null) {
+            cleanHistory = false;
+            historyStamp += asset.getHistoryVersion(); // Pending history changes of the other assets still show
+            invalidateCovariance();
+        }
+        historyFingerprint = 0;
+    }
+
+    // Assets in a stable order; every array returned by this class is aligned with it
+    public List<RealEstateAsset> getAssets() {
+        return Collections.unmodifiableList(getAssetsList());
+    }
+
+    public double[] getWeights() {
+        return PortfolioUtils.extractWeightsFromMapAsArray(assetsWeights);
+    }
+
+    // Drops the cached covariance. Replaced histories (setHistoricalReturns) are detected without it.
+    public void invalidateCovariance() {
+        covarianceMatrix = null;
+        covarianceOperator = null;
+        covarianceFactorization = null;
+    }
+
+    /* For very large universes: keep the return series and the covariance off-heap (OffHeapCovariance) instead of
+    in a double[n][n]. Every kernel below works on whichever representation is active. */
+    public void setOffHeapCovariance(boolean offHeapCovariance) {
+        if (this.offHeapCovariance != offHeapCovariance) {
+            this.offHeapCovariance = offHeapCovariance;
+            invalidateCovariance();
+        }
+    }
+
+    public boolean isOffHeapCovariance() {
+        return offHeapCovariance;
     }
 
     public double portfolioExpectedReturn() {
@@ -74,12 +119,23 @@ public class MPT {
     }
 
     public void historyCleaner() {
+        // Every computation comes through here, so an O(n) stamp check keeps the caches honest when histories change
+        long stamp = historyStamp();
+        if (stamp != historyStamp) {
+            historyStamp = stamp;
+            cleanHistory = false;
+            historyFingerprint = 0; // The new histories are the inputs as supplied
+            invalidateCovariance();
+        }
         if (!cleanHistory) {
             boolean validLengths = PortfolioUtils.validateHistoricalReturnsLength(assetsWeights);
 
             if (!validLengths) {
+                this.historyFingerprint = historyFingerprint();
                 this.assetsWeights = PortfolioUtils.historyCleaning(this.assetsWeights, this.cleanMethod);
                 this.cleanHistory = true;
+                this.historyStamp = historyStamp(); // Cleaning replaced some histories itself
+                invalidateCovariance();
             }
         }
     }
@@ -88,22 +144,109 @@ public class MPT {
         // Ensure that the historical returns of all assets in the portfolio have the same length
         historyCleaner();
 
-        // Get covariance matrix
-        List<RealEstateAsset> assetsList = new ArrayList<>(assetsWeights.keySet());
-        double[][] covarianceMatrix = PortfolioUtils.computeCovarianceMatrix(assetsList);
-
         // Convert the asset weights to an array
         double[] weightsArray = PortfolioUtils.extractWeightsFromMapAsArray(assetsWeights);
 
-        return portfolioVolatility(weightsArray, covarianceMatrix);
+        return Math.sqrt(covarianceOperator().quadraticForm(weightsArray));
+    }
+
+    // Marginal, component and percent risk contributions plus the diversification ratio, aligned with getAssets()
+    public RiskDecomposition riskDecomposition() {
+        historyCleaner();
+        return RiskDecomposition.of(covarianceOperator(), getWeights());
+    }
+
+    // Equal-risk-contribution weights, aligned with getAssets()
+    public double[] riskParityPortfolio() {
+        historyCleaner();
+        return remember(new RiskParityOptimizer().optimize(covarianceOperator()));
+    }
+
+    // Long-only minimum-variance weights, aligned with getAssets()
+    public double[] minimumVariancePortfolio() {
+        historyCleaner();
+        return remember(new MinimumVarianceOptimizer().optimize(covarianceOperator()));
+    }
+
+    // Covariance of the (cleaned) histories, computed once and reused until invalidated
+    double[][] covarianceMatrix() {
+        double[][] matrix = covarianceMatrix;
+        if (matrix == null) {
+            matrix = PortfolioUtils.computeCovarianceMatrix(getAssetsList());
+            covarianceMatrix = matrix;
+        }
+        return matrix;
+    }
+
+    /* Pivoted Cholesky of the covariance (near-PSD repaired) with the eigendecomposition on demand, for solves,
+    simulation draws and repeated quadratic forms. Shared until the covariance changes. Needs the dense covariance. */
+    public CovarianceFactorization covarianceFactorization() {
+        if (offHeapCovariance) {
+            throw new IllegalStateException("The factorization needs the dense covariance, turn off the off-heap covariance first.");
+        }
+        historyCleaner();
+        CovarianceFactorization factorization = covarianceFactorization;
+        if (factorization == null) {
+            factorization = new CovarianceFactorization(covarianceMatrix());
+            covarianceFactorization = factorization;
+        }
+        return factorization;
+    }
+
+    // Weights from the last optimizedPortfolio / riskParityPortfolio / minimumVariancePortfolio call, or null
+    public double[] getLastOptimalWeights() {
+        return lastOptimalWeights == null ? null : lastOptimalWeights.clone();
     }
 
-    private double portfolioVolatility(double[] weights, double[][] covarianceMatrix) {
-        RealMatrix covMatrix = new BlockRealMatrix(covarianceMatrix);
-        RealVector weightVector = new ArrayRealVector(weights);
+    private double[] remember(double[] weights) {
+        lastOptimalWeights = weights.clone();
+        return weights;
+    }
 
-        double volatilitySquared = weightVector.dotProduct(covMatrix.operate(weightVector));
-        return Math.sqrt(volatilitySquared);
+    /* Fingerprint of the inputs, used to tell whether a snapshot was built from the same data. Ids, expected returns
+    and weights are hashed as they are now; histories as supplied, before cleaning. */
+    long inputFingerprint() {
+        return MPTSnapshot.fingerprint(assetsWeights, historyFingerprint());
+    }
+
+    long historyFingerprint() {
+        long fingerprint = historyFingerprint;
+        if (fingerprint == 0) {
+            fingerprint = MPTSnapshot.historyFingerprint(assetsWeights);
+        }
+        return fingerprint;
+    }
+
+    // Installs state loaded from a snapshot: histories are already aligned and the covariance is ready
+    void restore(CovarianceOperator operator, double[][] matrix, boolean offHeap, double[] optimalWeights, long historyFingerprint) {
+        this.cleanHistory = true;
+        this.offHeapCovariance = offHeap;
+        this.covarianceMatrix = matrix;
+        this.covarianceOperator = operator;
+        this.covarianceFactorization = null;
+        this.lastOptimalWeights = optimalWeights;
+        this.historyFingerprint = historyFingerprint;
+        this.historyStamp = historyStamp();
+    }
+
+    private long historyStamp() {
+        long stamp = 0;
+        for (RealEstateAsset asset : assetsWeights.keySet()) {
+            stamp += asset.getHistoryVersion();
+        }
+        return stamp;
+    }
+
+    // Dense or off-heap covariance, depending on setOffHeapCovariance
+    CovarianceOperator covarianceOperator() {
+        CovarianceOperator operator = covarianceOperator;
+        if (operator == null) {
+            operator = offHeapCovariance
+                    ? OffHeapCovariance.of(OffHeapReturns.fromAssets(getAssetsList()))
+                    : new DenseCovariance(covarianceMatrix());
+            covarianceOperator = operator;
+        }
+        return operator;
     }
 
     private double[][] getReturnsData() {
@@ -126,15 +269,19 @@ public class MPT {
     }
 
     public double[] linearizedPortfolioVarianceConstraint(double[] initialWeights) {
-        // 1. Compute the Covariance Matrix
-        double[][] covarianceArray = PortfolioUtils.computeCovarianceMatrix(getAssetsList());
-        RealMatrix covarianceMatrix = MatrixUtils.createRealMatrix(covarianceArray);
-
-        // 2. Compute Gradient at Initial Weights
-        RealVector initialWeightsVector = new ArrayRealVector(initialWeights, false);
-        RealVector gradient = covarianceMatrix.operate(initialWeightsVector).mapMultiply(2.0);
+        // 1. Get the (cached) covariance operator
+        historyCleaner();
+        return linearizedPortfolioVarianceConstraint(covarianceOperator(), initialWeights);
+    }
 
-        return gradient.toArray();
+    static double[] linearizedPortfolioVarianceConstraint(CovarianceOperator covariance, double[] initialWeights) {
+        // 2. Compute Gradient at Initial Weights, 2Σw
+        double[] gradient = new double[initialWeights.length];
+        covariance.multiply(initialWeights, gradient);
+        for (int i = 0; i < gradient.length; i++) {
+            gradient[i] *= 2.0;
+        }
+        return gradient;
     }
 
     public LinearConstraint getLinearizedRiskConstraint(double[] initialWeights, double desiredRisk) {
@@ -156,40 +303,58 @@ public class MPT {
         return (expectedReturn - riskFreeRate) / volatility;
     }
 
+    /* Volatility, expected return and Sharpe ratio of many candidate weightings at once (one per row of weights, each
+    aligned with getAssets()), against the cached covariance. The portfolio's own weights are not touched. */
+    public PortfolioBatch evaluatePortfolios(double[][] weights, double riskFreeRate) {
+        historyCleaner();
+
+        return Metrics.timed(Operation.PORTFOLIO_BATCH, weights.length, () -> {
+            double[] expectedReturns = getAssetsList().stream().mapToDouble(RealEstateAsset::getExpectedReturn).toArray();
+            return PortfolioBatch.evaluate(covarianceOperator(), expectedReturns, weights, riskFreeRate);
+        });
+    }
+
     public double[] optimizedPortfolio(double desiredRisk) {
+        return optimizedPortfolio(desiredRisk, new PortfolioConstraints());
+    }
+
+    // Maximizes expected return under the linearized risk cap and the given constraints; weights align with getAssets()
+    public double[] optimizedPortfolio(double desiredRisk, PortfolioConstraints portfolioConstraints) {
         // Ensure that the historical returns of all assets in the portfolio have the same length
         historyCleaner();
 
-        List<RealEstateAsset> assetsList = new ArrayList<>(assetsWeights.keySet());
-        int numAssets = assetsList.size();
+        return Metrics.timed(Operation.PORTFOLIO_OPTIMIZATION, assetsWeights.size(), () -> {
+            double[] expectedReturns = getAssetsList().stream().mapToDouble(RealEstateAsset::getExpectedReturn).toArray();
+            return remember(solveOptimizedPortfolio(expectedReturns, covarianceOperator(), getWeights(), desiredRisk, portfolioConstraints));
+        });
+    }
+
+    // Shared with PortfolioView; initialWeights is where the risk constraint is linearized
+    static double[] solveOptimizedPortfolio(double[] expectedReturns, CovarianceOperator covariance, double[] initialWeights,
+                                            double desiredRisk, PortfolioConstraints portfolioConstraints) {
+
+        int numAssets = expectedReturns.length;
+        int numVariables = portfolioConstraints.variableCount(numAssets);
 
         // Objective: Maximize Expected Returns
-        double[] coeff = new double[numAssets];
-        for (int i = 0; i < numAssets; i++) {
-            coeff[i] = assetsList.get(i).getExpectedReturn();
-        }
+        double[] coeff = Arrays.copyOf(expectedReturns, numVariables);
         LinearObjectiveFunction f = new LinearObjectiveFunction(coeff, 0);
 
-        // Constraints
+        // Constraints. Weights >= 0 come from NonNegativeConstraint and weights <= 1 follow from the sum,
+        // so no per-asset bound rows are needed
         List<LinearConstraint> constraints = new ArrayList<>();
 
         // Sum of weights = 1
-        double[] sumWeights = new double[numAssets];
-        Arrays.fill(sumWeights, 1);
-        constraints.add(new LinearConstraint(sumWeights, Relationship.EQ, 1.0));
-
-        // Each weight between 0 and 1
+        OpenMapRealVector sumWeights = new OpenMapRealVector(numVariables);
         for (int i = 0; i < numAssets; i++) {
-            double[] weightArray = new double[numAssets];
-            weightArray[i] = 1;
-            constraints.add(new LinearConstraint(weightArray, Relationship.GEQ, 0.0));
-            constraints.add(new LinearConstraint(weightArray, Relationship.LEQ, 1.0));
+            sumWeights.setEntry(i, 1);
         }
+        constraints.add(new LinearConstraint(sumWeights, Relationship.EQ, 1.0));
 
-        double[] initialEstimateOfWeights = PortfolioUtils.extractWeightsFromMapAsArray(assetsWeights);
-        LinearConstraint linearizedRiskConstraint = getLinearizedRiskConstraint(initialEstimateOfWeights, desiredRisk);
+        double[] riskCoefficients = Arrays.copyOf(linearizedPortfolioVarianceConstraint(covariance, initialWeights), numVariables);
+        constraints.add(new LinearConstraint(riskCoefficients, Relationship.LEQ, desiredRisk));
 
-        constraints.add(linearizedRiskConstraint);
+        constraints.addAll(portfolioConstraints.toLinearConstraints(numAssets));
 
         SimplexSolver optimizer = new SimplexSolver(0.0005,10000);
         PointValuePair solution = optimizer.optimize(
@@ -199,12 +364,17 @@ public class MPT {
                 GoalType.MAXIMIZE,
                 new NonNegativeConstraint(true)
         );
+        Metrics.add(Counter.OPTIMIZER_ITERATIONS, optimizer.getIterations());
 
-        return solution.getPoint();
+        return Arrays.copyOf(solution.getPoint(), numAssets);
     }
 
     // Getters and Setters
 
+    public String getCleanMethod() {
+        return cleanMethod;
+    }
+
     public void setClean(String cleanMethod) {
         if(!(Objects.equals(cleanMethod, "i") || Objects.equals(cleanMethod, "c"))){
             throw new IllegalArgumentException("Clean method must be either 'i' for interpolation or 'c' to cut history to the shortest.");
@@ -0,0 +1,375 @@
+package com.realestate.mpt;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/* Versioned binary snapshot of a computed MPT: asset registry (ids, expected returns, weights), aligned histories,
+the packed covariance and the last optimal weights. Written through a FileChannel to a temporary file that is moved
+into place, and read back through memory mapping. An off-heap MPT keeps using the mapped covariance directly, so a
+restarted node can answer volatility, Sharpe and optimization queries without rebuilding anything.
+
+Layout (little endian):
+  0  int    magic 'MPTS'
+  4  int    version
+  8  long   CRC32 of every byte from offset 16 on
+  16 long   input fingerprint (ids, expected returns, weights and raw histories, see isCurrent)
+  24 int    asset count n
+  28 int    history length m
+  32 byte   clean method, byte off-heap flag, byte has-optimal-weights flag, byte reserved
+  36 int    registry size in bytes
+  40 long   history fingerprint (histories as supplied, before cleaning)
+  48        registry: per asset int id length, id (UTF-8), double expected return, double weight
+  ...       padding to 8 bytes, then n*m history doubles (asset-major), n optimal weights if present,
+            and n(n+1)/2 packed lower-triangle covariance doubles
+Restored assets carry id, expected return and history only; rental income and the other inputs behind the
+expected return are not stored. */
+public final class MPTSnapshot {
+    public static final int MAGIC = 0x4D505453; // "MPTS"
+    public static final int VERSION = 2;
+
+    private static final int HEADER_BYTES = 48;
+    private static final int CRC_OFFSET = 8;
+    private static final int BODY_OFFSET = 16;
+    private static final int WRITE_BUFFER_BYTES = 1 << 20;
+
+    private MPTSnapshot() {
+    }
+
+    // Cleans the histories and builds the covariance first if that has not happened yet
+    public static void write(MPT mpt, Path path) throws IOException {
+        mpt.historyCleaner();
+        CovarianceOperator covariance = mpt.covarianceOperator();
+        List<RealEstateAsset> assets = mpt.getAssets();
+        double[] weights = mpt.getWeights();
+        double[] optimalWeights = mpt.getLastOptimalWeights();
+        int n = assets.size();
+        int m = assets.get(0).getHistoricalReturns().size();
+
+        ByteBuffer registry = registry(assets, weights);
+        long historyFingerprint = mpt.historyFingerprint();
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ChecksummedWriter writer = new ChecksummedWriter(channel);
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(VERSION).putLong(0);
+                header.putLong(mpt.inputFingerprint()).putInt(n).putInt(m);
+                header.put((byte) mpt.getCleanMethod().charAt(0));
+                header.put((byte) (covariance instanceof OffHeapCovariance ? 1 : 0));
+                header.put((byte) (optimalWeights != null ? 1 : 0));
+                header.put((byte) 0);
+                header.putInt(registry.remaining());
+                header.putLong(historyFingerprint);
+                header.flip();
+                // Magic, version and the CRC placeholder go straight out; everything from offset 16 on is checksummed
+                ByteBuffer prefix = header.duplicate();
+                prefix.limit(BODY_OFFSET);
+                while (prefix.hasRemaining()) {
+                    channel.write(prefix);
+                }
+                header.position(BODY_OFFSET);
+                writer.putBytes(header);
+
+                writer.putBytes(registry);
+                writer.pad(padding(HEADER_BYTES + registry.limit()));
+                for (RealEstateAsset asset : assets) {
+                    for (double value : asset.getHistoricalReturns()) {
+                        writer.putDouble(value);
+                    }
+                }
+                if (optimalWeights != null) {
+                    for (double value : optimalWeights) {
+                        writer.putDouble(value);
+                    }
+                }
+                writePackedCovariance(covariance, writer);
+                writer.flush();
+
+                ByteBuffer crc = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                crc.putLong(writer.checksum()).flip();
+                channel.write(crc, CRC_OFFSET);
+                channel.force(true);
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+    }
+
+    // Verifies magic, version and checksum, then rebuilds the MPT around the mapped data
+    public static MPT read(Path path) throws IOException {
+        return read(path, OffHeapDoubles.defaultChunkShift());
+    }
+
+    // chunkShift sets the size of the mapped history and covariance chunks (2^chunkShift doubles); tests use small ones
+    static MPT read(Path path, int chunkShift) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer header = readHeader(channel);
+            long expectedCrc = header.getLong(CRC_OFFSET);
+            if (checksum(channel, size) != expectedCrc) {
+                throw new IOException("Snapshot checksum mismatch, the file is corrupt or incomplete: " + path);
+            }
+            long historyFingerprint = header.getLong(40);
+            int n = header.getInt(24);
+            int m = header.getInt(28);
+            String cleanMethod = String.valueOf((char) header.get(32));
+            boolean offHeap = header.get(33) == 1;
+            boolean hasOptimal = header.get(34) == 1;
+            int registryBytes = header.getInt(36);
+
+            ByteBuffer registry = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, registryBytes)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            long position = HEADER_BYTES + registryBytes + padding(HEADER_BYTES + registryBytes);
+
+            // n * m can pass 2 GiB for large universes, so the histories are mapped in chunks like the covariance
+            OffHeapDoubles histories = mapChunked(channel, position, (long) n * m, chunkShift);
+            position += (long) n * m * Double.BYTES;
+            double[] optimalWeights = null;
+            if (hasOptimal) {
+                optimalWeights = new double[n];
+                OffHeapDoubles mapped = mapChunked(channel, position, n, chunkShift);
+                for (int i = 0; i < n; i++) {
+                    optimalWeights[i] = mapped.get(i);
+                }
+                position += (long) n * Double.BYTES;
+            }
+
+            Map<RealEstateAsset, Double> assetsWeights = new LinkedHashMap<>();
+            for (int i = 0; i < n; i++) {
+                byte[] id = new byte[registry.getInt()];
+                registry.get(id);
+                double expectedReturn = registry.getDouble();
+                double weight = registry.getDouble();
+                List<Double> history = new ArrayList<>(m);
+                long start = (long) i * m;
+                for (int t = 0; t < m; t++) {
+                    history.add(histories.get(start + t));
+                }
+                assetsWeights.put(new RealEstateAsset(new String(id, StandardCharsets.UTF_8), expectedReturn, history), weight);
+            }
+
+            long packedLength = (long) n * (n + 1) / 2;
+            OffHeapDoubles packed = mapChunked(channel, position, packedLength, chunkShift);
+            MPT mpt = new MPT(assetsWeights, cleanMethod);
+            if (offHeap) {
+                mpt.restore(new OffHeapCovariance(packed, n), null, true, optimalWeights, historyFingerprint);
+            } else {
+                double[][] matrix = unpack(packed, n);
+                mpt.restore(new DenseCovariance(matrix), matrix, false, optimalWeights, historyFingerprint);
+            }
+            return mpt;
+        }
+    }
+
+    /* True if the snapshot was built from the same inputs as mpt. Ids, expected returns and weights are rehashed on
+    every call, so later edits (also to a restored MPT) are seen; histories count as supplied, before cleaning. Only
+    the header is read. */
+    public static boolean isCurrent(Path path, MPT mpt) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return readHeader(channel).getLong(16) == mpt.inputFingerprint();
+        }
+    }
+
+    // 64-bit FNV-1a over ids, expected returns and weights in map order, seeded with the history fingerprint
+    static long fingerprint(Map<RealEstateAsset, Double> assetsWeights, long historyFingerprint) {
+        long hash = mix(0xcbf29ce484222325L, historyFingerprint);
+        for (Map.Entry<RealEstateAsset, Double> entry : assetsWeights.entrySet()) {
+            RealEstateAsset asset = entry.getKey();
+            String id = asset.getPropertyId() == null ? "" : asset.getPropertyId();
+            for (byte b : id.getBytes(StandardCharsets.UTF_8)) {
+                hash = mix(hash, b);
+            }
+            hash = mix(hash, Double.doubleToLongBits(asset.getExpectedReturn()));
+            hash = mix(hash, Double.doubleToLongBits(entry.getValue()));
+        }
+        return hash;
+    }
+
+    // 64-bit FNV-1a over the histories in map order
+    static long historyFingerprint(Map<RealEstateAsset, Double> assetsWeights) {
+        long hash = 0xcbf29ce484222325L;
+        for (RealEstateAsset asset : assetsWeights.keySet()) {
+            List<Double> history = asset.getHistoricalReturns();
+            hash = mix(hash, history.size());
+            for (double value : history) {
+                hash = mix(hash, Double.doubleToLongBits(value));
+            }
+        }
+        return hash == 0 ? 1 : hash; // 0 means "not pinned" in MPT
+    }
+
+    //------------------------------------- Helper classes/ methods -------------------------------------//
+
+    // Buffers body bytes, feeds them to the CRC and writes them in 1 MiB blocks
+    private static final class ChecksummedWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        private final CRC32 crc = new CRC32();
+
+        ChecksummedWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putDouble(double value) throws IOException {
+            if (buffer.remaining() < Double.BYTES) {
+                flush();
+            }
+            buffer.putDouble(value);
+        }
+
+        void putBytes(ByteBuffer bytes) throws IOException {
+            while (bytes.hasRemaining()) {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                int count = Math.min(buffer.remaining(), bytes.remaining());
+                ByteBuffer slice = bytes.slice();
+                slice.limit(count);
+                buffer.put(slice);
+                bytes.position(bytes.position() + count);
+            }
+        }
+
+        void pad(int count) throws IOException {
+            for (int i = 0; i < count; i++) {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                buffer.put((byte) 0);
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        long checksum() {
+            return crc.getValue();
+        }
+    }
+
+    private static ByteBuffer registry(List<RealEstateAsset> assets, double[] weights) {
+        List<byte[]> ids = new ArrayList<>(assets.size());
+        int bytes = 0;
+        for (RealEstateAsset asset : assets) {
+            byte[] id = (asset.getPropertyId() == null ? "" : asset.getPropertyId()).getBytes(StandardCharsets.UTF_8);
+            ids.add(id);
+            bytes += Integer.BYTES + id.length + 2 * Double.BYTES;
+        }
+        ByteBuffer registry = ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < assets.size(); i++) {
+            registry.putInt(ids.get(i).length).put(ids.get(i));
+            registry.putDouble(assets.get(i).getExpectedReturn()).putDouble(weights[i]);
+        }
+        registry.flip();
+        return registry;
+    }
+
+    private static void writePackedCovariance(CovarianceOperator covariance, ChecksummedWriter writer) throws IOException {
+        if (covariance instanceof OffHeapCovariance) {
+            OffHeapDoubles packed = ((OffHeapCovariance) covariance).packed();
+            for (long k = 0; k < packed.length(); k++) {
+                writer.putDouble(packed.get(k));
+            }
+        } else if (covariance instanceof DenseCovariance) {
+            double[][] matrix = ((DenseCovariance) covariance).getMatrix();
+            for (int i = 0; i < matrix.length; i++) {
+                for (int j = 0; j <= i; j++) {
+                    writer.putDouble(matrix[i][j]);
+                }
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported covariance representation: " + covariance.getClass().getSimpleName());
+        }
+    }
+
+    private static ByteBuffer readHeader(FileChannel channel) throws IOException {
+        if (channel.size() < HEADER_BYTES) {
+            throw new IOException("Snapshot is too short to contain a header.");
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw new IOException("Unexpected end of snapshot header.");
+            }
+        }
+        if (header.getInt(0) != MAGIC) {
+            throw new IOException("Not an MPT snapshot.");
+        }
+        if (header.getInt(4) != VERSION) {
+            throw new IOException("Unsupported snapshot version " + header.getInt(4) + ", expected " + VERSION + ".");
+        }
+        return header;
+    }
+
+    // CRC32 of the mapped body, in regions of at most 1 GiB
+    private static long checksum(FileChannel channel, long size) throws IOException {
+        CRC32 crc = new CRC32();
+        long region = 1L << 30;
+        for (long position = BODY_OFFSET; position < size; position += region) {
+            crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(region, size - position)));
+        }
+        return crc.getValue();
+    }
+
+    // Maps length doubles in chunks of 2^shift, so no single mapping passes the 2 GiB limit
+    private static OffHeapDoubles mapChunked(FileChannel channel, long position, long length, int shift) throws IOException {
+        long chunk = 1L << shift;
+        int count = (int) ((length + chunk - 1) >>> shift);
+        DoubleBuffer[] chunks = new DoubleBuffer[count];
+        for (int c = 0; c < count; c++) {
+            long elements = Math.min(chunk, length - c * chunk);
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position + c * chunk * Double.BYTES,
+                    elements * Double.BYTES);
+            chunks[c] = mapped.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+        }
+        return new OffHeapDoubles(chunks, length, shift);
+    }
+
+    private static double[][] unpack(OffHeapDoubles packed, int n) {
+        double[][] matrix = new double[n][n];
+        long k = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j <= i; j++, k++) {
+                double value = packed.get(k);
+                matrix[i][j] = value;
+                matrix[j][i] = value;
+            }
+        }
+        return matrix;
+    }
+
+    private static int padding(long offset) {
+        return (int) ((Double.BYTES - offset % Double.BYTES) % Double.BYTES);
+    }
+
+    private static long mix(long hash, long value) {
+        for (int shift = 0; shift < 64; shift += 8) {
+            hash ^= (value >>> shift) & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,169 @@
+package com.realestate.mpt;
+
+import com.realestate.metrics.Counter;
+import com.realestate.metrics.Metrics;
+import com.realestate.metrics.Operation;
+
+import java.util.Arrays;
+
+/* Long-only minimum-variance portfolio: minimize w'Σw subject to w >= 0 and Σw_i = 1. Uses accelerated projected
+gradient (FISTA) with a fixed step 1/L, where L = 2 λmax(Σ) is estimated by power iteration through the same Σx
+operator. Each iteration costs one Σx product plus an O(n log n) projection onto the simplex; the momentum is
+restarted whenever the objective goes up, and a plain step from the current point that does not go down means w is
+optimal to rounding. */
+public class MinimumVarianceOptimizer {
+    public static final int DEFAULT_MAX_ITERATIONS = 10000;
+    public static final double DEFAULT_TOLERANCE = 1e-10;
+
+    private static final int POWER_ITERATIONS = 100;
+    private static final double STEP_SAFETY = 1.05; // Power iteration approaches λmax from below
+
+    private final int maxIterations;
+    private final double tolerance;
+    private volatile int iterations;
+
+    public MinimumVarianceOptimizer() {
+        this(DEFAULT_MAX_ITERATIONS, DEFAULT_TOLERANCE);
+    }
+
+    // tolerance bounds the largest weight change in the final iteration
+    public MinimumVarianceOptimizer(int maxIterations, double tolerance) {
+        if (maxIterations <= 0) {
+            throw new IllegalArgumentException("Max iterations must be greater than 0.");
+        }
+        if (tolerance <= 0) {
+            throw new IllegalArgumentException("Tolerance cannot be negative or zero.");
+        }
+        this.maxIterations = maxIterations;
+        this.tolerance = tolerance;
+    }
+
+    public double[] optimize(CovarianceOperator covariance) {
+        int n = covariance.dimension();
+        if (n == 0) {
+            throw new IllegalArgumentException("Covariance matrix cannot be empty.");
+        }
+        return Metrics.timed(Operation.PORTFOLIO_OPTIMIZATION, n, () -> solve(covariance, n));
+    }
+
+    // Iterations used by the last optimize() call
+    public int getIterations() {
+        return iterations;
+    }
+
+    private double[] solve(CovarianceOperator covariance, int n) {
+        double lipschitz = 2 * STEP_SAFETY * largestEigenvalue(covariance, n);
+        if (lipschitz <= 0) {
+            throw new IllegalArgumentException("Covariance matrix cannot be zero.");
+        }
+        double step = 1 / lipschitz;
+
+        double[] w = new double[n];
+        Arrays.fill(w, 1.0 / n);
+        double[] y = w.clone();
+        double[] next = new double[n];
+        double[] gradient = new double[n];
+        double[] scratch = new double[n];
+        double momentum = 1;
+        double objective = quadraticForm(covariance, w, scratch);
+
+        int iteration = 0;
+        while (iteration < maxIterations) {
+            iteration++;
+            covariance.multiply(y, gradient);
+            for (int i = 0; i < n; i++) {
+                next[i] = y[i] - step * 2 * gradient[i];
+            }
+            projectOntoSimplex(next);
+
+            double nextObjective = quadraticForm(covariance, next, scratch);
+            double change = 0;
+            for (int i = 0; i < n; i++) {
+                change = Math.max(change, Math.abs(next[i] - w[i]));
+            }
+            if (nextObjective > objective) {
+                if (momentum == 1 || change < tolerance) {
+                    // Already a plain step from w (y == w): near the optimum it only moves by rounding error
+                    break;
+                }
+                // Restart: drop the momentum and take a plain projected gradient step from w
+                momentum = 1;
+                System.arraycopy(w, 0, y, 0, n);
+                continue;
+            }
+            double nextMomentum = (1 + Math.sqrt(1 + 4 * momentum * momentum)) / 2;
+            double beta = (momentum - 1) / nextMomentum;
+            for (int i = 0; i < n; i++) {
+                y[i] = next[i] + beta * (next[i] - w[i]);
+            }
+            momentum = nextMomentum;
+            double[] swap = w;
+            w = next;
+            next = swap;
+            objective = nextObjective;
+            if (change < tolerance) {
+                break;
+            }
+        }
+        iterations = iteration;
+        Metrics.add(Counter.OPTIMIZER_ITERATIONS, iteration);
+        return w;
+    }
+
+    private static double largestEigenvalue(CovarianceOperator covariance, int n) {
+        double[] v = new double[n];
+        double[] product = new double[n];
+        Arrays.fill(v, 1 / Math.sqrt(n));
+        double eigenvalue = 0;
+        for (int k = 0; k < POWER_ITERATIONS; k++) {
+            covariance.multiply(v, product);
+            double rayleigh = 0;
+            double norm = 0;
+            for (int i = 0; i < n; i++) {
+                rayleigh += v[i] * product[i];
+                norm += product[i] * product[i];
+            }
+            norm = Math.sqrt(norm);
+            if (norm == 0) {
+                return 0;
+            }
+            for (int i = 0; i < n; i++) {
+                v[i] = product[i] / norm;
+            }
+            if (Math.abs(rayleigh - eigenvalue) <= 1e-9 * Math.abs(rayleigh)) {
+                return Math.max(rayleigh, norm);
+            }
+            eigenvalue = rayleigh;
+        }
+        return eigenvalue;
+    }
+
+    private static double quadraticForm(CovarianceOperator covariance, double[] w, double[] scratch) {
+        covariance.multiply(w, scratch);
+        double value = 0;
+        for (int i = 0; i < w.length; i++) {
+            value += w[i] * scratch[i];
+        }
+        return value;
+    }
+
+    // Euclidean projection onto {w >= 0, Σw = 1}, in place (sort-based, Duchi et al. 2008)
+    static void projectOntoSimplex(double[] v) {
+        double[] sorted = v.clone();
+        Arrays.sort(sorted);
+        double cumulative = 0;
+        double theta = 0;
+        for (int k = sorted.length - 1, count = 1; k >= 0; k--, count++) {
+            cumulative += sorted[k];
+            double candidate = (cumulative - 1) / count;
+            if (sorted[k] > candidate) {
+                theta = candidate;
+            } else {
+                break;
+            }
+        }
+        for (int i = 0; i < v.length; i++) {
+            v[i] = Math.max(v[i] - theta, 0);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.realestate.mpt;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+
+/* Long-indexed double array outside the Java heap, split into direct buffers of 2^27 doubles (1 GiB) because a
+single buffer is limited to 2 GiB. The memory is released when the object becomes unreachable. */
+final class OffHeapDoubles {
+    private static final int DEFAULT_CHUNK_SHIFT = 27;
+
+    private final DoubleBuffer[] chunks;
+    private final long length;
+    private final int chunkShift;
+    private final int chunkMask;
+
+    OffHeapDoubles(long length) {
+        this(length, DEFAULT_CHUNK_SHIFT);
+    }
+
+    // Smaller chunks are only useful for testing the chunk boundaries
+    OffHeapDoubles(long length, int chunkShift) {
+        if (length < 0) {
+            throw new IllegalArgumentException("Length cannot be negative.");
+        }
+        if (chunkShift < 0 || chunkShift > DEFAULT_CHUNK_SHIFT) {
+            throw new IllegalArgumentException("Chunk shift must be between 0 and " + DEFAULT_CHUNK_SHIFT + ".");
+        }
+        this.length = length;
+        this.chunkShift = chunkShift;
+        long chunkSize = 1L << chunkShift;
+        this.chunkMask = (int) chunkSize - 1;
+        int count = (int) ((length + chunkSize - 1) >>> chunkShift);
+        this.chunks = new DoubleBuffer[count];
+        for (int c = 0; c < count; c++) {
+            int size = (int) Math.min(chunkSize, length - ((long) c << chunkShift));
+            chunks[c] = ByteBuffer.allocateDirect(size * Double.BYTES).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+        }
+    }
+
+    // Wraps existing buffers (e.g. memory-mapped file regions); every chunk but the last must hold 2^chunkShift doubles
+    OffHeapDoubles(DoubleBuffer[] chunks, long length, int chunkShift) {
+        this.chunks = chunks;
+        this.length = length;
+        this.chunkShift = chunkShift;
+        this.chunkMask = (1 << chunkShift) - 1;
+    }
+
+    static int defaultChunkShift() {
+        return DEFAULT_CHUNK_SHIFT;
+    }
+
+    double get(long index) {
+        return chunks[(int) (index >>> chunkShift)].get((int) (index & chunkMask));
+    }
+
+    void set(long index, double value) {
+        chunks[(int) (index >>> chunkShift)].put((int) (index & chunkMask), value);
+    }
+
+    long length() {
+        return length;
+    }
+
+    int chunkCount() {
+        return chunks.length;
+    }
+
+    long bytes() {
+        return length * Double.BYTES;
+    }
+}
@@ -0,0 +1,69 @@
+package com.realestate.mpt;
+
+import java.util.List;
+
+// Aligned return histories stored off-heap, one contiguous series per asset (asset-major)
+public class OffHeapReturns {
+    private final OffHeapDoubles values;
+    private final int assetCount;
+    private final int length;
+
+    public OffHeapReturns(int assetCount, int length) {
+        if (assetCount <= 0) {
+            throw new IllegalArgumentException("Asset count cannot be negative or zero.");
+        }
+        if (length <= 0) {
+            throw new IllegalArgumentException("History length cannot be negative or zero.");
+        }
+        this.assetCount = assetCount;
+        this.length = length;
+        this.values = new OffHeapDoubles((long) assetCount * length);
+    }
+
+    // Histories must already have the same length (see MPT.historyCleaner)
+    public static OffHeapReturns fromAssets(List<RealEstateAsset> assets) {
+        if (!PortfolioUtils.validateHistoricalReturnsLength(assets)) {
+            throw new IllegalArgumentException("Historical returns of all assets must have the same length.");
+        }
+        OffHeapReturns returns = new OffHeapReturns(assets.size(), assets.get(0).getHistoricalReturns().size());
+        for (int i = 0; i < assets.size(); i++) {
+            List<Double> history = assets.get(i).getHistoricalReturns();
+            for (int t = 0; t < returns.length; t++) {
+                returns.set(i, t, history.get(t));
+            }
+        }
+        return returns;
+    }
+
+    public double get(int asset, int period) {
+        return values.get(index(asset, period));
+    }
+
+    public void set(int asset, int period, double value) {
+        values.set(index(asset, period), value);
+    }
+
+    public int getAssetCount() {
+        return assetCount;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public long getOffHeapBytes() {
+        return values.bytes();
+    }
+
+    // Raw storage for kernels; asset i occupies [i * length, (i + 1) * length)
+    OffHeapDoubles data() {
+        return values;
+    }
+
+    private long index(int asset, int period) {
+        if (asset < 0 || asset >= assetCount || period < 0 || period >= length) {
+            throw new IndexOutOfBoundsException("Asset " + asset + ", period " + period + " is outside of the returns.");
+        }
+        return (long) asset * length + period;
+    }
+}
@@ -0,0 +1,105 @@
+package com.realestate.mpt;
+
+import java.util.stream.IntStream;
+
+/* Volatility, expected return and Sharpe ratio of k candidate weightings of the same n assets, e.g. the scenarios of
+a what-if tool. Row c of the weights matrix is one candidate, aligned with the covariance's asset order. The variances
+are the diagonal of W Σ W', computed block by block of candidates (CovarianceOperator.quadraticForms, which for a
+dense matrix shares every pass over Σ between the candidates of a block), and the blocks run in parallel once the
+batch is large enough. Same formulas as MPT.portfolioVolatility() and MPT.sharpeRatio(). */
+public class PortfolioBatch {
+    private static final int BLOCK_CANDIDATES = 32;
+    private static final long PARALLEL_WORK = 1L << 20; // Multiply-adds, about k * n² / 2
+
+    private final double[] expectedReturns;
+    private final double[] volatilities;
+    private final double[] sharpeRatios;
+
+    private PortfolioBatch(double[] expectedReturns, double[] volatilities, double[] sharpeRatios) {
+        this.expectedReturns = expectedReturns;
+        this.volatilities = volatilities;
+        this.sharpeRatios = sharpeRatios;
+    }
+
+    public static PortfolioBatch evaluate(double[][] covarianceMatrix, double[] assetReturns, double[][] weights,
+                                          double riskFreeRate) {
+        return evaluate(new DenseCovariance(covarianceMatrix), assetReturns, weights, riskFreeRate);
+    }
+
+    // assetReturns are the assets' expected returns, aligned with the covariance like every row of weights
+    public static PortfolioBatch evaluate(CovarianceOperator covariance, double[] assetReturns, double[][] weights,
+                                          double riskFreeRate) {
+        int n = covariance.dimension();
+        if (assetReturns.length != n) {
+            throw new IllegalArgumentException("The size of the covariance matrix and the expected returns array must be the same.");
+        }
+        for (double[] candidate : weights) {
+            if (candidate.length != n) {
+                throw new IllegalArgumentException("The size of the covariance matrix and the weights array must be the same.");
+            }
+        }
+        int k = weights.length;
+        double[] expectedReturns = new double[k];
+        double[] volatilities = new double[k]; // Variances until their block is done
+        double[] sharpeRatios = new double[k];
+        int blocks = (k + BLOCK_CANDIDATES - 1) / BLOCK_CANDIDATES;
+        IntStream range = IntStream.range(0, blocks);
+        boolean parallel = blocks > 1 && (long) k * n * n / 2 >= PARALLEL_WORK;
+        (parallel ? range.parallel() : range).forEach(block -> {
+            int from = block * BLOCK_CANDIDATES;
+            int to = Math.min(k, from + BLOCK_CANDIDATES);
+            covariance.quadraticForms(weights, from, to, volatilities);
+            for (int c = from; c < to; c++) {
+                double[] candidate = weights[c];
+                double expectedReturn = 0;
+                for (int i = 0; i < n; i++) {
+                    expectedReturn += assetReturns[i] * candidate[i];
+                }
+                expectedReturns[c] = expectedReturn;
+                volatilities[c] = Math.sqrt(volatilities[c]);
+                sharpeRatios[c] = (expectedReturn - riskFreeRate) / volatilities[c];
+            }
+        });
+        return new PortfolioBatch(expectedReturns, volatilities, sharpeRatios);
+    }
+
+    // Number of candidates
+    public int size() {
+        return volatilities.length;
+    }
+
+    public double getExpectedReturn(int candidate) {
+        return expectedReturns[candidate];
+    }
+
+    public double getVolatility(int candidate) {
+        return volatilities[candidate];
+    }
+
+    public double getSharpeRatio(int candidate) {
+        return sharpeRatios[candidate];
+    }
+
+    public double[] getExpectedReturns() {
+        return expectedReturns.clone();
+    }
+
+    public double[] getVolatilities() {
+        return volatilities.clone();
+    }
+
+    public double[] getSharpeRatios() {
+        return sharpeRatios.clone();
+    }
+
+    // Candidate with the highest Sharpe ratio (NaNs skipped), or -1 if there is none
+    public int maxSharpeIndex() {
+        int best = -1;
+        for (int c = 0; c < sharpeRatios.length; c++) {
+            if (!Double.isNaN(sharpeRatios[c]) && (best < 0 || sharpeRatios[c] > sharpeRatios[best])) {
+                best = c;
+            }
+        }
+        return best;
+    }
+}
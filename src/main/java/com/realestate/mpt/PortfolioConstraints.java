@@ -0,0 +1,184 @@
+package com.realestate.mpt;
+
+import org.apache.commons.math3.linear.OpenMapRealVector;
+import org.apache.commons.math3.optim.linear.LinearConstraint;
+import org.apache.commons.math3.optim.linear.Relationship;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/* Extra constraints for MPT.optimizedPortfolio. Asset indices follow MPT.getAssets().
+
+Every row is built as a sparse vector, so memory grows with the number of non-zeros. Lower bounds of zero come
+from the solver's non-negativity and upper bounds of 1 are implied by the budget row, so neither adds a row; only
+caps below 1 do. Group limits (region, property type, sponsor, ...) add one row per group. A turnover cap
+Σ|w_i - current_i| <= maxTurnover adds one auxiliary variable and two rows per asset. Note that commons-math's
+SimplexSolver still expands the rows into a dense tableau, so keeping the row count small is what matters most. */
+public class PortfolioConstraints {
+    private double maxWeight = 1;
+    private final Map<Integer, Double> assetMaxWeights = new HashMap<>();
+    private final List<GroupLimit> groupLimits = new ArrayList<>();
+    private double[] currentWeights;
+    private double maxTurnover;
+
+    // Cap for every asset
+    public void setMaxWeight(double maxWeight) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("Max weight cannot be negative or zero.");
+        }
+        this.maxWeight = maxWeight;
+    }
+
+    // Cap for a single asset; takes precedence over the global cap
+    public void setMaxWeight(int asset, double maxWeight) {
+        if (asset < 0) {
+            throw new IllegalArgumentException("Asset index cannot be negative.");
+        }
+        if (maxWeight < 0) {
+            throw new IllegalArgumentException("Max weight cannot be negative.");
+        }
+        assetMaxWeights.put(asset, maxWeight);
+    }
+
+    // minExposure <= sum of the group's weights <= maxExposure
+    public void addGroupLimit(String name, int[] assets, double minExposure, double maxExposure) {
+        if (assets == null || assets.length == 0) {
+            throw new IllegalArgumentException("Group must contain at least one asset.");
+        }
+        if (minExposure < 0 || maxExposure < minExposure) {
+            throw new IllegalArgumentException("Group exposure limits must satisfy 0 <= min <= max.");
+        }
+        for (int asset : assets) {
+            if (asset < 0) {
+                throw new IllegalArgumentException("Asset index cannot be negative.");
+            }
+        }
+        groupLimits.add(new GroupLimit(name, assets.clone(), minExposure, maxExposure));
+    }
+
+    public void addGroupLimit(String name, int[] assets, double maxExposure) {
+        addGroupLimit(name, assets, 0, maxExposure);
+    }
+
+    /* One limit per label, with labels given per asset (e.g. each asset's region). Labels without an entry in
+    maxExposureByLabel are unconstrained. */
+    public void addGroupLimits(String[] labels, Map<String, Double> maxExposureByLabel) {
+        Map<String, List<Integer>> members = new LinkedHashMap<>();
+        for (int i = 0; i < labels.length; i++) {
+            if (labels[i] != null && maxExposureByLabel.containsKey(labels[i])) {
+                members.computeIfAbsent(labels[i], label -> new ArrayList<>()).add(i);
+            }
+        }
+        for (Map.Entry<String, List<Integer>> entry : members.entrySet()) {
+            int[] assets = entry.getValue().stream().mapToInt(Integer::intValue).toArray();
+            addGroupLimit(entry.getKey(), assets, maxExposureByLabel.get(entry.getKey()));
+        }
+    }
+
+    // Σ|w_i - currentWeights_i| <= maxTurnover (a full switch between two portfolios is 2)
+    public void setTurnoverLimit(double[] currentWeights, double maxTurnover) {
+        if (maxTurnover < 0) {
+            throw new IllegalArgumentException("Max turnover cannot be negative.");
+        }
+        this.currentWeights = currentWeights.clone();
+        this.maxTurnover = maxTurnover;
+    }
+
+    public int getGroupCount() {
+        return groupLimits.size();
+    }
+
+    boolean hasTurnoverLimit() {
+        return currentWeights != null;
+    }
+
+    // Weights first, then one turnover auxiliary per asset if a turnover limit is set
+    int variableCount(int numAssets) {
+        return hasTurnoverLimit() ? 2 * numAssets : numAssets;
+    }
+
+    List<LinearConstraint> toLinearConstraints(int numAssets) {
+        int variables = variableCount(numAssets);
+        List<LinearConstraint> constraints = new ArrayList<>();
+
+        if (maxWeight < 1) {
+            for (int i = 0; i < numAssets; i++) {
+                if (!assetMaxWeights.containsKey(i)) {
+                    constraints.add(bound(variables, i, maxWeight));
+                }
+            }
+        }
+        for (Map.Entry<Integer, Double> entry : assetMaxWeights.entrySet()) {
+            checkIndex(entry.getKey(), numAssets, "Capped asset");
+            if (entry.getValue() < 1) {
+                constraints.add(bound(variables, entry.getKey(), entry.getValue()));
+            }
+        }
+
+        for (GroupLimit group : groupLimits) {
+            OpenMapRealVector row = new OpenMapRealVector(variables);
+            for (int asset : group.assets) {
+                checkIndex(asset, numAssets, "Group '" + group.name + "' asset");
+                row.setEntry(asset, 1);
+            }
+            if (group.maxExposure < 1) {
+                constraints.add(new LinearConstraint(row, Relationship.LEQ, group.maxExposure));
+            }
+            if (group.minExposure > 0) {
+                constraints.add(new LinearConstraint(row, Relationship.GEQ, group.minExposure));
+            }
+        }
+
+        if (hasTurnoverLimit()) {
+            if (currentWeights.length != numAssets) {
+                throw new IllegalArgumentException("The size of the current weights array and the number of assets must be the same.");
+            }
+            // t_i >= w_i - c_i and t_i >= c_i - w_i, then Σ t_i <= maxTurnover
+            OpenMapRealVector total = new OpenMapRealVector(variables);
+            for (int i = 0; i < numAssets; i++) {
+                OpenMapRealVector above = new OpenMapRealVector(variables);
+                above.setEntry(numAssets + i, 1);
+                above.setEntry(i, -1);
+                constraints.add(new LinearConstraint(above, Relationship.GEQ, -currentWeights[i]));
+                OpenMapRealVector below = new OpenMapRealVector(variables);
+                below.setEntry(numAssets + i, 1);
+                below.setEntry(i, 1);
+                constraints.add(new LinearConstraint(below, Relationship.GEQ, currentWeights[i]));
+                total.setEntry(numAssets + i, 1);
+            }
+            constraints.add(new LinearConstraint(total, Relationship.LEQ, maxTurnover));
+        }
+        return constraints;
+    }
+
+    //------------------------------------- Helper classes/ methods -------------------------------------//
+
+    private static final class GroupLimit {
+        final String name;
+        final int[] assets;
+        final double minExposure;
+        final double maxExposure;
+
+        GroupLimit(String name, int[] assets, double minExposure, double maxExposure) {
+            this.name = name;
+            this.assets = assets;
+            this.minExposure = minExposure;
+            this.maxExposure = maxExposure;
+        }
+    }
+
+    private static LinearConstraint bound(int variables, int asset, double maxWeight) {
+        OpenMapRealVector row = new OpenMapRealVector(variables);
+        row.setEntry(asset, 1);
+        return new LinearConstraint(row, Relationship.LEQ, maxWeight);
+    }
+
+    private static void checkIndex(int asset, int numAssets, String context) {
+        if (asset >= numAssets) {
+            throw new IllegalArgumentException(context + " index " + asset + " is outside of the portfolio.");
+        }
+    }
+}
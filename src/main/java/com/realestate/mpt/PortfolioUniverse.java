@@ -0,0 +1,137 @@
+package com.realestate.mpt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/* Shared context for evaluating many portfolios drawn from one asset universe. Histories are aligned (same 'i' /
+'c' rules as MPT.historyCleaner) into a private returns matrix and the covariance is computed once, both without
+touching the assets, so any number of PortfolioViews (different subsets and weightings) can be evaluated from any
+number of threads against the same matrix.
+
+The universe is a snapshot: expected returns and histories are read when it is built. After changing an asset,
+build a new universe. */
+public class PortfolioUniverse {
+    private final List<RealEstateAsset> assets;
+    private final Map<RealEstateAsset, Integer> positions;
+    private final double[] expectedReturns;
+    private final double[][] returns; // m x n, aligned
+    private final DenseCovariance covariance;
+
+    public PortfolioUniverse(List<RealEstateAsset> assets, String cleanMethod) {
+        if (assets.isEmpty()) {
+            throw new IllegalArgumentException("Asset list cannot be empty.");
+        }
+        this.assets = new ArrayList<>(assets);
+        this.positions = new HashMap<>();
+        for (int i = 0; i < assets.size(); i++) {
+            if (positions.put(assets.get(i), i) != null) {
+                throw new IllegalArgumentException("Asset '" + assets.get(i).getPropertyId() + "' appears more than once.");
+            }
+        }
+        this.expectedReturns = this.assets.stream().mapToDouble(RealEstateAsset::getExpectedReturn).toArray();
+        this.returns = PortfolioUtils.alignedReturns(this.assets, cleanMethod);
+        this.covariance = new DenseCovariance(PortfolioUtils.computeCovarianceMatrix(returns));
+    }
+
+    public PortfolioUniverse(List<RealEstateAsset> assets) {
+        this(assets, "i");
+    }
+
+    public int size() {
+        return assets.size();
+    }
+
+    public List<RealEstateAsset> getAssets() {
+        return Collections.unmodifiableList(assets);
+    }
+
+    // Position of the asset in the universe, or -1
+    public int indexOf(RealEstateAsset asset) {
+        Integer position = positions.get(asset);
+        return position == null ? -1 : position;
+    }
+
+    public double getExpectedReturn(int i) {
+        return expectedReturns[i];
+    }
+
+    // Aligned history of asset i (a copy)
+    public double[] getAlignedHistory(int i) {
+        double[] history = new double[returns.length];
+        for (int t = 0; t < returns.length; t++) {
+            history[t] = returns[t][i];
+        }
+        return history;
+    }
+
+    public double getCovariance(int i, int j) {
+        return covariance.getMatrix()[i][j];
+    }
+
+    // Whole-universe operator; shared, so treat it as read-only
+    public CovarianceOperator covarianceOperator() {
+        return covariance;
+    }
+
+    // Portfolio over the whole universe; weights are aligned with getAssets()
+    public PortfolioView portfolio(double[] weights) {
+        if (weights.length != assets.size()) {
+            throw new IllegalArgumentException("The size of the universe and the weights array must be the same.");
+        }
+        int[] indices = new int[weights.length];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = i;
+        }
+        return new PortfolioView(this, indices, weights.clone());
+    }
+
+    // Portfolio over a subset, e.g. one client's holdings; every asset must belong to the universe
+    public PortfolioView portfolio(Map<RealEstateAsset, Double> assetsWeights) {
+        int[] indices = new int[assetsWeights.size()];
+        double[] weights = new double[assetsWeights.size()];
+        int k = 0;
+        for (Map.Entry<RealEstateAsset, Double> entry : assetsWeights.entrySet()) {
+            indices[k] = indexOf(entry.getKey());
+            if (indices[k] < 0) {
+                throw new IllegalArgumentException("Asset '" + entry.getKey().getPropertyId() + "' is not in the universe.");
+            }
+            weights[k++] = entry.getValue();
+        }
+        return portfolio(indices, weights);
+    }
+
+    // Portfolio over the assets at the given universe positions
+    public PortfolioView portfolio(int[] indices, double[] weights) {
+        if (indices.length != weights.length) {
+            throw new IllegalArgumentException("The size of the indices array and the weights array must be the same.");
+        }
+        if (indices.length == 0) {
+            throw new IllegalArgumentException("Portfolio cannot be empty.");
+        }
+        boolean[] seen = new boolean[assets.size()];
+        for (int index : indices) {
+            if (index < 0 || index >= assets.size()) {
+                throw new IllegalArgumentException("Index " + index + " is outside the universe.");
+            }
+            if (seen[index]) {
+                throw new IllegalArgumentException("Index " + index + " appears more than once.");
+            }
+            seen[index] = true;
+        }
+        return new PortfolioView(this, indices.clone(), weights.clone());
+    }
+
+    // Many whole-universe weightings at once, one per row of weights (aligned with getAssets()), without creating views
+    public PortfolioBatch evaluatePortfolios(double[][] weights, double riskFreeRate) {
+        return PortfolioBatch.evaluate(covariance, expectedReturns, weights, riskFreeRate);
+    }
+
+    //------------------------------------- Helper classes/ methods -------------------------------------//
+
+    double[][] covarianceMatrix() {
+        return covariance.getMatrix();
+    }
+}
@@ -1,4 +1,7 @@
 package com.realestate.mpt;
+import com.realestate.metrics.Counter;
+import com.realestate.metrics.Metrics;
+import com.realestate.metrics.Operation;
 import org.apache.commons.math3.analysis.UnivariateFunction;
 import org.apache.commons.math3.linear.RealMatrix;
 import org.apache.commons.math3.linear.BlockRealMatrix;
@@ -9,7 +12,9 @@ import org.apache.commons.math3.analysis.interpolation.DividedDifferenceInterpol
 import org.apache.commons.math3.analysis.interpolation.NevilleInterpolator;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.Map;
@@ -31,6 +36,19 @@ public class PortfolioUtils {
         return weights.stream().mapToDouble(Double::doubleValue).toArray();
     }
 
+    // Equal weights in list order, e.g. to start an MPT from a screened selection of assets
+    public static Map<RealEstateAsset, Double> equalWeights(List<RealEstateAsset> assets) {
+        if (assets.isEmpty()) {
+            throw new IllegalArgumentException("Asset list cannot be empty.");
+        }
+        Map<RealEstateAsset, Double> weights = new LinkedHashMap<>();
+        for (RealEstateAsset asset : assets) {
+            weights.put(asset, 0.0);
+        }
+        weights.replaceAll((asset, weight) -> 1.0 / weights.size()); // Duplicates count once
+        return weights;
+    }
+
     // Function to validate the historical returns length for assets in the map
     public static boolean validateHistoricalReturnsLength(Map<RealEstateAsset, Double> assetsMap) {
         List<RealEstateAsset> assetsList = extractAssetsFromMap(assetsMap);
@@ -79,36 +97,19 @@ public class PortfolioUtils {
                 .max()
                 .orElse(0);
 
-        // Prepare interpolator
-        // LinearInterpolator interpolator = new LinearInterpolator();
-        // SplineInterpolator interpolator = new SplineInterpolator();
-        // DividedDifferenceInterpolator interpolator = new DividedDifferenceInterpolator();
-        NevilleInterpolator interpolator = new NevilleInterpolator();
-
-
         for (RealEstateAsset asset : assets) {
             List<Double> history = asset.getHistoricalReturns();
 
             // If the history length of this asset is less than the maxHistoryLength
             // we need to interpolate its values
             if (history.size() < maxHistoryLength) {
-                double[] xvals = IntStream.range(0, history.size()).asDoubleStream().toArray();
-                double[] yvals = history.stream().mapToDouble(Double::doubleValue).toArray();
-
-                UnivariateFunction function = interpolator.interpolate(xvals, yvals);
-
-                List<Double> newHistory = new ArrayList<>(Collections.nCopies(maxHistoryLength, null));
-
-                for (int i = 0; i < history.size(); i++) {
-                    newHistory.set(i, history.get(i)); // Use exact data from original history
+                double[] resampled = interpolatedHistory(history, maxHistoryLength);
+                List<Double> newHistory = new ArrayList<>(maxHistoryLength);
+                for (double value : resampled) {
+                    newHistory.add(value);
                 }
-
-                for (int i = history.size(); i < maxHistoryLength; i++) {
-                    double interpolatedIndex = i * (history.size() - 1.0) / (maxHistoryLength - 1.0); // resampling happens here
-                    newHistory.set(i, function.value(interpolatedIndex)); // Interpolate for missing data
-                }
-
                 asset.setHistoricalReturns(newHistory);
+                Metrics.increment(Counter.HISTORIES_RESAMPLED);
             }
         }
 
@@ -132,20 +133,80 @@ public class PortfolioUtils {
             if (historicalReturns.size() > minHistoryLength) {
                 historicalReturns = historicalReturns.subList(0, minHistoryLength); // This does not modify the original list. It provides a view.
                 asset.setHistoricalReturns(historicalReturns);
+                Metrics.increment(Counter.HISTORIES_RESAMPLED);
             }
         }
         return assetsWeights; // Return the updated map
     }
 
     protected static Map<RealEstateAsset, Double> historyCleaning(Map<RealEstateAsset, Double> assetsWeights, String cleanMethod) {
-        return switch (cleanMethod) {
+        return Metrics.timed(Operation.HISTORY_CLEANING, assetsWeights.size(), () -> switch (cleanMethod) {
             case "i" -> interpolateHistories(assetsWeights);
             case "c" -> cutHistoriesToShortest(assetsWeights);
             default -> throw new IllegalArgumentException("Invalid clean method. Must be 'i' or 'c'.");
-        };
+        });
+    }
+
+    // History stretched to length: the original values first, then the interpolated resample points
+    static double[] interpolatedHistory(List<Double> history, int length) {
+        // Prepare interpolator
+        // LinearInterpolator interpolator = new LinearInterpolator();
+        // SplineInterpolator interpolator = new SplineInterpolator();
+        // DividedDifferenceInterpolator interpolator = new DividedDifferenceInterpolator();
+        NevilleInterpolator interpolator = new NevilleInterpolator();
+
+        double[] xvals = IntStream.range(0, history.size()).asDoubleStream().toArray();
+        double[] yvals = history.stream().mapToDouble(Double::doubleValue).toArray();
+        UnivariateFunction function = interpolator.interpolate(xvals, yvals);
+
+        double[] resampled = Arrays.copyOf(yvals, length); // Use exact data from original history
+        for (int i = history.size(); i < length; i++) {
+            double interpolatedIndex = i * (history.size() - 1.0) / (length - 1.0); // resampling happens here
+            resampled[i] = function.value(interpolatedIndex); // Interpolate for missing data
+        }
+        return resampled;
+    }
+
+    /* Same alignment as historyCleaning, but into a fresh m x n returns matrix (row = period, column = asset)
+    instead of rewriting the assets' histories. */
+    public static double[][] alignedReturns(List<RealEstateAsset> assets, String cleanMethod) {
+        if (!("i".equals(cleanMethod) || "c".equals(cleanMethod))) {
+            throw new IllegalArgumentException("Invalid clean method. Must be 'i' or 'c'.");
+        }
+        return Metrics.timed(Operation.HISTORY_CLEANING, assets.size(), () -> alignReturns(assets, cleanMethod));
+    }
+
+    private static double[][] alignReturns(List<RealEstateAsset> assets, String cleanMethod) {
+        IntStream lengths = assets.stream().mapToInt(asset -> asset.getHistoricalReturns().size());
+        int m = ("i".equals(cleanMethod) ? lengths.max() : lengths.min()).orElse(0);
+        int n = assets.size();
+        double[][] returns = new double[m][n];
+        for (int j = 0; j < n; j++) {
+            List<Double> history = assets.get(j).getHistoricalReturns();
+            if (history.size() < m) {
+                double[] resampled = interpolatedHistory(history, m);
+                for (int i = 0; i < m; i++) {
+                    returns[i][j] = resampled[i];
+                }
+            } else {
+                for (int i = 0; i < m; i++) {
+                    returns[i][j] = history.get(i);
+                }
+            }
+        }
+        return returns;
+    }
+
+    // Covariance of the columns of an m x n returns matrix
+    public static double[][] computeCovarianceMatrix(double[][] returns) {
+        return Metrics.timed(Operation.COVARIANCE_BUILD, returns.length == 0 ? 0 : returns[0].length, () -> covarianceOf(returns));
     }
 
     public static double[][] computeCovarianceMatrix(List<RealEstateAsset> assets) {
+        return Metrics.timed(Operation.COVARIANCE_BUILD, assets.size(), () -> covarianceOf(assets));
+    }
+
+    private static double[][] covarianceOf(List<RealEstateAsset> assets) {
         // Extract historical returns from assets
         int n = assets.size();
         int m = assets.get(0).getHistoricalReturns().size();  // Assuming all assets have same number of historical returns
@@ -158,6 +219,10 @@ public class PortfolioUtils {
             }
         }
 
+        return covarianceOf(returns);
+    }
+
+    private static double[][] covarianceOf(double[][] returns) {
         // Compute covariance matrix using Apache Commons Math
         RealMatrix matrix = new BlockRealMatrix(returns);
         Covariance covariance = new Covariance(matrix);
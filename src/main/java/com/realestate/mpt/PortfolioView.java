@@ -0,0 +1,150 @@
+package com.realestate.mpt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/* A weighting of some of a PortfolioUniverse's assets. It holds only the universe positions and the weights; Σ is
+read from the universe's shared matrix through an index mapping, so a view costs O(assets) to create and is safe
+to use from several threads. Results are aligned with getAssets(), in the order the view was created with. */
+public class PortfolioView {
+    private final PortfolioUniverse universe;
+    private final int[] indices;
+    private final double[] weights;
+    private final CovarianceOperator covariance;
+
+    PortfolioView(PortfolioUniverse universe, int[] indices, double[] weights) {
+        this.universe = universe;
+        this.indices = indices;
+        this.weights = weights;
+        this.covariance = isWholeUniverse(universe, indices)
+                ? universe.covarianceOperator()
+                : new SubCovariance(universe.covarianceMatrix(), indices);
+    }
+
+    public PortfolioUniverse getUniverse() {
+        return universe;
+    }
+
+    public int size() {
+        return indices.length;
+    }
+
+    public List<RealEstateAsset> getAssets() {
+        List<RealEstateAsset> assets = new ArrayList<>(indices.length);
+        for (int index : indices) {
+            assets.add(universe.getAssets().get(index));
+        }
+        return Collections.unmodifiableList(assets);
+    }
+
+    // Universe positions of the view's assets
+    public int[] getIndices() {
+        return indices.clone();
+    }
+
+    public double[] getWeights() {
+        return weights.clone();
+    }
+
+    // Same universe subset with other weights, e.g. an optimizer's result
+    public PortfolioView withWeights(double[] newWeights) {
+        if (newWeights.length != indices.length) {
+            throw new IllegalArgumentException("The size of the portfolio and the weights array must be the same.");
+        }
+        return new PortfolioView(universe, indices, newWeights.clone());
+    }
+
+    // The view's slice of the shared covariance
+    public CovarianceOperator covarianceOperator() {
+        return covariance;
+    }
+
+    public double portfolioExpectedReturn() {
+        double expectedReturn = 0.0;
+        for (int k = 0; k < indices.length; k++) {
+            expectedReturn += universe.getExpectedReturn(indices[k]) * weights[k];
+        }
+        return expectedReturn;
+    }
+
+    public double portfolioVolatility() {
+        return Math.sqrt(covariance.quadraticForm(weights));
+    }
+
+    public double sharpeRatio(double riskFreeRate) {
+        return (portfolioExpectedReturn() - riskFreeRate) / portfolioVolatility();
+    }
+
+    public RiskDecomposition riskDecomposition() {
+        return RiskDecomposition.of(covariance, weights);
+    }
+
+    public double[] minimumVariancePortfolio() {
+        return new MinimumVarianceOptimizer().optimize(covariance);
+    }
+
+    public double[] riskParityPortfolio() {
+        return new RiskParityOptimizer().optimize(covariance);
+    }
+
+    public double[] optimizedPortfolio(double desiredRisk) {
+        return optimizedPortfolio(desiredRisk, new PortfolioConstraints());
+    }
+
+    // Same linear program as MPT.optimizedPortfolio, linearized at this view's weights
+    public double[] optimizedPortfolio(double desiredRisk, PortfolioConstraints portfolioConstraints) {
+        double[] expectedReturns = new double[indices.length];
+        for (int k = 0; k < indices.length; k++) {
+            expectedReturns[k] = universe.getExpectedReturn(indices[k]);
+        }
+        return MPT.solveOptimizedPortfolio(expectedReturns, covariance, weights, desiredRisk, portfolioConstraints);
+    }
+
+    //------------------------------------- Helper classes/ methods -------------------------------------//
+
+    private static boolean isWholeUniverse(PortfolioUniverse universe, int[] indices) {
+        if (indices.length != universe.size()) {
+            return false;
+        }
+        for (int k = 0; k < indices.length; k++) {
+            if (indices[k] != k) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Σ restricted to the view's assets, read in place from the universe matrix
+    private static final class SubCovariance implements CovarianceOperator {
+        private final double[][] matrix;
+        private final int[] indices;
+
+        SubCovariance(double[][] matrix, int[] indices) {
+            this.matrix = matrix;
+            this.indices = indices;
+        }
+
+        @Override
+        public int dimension() {
+            return indices.length;
+        }
+
+        @Override
+        public double diagonal(int i) {
+            return matrix[indices[i]][indices[i]];
+        }
+
+        @Override
+        public void multiply(double[] x, double[] out) {
+            for (int a = 0; a < indices.length; a++) {
+                double[] row = matrix[indices[a]];
+                double sum = 0;
+                for (int b = 0; b < indices.length; b++) {
+                    sum += row[indices[b]] * x[b];
+                }
+                out[a] = sum;
+            }
+        }
+    }
+}
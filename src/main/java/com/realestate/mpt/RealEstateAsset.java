@@ -1,6 +1,11 @@
 package com.realestate.mpt;
+import com.realestate.mortgage.AbstractMortgage;
+import com.realestate.mortgage.MortgageSpec;
+
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /* Note that we can use this to represent a real estate asset, but we can also use it to represent real estate markets,
 portfolios, or anything really. If we want to evaluate real estate markets we can e.g. use median house prices */
@@ -13,6 +18,11 @@ public class RealEstateAsset {
     private double annualAppreciation;
     private double annualExpenses;
     private double initialPropertyValue;
+    private double latitude = Double.NaN;  // Degrees, NaN until a location is set
+    private double longitude = Double.NaN;
+    private MortgageSpec financing; // Interned, so identically financed assets share one schedule
+    private volatile List<AssetChangeListener> listeners; // Created on the first registration
+    private volatile int historyVersion; // Bumped on every history change, so an MPT can tell its covariance is stale
 
     // Constructors
     public RealEstateAsset(String propertyId, double annualRentalIncome,
@@ -46,7 +56,34 @@ public class RealEstateAsset {
 
     // Compute expected return based on provided parameters
     private void computeExpectedReturn() {
-        this.expectedReturn = (annualRentalIncome + annualAppreciation - annualExpenses) / initialPropertyValue;
+        updateExpectedReturn((annualRentalIncome + annualAppreciation - annualExpenses) / initialPropertyValue);
+    }
+
+    private void updateExpectedReturn(double expectedReturn) {
+        double previous = this.expectedReturn;
+        this.expectedReturn = expectedReturn;
+        if (listeners != null && Double.compare(previous, expectedReturn) != 0) {
+            for (AssetChangeListener listener : listeners) {
+                listener.expectedReturnChanged(this, previous, expectedReturn);
+            }
+        }
+    }
+
+    // Listeners run on the thread that changes the asset, e.g. EfficientFrontier redrawing itself
+    public synchronized void addChangeListener(AssetChangeListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null.");
+        }
+        if (listeners == null) {
+            listeners = new CopyOnWriteArrayList<>();
+        }
+        listeners.add(listener);
+    }
+
+    public synchronized void removeChangeListener(AssetChangeListener listener) {
+        if (listeners != null) {
+            listeners.remove(listener);
+        }
     }
 
     // Getters
@@ -78,6 +115,23 @@ public class RealEstateAsset {
         return initialPropertyValue;
     }
 
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public boolean hasLocation() {
+        return !Double.isNaN(latitude);
+    }
+
+    // Interned terms of the attached loan, or null for an unlevered asset
+    public MortgageSpec getFinancing() {
+        return financing;
+    }
+
     // Setters with appropriate validation.
 
     /* Technically, it would be ideal if IDs exist and are unique, but this is not needed
@@ -90,6 +144,15 @@ public class RealEstateAsset {
         this.propertyId = propertyId;
     }
 
+    /* Overrides the derived expected return, e.g. with a comparable-sales estimate. Changing income, appreciation,
+    expenses or the initial value afterwards derives it again. */
+    public void setExpectedReturn(double expectedReturn) {
+        if (Double.isNaN(expectedReturn)) {
+            throw new IllegalArgumentException("Expected return cannot be NaN.");
+        }
+        updateExpectedReturn(expectedReturn);
+    }
+
     public void setAnnualRentalIncome(double annualRentalIncome) {
         if (annualRentalIncome < 0) {
             throw new IllegalArgumentException("Annual rental income cannot be negative.");
@@ -122,11 +185,41 @@ public class RealEstateAsset {
         computeExpectedReturn();
     }
 
+    // WGS84 degrees: latitude in [-90, 90], longitude in [-180, 180]
+    public void setLocation(double latitude, double longitude) {
+        if (!(latitude >= -90 && latitude <= 90)) {
+            throw new IllegalArgumentException("Latitude must be between -90 and 90 degrees.");
+        }
+        if (!(longitude >= -180 && longitude <= 180)) {
+            throw new IllegalArgumentException("Longitude must be between -180 and 180 degrees.");
+        }
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    /* Attaches the loan's current terms (a snapshot: later changes to the mortgage object are not picked up).
+    null removes the financing. */
+    public void setFinancing(AbstractMortgage mortgage) {
+        setFinancing(mortgage == null ? null : mortgage.toSpec());
+    }
+
+    public void setFinancing(MortgageSpec financing) {
+        if (financing != null && financing.getPrincipal() >= initialPropertyValue) {
+            throw new IllegalArgumentException("Loan principal must be smaller than the initial property value.");
+        }
+        this.financing = financing == null ? null : financing.intern();
+    }
+
     public void setHistoricalReturns(List<Double> historicalReturns) {
         if (historicalReturns == null || historicalReturns.isEmpty()) {
             throw new IllegalArgumentException("Historical returns cannot be null or empty.");
         }
-        this.historicalReturns = historicalReturns;
+        this.historicalReturns = new ArrayList<>(historicalReturns); // Copied, so only this setter can change it
+        historyVersion++;
+    }
+
+    int getHistoryVersion() {
+        return historyVersion;
     }
 
     @Override
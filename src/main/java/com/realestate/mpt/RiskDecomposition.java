@@ -0,0 +1,104 @@
+package com.realestate.mpt;
+
+/* Splits portfolio volatility into per-asset contributions. With s = Σw and σp = sqrt(w·s):
+marginal_i = s_i / σp, component_i = w_i * marginal_i (components sum to σp), percent_i = component_i / σp,
+and the diversification ratio is Σ w_i σ_i / σp. Needs a single Σw product (row-block parallel for a dense
+matrix, see DenseCovariance) plus the diagonal. All arrays are aligned with the asset order of the covariance
+matrix (MPT.getAssets()). */
+public class RiskDecomposition {
+    private final double[] weights;
+    private final double[] marginal;
+    private final double[] component;
+    private final double[] percent;
+    private final double volatility;
+    private final double diversificationRatio;
+
+    private RiskDecomposition(double[] weights, double[] marginal, double[] component, double[] percent,
+                              double volatility, double diversificationRatio) {
+        this.weights = weights;
+        this.marginal = marginal;
+        this.component = component;
+        this.percent = percent;
+        this.volatility = volatility;
+        this.diversificationRatio = diversificationRatio;
+    }
+
+    public static RiskDecomposition of(double[][] covarianceMatrix, double[] weights) {
+        return of(new DenseCovariance(covarianceMatrix), weights);
+    }
+
+    public static RiskDecomposition of(CovarianceOperator covariance, double[] weights) {
+        int n = weights.length;
+        if (covariance.dimension() != n) {
+            throw new IllegalArgumentException("The size of the covariance matrix and the weights array must be the same.");
+        }
+        double[] product = new double[n];
+        covariance.multiply(weights, product);
+        double[] assetVolatility = new double[n];
+        for (int i = 0; i < n; i++) {
+            assetVolatility[i] = Math.sqrt(covariance.diagonal(i));
+        }
+
+        double variance = 0;
+        double weightedVolatility = 0;
+        for (int i = 0; i < n; i++) {
+            variance += weights[i] * product[i];
+            weightedVolatility += weights[i] * assetVolatility[i];
+        }
+        double volatility = Math.sqrt(variance);
+        if (volatility == 0) {
+            throw new IllegalArgumentException("Portfolio volatility is zero, risk contributions are undefined.");
+        }
+
+        double[] marginal = new double[n];
+        double[] component = new double[n];
+        double[] percent = new double[n];
+        for (int i = 0; i < n; i++) {
+            marginal[i] = product[i] / volatility;
+            component[i] = weights[i] * marginal[i];
+            percent[i] = component[i] / volatility;
+        }
+        return new RiskDecomposition(weights.clone(), marginal, component, percent, volatility,
+                weightedVolatility / volatility);
+    }
+
+    public int size() {
+        return weights.length;
+    }
+
+    public double getVolatility() {
+        return volatility;
+    }
+
+    // d(σp)/d(w_i)
+    public double[] getMarginalContributions() {
+        return marginal.clone();
+    }
+
+    // w_i * d(σp)/d(w_i); sums to the portfolio volatility
+    public double[] getComponentContributions() {
+        return component.clone();
+    }
+
+    // Component contributions as fractions of the volatility; sums to 1
+    public double[] getPercentContributions() {
+        return percent.clone();
+    }
+
+    public double getMarginalContribution(int i) {
+        return marginal[i];
+    }
+
+    public double getComponentContribution(int i) {
+        return component[i];
+    }
+
+    public double getPercentContribution(int i) {
+        return percent[i];
+    }
+
+    // Weighted average asset volatility over portfolio volatility; 1 means no diversification benefit
+    public double getDiversificationRatio() {
+        return diversificationRatio;
+    }
+}
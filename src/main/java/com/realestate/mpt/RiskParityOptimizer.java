@@ -0,0 +1,220 @@
+package com.realestate.mpt;
+
+import com.realestate.metrics.Counter;
+import com.realestate.metrics.Metrics;
+import com.realestate.metrics.Operation;
+
+import java.util.Arrays;
+
+/* Equal (or budgeted) risk contribution portfolio. Minimizes the convex function
+f(x) = ½ x'Σx - Σ b_i log(x_i) over x > 0, whose minimizer has x_i (Σx)_i = b_i; normalizing x gives weights
+with risk contributions proportional to the budgets b.
+
+Solved by truncated Newton: the Hessian Σ + diag(b/x²) is never formed, each Newton direction comes from a
+diagonally preconditioned conjugate gradient that only needs Σp products. Those products dominate the cost and
+run in parallel inside the covariance operator, so this scales with cores where coordinate-by-coordinate descent
+cannot. Steps are kept inside x > 0 and accepted with an Armijo line search evaluated from Σx and Σp. */
+public class RiskParityOptimizer {
+    public static final int DEFAULT_MAX_ITERATIONS = 10000;
+    public static final double DEFAULT_TOLERANCE = 1e-8;
+
+    private final int maxIterations;
+    private final double tolerance;
+    private volatile int iterations;
+
+    public RiskParityOptimizer() {
+        this(DEFAULT_MAX_ITERATIONS, DEFAULT_TOLERANCE);
+    }
+
+    // tolerance bounds the relative error of every risk contribution against its budget
+    public RiskParityOptimizer(int maxIterations, double tolerance) {
+        if (maxIterations <= 0) {
+            throw new IllegalArgumentException("Max iterations must be greater than 0.");
+        }
+        if (tolerance <= 0) {
+            throw new IllegalArgumentException("Tolerance cannot be negative or zero.");
+        }
+        this.maxIterations = maxIterations;
+        this.tolerance = tolerance;
+    }
+
+    // Equal risk contributions
+    public double[] optimize(CovarianceOperator covariance) {
+        double[] budgets = new double[covariance.dimension()];
+        Arrays.fill(budgets, 1.0 / budgets.length);
+        return optimize(covariance, budgets);
+    }
+
+    // Weights whose risk contributions are proportional to budgets (positive, need not sum to 1)
+    public double[] optimize(CovarianceOperator covariance, double[] budgets) {
+        int n = covariance.dimension();
+        if (budgets.length != n) {
+            throw new IllegalArgumentException("The size of the covariance matrix and the budgets array must be the same.");
+        }
+        return Metrics.timed(Operation.PORTFOLIO_OPTIMIZATION, n, () -> solve(covariance, budgets, n));
+    }
+
+    // Iterations used by the last optimize() call
+    public int getIterations() {
+        return iterations;
+    }
+
+    private double[] solve(CovarianceOperator covariance, double[] budgets, int n) {
+        double[] diagonal = new double[n];
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++) {
+            if (budgets[i] <= 0) {
+                throw new IllegalArgumentException("Risk budget cannot be negative or zero.");
+            }
+            diagonal[i] = covariance.diagonal(i);
+            if (diagonal[i] <= 0) {
+                throw new IllegalArgumentException("Asset variance cannot be negative or zero.");
+            }
+            x[i] = Math.sqrt(budgets[i] / diagonal[i]); // Exact solution for uncorrelated assets
+        }
+        double[] sigmaX = new double[n];
+        double[] gradient = new double[n];
+        double[] direction = new double[n];
+        double[] sigmaDirection = new double[n];
+        NewtonSolver newton = new NewtonSolver(n);
+        covariance.multiply(x, sigmaX);
+        double objective = objective(x, sigmaX, budgets);
+
+        int iteration = 0;
+        while (iteration < maxIterations) {
+            // Converged when every risk contribution x_i (Σx)_i matches its budget
+            double error = 0;
+            double gradientNorm = 0;
+            for (int i = 0; i < n; i++) {
+                gradient[i] = sigmaX[i] - budgets[i] / x[i];
+                gradientNorm += gradient[i] * gradient[i];
+                error = Math.max(error, Math.abs(x[i] * sigmaX[i] - budgets[i]) / budgets[i]);
+            }
+            if (error < tolerance) {
+                break;
+            }
+            iteration++;
+            newton.direction(covariance, diagonal, budgets, x, gradient, Math.sqrt(gradientNorm), direction, sigmaDirection);
+
+            // Largest step keeping x positive, then backtrack until f decreases enough
+            double step = 1;
+            double slope = 0;
+            for (int i = 0; i < n; i++) {
+                if (direction[i] < 0) {
+                    step = Math.min(step, -0.99 * x[i] / direction[i]);
+                }
+                slope += gradient[i] * direction[i];
+            }
+            // Once the predicted decrease is below the resolution of f the full Newton step is taken unchecked
+            if (-slope > 1e-12 * (1 + Math.abs(objective))) {
+                double trial = objective(x, sigmaX, direction, sigmaDirection, budgets, step);
+                while (trial > objective + 1e-4 * step * slope && step > 1e-12) {
+                    step *= 0.5;
+                    trial = objective(x, sigmaX, direction, sigmaDirection, budgets, step);
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                x[i] += step * direction[i];
+            }
+            // Recomputed rather than updated so rounding does not accumulate
+            covariance.multiply(x, sigmaX);
+            objective = objective(x, sigmaX, budgets);
+        }
+        iterations = iteration;
+        Metrics.add(Counter.OPTIMIZER_ITERATIONS, iteration);
+
+        double sum = 0;
+        for (double value : x) {
+            sum += value;
+        }
+        for (int i = 0; i < n; i++) {
+            x[i] /= sum;
+        }
+        return x;
+    }
+
+    //------------------------------------- Helper classes/ methods -------------------------------------//
+
+    // Preconditioned CG for (Σ + diag(b/x²)) p = -g, also accumulating Σp so the line search needs no product
+    private static final class NewtonSolver {
+        private static final int MAX_CG_ITERATIONS = 250;
+
+        private final double[] residual;
+        private final double[] preconditioned;
+        private final double[] search;
+        private final double[] sigmaSearch;
+        private final double[] hessianDiagonal;
+
+        NewtonSolver(int n) {
+            residual = new double[n];
+            preconditioned = new double[n];
+            search = new double[n];
+            sigmaSearch = new double[n];
+            hessianDiagonal = new double[n];
+        }
+
+        void direction(CovarianceOperator covariance, double[] diagonal, double[] budgets, double[] x, double[] gradient,
+                       double gradientNorm, double[] p, double[] sigmaP) {
+            int n = x.length;
+            double rz = 0;
+            for (int i = 0; i < n; i++) {
+                hessianDiagonal[i] = budgets[i] / (x[i] * x[i]);
+                p[i] = 0;
+                sigmaP[i] = 0;
+                residual[i] = -gradient[i];
+                preconditioned[i] = residual[i] / (diagonal[i] + hessianDiagonal[i]);
+                search[i] = preconditioned[i];
+                rz += residual[i] * preconditioned[i];
+            }
+            // Forcing term: solve loosely far from the optimum, tightly near it
+            double target = Math.min(0.5, Math.sqrt(gradientNorm)) * gradientNorm;
+            for (int k = 0; k < MAX_CG_ITERATIONS; k++) {
+                covariance.multiply(search, sigmaSearch);
+                double curvature = 0;
+                for (int i = 0; i < n; i++) {
+                    curvature += search[i] * (sigmaSearch[i] + hessianDiagonal[i] * search[i]);
+                }
+                if (curvature <= 0) {
+                    break;
+                }
+                double alpha = rz / curvature;
+                double residualNorm = 0;
+                double nextRz = 0;
+                for (int i = 0; i < n; i++) {
+                    p[i] += alpha * search[i];
+                    sigmaP[i] += alpha * sigmaSearch[i];
+                    residual[i] -= alpha * (sigmaSearch[i] + hessianDiagonal[i] * search[i]);
+                    residualNorm += residual[i] * residual[i];
+                    preconditioned[i] = residual[i] / (diagonal[i] + hessianDiagonal[i]);
+                    nextRz += residual[i] * preconditioned[i];
+                }
+                if (Math.sqrt(residualNorm) <= target) {
+                    break;
+                }
+                double beta = nextRz / rz;
+                rz = nextRz;
+                for (int i = 0; i < n; i++) {
+                    search[i] = preconditioned[i] + beta * search[i];
+                }
+            }
+        }
+    }
+
+    private static double objective(double[] x, double[] sigmaX, double[] budgets) {
+        double value = 0;
+        for (int i = 0; i < x.length; i++) {
+            value += 0.5 * x[i] * sigmaX[i] - budgets[i] * Math.log(x[i]);
+        }
+        return value;
+    }
+
+    // f(x + t*d) from Σx and Σd without another product
+    private static double objective(double[] x, double[] sigmaX, double[] d, double[] sigmaD, double[] budgets, double t) {
+        double value = 0;
+        for (int i = 0; i < x.length; i++) {
+            double xi = x[i] + t * d[i];
+            value += 0.5 * xi * (sigmaX[i] + t * sigmaD[i]) - budgets[i] * Math.log(xi);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,96 @@
+package com.realestate.projection;
+
+import com.realestate.interest.RateSolver;
+import com.realestate.mortgage.AmortizationTable;
+import com.realestate.mortgage.MortgageSpec;
+import com.realestate.mpt.RealEstateAsset;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/* Multi-year property cash flows. For year t of the holding period:
+  NOI_t          = rent (1 + g_rent)^(t-1) (1 - vacancy) - expenses (1 + g_exp)^(t-1)
+  debt service_t = payments of loan months 12(t-1)+1 .. 12t
+  cash flow_t    = NOI_t - debt service_t
+At the end the property is sold at V0 (1 + g_value)^H less selling costs, and the loan balance is repaid.
+Levered IRR solves -equity, CF_1, ..., CF_H + net sale proceeds; unlevered IRR uses -V0 and NOI instead.
+
+Debt service comes from the interned financing terms' memoized schedule (prefix sums, so O(1) per year), so a
+book where many assets carry the same loan builds each distinct schedule once. Large books are projected in
+parallel straight into the primitive result columns. */
+public class CashFlowProjector {
+
+    // Below this size projections stay on the calling thread
+    private static final int PARALLEL_THRESHOLD = 1024;
+
+    public static ProjectionResults project(List<RealEstateAsset> assets, ProjectionAssumptions assumptions) {
+        int years = assumptions.getHoldingYears();
+        ProjectionResults results = new ProjectionResults(assets.size(), years);
+        IntStream range = IntStream.range(0, assets.size());
+        if (assets.size() >= PARALLEL_THRESHOLD) {
+            range = range.parallel();
+        }
+        range.forEach(k -> project(assets.get(k), assumptions, results, k));
+        return results;
+    }
+
+    public static ProjectionResults project(RealEstateAsset asset, ProjectionAssumptions assumptions) {
+        ProjectionResults results = new ProjectionResults(1, assumptions.getHoldingYears());
+        project(asset, assumptions, results, 0);
+        return results;
+    }
+
+    //------------------------------------- Helper classes/ methods -------------------------------------//
+
+    private static void project(RealEstateAsset asset, ProjectionAssumptions assumptions, ProjectionResults results, int k) {
+        double value = asset.getInitialPropertyValue();
+        if (value <= 0) {
+            throw new IllegalArgumentException("Asset " + k + " has no initial property value to project from.");
+        }
+        int years = assumptions.getHoldingYears();
+        MortgageSpec financing = asset.getFinancing();
+        AmortizationTable schedule = financing == null ? null : financing.getSchedule();
+        double loan = financing == null ? 0 : financing.getPrincipal();
+
+        double[] noi = new double[years];
+        double[] debtService = new double[years];
+        double[] levered = new double[years + 1];
+        double[] unlevered = new double[years + 1];
+        double rent = asset.getAnnualRentalIncome() * (1 - assumptions.getVacancyRate());
+        double expenses = asset.getAnnualExpenses();
+        double paidBefore = 0;
+        for (int t = 0; t < years; t++) {
+            noi[t] = rent - expenses;
+            if (schedule != null) {
+                double paidThrough = schedule.getPaymentsThrough(Math.min(12 * (t + 1), schedule.size()));
+                debtService[t] = paidThrough - paidBefore;
+                paidBefore = paidThrough;
+            }
+            levered[t + 1] = noi[t] - debtService[t];
+            unlevered[t + 1] = noi[t];
+            rent *= 1 + assumptions.getRentGrowth();
+            expenses *= 1 + assumptions.getExpenseInflation();
+        }
+
+        double appreciation = assumptions.hasAppreciationRate() ? assumptions.getAppreciationRate()
+                : asset.getAnnualAppreciation() / value;
+        double salePrice = value * Math.pow(1 + appreciation, years) * (1 - assumptions.getSellingCostRate());
+        int monthsHeld = 12 * years;
+        double payoff = schedule == null || monthsHeld >= schedule.size() ? 0 : schedule.getEndingBalance(monthsHeld);
+        double equity = value - loan;
+
+        levered[0] = -equity;
+        levered[years] += salePrice - payoff;
+        unlevered[0] = -value;
+        unlevered[years] += salePrice;
+        results.set(k, noi, debtService, equity, salePrice - payoff, irr(levered), irr(unlevered));
+    }
+
+    private static double irr(double[] cashFlows) {
+        try {
+            return RateSolver.irr(cashFlows);
+        } catch (ArithmeticException e) {
+            return Double.NaN;
+        }
+    }
+}
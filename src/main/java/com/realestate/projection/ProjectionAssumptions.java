@@ -0,0 +1,83 @@
+package com.realestate.projection;
+
+/* Market assumptions for CashFlowProjector, shared by every asset of a run. Rates are annual fractions. Unless set,
+property values grow at each asset's own annualAppreciation / initialPropertyValue. */
+public class ProjectionAssumptions {
+    private int holdingYears = 10;
+    private double rentGrowth = 0.03;
+    private double expenseInflation = 0.025;
+    private double vacancyRate = 0.05;
+    private double appreciationRate = Double.NaN; // NaN: per asset
+    private double sellingCostRate = 0.06;
+
+    public int getHoldingYears() {
+        return holdingYears;
+    }
+
+    public void setHoldingYears(int holdingYears) {
+        if (holdingYears <= 0) {
+            throw new IllegalArgumentException("Holding period cannot be negative or zero.");
+        }
+        this.holdingYears = holdingYears;
+    }
+
+    public double getRentGrowth() {
+        return rentGrowth;
+    }
+
+    public void setRentGrowth(double rentGrowth) {
+        if (rentGrowth <= -1) {
+            throw new IllegalArgumentException("Rent growth must be greater than -100%.");
+        }
+        this.rentGrowth = rentGrowth;
+    }
+
+    public double getExpenseInflation() {
+        return expenseInflation;
+    }
+
+    public void setExpenseInflation(double expenseInflation) {
+        if (expenseInflation <= -1) {
+            throw new IllegalArgumentException("Expense inflation must be greater than -100%.");
+        }
+        this.expenseInflation = expenseInflation;
+    }
+
+    public double getVacancyRate() {
+        return vacancyRate;
+    }
+
+    public void setVacancyRate(double vacancyRate) {
+        if (vacancyRate < 0 || vacancyRate > 1) {
+            throw new IllegalArgumentException("Vacancy rate must be between 0 and 1.");
+        }
+        this.vacancyRate = vacancyRate;
+    }
+
+    public boolean hasAppreciationRate() {
+        return !Double.isNaN(appreciationRate);
+    }
+
+    public double getAppreciationRate() {
+        return appreciationRate;
+    }
+
+    // Same appreciation for every asset instead of each asset's own
+    public void setAppreciationRate(double appreciationRate) {
+        if (appreciationRate <= -1) {
+            throw new IllegalArgumentException("Appreciation rate must be greater than -100%.");
+        }
+        this.appreciationRate = appreciationRate;
+    }
+
+    public double getSellingCostRate() {
+        return sellingCostRate;
+    }
+
+    public void setSellingCostRate(double sellingCostRate) {
+        if (sellingCostRate < 0 || sellingCostRate >= 1) {
+            throw new IllegalArgumentException("Selling cost rate must be between 0 and 1.");
+        }
+        this.sellingCostRate = sellingCostRate;
+    }
+}
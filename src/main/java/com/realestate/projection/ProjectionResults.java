@@ -0,0 +1,94 @@
+package com.realestate.projection;
+
+/* Primitive result columns of CashFlowProjector.project, indexed like the input asset list. Year-by-year figures
+are stored flat (asset-major), years are 1-based. IRRs are annual and NaN when the cash flows have none. */
+public final class ProjectionResults {
+    private final int years;
+    private final double[] netOperatingIncome;
+    private final double[] debtService;
+    private final double[] equity;
+    private final double[] netSaleProceeds;
+    private final double[] cashOnCash;
+    private final double[] leveredIrr;
+    private final double[] unleveredIrr;
+
+    ProjectionResults(int size, int years) {
+        this.years = years;
+        this.netOperatingIncome = new double[size * years];
+        this.debtService = new double[size * years];
+        this.equity = new double[size];
+        this.netSaleProceeds = new double[size];
+        this.cashOnCash = new double[size];
+        this.leveredIrr = new double[size];
+        this.unleveredIrr = new double[size];
+    }
+
+    public int size() {
+        return equity.length;
+    }
+
+    public int getHoldingYears() {
+        return years;
+    }
+
+    public double getNetOperatingIncome(int k, int year) {
+        return netOperatingIncome[index(k, year)];
+    }
+
+    public double getDebtService(int k, int year) {
+        return debtService[index(k, year)];
+    }
+
+    // Cash flow to equity before the sale
+    public double getCashFlow(int k, int year) {
+        return netOperatingIncome[index(k, year)] - debtService[index(k, year)];
+    }
+
+    // Down payment: initial value minus the loan principal
+    public double getEquity(int k) {
+        return equity[k];
+    }
+
+    // Sale price net of selling costs and the loan payoff
+    public double getNetSaleProceeds(int k) {
+        return netSaleProceeds[k];
+    }
+
+    // Year 1 cash flow over equity
+    public double getCashOnCash(int k) {
+        return cashOnCash[k];
+    }
+
+    public double getLeveredIrr(int k) {
+        return leveredIrr[k];
+    }
+
+    public double getUnleveredIrr(int k) {
+        return unleveredIrr[k];
+    }
+
+    public double getTotalNetOperatingIncome(int year) {
+        double total = 0;
+        for (int k = 0; k < size(); k++) {
+            total += netOperatingIncome[index(k, year)];
+        }
+        return total;
+    }
+
+    void set(int k, double[] noi, double[] service, double equity, double saleProceeds, double leveredIrr, double unleveredIrr) {
+        System.arraycopy(noi, 0, netOperatingIncome, k * years, years);
+        System.arraycopy(service, 0, debtService, k * years, years);
+        this.equity[k] = equity;
+        this.netSaleProceeds[k] = saleProceeds;
+        this.cashOnCash[k] = (noi[0] - service[0]) / equity;
+        this.leveredIrr[k] = leveredIrr;
+        this.unleveredIrr[k] = unleveredIrr;
+    }
+
+    private int index(int k, int year) {
+        if (year < 1 || year > years) {
+            throw new IllegalArgumentException("Year must be between 1 and " + years + ".");
+        }
+        return k * years + year - 1;
+    }
+}
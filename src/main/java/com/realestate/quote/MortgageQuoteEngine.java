@@ -0,0 +1,282 @@
+package com.realestate.quote;
+
+import com.realestate.metrics.LatencyHistogram;
+import com.realestate.mortgage.MortgageBatch;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/* In-process quote service. Callers submit QuoteRequests through a non-blocking queue and get a CompletableFuture
+back. A dispatcher thread collects requests into micro-batches (closed after batchWindow from the first request or
+at maxBatchSize) and hands each batch to a worker executor, which prices it with the MortgageBatch kernels.
+Pass Executors.newVirtualThreadPerTaskExecutor() as the worker on JDKs that have virtual threads; by default a
+fixed pool of daemon threads is used. Latency (submit to completion, in ns) and batch sizes are recorded. */
+public final class MortgageQuoteEngine implements AutoCloseable {
+    public static final Duration DEFAULT_BATCH_WINDOW = Duration.ofNanos(200_000);
+    public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+
+    private static final long IDLE_PARK_NANOS = 10_000_000;
+    private static final long COLLECT_PARK_NANOS = 20_000;
+
+    private final ConcurrentLinkedQueue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private final long batchWindowNanos;
+    private final int maxBatchSize;
+    private final Executor worker;
+    private final ExecutorService ownedWorker; // Only set when the engine created the worker and must shut it down
+    private final Thread dispatcher;
+    private final LatencyHistogram latencyHistogram = new LatencyHistogram();
+    private final LatencyHistogram batchSizeHistogram = new LatencyHistogram();
+    private volatile boolean idle;
+    private volatile boolean closed;
+
+    public MortgageQuoteEngine() {
+        this(DEFAULT_BATCH_WINDOW, DEFAULT_MAX_BATCH_SIZE, null);
+    }
+
+    public MortgageQuoteEngine(Duration batchWindow, int maxBatchSize) {
+        this(batchWindow, maxBatchSize, null);
+    }
+
+    // worker may be null, in which case the engine owns a fixed pool sized to the available processors
+    public MortgageQuoteEngine(Duration batchWindow, int maxBatchSize, Executor worker) {
+        if (batchWindow.isNegative()) {
+            throw new IllegalArgumentException("Batch window cannot be negative.");
+        }
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Max batch size must be greater than 0.");
+        }
+        this.batchWindowNanos = batchWindow.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        if (worker == null) {
+            this.ownedWorker = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+                Thread thread = new Thread(runnable, "mortgage-quote-worker");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.worker = ownedWorker;
+        } else {
+            this.ownedWorker = null;
+            this.worker = worker;
+        }
+        this.dispatcher = new Thread(this::dispatchLoop, "mortgage-quote-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    public CompletableFuture<Quote> submit(QuoteRequest request) {
+        CompletableFuture<Quote> future = new CompletableFuture<>();
+        if (closed) {
+            future.completeExceptionally(new RejectedExecutionException("Quote engine is closed."));
+            return future;
+        }
+        Pending pending = new Pending(request, future, System.nanoTime());
+        queue.offer(pending);
+        // close() may have won the race after the check above; if the dispatcher has not taken the request, it never will
+        if (closed && queue.remove(pending)) {
+            future.completeExceptionally(new RejectedExecutionException("Quote engine is closed."));
+            return future;
+        }
+        if (idle) {
+            LockSupport.unpark(dispatcher);
+        }
+        return future;
+    }
+
+    public CompletableFuture<Quote> submit(double principal, double interestRate, int termMonths) {
+        return submit(new QuoteRequest(principal, interestRate, termMonths));
+    }
+
+    // Submit-to-completion latency in nanoseconds
+    public LatencyHistogram getLatencyHistogram() {
+        return latencyHistogram;
+    }
+
+    public LatencyHistogram getBatchSizeHistogram() {
+        return batchSizeHistogram;
+    }
+
+    public long getP50LatencyNanos() {
+        return latencyHistogram.getPercentile(50);
+    }
+
+    public long getP99LatencyNanos() {
+        return latencyHistogram.getPercentile(99);
+    }
+
+    // Stops accepting requests, prices everything already queued and waits for the worker to finish
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(dispatcher);
+        try {
+            dispatcher.join();
+            if (ownedWorker != null) {
+                ownedWorker.shutdown();
+                ownedWorker.awaitTermination(1, TimeUnit.MINUTES);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    //------------------------------------- Helper classes/ methods -------------------------------------//
+
+    private static final class Pending {
+        final QuoteRequest request;
+        final CompletableFuture<Quote> future;
+        final long submittedAt;
+
+        Pending(QuoteRequest request, CompletableFuture<Quote> future, long submittedAt) {
+            this.request = request;
+            this.future = future;
+            this.submittedAt = submittedAt;
+        }
+    }
+
+    private void dispatchLoop() {
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        while (true) {
+            Pending first = queue.poll();
+            if (first == null) {
+                if (closed) {
+                    return;
+                }
+                idle = true;
+                if (queue.isEmpty() && !closed) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                idle = false;
+                continue;
+            }
+
+            batch.add(first);
+            long deadline = first.submittedAt + batchWindowNanos;
+            while (batch.size() < maxBatchSize) {
+                Pending next = queue.poll();
+                if (next != null) {
+                    batch.add(next);
+                    continue;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || closed) {
+                    break;
+                }
+                LockSupport.parkNanos(this, Math.min(remaining, COLLECT_PARK_NANOS));
+            }
+
+            List<Pending> ready = batch;
+            batch = new ArrayList<>(maxBatchSize);
+            try {
+                worker.execute(() -> evaluate(ready));
+            } catch (RejectedExecutionException e) {
+                for (Pending pending : ready) {
+                    pending.future.completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    private void evaluate(List<Pending> batch) {
+        try {
+            int fixedCount = 0;
+            int resetCount = 0;
+            for (Pending pending : batch) {
+                if (pending.request.isAdjustable()) {
+                    resetCount += pending.request.resetCount();
+                } else {
+                    fixedCount++;
+                }
+            }
+            Quote[] quotes = new Quote[batch.size()];
+            evaluateFixed(batch, fixedCount, quotes);
+            evaluateAdjustable(batch, batch.size() - fixedCount, resetCount, quotes);
+
+            // Record before completing, so a caller that joins its future sees its own latency and batch
+            long now = System.nanoTime();
+            for (Pending pending : batch) {
+                latencyHistogram.record(now - pending.submittedAt);
+            }
+            batchSizeHistogram.record(batch.size());
+            for (int i = 0; i < quotes.length; i++) {
+                batch.get(i).future.complete(quotes[i]);
+            }
+        } catch (RuntimeException e) {
+            for (Pending pending : batch) {
+                pending.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static void evaluateFixed(List<Pending> batch, int count, Quote[] quotes) {
+        if (count == 0) {
+            return;
+        }
+        double[] principals = new double[count];
+        double[] rates = new double[count];
+        int[] terms = new int[count];
+        int[] positions = new int[count];
+        int k = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            QuoteRequest request = batch.get(i).request;
+            if (!request.isAdjustable()) {
+                principals[k] = request.getPrincipal();
+                rates[k] = request.getInterestRate();
+                terms[k] = request.getTermMonths();
+                positions[k++] = i;
+            }
+        }
+        double[] payments = new double[count];
+        MortgageBatch.monthlyPayments(principals, rates, terms, payments);
+        for (int j = 0; j < count; j++) {
+            double totalInterest = payments[j] * terms[j] - principals[j];
+            quotes[positions[j]] = new Quote(payments[j], payments[j], totalInterest, principals[j]);
+        }
+    }
+
+    private static void evaluateAdjustable(List<Pending> batch, int count, int resetCount, Quote[] quotes) {
+        if (count == 0) {
+            return;
+        }
+        double[] principals = new double[count];
+        double[] rates = new double[count];
+        int[] terms = new int[count];
+        int[] positions = new int[count];
+        int[] resetOffsets = new int[count + 1];
+        int[] resetMonths = new int[resetCount];
+        double[] resetRates = new double[resetCount];
+        int k = 0;
+        int r = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            QuoteRequest request = batch.get(i).request;
+            if (request.isAdjustable()) {
+                principals[k] = request.getPrincipal();
+                rates[k] = request.getInterestRate();
+                terms[k] = request.getTermMonths();
+                resetOffsets[k] = r;
+                for (int j = 0; j < request.resetCount(); j++, r++) {
+                    resetMonths[r] = request.resetMonth(j);
+                    resetRates[r] = request.resetRate(j);
+                }
+                positions[k++] = i;
+            }
+        }
+        resetOffsets[count] = r;
+
+        double[] firstPayments = new double[count];
+        double[] maxPayments = new double[count];
+        double[] totalInterest = new double[count];
+        MortgageBatch.armQuotes(principals, rates, terms, resetOffsets, resetMonths, resetRates, firstPayments, maxPayments, totalInterest);
+        for (int j = 0; j < count; j++) {
+            quotes[positions[j]] = new Quote(firstPayments[j], maxPayments[j], totalInterest[j], principals[j]);
+        }
+    }
+}
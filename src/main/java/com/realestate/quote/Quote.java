@@ -0,0 +1,42 @@
+package com.realestate.quote;
+
+// Result of a QuoteRequest. For fixed-rate loans the first and maximum payments are the same.
+public final class Quote {
+    private final double monthlyPayment;
+    private final double maxMonthlyPayment;
+    private final double totalInterest;
+    private final double totalCost;
+
+    Quote(double monthlyPayment, double maxMonthlyPayment, double totalInterest, double principal) {
+        this.monthlyPayment = monthlyPayment;
+        this.maxMonthlyPayment = maxMonthlyPayment;
+        this.totalInterest = totalInterest;
+        this.totalCost = principal + totalInterest;
+    }
+
+    // Payment of the first month
+    public double getMonthlyPayment() {
+        return monthlyPayment;
+    }
+
+    public double getMaxMonthlyPayment() {
+        return maxMonthlyPayment;
+    }
+
+    public double getTotalInterest() {
+        return totalInterest;
+    }
+
+    public double getTotalCost() {
+        return totalCost;
+    }
+
+    @Override
+    public String toString() {
+        return "Quote { " +
+                "Monthly Payment: " + monthlyPayment +
+                ", Max Monthly Payment: " + maxMonthlyPayment +
+                ", Total Interest: " + totalInterest +
+                " }";
+    }
+}
@@ -0,0 +1,78 @@
+package com.realestate.quote;
+
+import com.realestate.mortgage.ARMMortgage.RateChange;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/* A single quote to price: a fixed-rate loan, or an ARM when rate changes are given. Validated on construction with
+the same rules as the mortgage classes so bad input fails on the caller's thread, not inside a batch. */
+public final class QuoteRequest {
+    private final double principal;
+    private final double interestRate;
+    private final int termMonths;
+    private final int[] resetMonths;
+    private final double[] resetRates;
+
+    public QuoteRequest(double principal, double interestRate, int termMonths) {
+        this(principal, interestRate, termMonths, List.of());
+    }
+
+    public QuoteRequest(double principal, double interestRate, int termMonths, List<RateChange> rateChanges) {
+        if (principal <= 0) {
+            throw new IllegalArgumentException("Principal cannot be negative or zero.");
+        }
+        if (interestRate <= 0) {
+            throw new IllegalArgumentException("Initial rate cannot be negative or zero.");
+        }
+        if (termMonths <= 0) {
+            throw new IllegalArgumentException("Term cannot be negative or zero.");
+        }
+        RateChange[] sorted = rateChanges.toArray(new RateChange[0]);
+        Arrays.sort(sorted, Comparator.comparingInt(RateChange::getMonth));
+        this.resetMonths = new int[sorted.length];
+        this.resetRates = new double[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            if (sorted[i].getMonth() < 0 || sorted[i].getMonth() > termMonths) {
+                throw new IllegalArgumentException("RateChange month is outside of the mortgage term range.");
+            }
+            if (i > 0 && sorted[i].getMonth() == sorted[i - 1].getMonth()) {
+                throw new IllegalArgumentException("Duplicate rate change month detected: " + sorted[i].getMonth());
+            }
+            resetMonths[i] = sorted[i].getMonth();
+            resetRates[i] = sorted[i].getRate();
+        }
+        this.principal = principal;
+        this.interestRate = interestRate;
+        this.termMonths = termMonths;
+    }
+
+    public double getPrincipal() {
+        return principal;
+    }
+
+    public double getInterestRate() {
+        return interestRate;
+    }
+
+    public int getTermMonths() {
+        return termMonths;
+    }
+
+    public boolean isAdjustable() {
+        return resetMonths.length > 0;
+    }
+
+    int resetCount() {
+        return resetMonths.length;
+    }
+
+    int resetMonth(int i) {
+        return resetMonths[i];
+    }
+
+    double resetRate(int i) {
+        return resetRates[i];
+    }
+}
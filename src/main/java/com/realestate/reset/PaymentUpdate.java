@@ -0,0 +1,56 @@
+package com.realestate.reset;
+
+// New terms of one loan after a reset, emitted by RateResetPipeline
+public final class PaymentUpdate {
+    private final long loanId;
+    private final int loanMonth;  // Month of the loan the new rate starts in (1-based)
+    private final int bookMonth;  // Same month on the book's calendar
+    private final double rate;
+    private final double payment;
+    private final double balance; // Beginning balance of loanMonth
+    private final long tickPublishedAt;
+
+    PaymentUpdate(long loanId, int loanMonth, int bookMonth, double rate, double payment, double balance, long tickPublishedAt) {
+        this.loanId = loanId;
+        this.loanMonth = loanMonth;
+        this.bookMonth = bookMonth;
+        this.rate = rate;
+        this.payment = payment;
+        this.balance = balance;
+        this.tickPublishedAt = tickPublishedAt;
+    }
+
+    public long getLoanId() {
+        return loanId;
+    }
+
+    public int getLoanMonth() {
+        return loanMonth;
+    }
+
+    public int getBookMonth() {
+        return bookMonth;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public double getPayment() {
+        return payment;
+    }
+
+    public double getBalance() {
+        return balance;
+    }
+
+    // Publish time of the tick that caused the reset, for end-to-end latency
+    public long getTickPublishedAt() {
+        return tickPublishedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "PaymentUpdate { Loan: " + loanId + ", Month: " + loanMonth + ", Rate: " + rate + ", Payment: " + payment + " }";
+    }
+}
@@ -0,0 +1,67 @@
+package com.realestate.reset;
+
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+
+/* Local stand-in for a live index feed: one tick per book month, the index following a seeded random walk
+(floored at 0). run() publishes through bounded buffers and blocks while a subscriber is behind, so it also
+shows how a pipeline pushes back on its source. The same seed always produces the same ticks. */
+public class RateFeedSimulator extends SubmissionPublisher<RateTick> {
+    private final Random random;
+    private final double monthlyVolatility;
+    private double indexRate;
+    private int month;
+
+    public RateFeedSimulator(long seed, double initialIndexRate, double monthlyVolatility, int firstMonth) {
+        this(seed, initialIndexRate, monthlyVolatility, firstMonth, ForkJoinPool.commonPool(), Flow.defaultBufferSize());
+    }
+
+    public RateFeedSimulator(long seed, double initialIndexRate, double monthlyVolatility, int firstMonth,
+                             Executor executor, int maxBufferCapacity) {
+        super(executor, maxBufferCapacity);
+        if (initialIndexRate < 0) {
+            throw new IllegalArgumentException("Initial index rate cannot be negative.");
+        }
+        if (monthlyVolatility < 0) {
+            throw new IllegalArgumentException("Volatility cannot be negative.");
+        }
+        if (firstMonth <= 0) {
+            throw new IllegalArgumentException("First month must be greater than 0.");
+        }
+        this.random = new Random(seed);
+        this.indexRate = initialIndexRate;
+        this.monthlyVolatility = monthlyVolatility;
+        this.month = firstMonth;
+    }
+
+    // The next tick of the walk, without publishing it
+    public synchronized RateTick nextTick() {
+        RateTick tick = new RateTick(month++, indexRate);
+        indexRate = Math.max(0, indexRate + monthlyVolatility * random.nextGaussian());
+        return tick;
+    }
+
+    // Publishes count ticks, then completes the feed
+    public void run(int count) {
+        try {
+            for (int i = 0; i < count && !isClosed(); i++) {
+                submit(nextTick());
+            }
+            close();
+        } catch (RuntimeException e) {
+            closeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // run() on a daemon thread
+    public Thread start(int count) {
+        Thread thread = new Thread(() -> run(count), "rate-feed-simulator");
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+}
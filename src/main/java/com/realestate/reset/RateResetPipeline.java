@@ -0,0 +1,117 @@
+package com.realestate.reset;
+
+import com.realestate.metrics.Counter;
+import com.realestate.metrics.LatencyHistogram;
+import com.realestate.metrics.Metrics;
+import com.realestate.metrics.Operation;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicLong;
+
+/* Flow stage between a rate feed and whatever consumes new payments: RateTicks in, one PaymentUpdate out per loan
+reset by the tick (see ResetBook). Ticks are pulled one at a time and updates go out through the bounded
+per-subscriber buffers of SubmissionPublisher; when a subscriber falls behind, submit() blocks, so no further tick
+is requested and the feed upstream stalls too. Nothing is dropped and memory stays bounded by the buffer sizes.
+
+The book is only touched from onNext, which Flow calls serially, so it needs no locking. Latency is recorded per
+tick, from the tick's publish time until its last update is handed downstream. */
+public class RateResetPipeline extends SubmissionPublisher<PaymentUpdate> implements Flow.Processor<RateTick, PaymentUpdate> {
+    private final ResetBook book;
+    private final LatencyHistogram latencyHistogram = new LatencyHistogram();
+    private final AtomicLong tickCount = new AtomicLong();
+    private final AtomicLong updateCount = new AtomicLong();
+    private volatile long firstTickAt;
+    private volatile long lastTickDoneAt;
+    private Flow.Subscription upstream;
+
+    public RateResetPipeline(ResetBook book) {
+        this(book, ForkJoinPool.commonPool(), Flow.defaultBufferSize());
+    }
+
+    // executor delivers updates to subscribers; maxBufferCapacity bounds each subscriber's queue
+    public RateResetPipeline(ResetBook book, Executor executor, int maxBufferCapacity) {
+        super(executor, maxBufferCapacity);
+        this.book = book;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (upstream != null) {
+            subscription.cancel(); // Only one feed per pipeline
+            return;
+        }
+        upstream = subscription;
+        subscription.request(1);
+    }
+
+    @Override
+    public void onNext(RateTick tick) {
+        try {
+            if (tickCount.get() == 0) {
+                firstTickAt = System.nanoTime();
+            }
+            List<PaymentUpdate> updates = Metrics.timed(Operation.RATE_RESET, () -> book.apply(tick));
+            Metrics.add(Counter.RATE_RESETS, updates.size());
+            for (PaymentUpdate update : updates) {
+                submit(update); // Blocks while a subscriber's buffer is full
+            }
+            long now = System.nanoTime();
+            latencyHistogram.record(now - tick.getPublishedAt());
+            updateCount.addAndGet(updates.size());
+            tickCount.incrementAndGet();
+            lastTickDoneAt = now;
+        } catch (RuntimeException e) {
+            upstream.cancel();
+            closeExceptionally(e);
+            return;
+        }
+        upstream.request(1);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        closeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        close();
+    }
+
+    public ResetBook getBook() {
+        return book;
+    }
+
+    // Ticks fully processed
+    public long getTickCount() {
+        return tickCount.get();
+    }
+
+    // Payment updates emitted
+    public long getUpdateCount() {
+        return updateCount.get();
+    }
+
+    // Tick publish to last update submitted, in nanoseconds
+    public LatencyHistogram getLatencyHistogram() {
+        return latencyHistogram;
+    }
+
+    public long getP50LatencyNanos() {
+        return latencyHistogram.getPercentile(50);
+    }
+
+    public long getP99LatencyNanos() {
+        return latencyHistogram.getPercentile(99);
+    }
+
+    // Updates per second between the first tick's arrival and the last tick's completion
+    public double getThroughput() {
+        long elapsed = lastTickDoneAt - firstTickAt;
+        return tickCount.get() == 0 || elapsed <= 0 ? 0 : updateCount.get() * 1e9 / elapsed;
+    }
+}
@@ -0,0 +1,41 @@
+package com.realestate.reset;
+
+// A reading of the reference index: the value that applies to resets falling in the given book month
+public final class RateTick {
+    private final int month;
+    private final double indexRate;
+    private final long publishedAt; // System.nanoTime() when the tick entered the pipeline
+
+    public RateTick(int month, double indexRate) {
+        this(month, indexRate, System.nanoTime());
+    }
+
+    public RateTick(int month, double indexRate, long publishedAt) {
+        if (month <= 0) {
+            throw new IllegalArgumentException("Month must be greater than 0.");
+        }
+        if (Double.isNaN(indexRate)) {
+            throw new IllegalArgumentException("Index rate cannot be NaN.");
+        }
+        this.month = month;
+        this.indexRate = indexRate;
+        this.publishedAt = publishedAt;
+    }
+
+    public int getMonth() {
+        return month;
+    }
+
+    public double getIndexRate() {
+        return indexRate;
+    }
+
+    public long getPublishedAt() {
+        return publishedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "RateTick { Month: " + month + ", Index: " + indexRate + " }";
+    }
+}
@@ -0,0 +1,219 @@
+package com.realestate.reset;
+
+import com.realestate.mortgage.ARMMortgage;
+import com.realestate.mortgage.ARMMortgage.RateChange;
+import com.realestate.mortgage.AnnuityFactors;
+import com.realestate.mortgage.LoanTape;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/* Live state of a book of index-linked ARMs. Each loan resets to index + margin every resetInterval months from
+firstResetMonth on. Loans are indexed by the book month of their next reset, so a tick only touches the loans due
+by its month. A reset is incremental: the balance at the reset month is already known, the new payment is one
+annuity lookup, and the balance at the following reset is walked forward over one reset interval only. The
+arithmetic is the same as ARMMortgage's schedule, so toMortgage(k) reproduces every emitted payment.
+
+Months: loan months are 1-based within a loan; book months place loans on one calendar, loan month 1 of a loan
+being its startMonth. Not thread-safe; RateResetPipeline drives it from one thread at a time. */
+public class ResetBook {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private double[] principals = new double[INITIAL_CAPACITY];
+    private double[] initialRates = new double[INITIAL_CAPACITY];
+    private int[] terms = new int[INITIAL_CAPACITY];
+    private int[] startMonths = new int[INITIAL_CAPACITY];
+    private int[] resetIntervals = new int[INITIAL_CAPACITY];
+    private double[] margins = new double[INITIAL_CAPACITY];
+    // State as of the last reset
+    private double[] rates = new double[INITIAL_CAPACITY];
+    private double[] payments = new double[INITIAL_CAPACITY];
+    private int[] nextResets = new int[INITIAL_CAPACITY];      // Loan month of the next reset, 0 once there is none
+    private double[] resetBalances = new double[INITIAL_CAPACITY]; // Beginning balance of that month
+    private final List<List<RateChange>> histories = new ArrayList<>();
+    private final TreeMap<Integer, Bucket> dueByMonth = new TreeMap<>(); // Book month -> loans resetting then
+    private int size;
+    private long resetCount;
+
+    // Returns the loan's position in the book
+    public int add(long id, double principal, double initialRate, int term, int startMonth,
+                   int firstResetMonth, int resetInterval, double margin) {
+        if (principal <= 0) {
+            throw new IllegalArgumentException("Principal cannot be negative or zero.");
+        }
+        if (initialRate <= 0) {
+            throw new IllegalArgumentException("Initial rate cannot be negative or zero.");
+        }
+        if (term <= 0) {
+            throw new IllegalArgumentException("Term cannot be negative or zero.");
+        }
+        if (startMonth <= 0) {
+            throw new IllegalArgumentException("Start month must be greater than 0.");
+        }
+        if (firstResetMonth <= 1 || firstResetMonth > term) {
+            throw new IllegalArgumentException("First reset month must be between 2 and the term.");
+        }
+        if (resetInterval <= 0) {
+            throw new IllegalArgumentException("Reset interval cannot be negative or zero.");
+        }
+        if (size == ids.length) {
+            grow();
+        }
+        int k = size++;
+        ids[k] = id;
+        principals[k] = principal;
+        initialRates[k] = initialRate;
+        terms[k] = term;
+        startMonths[k] = startMonth;
+        resetIntervals[k] = resetInterval;
+        margins[k] = margin;
+        rates[k] = initialRate;
+        payments[k] = AnnuityFactors.payment(principal, initialRate, term);
+        nextResets[k] = firstResetMonth;
+        resetBalances[k] = walk(principal, initialRate, 1, firstResetMonth, term);
+        histories.add(null);
+        schedule(k);
+        return k;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getId(int k) {
+        return ids[checkIndex(k)];
+    }
+
+    // Current note rate and payment
+    public double getRate(int k) {
+        return rates[checkIndex(k)];
+    }
+
+    public double getPayment(int k) {
+        return payments[checkIndex(k)];
+    }
+
+    // Book month of the next reset, or 0 if the loan has no more resets
+    public int getNextResetMonth(int k) {
+        checkIndex(k);
+        return nextResets[k] == 0 ? 0 : bookMonth(k, nextResets[k]);
+    }
+
+    // Loans still waiting for a reset
+    public int getPendingCount() {
+        int count = 0;
+        for (Bucket bucket : dueByMonth.values()) {
+            count += bucket.size;
+        }
+        return count;
+    }
+
+    public long getResetCount() {
+        return resetCount;
+    }
+
+    // The loan as an ARMMortgage with every reset applied so far, e.g. to audit the incremental state
+    public ARMMortgage toMortgage(int k) {
+        checkIndex(k);
+        List<RateChange> history = histories.get(k);
+        return new ARMMortgage(principals[k], initialRates[k], terms[k], "m",
+                history == null ? new ArrayList<>() : history);
+    }
+
+    /* Resets every loan due in a book month up to tick month (so a skipped month is caught up at the next tick)
+    to index + margin, floored at LoanTape.MIN_RATE, and returns the new terms. */
+    public List<PaymentUpdate> apply(RateTick tick) {
+        List<PaymentUpdate> updates = new ArrayList<>();
+        Map.Entry<Integer, Bucket> due;
+        while ((due = dueByMonth.firstEntry()) != null && due.getKey() <= tick.getMonth()) {
+            dueByMonth.pollFirstEntry();
+            Bucket bucket = due.getValue();
+            for (int i = 0; i < bucket.size; i++) {
+                updates.add(reset(bucket.loans[i], tick));
+            }
+        }
+        return updates;
+    }
+
+    //------------------------------------- Helper classes/ methods -------------------------------------//
+
+    private static final class Bucket {
+        int[] loans = new int[4];
+        int size;
+
+        void add(int k) {
+            if (size == loans.length) {
+                loans = Arrays.copyOf(loans, 2 * size);
+            }
+            loans[size++] = k;
+        }
+    }
+
+    private PaymentUpdate reset(int k, RateTick tick) {
+        int month = nextResets[k];
+        double rate = Math.max(LoanTape.MIN_RATE, tick.getIndexRate() + margins[k]);
+        double balance = resetBalances[k];
+        rates[k] = rate;
+        payments[k] = AnnuityFactors.payment(balance, rate, terms[k] - month + 1);
+        if (histories.get(k) == null) {
+            histories.set(k, new ArrayList<>());
+        }
+        histories.get(k).add(new RateChange(month, rate));
+        resetCount++;
+        PaymentUpdate update = new PaymentUpdate(ids[k], month, bookMonth(k, month), rate, payments[k], balance, tick.getPublishedAt());
+
+        int next = month + resetIntervals[k];
+        if (next <= terms[k]) {
+            resetBalances[k] = walk(balance, rate, month, next, terms[k]);
+            nextResets[k] = next;
+            schedule(k);
+        } else {
+            nextResets[k] = 0;
+        }
+        return update;
+    }
+
+    private void schedule(int k) {
+        dueByMonth.computeIfAbsent(bookMonth(k, nextResets[k]), month -> new Bucket()).add(k);
+    }
+
+    private int bookMonth(int k, int loanMonth) {
+        return startMonths[k] + loanMonth - 1;
+    }
+
+    // Beginning balance of toMonth, given that of fromMonth, at a constant rate (same steps as streamSchedule)
+    private static double walk(double balance, double rate, int fromMonth, int toMonth, int term) {
+        for (int month = fromMonth; month < toMonth; month++) {
+            double interest = balance * (rate / 12);
+            double payment = AnnuityFactors.payment(balance, rate, term - month + 1);
+            balance = balance - (payment - interest);
+        }
+        return balance;
+    }
+
+    private int checkIndex(int k) {
+        if (k < 0 || k >= size) {
+            throw new IndexOutOfBoundsException("Index: " + k + ", Size: " + size);
+        }
+        return k;
+    }
+
+    private void grow() {
+        int capacity = 2 * ids.length;
+        ids = Arrays.copyOf(ids, capacity);
+        principals = Arrays.copyOf(principals, capacity);
+        initialRates = Arrays.copyOf(initialRates, capacity);
+        terms = Arrays.copyOf(terms, capacity);
+        startMonths = Arrays.copyOf(startMonths, capacity);
+        resetIntervals = Arrays.copyOf(resetIntervals, capacity);
+        margins = Arrays.copyOf(margins, capacity);
+        rates = Arrays.copyOf(rates, capacity);
+        payments = Arrays.copyOf(payments, capacity);
+        nextResets = Arrays.copyOf(nextResets, capacity);
+        resetBalances = Arrays.copyOf(resetBalances, capacity);
+    }
+}
@@ -0,0 +1,118 @@
+package com.realestate.scenario;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/* Per-scenario totals over a book of loans. Aggregates of disjoint loan sets merge by addition (and max for the
+largest payment), so shards can be folded in as they finish, in any order. */
+public class ScenarioAggregate {
+    private final double[] shifts;
+    private long loanCount;
+    private final double[] totalInterest;
+    private final double[] totalFirstPayment;
+    private final double[] totalMaxPayment;
+    private final double[] largestPayment;
+
+    public ScenarioAggregate(double[] shifts) {
+        this.shifts = shifts.clone();
+        this.totalInterest = new double[shifts.length];
+        this.totalFirstPayment = new double[shifts.length];
+        this.totalMaxPayment = new double[shifts.length];
+        this.largestPayment = new double[shifts.length];
+    }
+
+    // Folds one loan's quote for scenario s into the totals; loans are counted once, on scenario 0
+    void add(int s, double firstPayment, double maxPayment, double interest) {
+        if (s == 0) {
+            loanCount++;
+        }
+        totalInterest[s] += interest;
+        totalFirstPayment[s] += firstPayment;
+        totalMaxPayment[s] += maxPayment;
+        largestPayment[s] = Math.max(largestPayment[s], maxPayment);
+    }
+
+    public synchronized void merge(ScenarioAggregate other) {
+        if (!Arrays.equals(shifts, other.shifts)) {
+            throw new IllegalArgumentException("Only aggregates over the same scenarios can be merged.");
+        }
+        loanCount += other.loanCount;
+        for (int s = 0; s < shifts.length; s++) {
+            totalInterest[s] += other.totalInterest[s];
+            totalFirstPayment[s] += other.totalFirstPayment[s];
+            totalMaxPayment[s] += other.totalMaxPayment[s];
+            largestPayment[s] = Math.max(largestPayment[s], other.largestPayment[s]);
+        }
+    }
+
+    public int getScenarioCount() {
+        return shifts.length;
+    }
+
+    public double getShift(int s) {
+        return shifts[s];
+    }
+
+    public synchronized long getLoanCount() {
+        return loanCount;
+    }
+
+    public synchronized double getTotalInterest(int s) {
+        return totalInterest[s];
+    }
+
+    public synchronized double getTotalFirstPayment(int s) {
+        return totalFirstPayment[s];
+    }
+
+    public synchronized double getTotalMaxPayment(int s) {
+        return totalMaxPayment[s];
+    }
+
+    public synchronized double getLargestPayment(int s) {
+        return largestPayment[s];
+    }
+
+    public synchronized void writeTo(DataOutput out) throws IOException {
+        out.writeInt(shifts.length);
+        out.writeLong(loanCount);
+        for (int s = 0; s < shifts.length; s++) {
+            out.writeDouble(shifts[s]);
+            out.writeDouble(totalInterest[s]);
+            out.writeDouble(totalFirstPayment[s]);
+            out.writeDouble(totalMaxPayment[s]);
+            out.writeDouble(largestPayment[s]);
+        }
+    }
+
+    public static ScenarioAggregate readFrom(DataInput in) throws IOException {
+        int count = in.readInt();
+        long loans = in.readLong();
+        double[] shifts = new double[count];
+        double[][] columns = new double[4][count];
+        for (int s = 0; s < count; s++) {
+            shifts[s] = in.readDouble();
+            for (double[] column : columns) {
+                column[s] = in.readDouble();
+            }
+        }
+        ScenarioAggregate aggregate = new ScenarioAggregate(shifts);
+        aggregate.loanCount = loans;
+        System.arraycopy(columns[0], 0, aggregate.totalInterest, 0, count);
+        System.arraycopy(columns[1], 0, aggregate.totalFirstPayment, 0, count);
+        System.arraycopy(columns[2], 0, aggregate.totalMaxPayment, 0, count);
+        System.arraycopy(columns[3], 0, aggregate.largestPayment, 0, count);
+        return aggregate;
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder builder = new StringBuilder("ScenarioAggregate{loans=").append(loanCount);
+        for (int s = 0; s < shifts.length; s++) {
+            builder.append(String.format(", %+.4f: interest=%.2f, maxPayment=%.2f", shifts[s], totalInterest[s], totalMaxPayment[s]));
+        }
+        return builder.append('}').toString();
+    }
+}
@@ -0,0 +1,323 @@
+package com.realestate.scenario;
+
+import com.realestate.mortgage.LoanTape;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/* Runs scenario sweeps across local worker JVMs. The tape is cut into contiguous id ranges; each worker process
+(ScenarioWorker, started with this JVM's java binary and class path) pulls shards from a shared queue over a
+loopback socket, and every partial aggregate is merged into the result as soon as it arrives, so the coordinator
+never holds more than one partial per worker. A shard whose worker dies or drops the connection is re-queued and
+the worker replaced; after MAX_ATTEMPTS failed attempts at one shard the run fails. A worker that stays silent
+for longer than the shard timeout (hung, deadlocked, stuck in GC) counts as failed the same way. Errors raised by
+the kernel itself are deterministic and fail the run without a retry.
+
+Workers are started once and reused across run() calls; close() shuts them down. */
+public final class ScenarioCoordinator implements AutoCloseable {
+    public static final int MAX_ATTEMPTS = 3;
+
+    public static final Duration DEFAULT_SHARD_TIMEOUT = Duration.ofMinutes(5);
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 60_000;
+    private static final int SHUTDOWN_WAIT_SECONDS = 5;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final ServerSocket server;
+    private final List<String> workerArgs;
+    private final Map<Long, Process> starting = new ConcurrentHashMap<>(); // Spawned, not yet connected, by pid
+    private final WorkerConnection[] workers;
+    private final AtomicInteger retries = new AtomicInteger();
+    private volatile int shardTimeoutMillis = (int) DEFAULT_SHARD_TIMEOUT.toMillis();
+    private final Object spawnLock = new Object(); // Serializes accept() and respawn(); run() synchronizes on this instead
+
+    public ScenarioCoordinator(int workerCount) throws IOException {
+        this(workerCount, Collections.emptyList());
+    }
+
+    // workerArgs are appended to every worker's command line (used by tests for fault injection)
+    ScenarioCoordinator(int workerCount, List<String> workerArgs) throws IOException {
+        if (workerCount <= 0) {
+            throw new IllegalArgumentException("Worker count must be greater than 0.");
+        }
+        this.workerArgs = new ArrayList<>(workerArgs);
+        this.workers = new WorkerConnection[workerCount];
+        this.server = new ServerSocket(0, workerCount, InetAddress.getLoopbackAddress());
+        server.setSoTimeout(CONNECT_TIMEOUT_MILLIS);
+        try {
+            // Start every JVM before waiting on any of them so they boot in parallel
+            for (int w = 0; w < workerCount; w++) {
+                start();
+            }
+            for (int w = 0; w < workerCount; w++) {
+                workers[w] = accept();
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    public int getWorkerCount() {
+        return workers.length;
+    }
+
+    // Shards re-queued after a worker failure, since this coordinator was created
+    public int getRetryCount() {
+        return retries.get();
+    }
+
+    // Longest a worker may go without answering a shard before it is replaced and the shard re-queued
+    public void setShardTimeout(Duration timeout) {
+        if (timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("Shard timeout must be greater than 0.");
+        }
+        shardTimeoutMillis = (int) Math.min(Integer.MAX_VALUE, timeout.toMillis());
+    }
+
+    public Duration getShardTimeout() {
+        return Duration.ofMillis(shardTimeoutMillis);
+    }
+
+    public synchronized ScenarioAggregate run(LoanTape tape, double[] shifts, int shardCount) throws IOException, InterruptedException {
+        if (shifts.length == 0) {
+            throw new IllegalArgumentException("At least one scenario is required.");
+        }
+        List<LoanTape> shards = tape.shardByIdRange(shardCount);
+        BlockingQueue<ShardTask> pending = new LinkedBlockingQueue<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            pending.add(new ShardTask(shard, 0));
+        }
+        CountDownLatch remaining = new CountDownLatch(shards.size());
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        ScenarioAggregate total = new ScenarioAggregate(shifts);
+
+        Thread[] handlers = new Thread[workers.length];
+        for (int w = 0; w < workers.length; w++) {
+            int slot = w;
+            handlers[w] = new Thread(() -> drive(slot, shards, shifts, pending, remaining, failure, total),
+                    "scenario-coordinator-" + w);
+            handlers[w].setDaemon(true);
+            handlers[w].start();
+        }
+        try {
+            while (!remaining.await(100, TimeUnit.MILLISECONDS) && failure.get() == null) {
+                // Waiting for the last shards
+            }
+        } finally {
+            for (Thread handler : handlers) {
+                handler.join();
+            }
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return total;
+    }
+
+    // One handler per worker slot: pull a shard, ship it, merge the answer; replace the worker if it fails
+    private void drive(int slot, List<LoanTape> shards, double[] shifts, BlockingQueue<ShardTask> pending,
+                       CountDownLatch remaining, AtomicReference<IOException> failure, ScenarioAggregate total) {
+        while (remaining.getCount() > 0 && failure.get() == null) {
+            ShardTask task;
+            try {
+                task = pending.poll(50, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (task == null) {
+                continue;
+            }
+            try {
+                total.merge(workers[slot].execute(task, shifts, shards.get(task.shard), shardTimeoutMillis));
+                remaining.countDown();
+            } catch (IllegalStateException e) {
+                failure.compareAndSet(null, new IOException("Shard " + task.shard + " failed: " + e.getMessage()));
+                return;
+            } catch (IOException e) {
+                // Replaced even when giving up, so the coordinator stays usable for the next run
+                workers[slot].destroy();
+                try {
+                    workers[slot] = respawn();
+                } catch (IOException spawnFailure) {
+                    failure.compareAndSet(null, spawnFailure);
+                    return;
+                }
+                if (task.attempt + 1 >= MAX_ATTEMPTS) {
+                    failure.compareAndSet(null, new IOException("Shard " + task.shard + " failed after " + MAX_ATTEMPTS + " attempts.", e));
+                    return;
+                }
+                retries.incrementAndGet();
+                pending.add(new ShardTask(task.shard, task.attempt + 1));
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        for (WorkerConnection worker : workers) {
+            if (worker != null) {
+                worker.shutdown();
+            }
+        }
+        for (Process process : starting.values()) {
+            process.destroyForcibly();
+        }
+        starting.clear();
+        try {
+            server.close();
+        } catch (IOException e) {
+            // Nothing useful to do while closing
+        }
+    }
+
+    //------------------------------------- Helper classes/ methods -------------------------------------//
+
+    private static final class ShardTask {
+        final int shard;
+        final int attempt;
+
+        ShardTask(int shard, int attempt) {
+            this.shard = shard;
+            this.attempt = attempt;
+        }
+    }
+
+    private static final class WorkerConnection {
+        final Process process;
+        final Socket socket;
+        final DataInputStream in;
+        final DataOutputStream out;
+
+        WorkerConnection(Process process, Socket socket) throws IOException {
+            this.process = process;
+            this.socket = socket;
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), BUFFER_SIZE));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE));
+        }
+
+        // A SocketTimeoutException on the answer is an IOException, so a silent worker is retried like a dead one
+        ScenarioAggregate execute(ShardTask task, double[] shifts, LoanTape tape, int timeoutMillis) throws IOException {
+            socket.setSoTimeout(timeoutMillis);
+            out.writeInt(ScenarioWorker.TASK);
+            out.writeInt(task.shard);
+            out.writeInt(task.attempt);
+            out.writeInt(shifts.length);
+            for (double shift : shifts) {
+                out.writeDouble(shift);
+            }
+            tape.writeTo(out);
+            out.flush();
+
+            int type = in.readInt();
+            int shard = in.readInt();
+            if (shard != task.shard) {
+                throw new IOException("Worker answered shard " + shard + " instead of " + task.shard + ".");
+            }
+            if (type == ScenarioWorker.ERROR) {
+                throw new IllegalStateException(in.readUTF());
+            }
+            if (type != ScenarioWorker.RESULT) {
+                throw new IOException("Unexpected message type: " + type);
+            }
+            return ScenarioAggregate.readFrom(in);
+        }
+
+        void shutdown() {
+            try {
+                out.writeInt(ScenarioWorker.SHUTDOWN);
+                out.flush();
+                if (!process.waitFor(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (IOException e) {
+                process.destroyForcibly();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                process.destroyForcibly();
+            } finally {
+                closeQuietly(socket);
+            }
+        }
+
+        void destroy() {
+            closeQuietly(socket);
+            process.destroyForcibly();
+        }
+    }
+
+    private void start() throws IOException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        List<String> command = new ArrayList<>();
+        command.add(java);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ScenarioWorker.class.getName());
+        command.add(Integer.toString(server.getLocalPort()));
+        command.addAll(workerArgs);
+        Process process = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        starting.put(process.pid(), process);
+    }
+
+    // Pairs the next incoming connection with its process through the pid in the HELLO frame
+    private WorkerConnection accept() throws IOException {
+        Socket socket;
+        synchronized (spawnLock) {
+            socket = server.accept();
+        }
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(CONNECT_TIMEOUT_MILLIS);
+            DataInputStream hello = new DataInputStream(socket.getInputStream());
+            if (hello.readInt() != ScenarioWorker.HELLO) {
+                throw new IOException("Worker did not introduce itself.");
+            }
+            Process process = starting.remove(hello.readLong());
+            if (process == null) {
+                throw new IOException("Connection from an unknown process.");
+            }
+            return new WorkerConnection(process, socket);
+        } catch (IOException e) {
+            closeQuietly(socket);
+            throw e;
+        }
+    }
+
+    private WorkerConnection respawn() throws IOException {
+        synchronized (spawnLock) {
+            start();
+            return accept();
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Already gone
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.realestate.scenario;
+
+import com.realestate.mortgage.LoanTape;
+
+/* The in-process kernel shared by local runs and worker processes: every loan of the tape under every parallel
+rate shift, through the MortgageBatch ARM kernel, folded into per-scenario totals. */
+public class ScenarioEngine {
+
+    public static ScenarioAggregate evaluate(LoanTape tape, double[] shifts) {
+        if (shifts.length == 0) {
+            throw new IllegalArgumentException("At least one scenario is required.");
+        }
+        int n = tape.size();
+        double[] firstPayments = new double[n];
+        double[] maxPayments = new double[n];
+        double[] interest = new double[n];
+        ScenarioAggregate aggregate = new ScenarioAggregate(shifts);
+        for (int s = 0; s < shifts.length; s++) {
+            // The kernel itself goes parallel on large tapes
+            tape.quote(shifts[s], firstPayments, maxPayments, interest);
+            for (int k = 0; k < n; k++) {
+                aggregate.add(s, firstPayments[k], maxPayments[k], interest[k]);
+            }
+        }
+        return aggregate;
+    }
+}
@@ -0,0 +1,109 @@
+package com.realestate.scenario;
+
+import com.realestate.mortgage.LoanTape;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+
+/* Worker process for ScenarioCoordinator. Connects back to the coordinator on the loopback interface, announces
+its pid and then evaluates shards until told to shut down or the connection drops.
+
+Messages are big-endian DataOutput frames starting with an int type:
+  HELLO    pid (long)                                             worker -> coordinator
+  TASK     shard, attempt (int), scenario count, shifts, tape     coordinator -> worker
+  RESULT   shard (int), ScenarioAggregate                         worker -> coordinator
+  ERROR    shard (int), message (UTF)                             worker -> coordinator
+  SHUTDOWN                                                        coordinator -> worker
+
+Usage: ScenarioWorker <port> [--fail-shard=K] [--hang-shard=K], where --fail-shard kills the process and
+--hang-shard stops it from ever answering on the first attempt at shard K (fault injection for exercising the
+coordinator's retry and timeout paths). */
+public class ScenarioWorker {
+    static final int HELLO = 1;
+    static final int TASK = 2;
+    static final int RESULT = 3;
+    static final int ERROR = 4;
+    static final int SHUTDOWN = 5;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: ScenarioWorker <port> [--fail-shard=K] [--hang-shard=K]");
+            System.exit(2);
+        }
+        int port = Integer.parseInt(args[0]);
+        int failShard = -1;
+        int hangShard = -1;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].startsWith("--fail-shard=")) {
+                failShard = Integer.parseInt(args[i].substring("--fail-shard=".length()));
+            } else if (args[i].startsWith("--hang-shard=")) {
+                hangShard = Integer.parseInt(args[i].substring("--hang-shard=".length()));
+            }
+        }
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), BUFFER_SIZE));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE));
+            out.writeInt(HELLO);
+            out.writeLong(ProcessHandle.current().pid());
+            out.flush();
+            serve(in, out, failShard, hangShard);
+        } catch (EOFException e) {
+            // Coordinator went away; nothing left to do
+        }
+    }
+
+    private static void serve(DataInputStream in, DataOutputStream out, int failShard, int hangShard) throws IOException {
+        while (true) {
+            int type = in.readInt();
+            if (type == SHUTDOWN) {
+                return;
+            }
+            if (type != TASK) {
+                throw new IOException("Unexpected message type: " + type);
+            }
+            int shard = in.readInt();
+            int attempt = in.readInt();
+            double[] shifts = new double[in.readInt()];
+            for (int s = 0; s < shifts.length; s++) {
+                shifts[s] = in.readDouble();
+            }
+            LoanTape tape = LoanTape.readFrom(in);
+            if (shard == failShard && attempt == 0) {
+                Runtime.getRuntime().halt(3);
+            }
+            if (shard == hangShard && attempt == 0) {
+                hang(in);
+            }
+
+            try {
+                ScenarioAggregate aggregate = ScenarioEngine.evaluate(tape, shifts);
+                out.writeInt(RESULT);
+                out.writeInt(shard);
+                aggregate.writeTo(out);
+            } catch (RuntimeException e) {
+                out.writeInt(ERROR);
+                out.writeInt(shard);
+                out.writeUTF(String.valueOf(e));
+            }
+            out.flush();
+        }
+    }
+
+    // Alive but silent until the coordinator destroys the process or its side of the connection goes away
+    private static void hang(DataInputStream in) throws IOException {
+        while (in.read() >= 0) {
+            // Ignore anything sent meanwhile
+        }
+        throw new EOFException();
+    }
+}
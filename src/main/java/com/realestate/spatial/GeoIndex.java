@@ -0,0 +1,347 @@
+package com.realestate.spatial;
+
+import com.realestate.mpt.RealEstateAsset;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.IntStream;
+
+/* Immutable packed R-tree over asset locations for radius, box and k-nearest-neighbour screening, e.g. to pick
+the assets that go into an MPT (see PortfolioUtils.equalWeights).
+
+Bulk loading sorts the points along a Hilbert curve (one parallel sort of packed long keys) and groups runs of
+NODE_SIZE consecutive points into leaves, then runs of NODE_SIZE nodes into parents, up to a single root. Every
+node is a latitude/longitude box stored in flat arrays, so the tree is a handful of primitive arrays and levels
+are bounded in parallel.
+
+Distances are great-circle (haversine) kilometres. Pruning uses a lower bound of the distance from the query to
+a box: the larger of the latitude gap and the distance to the great circle of the nearer edge meridian, which
+stays valid across the antimeridian and near the poles. Boxes given with minLongitude > maxLongitude wrap
+around the antimeridian. */
+public class GeoIndex {
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private static final int NODE_SIZE = 16;
+    private static final int HILBERT_ORDER = 15; // 2^15 cells per axis, keys fit in 30 bits
+    private static final int PARALLEL_THRESHOLD = 1 << 14;
+
+    private final RealEstateAsset[] assets; // In Hilbert order
+    private final double[] latitudes;       // Radians, in Hilbert order
+    private final double[] longitudes;
+    private final int[] levelOffsets;       // First node of each level in the bound arrays; level 0 holds the leaves
+    private final int[] levelSizes;
+    private final double[] minLatitudes;
+    private final double[] maxLatitudes;
+    private final double[] minLongitudes;
+    private final double[] maxLongitudes;
+
+    public GeoIndex(Collection<RealEstateAsset> assets) {
+        if (assets.isEmpty()) {
+            throw new IllegalArgumentException("Asset collection cannot be empty.");
+        }
+        RealEstateAsset[] input = assets.toArray(new RealEstateAsset[0]);
+        int n = input.length;
+        for (RealEstateAsset asset : input) {
+            if (!asset.hasLocation()) {
+                throw new IllegalArgumentException("Asset '" + asset.getPropertyId() + "' has no location.");
+            }
+        }
+
+        long[] keys = new long[n];
+        range(n).forEach(k -> keys[k] = (hilbertKey(input[k].getLatitude(), input[k].getLongitude()) << 32) | k);
+        if (n >= PARALLEL_THRESHOLD) {
+            Arrays.parallelSort(keys);
+        } else {
+            Arrays.sort(keys);
+        }
+        this.assets = new RealEstateAsset[n];
+        this.latitudes = new double[n];
+        this.longitudes = new double[n];
+        range(n).forEach(k -> {
+            RealEstateAsset asset = input[(int) keys[k]];
+            this.assets[k] = asset;
+            latitudes[k] = Math.toRadians(asset.getLatitude());
+            longitudes[k] = Math.toRadians(asset.getLongitude());
+        });
+
+        // Level sizes up to the root
+        List<Integer> sizes = new ArrayList<>();
+        int count = n;
+        do {
+            count = (count + NODE_SIZE - 1) / NODE_SIZE;
+            sizes.add(count);
+        } while (count > 1);
+        levelSizes = sizes.stream().mapToInt(Integer::intValue).toArray();
+        levelOffsets = new int[levelSizes.length];
+        int total = 0;
+        for (int level = 0; level < levelSizes.length; level++) {
+            levelOffsets[level] = total;
+            total += levelSizes[level];
+        }
+        minLatitudes = new double[total];
+        maxLatitudes = new double[total];
+        minLongitudes = new double[total];
+        maxLongitudes = new double[total];
+
+        for (int level = 0; level < levelSizes.length; level++) {
+            int current = level;
+            range(levelSizes[level]).forEach(node -> bound(current, node));
+        }
+    }
+
+    public int size() {
+        return assets.length;
+    }
+
+    // Assets within radiusKm of the point, nearest first
+    public List<RealEstateAsset> withinRadius(double latitude, double longitude, double radiusKm) {
+        checkPoint(latitude, longitude);
+        if (radiusKm < 0) {
+            throw new IllegalArgumentException("Radius cannot be negative.");
+        }
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        double radius = radiusKm / EARTH_RADIUS_KM;
+        List<Hit> hits = new ArrayList<>();
+        int[] stack = new int[NODE_SIZE * levelSizes.length + 1];
+        int top = 0;
+        stack[top++] = root();
+        while (top > 0) {
+            int node = stack[--top];
+            int level = levelOf(node);
+            int index = node - levelOffsets[level];
+            if (lowerBound(node, lat, lon) > radius) {
+                continue;
+            }
+            int first = index * NODE_SIZE;
+            if (level == 0) {
+                for (int p = first; p < Math.min(first + NODE_SIZE, assets.length); p++) {
+                    double distance = angularDistance(lat, lon, latitudes[p], longitudes[p]);
+                    if (distance <= radius) {
+                        hits.add(new Hit(distance, p));
+                    }
+                }
+            } else {
+                for (int child = first; child < Math.min(first + NODE_SIZE, levelSizes[level - 1]); child++) {
+                    stack[top++] = levelOffsets[level - 1] + child;
+                }
+            }
+        }
+        hits.sort(Comparator.comparingDouble(hit -> hit.distance));
+        return toAssets(hits);
+    }
+
+    // Assets inside the box (degrees); minLongitude > maxLongitude wraps around the antimeridian
+    public List<RealEstateAsset> withinBox(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+        checkPoint(minLatitude, minLongitude);
+        checkPoint(maxLatitude, maxLongitude);
+        if (minLatitude > maxLatitude) {
+            throw new IllegalArgumentException("Minimum latitude cannot exceed maximum latitude.");
+        }
+        List<RealEstateAsset> result = new ArrayList<>();
+        double minLat = Math.toRadians(minLatitude);
+        double maxLat = Math.toRadians(maxLatitude);
+        if (minLongitude <= maxLongitude) {
+            collectBox(minLat, maxLat, Math.toRadians(minLongitude), Math.toRadians(maxLongitude), result);
+        } else {
+            collectBox(minLat, maxLat, Math.toRadians(minLongitude), Math.PI, result);
+            collectBox(minLat, maxLat, -Math.PI, Math.toRadians(maxLongitude), result);
+        }
+        return result;
+    }
+
+    // The k assets closest to the point, nearest first (fewer if the index is smaller)
+    public List<RealEstateAsset> nearest(double latitude, double longitude, int k) {
+        checkPoint(latitude, longitude);
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be greater than 0.");
+        }
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        // Best-first: nodes keyed by their lower bound, points (entry < 0) by their exact distance
+        PriorityQueue<Hit> queue = new PriorityQueue<>(Comparator.comparingDouble(hit -> hit.distance));
+        queue.add(new Hit(0, root()));
+        List<Hit> result = new ArrayList<>(k);
+        while (!queue.isEmpty() && result.size() < k) {
+            Hit next = queue.poll();
+            if (next.entry < 0) {
+                result.add(new Hit(next.distance, -next.entry - 1));
+                continue;
+            }
+            int level = levelOf(next.entry);
+            int first = (next.entry - levelOffsets[level]) * NODE_SIZE;
+            if (level == 0) {
+                for (int p = first; p < Math.min(first + NODE_SIZE, assets.length); p++) {
+                    queue.add(new Hit(angularDistance(lat, lon, latitudes[p], longitudes[p]), -p - 1));
+                }
+            } else {
+                for (int child = first; child < Math.min(first + NODE_SIZE, levelSizes[level - 1]); child++) {
+                    int node = levelOffsets[level - 1] + child;
+                    queue.add(new Hit(lowerBound(node, lat, lon), node));
+                }
+            }
+        }
+        return toAssets(result);
+    }
+
+    // Great-circle distance in kilometres between two points given in degrees
+    public static double distanceKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        return EARTH_RADIUS_KM * angularDistance(Math.toRadians(latitude1), Math.toRadians(longitude1),
+                Math.toRadians(latitude2), Math.toRadians(longitude2));
+    }
+
+    //------------------------------------- Helper classes/ methods -------------------------------------//
+
+    // Distance (radians) with the index of a point, or of a node while it waits in the kNN queue
+    private static final class Hit {
+        final double distance;
+        final int entry;
+
+        Hit(double distance, int entry) {
+            this.distance = distance;
+            this.entry = entry;
+        }
+    }
+
+    private List<RealEstateAsset> toAssets(List<Hit> hits) {
+        List<RealEstateAsset> result = new ArrayList<>(hits.size());
+        for (Hit hit : hits) {
+            result.add(assets[hit.entry]);
+        }
+        return result;
+    }
+
+    private void collectBox(double minLat, double maxLat, double minLon, double maxLon, List<RealEstateAsset> result) {
+        int[] stack = new int[NODE_SIZE * levelSizes.length + 1];
+        int top = 0;
+        stack[top++] = root();
+        while (top > 0) {
+            int node = stack[--top];
+            if (minLatitudes[node] > maxLat || maxLatitudes[node] < minLat
+                    || minLongitudes[node] > maxLon || maxLongitudes[node] < minLon) {
+                continue;
+            }
+            int level = levelOf(node);
+            int first = (node - levelOffsets[level]) * NODE_SIZE;
+            if (level == 0) {
+                for (int p = first; p < Math.min(first + NODE_SIZE, assets.length); p++) {
+                    if (latitudes[p] >= minLat && latitudes[p] <= maxLat && longitudes[p] >= minLon && longitudes[p] <= maxLon) {
+                        result.add(assets[p]);
+                    }
+                }
+            } else {
+                for (int child = first; child < Math.min(first + NODE_SIZE, levelSizes[level - 1]); child++) {
+                    stack[top++] = levelOffsets[level - 1] + child;
+                }
+            }
+        }
+    }
+
+    private int root() {
+        return levelOffsets[levelOffsets.length - 1];
+    }
+
+    private int levelOf(int node) {
+        int level = 0;
+        while (level + 1 < levelOffsets.length && levelOffsets[level + 1] <= node) {
+            level++;
+        }
+        return level;
+    }
+
+    // Box of one node from its children (points for leaves)
+    private void bound(int level, int index) {
+        int node = levelOffsets[level] + index;
+        double minLat = Double.POSITIVE_INFINITY;
+        double maxLat = Double.NEGATIVE_INFINITY;
+        double minLon = Double.POSITIVE_INFINITY;
+        double maxLon = Double.NEGATIVE_INFINITY;
+        int first = index * NODE_SIZE;
+        if (level == 0) {
+            for (int p = first; p < Math.min(first + NODE_SIZE, assets.length); p++) {
+                minLat = Math.min(minLat, latitudes[p]);
+                maxLat = Math.max(maxLat, latitudes[p]);
+                minLon = Math.min(minLon, longitudes[p]);
+                maxLon = Math.max(maxLon, longitudes[p]);
+            }
+        } else {
+            for (int child = levelOffsets[level - 1] + first;
+                 child < levelOffsets[level - 1] + Math.min(first + NODE_SIZE, levelSizes[level - 1]); child++) {
+                minLat = Math.min(minLat, minLatitudes[child]);
+                maxLat = Math.max(maxLat, maxLatitudes[child]);
+                minLon = Math.min(minLon, minLongitudes[child]);
+                maxLon = Math.max(maxLon, maxLongitudes[child]);
+            }
+        }
+        minLatitudes[node] = minLat;
+        maxLatitudes[node] = maxLat;
+        minLongitudes[node] = minLon;
+        maxLongitudes[node] = maxLon;
+    }
+
+    // Lower bound (radians) of the distance from the point to anything inside the node's box
+    private double lowerBound(int node, double lat, double lon) {
+        double latitudeGap = lat < minLatitudes[node] ? minLatitudes[node] - lat
+                : lat > maxLatitudes[node] ? lat - maxLatitudes[node] : 0;
+        if (lon >= minLongitudes[node] && lon <= maxLongitudes[node]) {
+            return latitudeGap;
+        }
+        double longitudeGap = Math.min(longitudeDifference(lon, minLongitudes[node]), longitudeDifference(lon, maxLongitudes[node]));
+        // Distance to the whole great circle through the poles along the nearer edge meridian
+        double crossTrack = Math.asin(Math.min(1, Math.abs(Math.sin(longitudeGap)) * Math.cos(lat)));
+        return Math.max(latitudeGap, crossTrack);
+    }
+
+    private static double longitudeDifference(double a, double b) {
+        double difference = Math.abs(a - b) % (2 * Math.PI);
+        return Math.min(difference, 2 * Math.PI - difference);
+    }
+
+    private static double angularDistance(double lat1, double lon1, double lat2, double lon2) {
+        double sinLat = Math.sin((lat2 - lat1) / 2);
+        double sinLon = Math.sin((lon2 - lon1) / 2);
+        double h = sinLat * sinLat + Math.cos(lat1) * Math.cos(lat2) * sinLon * sinLon;
+        return 2 * Math.asin(Math.min(1, Math.sqrt(h)));
+    }
+
+    private static void checkPoint(double latitude, double longitude) {
+        if (!(latitude >= -90 && latitude <= 90)) {
+            throw new IllegalArgumentException("Latitude must be between -90 and 90 degrees.");
+        }
+        if (!(longitude >= -180 && longitude <= 180)) {
+            throw new IllegalArgumentException("Longitude must be between -180 and 180 degrees.");
+        }
+    }
+
+    // Position along a Hilbert curve over the longitude/latitude grid
+    private static long hilbertKey(double latitude, double longitude) {
+        int side = 1 << HILBERT_ORDER;
+        int x = (int) Math.min(side - 1, (longitude + 180) / 360 * side);
+        int y = (int) Math.min(side - 1, (latitude + 90) / 180 * side);
+        long d = 0;
+        for (int s = side / 2; s > 0; s /= 2) {
+            int rx = (x & s) > 0 ? 1 : 0;
+            int ry = (y & s) > 0 ? 1 : 0;
+            d += (long) s * s * ((3 * rx) ^ ry);
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = side - 1 - x;
+                    y = side - 1 - y;
+                }
+                int swap = x;
+                x = y;
+                y = swap;
+            }
+        }
+        return d;
+    }
+
+    private static IntStream range(int n) {
+        IntStream range = IntStream.range(0, n);
+        return n >= PARALLEL_THRESHOLD ? range.parallel() : range;
+    }
+}
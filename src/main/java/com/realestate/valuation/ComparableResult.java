@@ -0,0 +1,41 @@
+package com.realestate.valuation;
+
+import com.realestate.mpt.RealEstateAsset;
+
+import java.util.Collections;
+import java.util.List;
+
+// Comps returned by ComparableSales.findComparables, most similar first
+public class ComparableResult {
+    private final List<RealEstateAsset> assets;
+    private final int[] indices;
+    private final double[] similarities;
+
+    ComparableResult(List<RealEstateAsset> assets, int[] indices, double[] similarities) {
+        this.assets = assets;
+        this.indices = indices;
+        this.similarities = similarities;
+    }
+
+    public int size() {
+        return indices.length;
+    }
+
+    public RealEstateAsset getAsset(int i) {
+        return assets.get(i);
+    }
+
+    public List<RealEstateAsset> getAssets() {
+        return Collections.unmodifiableList(assets);
+    }
+
+    // Position of the comp in the list the engine was built from
+    public int getIndex(int i) {
+        return indices[i];
+    }
+
+    // exp(-d²), 1 for an identical comp
+    public double getSimilarity(int i) {
+        return similarities[i];
+    }
+}
@@ -0,0 +1,382 @@
+package com.realestate.valuation;
+
+import com.realestate.mpt.RealEstateAsset;
+import com.realestate.spatial.GeoIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/* Comparable-sales engine: finds the k assets most similar to a subject and estimates the subject's expected
+return as the similarity-weighted mean of theirs, which can be written back with RealEstateAsset.setExpectedReturn
+so it flows straight into MPT.
+
+Similarity is exp(-d²) with
+  d² = w_size (ln size ratio)² + w_age (age gap / ageScale)² + w_location (distance / locationScaleKm)²
+     + w_returns (recent return gap / σ of recent returns)²
+where the recent return is the mean of an asset's last RECENT_RETURNS historical returns. Locations are stored as
+unit vectors, so the distance is the chord length, which is within 0.1% of the great-circle distance below 100 km
+and never overstates it.
+
+Features live in primitive columns. Scoring runs over blocks of BLOCK_SIZE comps with a branch-free loop that
+only does multiply-adds on the columns (so the JIT can vectorize it) into a scratch array, then the block is
+scanned into a bounded heap of the k smallest d². Ranking on d² rather than exp(-d²) keeps far comps apart (exp
+underflows to 0 once d² passes about 745, e.g. beyond ~136 km at the default location scale); exp is only taken
+for the k comps returned. Large universes are split into chunks scored in parallel, one heap per chunk, and the
+heaps are merged at the end. */
+public class ComparableSales {
+    public static final int RECENT_RETURNS = 12;
+
+    private static final int BLOCK_SIZE = 1024;
+    private static final int PARALLEL_THRESHOLD = 16384;
+    private static final int CHUNK_SIZE = 8 * BLOCK_SIZE;
+
+    private final RealEstateAsset[] comps;
+    private final double[] logSizes;
+    private final double[] ages;
+    private final double[] unitX;
+    private final double[] unitY;
+    private final double[] unitZ;
+    private final double[] recentReturns;
+    private final double[] expectedReturns;
+    private final double returnScale;
+
+    private double sizeWeight = 1;
+    private double ageWeight = 1;
+    private double locationWeight = 1;
+    private double returnWeight = 1;
+    private double ageScale = 10;
+    private double locationScaleKm = 5;
+
+    // sizes (e.g. square feet) and ages (years) are aligned with comps; every comp needs a location
+    public ComparableSales(List<RealEstateAsset> comps, double[] sizes, double[] ages) {
+        int n = comps.size();
+        if (n == 0) {
+            throw new IllegalArgumentException("Comparable list cannot be empty.");
+        }
+        if (sizes.length != n || ages.length != n) {
+            throw new IllegalArgumentException("The size of the comps list and the feature arrays must be the same.");
+        }
+        this.comps = comps.toArray(new RealEstateAsset[0]);
+        this.logSizes = new double[n];
+        this.ages = ages.clone();
+        this.unitX = new double[n];
+        this.unitY = new double[n];
+        this.unitZ = new double[n];
+        this.recentReturns = new double[n];
+        this.expectedReturns = new double[n];
+        double sum = 0;
+        double sumSquares = 0;
+        for (int i = 0; i < n; i++) {
+            RealEstateAsset comp = this.comps[i];
+            if (sizes[i] <= 0) {
+                throw new IllegalArgumentException("Size cannot be negative or zero.");
+            }
+            if (!comp.hasLocation()) {
+                throw new IllegalArgumentException("Comp '" + comp.getPropertyId() + "' has no location.");
+            }
+            logSizes[i] = Math.log(sizes[i]);
+            double[] unit = unitVector(comp.getLatitude(), comp.getLongitude());
+            unitX[i] = unit[0];
+            unitY[i] = unit[1];
+            unitZ[i] = unit[2];
+            recentReturns[i] = recentReturn(comp);
+            expectedReturns[i] = comp.getExpectedReturn();
+            sum += recentReturns[i];
+            sumSquares += recentReturns[i] * recentReturns[i];
+        }
+        double variance = Math.max(0, sumSquares / n - (sum / n) * (sum / n));
+        this.returnScale = variance > 0 ? Math.sqrt(variance) : 1;
+    }
+
+    public int size() {
+        return comps.length;
+    }
+
+    // Relative importance of each feature (0 ignores it)
+    public void setWeights(double size, double age, double location, double returns) {
+        if (size < 0 || age < 0 || location < 0 || returns < 0) {
+            throw new IllegalArgumentException("Feature weights cannot be negative.");
+        }
+        this.sizeWeight = size;
+        this.ageWeight = age;
+        this.locationWeight = location;
+        this.returnWeight = returns;
+    }
+
+    // Age gap in years that costs as much as one unit of weight
+    public void setAgeScale(double years) {
+        if (years <= 0) {
+            throw new IllegalArgumentException("Age scale cannot be negative or zero.");
+        }
+        this.ageScale = years;
+    }
+
+    // Distance in km that costs as much as one unit of weight
+    public void setLocationScaleKm(double km) {
+        if (km <= 0) {
+            throw new IllegalArgumentException("Location scale cannot be negative or zero.");
+        }
+        this.locationScaleKm = km;
+    }
+
+    // The k comps most similar to the subject, best first; the subject itself is skipped if it is a comp
+    public ComparableResult findComparables(RealEstateAsset subject, double size, double age, int k) {
+        TopK best = search(subject, size, age, k);
+        int[] indices = best.sortedIndices();
+        double[] similarities = new double[indices.length];
+        List<RealEstateAsset> assets = new ArrayList<>(indices.length);
+        for (int i = 0; i < indices.length; i++) {
+            similarities[i] = Math.exp(-best.distanceOf(indices[i]));
+            assets.add(comps[indices[i]]);
+        }
+        return new ComparableResult(assets, indices, similarities);
+    }
+
+    /* Similarity-weighted mean of the expected returns of the k best comps. The weights exp(-d²) are normalized
+    relative to the closest comp, so the mean stays similarity-weighted even when every similarity underflows. */
+    public double estimateExpectedReturn(RealEstateAsset subject, double size, double age, int k) {
+        TopK best = search(subject, size, age, k);
+        int[] indices = best.sortedIndices();
+        if (indices.length == 0) {
+            throw new IllegalArgumentException("No comparables other than the subject.");
+        }
+        double closest = best.distanceOf(indices[0]);
+        double weighted = 0;
+        double total = 0;
+        for (int index : indices) {
+            double weight = Math.exp(closest - best.distanceOf(index));
+            weighted += weight * expectedReturns[index];
+            total += weight;
+        }
+        return weighted / total;
+    }
+
+    // Estimates the subjects' expected returns (in parallel) and stores them on the assets
+    public double[] applyEstimates(List<RealEstateAsset> subjects, double[] sizes, double[] ages, int k) {
+        if (sizes.length != subjects.size() || ages.length != subjects.size()) {
+            throw new IllegalArgumentException("The size of the subjects list and the feature arrays must be the same.");
+        }
+        // Subjects are scored sequentially inside when the comps are large, so only fan out over small universes
+        IntStream range = IntStream.range(0, subjects.size());
+        if (comps.length < PARALLEL_THRESHOLD) {
+            range = range.parallel();
+        }
+        double[] estimates = new double[subjects.size()];
+        range.forEach(s -> estimates[s] = estimateExpectedReturn(subjects.get(s), sizes[s], ages[s], k));
+        for (int s = 0; s < estimates.length; s++) {
+            subjects.get(s).setExpectedReturn(estimates[s]);
+        }
+        return estimates;
+    }
+
+    //------------------------------------- Helper classes/ methods -------------------------------------//
+
+    // The k comps with the smallest d²
+    private TopK search(RealEstateAsset subject, double size, double age, int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be greater than 0.");
+        }
+        if (size <= 0) {
+            throw new IllegalArgumentException("Size cannot be negative or zero.");
+        }
+        if (!subject.hasLocation()) {
+            throw new IllegalArgumentException("Subject '" + subject.getPropertyId() + "' has no location.");
+        }
+        Query query = new Query(subject, size, age);
+        int n = comps.length;
+        TopK best;
+        if (n < PARALLEL_THRESHOLD) {
+            best = new TopK(k);
+            score(query, 0, n, best);
+        } else {
+            int chunks = (n + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            best = IntStream.range(0, chunks).parallel()
+                    .mapToObj(c -> {
+                        TopK local = new TopK(k);
+                        score(query, c * CHUNK_SIZE, Math.min(n, (c + 1) * CHUNK_SIZE), local);
+                        return local;
+                    })
+                    .reduce(TopK::merge).orElseThrow();
+        }
+        return best;
+    }
+
+    // Subject features with the weights and scales folded in
+    private final class Query {
+        final RealEstateAsset subject;
+        final double logSize;
+        final double age;
+        final double x;
+        final double y;
+        final double z;
+        final double recentReturn;
+        final double sizeFactor;
+        final double ageFactor;
+        final double locationFactor;
+        final double returnFactor;
+
+        Query(RealEstateAsset subject, double size, double age) {
+            this.subject = subject;
+            this.logSize = Math.log(size);
+            this.age = age;
+            double[] unit = unitVector(subject.getLatitude(), subject.getLongitude());
+            this.x = unit[0];
+            this.y = unit[1];
+            this.z = unit[2];
+            this.recentReturn = recentReturn(subject);
+            double radiusScale = GeoIndex.EARTH_RADIUS_KM / locationScaleKm;
+            this.sizeFactor = sizeWeight;
+            this.ageFactor = ageWeight / (ageScale * ageScale);
+            this.locationFactor = locationWeight * radiusScale * radiusScale;
+            this.returnFactor = returnWeight / (returnScale * returnScale);
+        }
+    }
+
+    private void score(Query q, int from, int to, TopK best) {
+        double[] distances = new double[BLOCK_SIZE];
+        for (int start = from; start < to; start += BLOCK_SIZE) {
+            int length = Math.min(BLOCK_SIZE, to - start);
+            // Straight-line arithmetic over the columns; kept free of branches and calls
+            for (int j = 0; j < length; j++) {
+                int i = start + j;
+                double ds = logSizes[i] - q.logSize;
+                double da = ages[i] - q.age;
+                double dx = unitX[i] - q.x;
+                double dy = unitY[i] - q.y;
+                double dz = unitZ[i] - q.z;
+                double dr = recentReturns[i] - q.recentReturn;
+                distances[j] = q.sizeFactor * ds * ds + q.ageFactor * da * da
+                        + q.locationFactor * (dx * dx + dy * dy + dz * dz) + q.returnFactor * dr * dr;
+            }
+            for (int j = 0; j < length; j++) {
+                if (best.accepts(distances[j], start + j) && comps[start + j] != q.subject) {
+                    best.offer(distances[j], start + j);
+                }
+            }
+        }
+    }
+
+    // Bounded heap of (d², index) keeping the k nearest; the root is the worst kept entry. Ties go to the lower index.
+    private static final class TopK {
+        private final int capacity;
+        private final double[] distances;
+        private final int[] indices;
+        private int size;
+
+        TopK(int capacity) {
+            this.capacity = capacity;
+            this.distances = new double[capacity];
+            this.indices = new int[capacity];
+        }
+
+        boolean accepts(double distance, int index) {
+            return size < capacity || better(distance, index, distances[0], indices[0]);
+        }
+
+        void offer(double distance, int index) {
+            if (size < capacity) {
+                distances[size] = distance;
+                indices[size] = index;
+                siftUp(size++);
+            } else if (better(distance, index, distances[0], indices[0])) {
+                distances[0] = distance;
+                indices[0] = index;
+                siftDown(0);
+            }
+        }
+
+        TopK merge(TopK other) {
+            for (int i = 0; i < other.size; i++) {
+                offer(other.distances[i], other.indices[i]);
+            }
+            return this;
+        }
+
+        double distanceOf(int index) {
+            for (int i = 0; i < size; i++) {
+                if (indices[i] == index) {
+                    return distances[i];
+                }
+            }
+            throw new IllegalStateException("Index " + index + " is not in the heap.");
+        }
+
+        int[] sortedIndices() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> better(distances[a], indices[a], distances[b], indices[b]) ? -1
+                    : better(distances[b], indices[b], distances[a], indices[a]) ? 1 : 0);
+            int[] sorted = new int[size];
+            for (int i = 0; i < size; i++) {
+                sorted[i] = indices[order[i]];
+            }
+            return sorted;
+        }
+
+        private static boolean better(double distance, int index, double otherDistance, int otherIndex) {
+            return distance < otherDistance || (distance == otherDistance && index < otherIndex);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!better(distances[parent], indices[parent], distances[i], indices[i])) {
+                    break;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int worst = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < size && better(distances[worst], indices[worst], distances[left], indices[left])) {
+                    worst = left;
+                }
+                if (right < size && better(distances[worst], indices[worst], distances[right], indices[right])) {
+                    worst = right;
+                }
+                if (worst == i) {
+                    return;
+                }
+                swap(i, worst);
+                i = worst;
+            }
+        }
+
+        private void swap(int a, int b) {
+            double distance = distances[a];
+            distances[a] = distances[b];
+            distances[b] = distance;
+            int index = indices[a];
+            indices[a] = indices[b];
+            indices[b] = index;
+        }
+    }
+
+    private static double[] unitVector(double latitude, double longitude) {
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        return new double[]{Math.cos(lat) * Math.cos(lon), Math.cos(lat) * Math.sin(lon), Math.sin(lat)};
+    }
+
+    private static double recentReturn(RealEstateAsset asset) {
+        List<Double> history = asset.getHistoricalReturns();
+        int count = Math.min(RECENT_RETURNS, history.size());
+        if (count == 0) {
+            return 0;
+        }
+        double sum = 0;
+        for (int i = history.size() - count; i < history.size(); i++) {
+            sum += history.get(i);
+        }
+        return sum / count;
+    }
+}
@@ -0,0 +1,89 @@
+package com.realestate.interest;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+public class DayCountTest {
+
+    private static final double DELTA = 1e-12;
+
+    @Test
+    public void testActualActualAcrossLeapYear() {
+        LocalDate start = LocalDate.of(2023, 11, 1);
+        LocalDate end = LocalDate.of(2024, 3, 1);
+        // 61 days in 2023 over 365 plus 60 days in 2024 over 366
+        assertEquals(61 / 365.0 + 60 / 366.0, DayCount.ACTUAL_ACTUAL.yearFraction(start, end), DELTA);
+        assertEquals(121, DayCount.ACTUAL_ACTUAL.dayCount(start, end));
+    }
+
+    @Test
+    public void testActual360AndActual365F() {
+        LocalDate start = LocalDate.of(2024, 1, 15);
+        LocalDate end = LocalDate.of(2024, 7, 15);
+        assertEquals(182 / 360.0, DayCount.ACTUAL_360.yearFraction(start, end), DELTA);
+        assertEquals(182 / 365.0, DayCount.ACTUAL_365F.yearFraction(start, end), DELTA);
+    }
+
+    @Test
+    public void testThirty360EndOfMonthRules() {
+        assertEquals(31, DayCount.THIRTY_360.dayCount(LocalDate.of(2024, 1, 31), LocalDate.of(2024, 3, 1)));
+        assertEquals(29, DayCount.THIRTY_360.dayCount(LocalDate.of(2024, 1, 30), LocalDate.of(2024, 2, 29)));
+        assertEquals(60, DayCount.THIRTY_360.dayCount(LocalDate.of(2024, 1, 31), LocalDate.of(2024, 3, 31)));
+        assertEquals(1.0, DayCount.THIRTY_360.yearFraction(LocalDate.of(2023, 5, 17), LocalDate.of(2024, 5, 17)), DELTA);
+    }
+
+    @Test
+    public void testTableMatchesLocalDateArithmeticOutsideRange() {
+        LocalDate start = LocalDate.of(1899, 12, 1);
+        LocalDate end = LocalDate.of(1900, 2, 1);
+        assertEquals(31 / 365.0 + 31 / 365.0, DayCount.ACTUAL_ACTUAL.yearFraction(start, end), DELTA);
+        assertEquals(ChronoUnit.DAYS.between(start, end), DayCount.ACTUAL_360.dayCount(start, end));
+    }
+
+    @Test
+    public void testDailyCompoundFactorMatchesLegacyFor365F() {
+        LocalDate start = LocalDate.of(2021, 1, 1);
+        LocalDate end = LocalDate.of(2022, 1, 1);
+        assertEquals(Interest.dailyCompoundInterest(1000, 0.05, 1), Interest.dailyCompoundInterest(1000, 0.05, start, end, DayCount.ACTUAL_365F), 1e-9);
+    }
+
+    @Test
+    public void testSimpleInterestWithDates() {
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        LocalDate end = LocalDate.of(2025, 1, 1);
+        assertEquals(100.0, Interest.simpleInterest(1000, 0.1, start, end, DayCount.ACTUAL_ACTUAL), DELTA);
+        assertEquals(101.6666666, Interest.simpleInterest(1000, 0.1, start, end, DayCount.ACTUAL_360), 1e-6);
+        // Explanation: 2024 is a leap year so ACT/360 accrues 366/360 of a year.
+    }
+
+    @Test
+    public void testBatchAccrualMatchesSingle() {
+        int n = 10000;
+        double[] balances = new double[n];
+        double[] rates = new double[n];
+        long[] starts = new long[n];
+        long[] ends = new long[n];
+        for (int k = 0; k < n; k++) {
+            balances[k] = 100000 + k;
+            rates[k] = 0.03 + (k % 50) * 0.001;
+            starts[k] = LocalDate.of(2020, 1, 1).plusDays(k % 400).toEpochDay();
+            ends[k] = starts[k] + 30 + (k % 31);
+        }
+        double[] simple = new double[n];
+        double[] compound = new double[n];
+        Interest.accrueSimpleInterest(balances, rates, starts, ends, DayCount.ACTUAL_ACTUAL, simple);
+        Interest.accrueDailyCompoundInterest(balances, rates, starts, ends, DayCount.ACTUAL_360, compound);
+        for (int k = 0; k < n; k += 1237) {
+            LocalDate start = LocalDate.ofEpochDay(starts[k]);
+            LocalDate end = LocalDate.ofEpochDay(ends[k]);
+            assertEquals(Interest.simpleInterest(balances[k], rates[k], start, end, DayCount.ACTUAL_ACTUAL), simple[k], 1e-9);
+            assertEquals(Interest.dailyCompoundInterest(balances[k], rates[k], start, end, DayCount.ACTUAL_360) - balances[k], compound[k], 1e-9);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBatchLengthMismatch() {
+        Interest.accrueSimpleInterest(new double[2], new double[1], new long[2], new long[2], DayCount.ACTUAL_360, new double[2]);
+    }
+}
@@ -0,0 +1,129 @@
+package com.realestate.interest;
+import com.realestate.metrics.Counter;
+import com.realestate.metrics.LongAdderRecorder;
+import com.realestate.metrics.Metrics;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RateSolverTest {
+
+    private static final double DELTA = 1e-8;
+
+    @Test
+    public void testIrrSingleFlowMatchesClosedForm() {
+        double[] cashFlows = {-1000, 0, 0, 1331};
+        assertEquals(Interest.findCompoundInterestRate(1000, 1331, 3), RateSolver.irr(cashFlows), DELTA);
+        // Explanation: With a single inflow the IRR is the compound rate, here 10%.
+    }
+
+    @Test
+    public void testIrrLevelCashFlows() {
+        double[] cashFlows = {-1000, 400, 400, 400};
+        double irr = RateSolver.irr(cashFlows);
+        double npv = -1000 + 400 / (1 + irr) + 400 / Math.pow(1 + irr, 2) + 400 / Math.pow(1 + irr, 3);
+        assertEquals(0.0, npv, 1e-6);
+        assertEquals(0.09701, irr, 0.00001);
+    }
+
+    @Test
+    public void testYieldToMaturityAtPar() {
+        double[] bond = {50, 50, 50, 50, 1050};
+        assertEquals(0.05, RateSolver.yieldToMaturity(1000, bond), DELTA);
+        // Explanation: A bond priced at par yields its coupon rate.
+    }
+
+    @Test
+    public void testXirrIrregularTimes() {
+        double[] cashFlows = {-1000, 500, 600};
+        double[] times = {0, 0.5, 1.75};
+        double rate = RateSolver.xirr(cashFlows, times);
+        double npv = -1000 + 500 * Math.pow(1 + rate, -0.5) + 600 * Math.pow(1 + rate, -1.75);
+        assertEquals(0.0, npv, 1e-6);
+    }
+
+    @Test
+    public void testEffectiveAPRWithoutFeesIsNoteRate() {
+        double payment = 100000 * (0.05 / 12) / (1 - Math.pow(1 + 0.05 / 12, -360));
+        assertEquals(0.05, RateSolver.effectiveAPR(100000, 0, payment, 360, 0.05), DELTA);
+    }
+
+    @Test
+    public void testEffectiveAPRWithFeesIsHigher() {
+        double payment = 100000 * (0.05 / 12) / (1 - Math.pow(1 + 0.05 / 12, -360));
+        double apr = RateSolver.effectiveAPR(100000, 2000, payment, 360, 0.05);
+        assertEquals(0.051784, apr, 0.000001);
+        // Explanation: $2000 in fees on a $100000 30-year loan at 5% adds about 0.18 points of APR.
+    }
+
+    @Test
+    public void testBatchMatchesSingleAndReportsIterations() {
+        int n = 5000;
+        double[] amounts = new double[n];
+        double[] payments = new double[n];
+        int[] terms = new int[n];
+        double[] guesses = new double[n];
+        for (int k = 0; k < n; k++) {
+            double rate = 0.03 + (k % 40) * 0.00125;
+            terms[k] = (k % 2 == 0) ? 360 : 180;
+            payments[k] = 200000 * (rate / 12) / (1 - Math.pow(1 + rate / 12, -terms[k]));
+            amounts[k] = 200000 - 1500;
+            guesses[k] = rate;
+        }
+        double[] aprs = new double[n];
+        int[] iterations = new int[n];
+        RateSolver.effectiveAPRBatch(amounts, payments, terms, guesses, aprs, iterations);
+
+        for (int k = 0; k < n; k += 997) {
+            assertEquals(RateSolver.effectiveAPR(amounts[k], payments[k], terms[k], guesses[k]), aprs[k], DELTA);
+            assertTrue(iterations[k] > 0 && iterations[k] < 10);
+            // Explanation: Warm-starting from the note rate should converge in a handful of Newton steps.
+        }
+    }
+
+    @Test
+    public void testIrrBatch() {
+        double[][] cashFlows = {{-1000, 0, 0, 1331}, {-1000, 50, 50, 50, 50, 1050}};
+        double[] result = RateSolver.irrBatch(cashFlows);
+        assertEquals(0.1, result[0], DELTA);
+        assertEquals(0.05, result[1], DELTA);
+    }
+
+    @Test
+    public void testMetricsCountSolves() {
+        long before = RateSolver.getSolveCount();
+        RateSolver.irr(new double[]{-1000, 1100});
+        assertTrue(RateSolver.getSolveCount() > before);
+        assertTrue(RateSolver.getAverageIterations() > 0);
+    }
+
+    @Test
+    public void testSolvesAreForwardedToMetrics() {
+        Metrics.setRecorder(new LongAdderRecorder());
+        try {
+            long solves = RateSolver.getSolveCount();
+            long iterations = RateSolver.getIterationCount();
+            RateSolver.irr(new double[]{-1000, 1100});
+            assertEquals(1, Metrics.snapshot().getCount(Counter.RATE_SOLVER_SOLVES));
+            assertEquals(RateSolver.getIterationCount() - iterations, Metrics.snapshot().getCount(Counter.RATE_SOLVER_ITERATIONS));
+            assertEquals(solves + 1, RateSolver.getSolveCount());
+
+            // Only the solver's own counters are reset
+            RateSolver.resetMetrics();
+            assertEquals(0, RateSolver.getSolveCount());
+            assertEquals(1, Metrics.snapshot().getCount(Counter.RATE_SOLVER_SOLVES));
+        } finally {
+            Metrics.disable();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIrrRequiresTwoFlows() {
+        RateSolver.irr(new double[]{-1000});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEffectiveAPRFeesExceedPrincipal() {
+        RateSolver.effectiveAPR(1000, 1000, 100, 12, 0.05);
+    }
+}
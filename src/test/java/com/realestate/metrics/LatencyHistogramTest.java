@@ -0,0 +1,57 @@
+package com.realestate.metrics;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testSmallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 20; i++) {
+            histogram.record(i);
+        }
+        assertEquals(10, histogram.getPercentile(50));
+        assertEquals(20, histogram.getPercentile(100));
+        assertEquals(10.5, histogram.getMean(), 1e-9);
+        assertEquals(20, histogram.getCount());
+    }
+
+    @Test
+    public void testRelativeErrorOfLargeValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 1_000_000; value++) {
+            histogram.record(value * 1000);
+        }
+        long p50 = histogram.getPercentile(50);
+        long p99 = histogram.getPercentile(99);
+        assertTrue(Math.abs(p50 - 500_000_000L) / 500_000_000.0 < 0.035);
+        assertTrue(Math.abs(p99 - 990_000_000L) / 990_000_000.0 < 0.035);
+        assertEquals(1_000_000_000L, histogram.getMax());
+    }
+
+    @Test
+    public void testBucketBoundsAreContiguous() {
+        for (int index = 0; index < 1800; index++) {
+            long upper = LatencyHistogram.bucketUpperBound(index);
+            assertEquals(index, LatencyHistogram.bucketIndex(upper));
+            assertEquals(index + 1, LatencyHistogram.bucketIndex(upper + 1));
+        }
+    }
+
+    @Test
+    public void testEmptyAndReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentile(99));
+        histogram.record(5);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(50));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeValue() {
+        new LatencyHistogram().record(-1);
+    }
+}
@@ -0,0 +1,122 @@
+package com.realestate.metrics;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import com.realestate.mortgage.ARMMortgage;
+import com.realestate.mortgage.ARMMortgage.RateChange;
+import com.realestate.mpt.MPT;
+import com.realestate.mpt.RealEstateAsset;
+
+public class MetricsTest {
+
+    @Before
+    public void setUp() {
+        Metrics.setRecorder(new LongAdderRecorder());
+    }
+
+    @After
+    public void tearDown() {
+        Metrics.disable();
+    }
+
+    @Test
+    public void testArmCacheHitsAndScheduleTimer() {
+        ARMMortgage mortgage = new ARMMortgage(200000, 0.04, 30, "y", new RateChange(60, 0.06));
+        mortgage.calculateMonthlyPayment(10); // Served by the lazy view, no full schedule
+        mortgage.calculateMonthlyPayment(20);
+        mortgage.calculateTotalInterest();
+        mortgage.generateAmortizationSchedule();
+        mortgage.generateAmortizationSchedule();
+
+        MetricsSnapshot snapshot = Metrics.snapshot();
+        assertEquals(1, snapshot.getCount(Counter.ARM_SCHEDULE_CACHE_MISS));
+        assertEquals(2, snapshot.getCount(Counter.ARM_SCHEDULE_CACHE_HIT));
+        assertEquals(1, snapshot.getTimer(Operation.SCHEDULE_GENERATION).getCount());
+        assertTrue(snapshot.getTimer(Operation.SCHEDULE_GENERATION).getMaxNanos() > 0);
+    }
+
+    @Test
+    public void testPortfolioOperationsAreTimed() {
+        RealEstateAsset asset1 = new RealEstateAsset(3680, Arrays.asList(1000.0, 1020.0, 1030.0, 1015.0));
+        RealEstateAsset asset2 = new RealEstateAsset(3230, Arrays.asList(2090.0, 2020.0, 2030.0, 2015.0, 2025.0, 2135.0));
+        Map<RealEstateAsset, Double> weights = new HashMap<>();
+        weights.put(asset1, 0.5);
+        weights.put(asset2, 0.5);
+        MPT mpt = new MPT(weights, "c");
+        mpt.portfolioVolatility();
+        mpt.optimizedPortfolio(1000);
+
+        MetricsSnapshot snapshot = Metrics.snapshot();
+        assertEquals(1, snapshot.getTimer(Operation.HISTORY_CLEANING).getCount());
+        assertEquals(1, snapshot.getCount(Counter.HISTORIES_RESAMPLED));
+        assertEquals(1, snapshot.getTimer(Operation.COVARIANCE_BUILD).getCount()); // Cached after the first use
+        assertEquals(1, snapshot.getTimer(Operation.PORTFOLIO_OPTIMIZATION).getCount());
+        assertTrue(snapshot.getCount(Counter.OPTIMIZER_ITERATIONS) > 0);
+    }
+
+    @Test
+    public void testNoopRecorderRecordsNothing() {
+        Metrics.disable();
+        assertFalse(Metrics.isEnabled());
+        assertSame(Timing.NOOP, Metrics.time(Operation.COVARIANCE_BUILD));
+        new ARMMortgage(100000, 0.05, 30, "y").calculateTotalInterest();
+        assertEquals(0, Metrics.snapshot().getCount(Counter.ARM_SCHEDULE_CACHE_MISS));
+    }
+
+    @Test
+    public void testResetClearsCounters() {
+        Metrics.add(Counter.RATE_SOLVER_ITERATIONS, 5);
+        assertEquals(5, Metrics.snapshot().getCount(Counter.RATE_SOLVER_ITERATIONS));
+        Metrics.reset();
+        assertEquals(0, Metrics.snapshot().getCount(Counter.RATE_SOLVER_ITERATIONS));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testJmxExport() throws Exception {
+        Metrics.registerMBean();
+        Metrics.registerMBean(); // Idempotent
+        Metrics.increment(Counter.ARM_SCHEDULE_CACHE_HIT);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(Metrics.MBEAN_NAME);
+        assertEquals(Boolean.TRUE, server.getAttribute(name, "Enabled"));
+        TabularData counters = (TabularData) server.getAttribute(name, "Counters");
+        assertEquals(1L, counters.get(new Object[]{Counter.ARM_SCHEDULE_CACHE_HIT.name()}).get("value"));
+    }
+
+    @Test
+    public void testJfrEventForLongOperation() throws Exception {
+        Path file = Files.createTempFile("realestatelib", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.realestate.Operation").withThreshold(Duration.ZERO);
+            recording.start();
+            Timing timing = Metrics.time(Operation.COVARIANCE_BUILD, 42);
+            Thread.sleep(1);
+            timing.close();
+            recording.stop();
+            recording.dump(file);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.deleteIfExists(file);
+        assertTrue(events.stream().anyMatch(event -> event.getString("operation").equals("COVARIANCE_BUILD") && event.getLong("size") == 42));
+    }
+}
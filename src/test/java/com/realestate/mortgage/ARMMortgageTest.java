@@ -281,4 +281,59 @@ public class ARMMortgageTest {
         // System.out.println(mortgage.calculateTotalCost());
         // System.out.println(mortgage.calculateTotalInterest());
     }
+
+    @Test
+    public void testAPRWithFeesAndRateChange() {
+        ARMMortgage mortgage = new ARMMortgage(100000, 0.05, 30, "y", new RateChange(60, 0.07));
+        FixedRateMortgage fixed = new FixedRateMortgage(100000, 0.05, 30, "y");
+        assertEquals(0.05, new ARMMortgage(100000, 0.05, 30, "y").calculateAPR(0), 1e-8);
+        assertTrue(mortgage.calculateAPR(2000) > fixed.calculateAPR(2000));
+    }
+
+    @Test
+    public void testConstructorDoesNotSortCallerList() {
+        List<RateChange> rateChanges = Arrays.asList(new RateChange(24, 0.07), new RateChange(12, 0.06));
+        ARMMortgage mortgage = new ARMMortgage(100000, 0.05, 30, "y", rateChanges);
+        assertEquals(24, rateChanges.get(0).getMonth());
+        assertEquals(12, mortgage.getRateChanges().get(0).getMonth());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testGetRateChangesIsUnmodifiable() {
+        ARMMortgage mortgage = new ARMMortgage(100000, 0.05, 30, "y", new RateChange(12, 0.06));
+        mortgage.getRateChanges().add(new RateChange(24, 0.07));
+    }
+
+    @Test
+    public void testSetRateChangesInvalidatesSchedule() {
+        ARMMortgage mortgage = new ARMMortgage(100000, 0.05, 30, "y");
+        double before = mortgage.calculateTotalInterest();
+        mortgage.setRateChanges(Arrays.asList(new RateChange(12, 0.07)));
+        assertTrue(mortgage.calculateTotalInterest() > before);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetRateChangesValidates() {
+        ARMMortgage mortgage = new ARMMortgage(100000, 0.05, 30, "y");
+        mortgage.setRateChanges(Arrays.asList(new RateChange(400, 0.07)));
+    }
+
+    @Test
+    public void testCumulativeQueriesMatchScheduleLoops() {
+        ARMMortgage mortgage = new ARMMortgage(200000, 0.04, 30, "y", new RateChange(60, 0.055), new RateChange(120, 0.0625));
+        List<AbstractMortgage.AmortizationEntry> schedule = mortgage.generateAmortizationSchedule();
+        double paid = 0;
+        double interest = 0;
+        for (int month = 1; month <= schedule.size(); month++) {
+            paid += schedule.get(month - 1).getPayment();
+            interest += schedule.get(month - 1).getInterestPaid();
+            assertEquals(paid, mortgage.calculateCumulativePayments(month), 0.0);
+            assertEquals(interest, mortgage.calculateCumulativeInterest(month), 0.0);
+            assertEquals(mortgage.calculateTotalCost() - paid, mortgage.calculateRemainingPayments(month), 0.0);
+        }
+        assertEquals(interest, mortgage.calculateTotalInterest(), 0.0);
+        AmortizationTable table = mortgage.getBaseSchedule();
+        assertEquals(paid, table.getTotalPayments(), 0.0);
+        assertEquals(200000, table.getPrincipalPaidThrough(360), 1e-6);
+    }
 }
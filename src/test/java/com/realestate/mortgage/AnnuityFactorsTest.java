@@ -0,0 +1,53 @@
+package com.realestate.mortgage;
+
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AnnuityFactorsTest {
+
+    private static double formula(double annualRate, int months) {
+        double monthlyInterestRate = annualRate / 12;
+        return 1 - Math.pow(1 + monthlyInterestRate, -months);
+    }
+
+    @After
+    public void restore() {
+        AnnuityFactors.setEnabled(true);
+    }
+
+    @Test
+    public void testGridLookupsAreBitwiseIdenticalToTheFormula() {
+        double[] rates = {0.00125, 0.03, 0.04125, 0.06375, 0.0725, 0.25};
+        int[] terms = {1, 120, 180, 240, 333, 360, 480};
+        for (double rate : rates) {
+            for (int term : terms) {
+                assertEquals(formula(rate, term), AnnuityFactors.factor(rate, term), 0.0);
+                double payment = 300000 * (rate / 12) / formula(rate, term);
+                assertEquals(payment, AnnuityFactors.payment(300000, rate, term), 0.0);
+            }
+        }
+        assertTrue(AnnuityFactors.getCachedRowCount() >= rates.length);
+    }
+
+    @Test
+    public void testOffGridInputsFallBackToTheFormula() {
+        assertEquals(formula(0.0401, 360), AnnuityFactors.factor(0.0401, 360), 0.0);
+        assertEquals(formula(0.04125, 600), AnnuityFactors.factor(0.04125, 600), 0.0);
+        assertEquals(formula(0.30, 360), AnnuityFactors.factor(0.30, 360), 0.0);
+        assertEquals(formula(0.04125 + 1e-15, 360), AnnuityFactors.factor(0.04125 + 1e-15, 360), 0.0);
+
+        AnnuityFactors.setEnabled(false);
+        assertEquals(formula(0.05, 360), AnnuityFactors.factor(0.05, 360), 0.0);
+    }
+
+    @Test
+    public void testMortgagePaymentsUnchanged() {
+        FixedRateMortgage mortgage = new FixedRateMortgage(250000, 0.06125, 30, "y");
+        double tabulated = mortgage.calculateMonthlyPayment();
+        AnnuityFactors.setEnabled(false);
+        assertEquals(mortgage.calculateMonthlyPayment(), tabulated, 0.0);
+        assertEquals(250000 * (0.06125 / 12) / formula(0.06125, 360), tabulated, 0.0);
+    }
+}
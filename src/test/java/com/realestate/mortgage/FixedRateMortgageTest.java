@@ -113,6 +113,13 @@ public class FixedRateMortgageTest {
         assertEquals(0, finalEntry.getEndingBalance(), DELTA);
     }
 
+    @Test
+    public void testAPRWithFees() {
+        FixedRateMortgage mortgage = new FixedRateMortgage(100000, 0.05, 30, "y");
+        assertEquals(0.05, mortgage.calculateAPR(0), 1e-8);
+        assertEquals(0.0518, mortgage.calculateAPR(2000), 0.0001);
+    }
+
     /* @Test
     public void testPrintAmortizationSchedule() {
         FixedRateMortgage mortgage = new FixedRateMortgage(200000, 0.04, 30, "y");
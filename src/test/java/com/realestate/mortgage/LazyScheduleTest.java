@@ -0,0 +1,73 @@
+package com.realestate.mortgage;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import com.realestate.mortgage.AbstractMortgage.AmortizationEntry;
+import com.realestate.mortgage.ARMMortgage.RateChange;
+
+import java.util.List;
+
+public class LazyScheduleTest {
+
+    private static void assertSameRows(List<AmortizationEntry> expected, LazySchedule view) {
+        assertEquals(expected.size(), view.size());
+        for (int month = expected.size(); month >= 1; month -= 7) { // Out of order on purpose
+            AmortizationEntry entry = expected.get(month - 1);
+            assertEquals(entry.getBeginningBalance(), view.getBeginningBalance(month), 0.0);
+            assertEquals(entry.getPayment(), view.getPayment(month), 0.0);
+            assertEquals(entry.getInterestPaid(), view.getInterestPaid(month), 0.0);
+            assertEquals(entry.getPrincipalPaid(), view.getPrincipalPaid(month), 0.0);
+            assertEquals(entry.getEndingBalance(), view.get(month - 1).getEndingBalance(), 0.0);
+        }
+        int index = 0;
+        for (AmortizationEntry entry : view) {
+            assertEquals(expected.get(index++).getEndingBalance(), entry.getEndingBalance(), 0.0);
+        }
+        assertEquals(expected.size(), index);
+    }
+
+    @Test
+    public void testFixedRateViewMatchesSchedule() {
+        FixedRateMortgage mortgage = new FixedRateMortgage(300000, 0.055, 30, "y");
+        assertSameRows(mortgage.generateAmortizationSchedule(), mortgage.getScheduleView());
+        assertSameRows(mortgage.generateAmortizationSchedule(), mortgage.getScheduleView(1));
+    }
+
+    @Test
+    public void testARMViewMatchesScheduleAcrossResets() {
+        ARMMortgage mortgage = new ARMMortgage(250000, 0.0401, 360, "m",
+                new RateChange(1, 0.035), new RateChange(61, 0.0525), new RateChange(85, 0.06), new RateChange(200, 0.045));
+        assertSameRows(mortgage.generateAmortizationSchedule(), mortgage.getScheduleView());
+        assertSameRows(mortgage.generateAmortizationSchedule(), mortgage.getScheduleView(50));
+        assertEquals(mortgage.generateAmortizationSchedule().get(99).getPayment(), mortgage.calculateMonthlyPayment(100), 0.0);
+        assertEquals(mortgage.generateAmortizationSchedule().get(99).getEndingBalance(), mortgage.calculateRemainingBalance(100), 0.0);
+    }
+
+    @Test
+    public void testCheckpointsFilledOnlyUpToTheAccessedMonth() {
+        ARMMortgage mortgage = new ARMMortgage(200000, 0.04, 360, "m", new RateChange(61, 0.06));
+        LazySchedule view = mortgage.getScheduleView();
+        assertEquals(1, view.getComputedCheckpointCount());
+        view.getPayment(30); // Checkpoints at months 1, 13, 25
+        assertEquals(3, view.getComputedCheckpointCount());
+        view.getPayment(62); // ... 37, 49, 61 (reset)
+        assertEquals(6, view.getComputedCheckpointCount());
+    }
+
+    @Test
+    public void testViewIsReplacedWhenTheLoanChanges() {
+        FixedRateMortgage mortgage = new FixedRateMortgage(100000, 0.05, 15, "y");
+        LazySchedule view = mortgage.getScheduleView();
+        assertSame(view, mortgage.getScheduleView());
+        mortgage.setInterestRate(0.06);
+        assertNotSame(view, mortgage.getScheduleView());
+        assertEquals(mortgage.calculateMonthlyPayment(), mortgage.getScheduleView().getPayment(1), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMonthOutOfRange() {
+        new FixedRateMortgage(100000, 0.05, 15, "y").getScheduleView().getPayment(181);
+    }
+}
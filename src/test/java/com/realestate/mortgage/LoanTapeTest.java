@@ -0,0 +1,103 @@
+package com.realestate.mortgage;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import com.realestate.mortgage.ARMMortgage.RateChange;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+public class LoanTapeTest {
+
+    private static final double DELTA = 1e-6;
+
+    private static LoanTape sampleTape() {
+        long[] ids = {30, 10, 20, 40};
+        List<MortgageSpec> specs = Arrays.asList(
+                MortgageSpec.adjustable(300000, 0.03, 360, Arrays.asList(new RateChange(60, 0.05), new RateChange(120, 0.06))),
+                MortgageSpec.fixed(100000, 0.05, 360),
+                MortgageSpec.adjustable(200000, 0.04, 240, Arrays.asList(new RateChange(36, 0.045))),
+                MortgageSpec.fixed(150000, 0.06, 180));
+        return LoanTape.fromSpecs(ids, specs);
+    }
+
+    @Test
+    public void testLoansAreSortedByIdWithTheirResets() {
+        LoanTape tape = sampleTape();
+        assertEquals(4, tape.size());
+        assertEquals(10, tape.getId(0));
+        assertEquals(20, tape.getId(1));
+        assertEquals(30, tape.getId(2));
+        assertEquals(40, tape.getId(3));
+        assertEquals(200000, tape.getPrincipal(1), 0.0);
+        assertEquals(3, tape.getResetCount());
+
+        double[] first = new double[4];
+        double[] max = new double[4];
+        double[] interest = new double[4];
+        tape.quote(0, first, max, interest);
+        ARMMortgage arm = new ARMMortgage(300000, 0.03, 360, "m", new RateChange(60, 0.05), new RateChange(120, 0.06));
+        assertEquals(arm.calculateTotalInterest(), interest[2], DELTA);
+        FixedRateMortgage fixed = new FixedRateMortgage(100000, 0.05, 360, "m");
+        assertEquals(fixed.calculateMonthlyPayment(), first[0], DELTA);
+    }
+
+    @Test
+    public void testShardsAreContiguousIdRanges() {
+        LoanTape tape = sampleTape();
+        List<LoanTape> shards = tape.shardByIdRange(3);
+        assertEquals(3, shards.size());
+        int position = 0;
+        int resets = 0;
+        for (LoanTape shard : shards) {
+            for (int k = 0; k < shard.size(); k++) {
+                assertEquals(tape.getId(position++), shard.getId(k));
+            }
+            resets += shard.getResetCount();
+        }
+        assertEquals(tape.size(), position);
+        assertEquals(tape.getResetCount(), resets);
+        assertEquals(4, tape.shardByIdRange(10).size());
+    }
+
+    @Test
+    public void testSerializationRoundTrip() throws IOException {
+        LoanTape tape = sampleTape();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        tape.writeTo(new DataOutputStream(bytes));
+        LoanTape copy = LoanTape.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        double[][] expected = new double[3][4];
+        double[][] actual = new double[3][4];
+        tape.quote(0.01, expected[0], expected[1], expected[2]);
+        copy.quote(0.01, actual[0], actual[1], actual[2]);
+        for (int row = 0; row < 3; row++) {
+            for (int k = 0; k < 4; k++) {
+                assertEquals(expected[row][k], actual[row][k], 0.0);
+            }
+        }
+        assertEquals(tape.getId(3), copy.getId(3));
+    }
+
+    @Test
+    public void testShockedRatesAreFloored() {
+        LoanTape tape = sampleTape();
+        double[] first = new double[4];
+        double[] max = new double[4];
+        double[] interest = new double[4];
+        tape.quote(-0.10, first, max, interest);
+        for (int k = 0; k < 4; k++) {
+            assertEquals(true, interest[k] > 0);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateIdsRejected() {
+        LoanTape.fromSpecs(new long[]{1, 1}, Arrays.asList(MortgageSpec.fixed(1000, 0.05, 12), MortgageSpec.fixed(2000, 0.05, 12)));
+    }
+}
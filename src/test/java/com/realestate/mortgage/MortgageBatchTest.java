@@ -0,0 +1,72 @@
+package com.realestate.mortgage;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import com.realestate.mortgage.ARMMortgage.RateChange;
+
+public class MortgageBatchTest {
+
+    private static final double DELTA = 1e-6;
+
+    @Test
+    public void testFixedKernelsMatchFixedRateMortgage() {
+        double[] principals = {100000, 250000, 400000};
+        double[] rates = {0.05, 0.0375, 0.06125};
+        int[] terms = {360, 180, 240};
+        double[] payments = new double[3];
+        double[] interest = new double[3];
+        MortgageBatch.monthlyPayments(principals, rates, terms, payments);
+        MortgageBatch.totalInterest(principals, rates, terms, interest);
+        for (int k = 0; k < 3; k++) {
+            FixedRateMortgage mortgage = new FixedRateMortgage(principals[k], rates[k], terms[k], "m");
+            assertEquals(mortgage.calculateMonthlyPayment(), payments[k], 0.0);
+            assertEquals(mortgage.calculateTotalInterest(), interest[k], DELTA);
+        }
+    }
+
+    @Test
+    public void testArmKernelMatchesARMMortgage() {
+        double[] principals = {200000, 200000, 100000};
+        double[] rates = {0.04, 0.04, 0.05};
+        int[] terms = {360, 36, 360};
+        // Loan 0: two resets, loan 1: five resets in a 3-year loan, loan 2: no resets
+        int[] offsets = {0, 2, 7, 7};
+        int[] months = {60, 84, 6, 12, 18, 24, 30};
+        double[] resetRates = {0.06, 0.05, 0.05, 0.06, 0.04, 0.05, 0.06};
+        double[] first = new double[3];
+        double[] max = new double[3];
+        double[] interest = new double[3];
+        MortgageBatch.armQuotes(principals, rates, terms, offsets, months, resetRates, first, max, interest);
+
+        ARMMortgage[] mortgages = {
+                new ARMMortgage(200000, 0.04, 360, "m", new RateChange(60, 0.06), new RateChange(84, 0.05)),
+                new ARMMortgage(200000, 0.04, 36, "m", new RateChange(6, 0.05), new RateChange(12, 0.06),
+                        new RateChange(18, 0.04), new RateChange(24, 0.05), new RateChange(30, 0.06)),
+                new ARMMortgage(100000, 0.05, 360, "m")
+        };
+        for (int k = 0; k < 3; k++) {
+            assertEquals(mortgages[k].calculateMonthlyPayment(1), first[k], DELTA);
+            assertEquals(mortgages[k].calculateTotalInterest(), interest[k], DELTA);
+            double expectedMax = 0;
+            for (AbstractMortgage.AmortizationEntry entry : mortgages[k].generateAmortizationSchedule()) {
+                expectedMax = Math.max(expectedMax, entry.getPayment());
+            }
+            assertEquals(expectedMax, max[k], DELTA);
+        }
+    }
+
+    @Test
+    public void testArmKernelResetInFirstMonth() {
+        double[] first = new double[1];
+        double[] max = new double[1];
+        double[] interest = new double[1];
+        MortgageBatch.armQuotes(new double[]{100000}, new double[]{0.05}, new int[]{360}, new int[]{0, 1},
+                new int[]{1}, new double[]{0.06}, first, max, interest);
+        assertEquals(new FixedRateMortgage(100000, 0.06, 360, "m").calculateMonthlyPayment(), first[0], DELTA);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLengthMismatch() {
+        MortgageBatch.monthlyPayments(new double[2], new double[1], new int[2], new double[2]);
+    }
+}
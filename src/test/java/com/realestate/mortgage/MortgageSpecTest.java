@@ -0,0 +1,70 @@
+package com.realestate.mortgage;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+import com.realestate.mortgage.ARMMortgage.RateChange;
+
+public class MortgageSpecTest {
+
+    private static final double DELTA = 0.01;
+
+    @Test
+    public void testInternCanonicalizesIdenticalTerms() {
+        MortgageSpec a = MortgageSpec.adjustable(200000, 0.04, 360, Arrays.asList(new RateChange(84, 0.05), new RateChange(60, 0.06)));
+        MortgageSpec b = MortgageSpec.adjustable(200000, 0.04, 360, Arrays.asList(new RateChange(60, 0.06), new RateChange(84, 0.05)));
+        assertNotSame(a, b);
+        assertEquals(a, b);
+        assertSame(a.intern(), b.intern());
+    }
+
+    @Test
+    public void testScheduleIsMemoizedAndSharedAcrossThreads() {
+        MortgageSpec spec = MortgageSpec.fixed(100000, 0.05, 360).intern();
+        AmortizationTable[] tables = IntStream.range(0, 64).parallel()
+                .mapToObj(i -> MortgageSpec.fixed(100000, 0.05, 360).intern().getSchedule())
+                .toArray(AmortizationTable[]::new);
+        for (AmortizationTable table : tables) {
+            assertSame(spec.getSchedule(), table);
+        }
+        assertEquals(0, spec.getSchedule().getEndingBalance(360), DELTA);
+    }
+
+    @Test
+    public void testToMortgageRoundTrip() {
+        ARMMortgage mortgage = new ARMMortgage(200000, 0.04, 30, "y", new RateChange(60, 0.06));
+        MortgageSpec spec = mortgage.toSpec();
+        assertTrue(spec.isAdjustable());
+        assertEquals(spec, spec.toMortgage().toSpec());
+        assertEquals(mortgage.calculateTotalInterest(), spec.getSchedule().getTotalInterest(), DELTA);
+        assertEquals(MortgageSpec.fixed(100000, 0.05, 360), new FixedRateMortgage(100000, 0.05, 30, "y").toSpec());
+    }
+
+    @Test
+    public void testCallerListIsNotMutated() {
+        List<RateChange> rateChanges = Arrays.asList(new RateChange(84, 0.05), new RateChange(60, 0.06));
+        MortgageSpec.adjustable(200000, 0.04, 360, rateChanges);
+        new ARMMortgage(200000, 0.04, 360, "m", rateChanges);
+        assertEquals(84, rateChanges.get(0).getMonth());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testRateChangesAreUnmodifiable() {
+        MortgageSpec.adjustable(200000, 0.04, 360, List.of(new RateChange(60, 0.06))).getRateChanges().clear();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateRateChangeMonth() {
+        MortgageSpec.adjustable(200000, 0.04, 360, List.of(new RateChange(60, 0.06), new RateChange(60, 0.07)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPrincipal() {
+        MortgageSpec.fixed(0, 0.05, 360);
+    }
+}
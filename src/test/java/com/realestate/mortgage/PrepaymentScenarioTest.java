@@ -0,0 +1,172 @@
+package com.realestate.mortgage;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.time.LocalDate;
+import java.util.List;
+import com.realestate.mortgage.ARMMortgage.RateChange;
+
+public class PrepaymentScenarioTest {
+
+    private static final double DELTA = 0.01;
+
+    // Straightforward month-by-month reference for a level-payment loan
+    private static double[] bruteForce(FixedRateMortgage mortgage, PrepaymentScenario scenario) {
+        double r = mortgage.getInterestRate() / 12;
+        double payment = mortgage.calculateMonthlyPayment();
+        double balance = mortgage.getPrincipal();
+        double interest = 0;
+        for (int month = 1; month <= mortgage.getTerm(); month++) {
+            double monthInterest = balance * r;
+            interest += monthInterest;
+            double paid = payment + scenario.extraFor(month);
+            if (paid >= balance + monthInterest - 1e-6) {
+                return new double[]{month, interest};
+            }
+            balance = balance + monthInterest - paid;
+            if (scenario.isRecast() && month == scenario.getLumpSumMonth()) {
+                payment = balance * r / (1 - Math.pow(1 + r, -(mortgage.getTerm() - month)));
+            }
+        }
+        return new double[]{mortgage.getTerm(), interest};
+    }
+
+    // ARM reference: the payment is re-amortized only at rate resets and, with a recast, after the lump sum
+    private static double[] bruteForce(ARMMortgage mortgage, PrepaymentScenario scenario) {
+        double balance = mortgage.getPrincipal();
+        double payment = 0;
+        double interest = 0;
+        double previousRate = Double.NaN;
+        for (int month = 1; month <= mortgage.getTerm(); month++) {
+            double rate = mortgage.getRateForMonth(month);
+            double r = rate / 12;
+            int remaining = mortgage.getTerm() - month + 1;
+            if (rate != previousRate || (scenario.isRecast() && month == scenario.getLumpSumMonth() + 1)) {
+                payment = balance * r / (1 - Math.pow(1 + r, -remaining));
+            }
+            previousRate = rate;
+            double monthInterest = balance * r;
+            interest += monthInterest;
+            double paid = payment + scenario.extraFor(month);
+            if (paid >= balance + monthInterest - 1e-6) {
+                return new double[]{month, interest};
+            }
+            balance = balance + monthInterest - paid;
+        }
+        return new double[]{mortgage.getTerm(), interest};
+    }
+
+    @Test
+    public void testNoExtraPaymentsMatchesBase() {
+        FixedRateMortgage mortgage = new FixedRateMortgage(100000, 0.05, 30, "y");
+        PrepaymentResult result = mortgage.evaluatePrepayment(PrepaymentScenario.extraMonthly(0));
+        assertEquals(360, result.getPayoffMonth());
+        assertEquals(0, result.getInterestSaved(), DELTA);
+        assertEquals(93255.78, result.getTotalInterest(), DELTA);
+    }
+
+    @Test
+    public void testExtraMonthlyClosedFormMatchesBruteForce() {
+        FixedRateMortgage mortgage = new FixedRateMortgage(200000, 0.045, 30, "y");
+        PrepaymentScenario scenario = new PrepaymentScenario(250, 13, 0, 1, false);
+        PrepaymentResult result = mortgage.evaluatePrepayment(scenario);
+        double[] expected = bruteForce(mortgage, scenario);
+        assertEquals((int) expected[0], result.getPayoffMonth());
+        assertEquals(expected[1], result.getTotalInterest(), DELTA);
+        assertTrue(result.getInterestSaved() > 0);
+        assertTrue(result.getMonthsSaved() > 0);
+    }
+
+    @Test
+    public void testLumpSumAndExtraMatchesBruteForce() {
+        FixedRateMortgage mortgage = new FixedRateMortgage(300000, 0.06, 30, "y");
+        PrepaymentScenario scenario = new PrepaymentScenario(100, 6, 20000, 60, false);
+        double[] expected = bruteForce(mortgage, scenario);
+        PrepaymentResult result = mortgage.evaluatePrepayment(scenario);
+        assertEquals((int) expected[0], result.getPayoffMonth());
+        assertEquals(expected[1], result.getTotalInterest(), DELTA);
+    }
+
+    @Test
+    public void testRecastKeepsTermAndLowersPayment() {
+        FixedRateMortgage mortgage = new FixedRateMortgage(300000, 0.06, 30, "y");
+        PrepaymentResult result = mortgage.evaluatePrepayment(PrepaymentScenario.lumpSumWithRecast(50000, 24));
+        double[] expected = bruteForce(mortgage, PrepaymentScenario.lumpSumWithRecast(50000, 24));
+        assertEquals(360, result.getPayoffMonth());
+        assertEquals(expected[1], result.getTotalInterest(), DELTA);
+        assertTrue(result.getFinalMonthlyPayment() < mortgage.calculateMonthlyPayment());
+    }
+
+    @Test
+    public void testLumpSumPaysOffLoan() {
+        FixedRateMortgage mortgage = new FixedRateMortgage(100000, 0.05, 30, "y");
+        PrepaymentResult result = mortgage.evaluatePrepayment(PrepaymentScenario.lumpSum(200000, 12));
+        assertEquals(12, result.getPayoffMonth());
+        assertEquals(LocalDate.of(2024, 12, 1), result.getPayoffDate(LocalDate.of(2024, 1, 1)));
+    }
+
+    @Test
+    public void testArmScenarioSavesInterest() {
+        ARMMortgage mortgage = new ARMMortgage(200000, 0.04, 30, "y", new RateChange(60, 0.06));
+        PrepaymentResult none = mortgage.evaluatePrepayment(PrepaymentScenario.extraMonthly(0));
+        PrepaymentResult extra = mortgage.evaluatePrepayment(PrepaymentScenario.lumpSum(10000, 36));
+        assertEquals(mortgage.calculateTotalInterest(), none.getTotalInterest(), DELTA);
+        assertTrue(extra.getInterestSaved() > 0);
+        // Explanation: the reset at month 60 re-amortizes the lower balance, so later payments are lower.
+        assertTrue(extra.getFinalMonthlyPayment() < mortgage.calculateMonthlyPayment(360));
+    }
+
+    @Test
+    public void testArmLumpSumWithoutRecastKeepsPayment() {
+        ARMMortgage mortgage = new ARMMortgage(200000, 0.05, 30, "y", new RateChange(60, 0.06));
+
+        // Before the reset the payment is held, so the lump sum goes to principal faster than with a recast;
+        // the reset at month 60 then re-amortizes whatever is left
+        PrepaymentScenario scenario = PrepaymentScenario.lumpSum(50000, 12);
+        PrepaymentResult result = mortgage.evaluatePrepayment(scenario);
+        double[] expected = bruteForce(mortgage, scenario);
+        assertEquals((int) expected[0], result.getPayoffMonth());
+        assertEquals(expected[1], result.getTotalInterest(), DELTA);
+        PrepaymentScenario withRecast = PrepaymentScenario.lumpSumWithRecast(50000, 12);
+        PrepaymentResult recast = mortgage.evaluatePrepayment(withRecast);
+        assertEquals(bruteForce(mortgage, withRecast)[1], recast.getTotalInterest(), DELTA);
+        assertTrue(recast.getTotalInterest() > result.getTotalInterest());
+
+        // After the last reset nothing re-amortizes, so the same lump sum shortens the loan
+        PrepaymentResult late = mortgage.evaluatePrepayment(PrepaymentScenario.lumpSum(50000, 72));
+        double[] expectedLate = bruteForce(mortgage, PrepaymentScenario.lumpSum(50000, 72));
+        assertEquals((int) expectedLate[0], late.getPayoffMonth());
+        assertEquals(expectedLate[1], late.getTotalInterest(), DELTA);
+        assertTrue(late.getMonthsSaved() > 0);
+        assertEquals(mortgage.calculateMonthlyPayment(72), late.getFinalMonthlyPayment(), DELTA);
+        PrepaymentResult lateRecast = mortgage.evaluatePrepayment(PrepaymentScenario.lumpSumWithRecast(50000, 72));
+        assertEquals(360, lateRecast.getPayoffMonth());
+        assertTrue(lateRecast.getFinalMonthlyPayment() < late.getFinalMonthlyPayment());
+    }
+
+    @Test
+    public void testGridMatchesSequentialEvaluation() {
+        FixedRateMortgage mortgage = new FixedRateMortgage(250000, 0.05, 30, "y");
+        List<PrepaymentScenario> scenarios = PrepaymentScenario.grid(new double[]{0, 50, 100, 200, 500}, new double[]{0, 5000, 25000}, 48);
+        PrepaymentResult[] results = mortgage.evaluatePrepaymentGrid(scenarios);
+        assertEquals(15, results.length);
+        for (int i = 0; i < scenarios.size(); i++) {
+            assertEquals(mortgage.evaluatePrepayment(scenarios.get(i)).getTotalInterest(), results[i].getTotalInterest(), 1e-9);
+        }
+    }
+
+    @Test
+    public void testSettersInvalidateBaseSchedule() {
+        FixedRateMortgage mortgage = new FixedRateMortgage(100000, 0.05, 30, "y");
+        AmortizationTable before = mortgage.getBaseSchedule();
+        mortgage.setPrincipal(120000);
+        assertEquals(120000, mortgage.getBaseSchedule().getBeginningBalance(1), DELTA);
+        assertTrue(before != mortgage.getBaseSchedule());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeExtraPayment() {
+        PrepaymentScenario.extraMonthly(-10);
+    }
+}
@@ -0,0 +1,106 @@
+package com.realestate.mortgage;
+
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import com.realestate.mortgage.AbstractMortgage.AmortizationEntry;
+import com.realestate.mortgage.ARMMortgage.RateChange;
+import com.realestate.mortgage.ScheduleAggregator.Measure;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class ScheduleAggregatorTest {
+
+    private static final double DELTA = 1e-6;
+
+    private static List<AbstractMortgage> randomBook(int n) {
+        Random random = new Random(39);
+        List<AbstractMortgage> book = new ArrayList<>();
+        for (int k = 0; k < n; k++) {
+            double principal = 50000 + random.nextInt(400000);
+            double rate = 0.03 + 0.0025 * random.nextInt(16);
+            int term = 12 * (10 + random.nextInt(21));
+            if (k % 3 == 0) {
+                book.add(new ARMMortgage(principal, rate, term, "m", new RateChange(12 * (3 + k % 5), rate + 0.01)));
+            } else {
+                book.add(new FixedRateMortgage(principal, rate, term, "m"));
+            }
+        }
+        return book;
+    }
+
+    @Test
+    public void testStreamedScheduleMatchesGeneratedSchedule() {
+        for (AbstractMortgage mortgage : randomBook(6)) {
+            List<AmortizationEntry> schedule = mortgage.generateAmortizationSchedule();
+            int[] rows = {0};
+            mortgage.streamSchedule((month, beginning, payment, interest, principal, ending) -> {
+                AmortizationEntry entry = schedule.get(month - 1);
+                assertEquals(entry.getBeginningBalance(), beginning, 0.0);
+                assertEquals(entry.getPayment(), payment, 0.0);
+                assertEquals(entry.getInterestPaid(), interest, 0.0);
+                assertEquals(entry.getEndingBalance(), ending, 0.0);
+                rows[0]++;
+            });
+            assertEquals(schedule.size(), rows[0]);
+        }
+    }
+
+    @Test
+    public void testGroupedSumsMatchMaterializedSchedules() {
+        List<AbstractMortgage> book = randomBook(300);
+        ScheduleAggregator aggregator = ScheduleAggregator.aggregate(book, ScheduleAggregator.byRateBucket(0.01));
+        assertEquals(300, aggregator.getLoanCount());
+
+        int group = 4; // 4% - 5%
+        double[] balances = new double[360];
+        double[] interest = new double[360];
+        long loans = 0;
+        for (AbstractMortgage mortgage : book) {
+            if ((int) Math.floor(mortgage.getInterestRate() / 0.01 + 1e-9) != group) {
+                continue;
+            }
+            loans++;
+            List<AmortizationEntry> schedule = mortgage.generateAmortizationSchedule();
+            for (int i = 0; i < schedule.size(); i++) {
+                balances[i] += schedule.get(i).getEndingBalance();
+                interest[i] += schedule.get(i).getInterestPaid();
+            }
+        }
+        double[] seriesBalance = aggregator.getSeries(group, Measure.ENDING_BALANCE);
+        double[] seriesInterest = aggregator.getSeries(group, Measure.INTEREST_PAID);
+        for (int i = 0; i < seriesBalance.length; i++) {
+            assertEquals(balances[i], seriesBalance[i], DELTA * Math.max(1, balances[i]));
+            assertEquals(interest[i], seriesInterest[i], DELTA * Math.max(1, interest[i]));
+        }
+        assertEquals(loans, aggregator.getCount(group, 1));
+    }
+
+    @Test
+    public void testMergeAndRollupPreserveTotals() {
+        List<AbstractMortgage> book = randomBook(120);
+        ScheduleAggregator byReset = ScheduleAggregator.aggregate(book, ScheduleAggregator.byFirstReset());
+        ScheduleAggregator first = ScheduleAggregator.aggregate(book.subList(0, 50), ScheduleAggregator.byFirstReset());
+        ScheduleAggregator second = ScheduleAggregator.aggregate(book.subList(50, 120), ScheduleAggregator.byFirstReset());
+        ScheduleAggregator merged = first.merge(second);
+        assertEquals(byReset.size(), merged.size());
+        assertArrayEquals(new int[]{0, 36, 48, 60, 72, 84}, byReset.getGroups());
+
+        ScheduleAggregator totals = byReset.totals();
+        assertArrayEquals(new int[]{ScheduleAggregator.ALL}, totals.getGroups());
+        double expectedPayments = 0;
+        for (AbstractMortgage mortgage : book) {
+            expectedPayments += mortgage.calculateTotalCost();
+        }
+        double payments = 0;
+        for (double value : totals.getSeries(ScheduleAggregator.ALL, Measure.PAYMENT)) {
+            payments += value;
+        }
+        assertEquals(expectedPayments, payments, 1e-9 * expectedPayments);
+        assertEquals(120, totals.getCount(ScheduleAggregator.ALL, 1));
+        assertEquals(merged.get(36, 10, Measure.PRINCIPAL_PAID), byReset.get(36, 10, Measure.PRINCIPAL_PAID), DELTA);
+        assertEquals(0, byReset.get(37, 10, Measure.PAYMENT), 0.0);
+    }
+}
@@ -0,0 +1,97 @@
+package com.realestate.mortgage;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import com.realestate.mortgage.ARMMortgage.RateChange;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class SensitivityEngineTest {
+
+    private static final double DELTA = 1e-6;
+    private static final double BUMP = 1e-4;
+
+    @Test
+    public void testPresentValueAtNoteRateIsPrincipal() {
+        FixedRateMortgage mortgage = new FixedRateMortgage(200000, 0.05, 360, "m");
+        Sensitivities sensitivities = SensitivityEngine.compute(mortgage);
+        assertEquals(200000, sensitivities.getPresentValue(), 1e-4);
+        assertEquals(mortgage.calculateTotalInterest(), sensitivities.getTotalInterest(), 1e-4);
+        assertTrue(sensitivities.getMacaulayDuration() > sensitivities.getModifiedDuration());
+    }
+
+    @Test
+    public void testYieldMeasuresMatchFiniteDifferences() {
+        FixedRateMortgage mortgage = new FixedRateMortgage(300000, 0.045, 360, "m");
+        double yield = 0.06;
+        Sensitivities base = SensitivityEngine.compute(mortgage, yield);
+        double up = SensitivityEngine.compute(mortgage, yield + BUMP).getPresentValue();
+        double down = SensitivityEngine.compute(mortgage, yield - BUMP).getPresentValue();
+        double pv = base.getPresentValue();
+
+        double duration = -(up - down) / (2 * BUMP) / pv;
+        double convexity = (up - 2 * pv + down) / (BUMP * BUMP) / pv;
+        assertEquals(duration, base.getModifiedDuration(), 1e-4);
+        assertEquals(convexity, base.getConvexity(), 1e-2);
+        assertEquals((down - up) / 2, base.getDV01(), 1e-3);
+    }
+
+    @Test
+    public void testFixedInterestDerivativesMatchBumpedMortgages() {
+        double rate = 0.05;
+        Sensitivities base = SensitivityEngine.compute(new FixedRateMortgage(250000, rate, 360, "m"));
+        double up = new FixedRateMortgage(250000, rate + BUMP, 360, "m").calculateTotalInterest();
+        double down = new FixedRateMortgage(250000, rate - BUMP, 360, "m").calculateTotalInterest();
+        double mid = new FixedRateMortgage(250000, rate, 360, "m").calculateTotalInterest();
+
+        assertEquals((up - down) / (2 * BUMP), base.getTotalInterestDelta(), 1.0);
+        assertEquals((up - 2 * mid + down) / (BUMP * BUMP), base.getTotalInterestGamma(), 1e2);
+    }
+
+    @Test
+    public void testArmInterestDeltaMatchesParallelShift() {
+        List<RateChange> changes = Arrays.asList(new RateChange(60, 0.06), new RateChange(120, 0.07));
+        ARMMortgage mortgage = new ARMMortgage(200000, 0.04, 360, "m", changes);
+        Sensitivities base = SensitivityEngine.compute(mortgage);
+
+        double up = shifted(changes, BUMP).calculateTotalInterest();
+        double down = shifted(changes, -BUMP).calculateTotalInterest();
+        assertEquals(mortgage.calculateTotalInterest(), base.getTotalInterest(), 1e-4);
+        assertEquals((up - down) / (2 * BUMP), base.getTotalInterestDelta(), 1.0);
+    }
+
+    @Test
+    public void testBookMatchesSingleLoans() {
+        List<AbstractMortgage> book = new ArrayList<>();
+        for (int k = 0; k < 300; k++) {
+            book.add(new FixedRateMortgage(100000 + 1000 * k, 0.03 + 0.0001 * k, 180 + k % 181, "m"));
+        }
+        BookSensitivities result = SensitivityEngine.computeBook(book, 0.05);
+        double totalDV01 = 0;
+        for (int k = 0; k < book.size(); k++) {
+            Sensitivities single = SensitivityEngine.compute(book.get(k), 0.05);
+            assertEquals(single.getPresentValue(), result.getPresentValue(k), DELTA);
+            assertEquals(single.getDV01(), result.getDV01(k), DELTA);
+            assertEquals(single.getTotalInterestDelta(), result.getTotalInterestDelta(k), DELTA);
+            totalDV01 += single.getDV01();
+        }
+        assertEquals(totalDV01, result.getTotalDV01(), 1e-4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBookYieldsMustAlign() {
+        List<AbstractMortgage> book = List.of(new FixedRateMortgage(100000, 0.05, 360, "m"));
+        SensitivityEngine.computeBook(book, new double[]{0.05, 0.06});
+    }
+
+    private static ARMMortgage shifted(List<RateChange> changes, double shift) {
+        List<RateChange> bumped = new ArrayList<>();
+        for (RateChange change : changes) {
+            bumped.add(new RateChange(change.getMonth(), change.getRate() + shift));
+        }
+        return new ARMMortgage(200000, 0.04 + shift, 360, "m", bumped);
+    }
+}
@@ -0,0 +1,191 @@
+package com.realestate.mpt;
+
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class CovarianceFactorizationTest {
+
+    private static final double DELTA = 1e-10;
+
+    @Test
+    public void testFullRankFactorAndSolve() {
+        double[][] sigma = sampleCovariance(50, 200, 1);
+        CovarianceFactorization factorization = new CovarianceFactorization(sigma);
+        assertEquals(50, factorization.getRank());
+        assertFalse(factorization.isRepaired());
+        assertReconstructs(sigma, factorization, 1e-12);
+
+        Random random = new Random(2);
+        double[] b = random.doubles(50).toArray();
+        double[] x = new double[50];
+        factorization.solve(b, x);
+        double[] check = new double[50];
+        factorization.multiply(x, check);
+        assertArrayEquals(b, check, 1e-8);
+
+        // In place gives the same answer
+        double[] inPlace = b.clone();
+        factorization.solve(inPlace, inPlace);
+        assertArrayEquals(x, inPlace, 0.0);
+
+        assertEquals(quadratic(sigma, b), factorization.quadraticForm(b), DELTA);
+
+        // log det against the eigenvalues
+        double logDet = Arrays.stream(factorization.getEigenvalues()).map(Math::log).sum();
+        assertEquals(logDet, factorization.logDeterminant(), 1e-8);
+        double[] eigenvalues = factorization.getEigenvalues();
+        assertEquals(eigenvalues[0] / eigenvalues[49], factorization.getConditionNumber(), 1e-6);
+    }
+
+    @Test
+    public void testRankDeficientIsRepaired() {
+        // 12 periods for 40 assets: rank 11 at most
+        double[][] sigma = sampleCovariance(40, 12, 3);
+        CovarianceFactorization factorization = new CovarianceFactorization(sigma);
+        assertTrue(factorization.isRepaired());
+        assertEquals(11, factorization.getRank());
+
+        // Only the null part moved, by about the shift
+        double tolerance = 10 * factorization.getRepairShift();
+        assertReconstructs(sigma, factorization, tolerance);
+
+        double[] b = new double[40];
+        Arrays.fill(b, 1);
+        double[] x = new double[40];
+        factorization.solve(b, x);
+        for (double value : x) {
+            assertTrue(Double.isFinite(value));
+        }
+        assertEquals(Double.POSITIVE_INFINITY, factorization.getConditionNumber(), 0.0);
+    }
+
+    @Test
+    public void testSlightlyIndefiniteMatrix() {
+        double[][] sigma = sampleCovariance(30, 10, 4);
+        for (int i = 0; i < 30; i++) {
+            sigma[i][i] -= 1e-14; // Rounding-level damage, e.g. after cleaning
+        }
+        CovarianceFactorization factorization = new CovarianceFactorization(sigma);
+        assertTrue(factorization.getRank() <= 9);
+        assertTrue(Double.isFinite(factorization.logDeterminant()));
+    }
+
+    @Test
+    public void testMptCachesUntilCovarianceChanges() {
+        List<RealEstateAsset> assets = new ArrayList<>();
+        Random random = new Random(5);
+        for (int i = 0; i < 8; i++) {
+            assets.add(new RealEstateAsset("C" + i, 0.05, random.doubles(30, -0.1, 0.1).boxed().toList()));
+        }
+        MPT mpt = new MPT(new ArrayList<>(assets), new ArrayList<>(Collections.nCopies(8, 0.125)));
+        CovarianceFactorization factorization = mpt.covarianceFactorization();
+        assertSame(factorization, mpt.covarianceFactorization());
+        double volatility = mpt.portfolioVolatility();
+        assertEquals(volatility * volatility, factorization.quadraticForm(mpt.getWeights()), 1e-15);
+        assertSame(factorization, mpt.covarianceFactorization());
+
+        mpt.invalidateCovariance();
+        CovarianceFactorization rebuilt = mpt.covarianceFactorization();
+        assertNotSame(factorization, rebuilt);
+
+        mpt.addAsset(new RealEstateAsset("C8", 0.05, random.doubles(30, -0.1, 0.1).boxed().toList()), 0.0);
+        assertEquals(9, mpt.covarianceFactorization().dimension());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testOffHeapCovarianceHasNoFactorization() {
+        MPT mpt = new MPT(Collections.singletonMap(new RealEstateAsset(0.05, Arrays.asList(0.01, 0.02, -0.01)), 1.0));
+        mpt.setOffHeapCovariance(true);
+        mpt.covarianceFactorization();
+    }
+
+    @Test
+    public void testRepeatedQueriesDoNotAllocate() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return;
+        }
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        CovarianceFactorization factorization = new CovarianceFactorization(sampleCovariance(100, 300, 6));
+        double[] x = new Random(7).doubles(100).toArray();
+        double[] out = new double[100];
+        double sink = 0;
+        for (int warmup = 0; warmup < 2000; warmup++) {
+            factorization.solve(x, out);
+            factorization.multiplyByFactor(x, out);
+            sink += factorization.quadraticForm(x);
+        }
+        long threadId = Thread.currentThread().threadId();
+        long before = allocations.getThreadAllocatedBytes(threadId);
+        for (int query = 0; query < 10000; query++) {
+            factorization.solve(x, out);
+            factorization.multiply(x, out);
+            factorization.multiplyByFactor(x, out);
+            sink += factorization.quadraticForm(x);
+        }
+        long allocated = allocations.getThreadAllocatedBytes(threadId) - before;
+        assertTrue("Allocated " + allocated + " bytes", allocated < 16 * 1024);
+        assertTrue(Double.isFinite(sink));
+    }
+
+    //------------------------------------- Helper classes/ methods -------------------------------------//
+
+    // P'LL'P against Σ, using multiplyByFactor on unit vectors to get the columns of P'L
+    private static void assertReconstructs(double[][] sigma, CovarianceFactorization factorization, double tolerance) {
+        int n = sigma.length;
+        double[][] columns = new double[n][n];
+        double[] unit = new double[n];
+        for (int j = 0; j < n; j++) {
+            unit[j] = 1;
+            factorization.multiplyByFactor(unit, columns[j]);
+            unit[j] = 0;
+        }
+        for (int a = 0; a < n; a++) {
+            for (int b = 0; b < n; b++) {
+                double value = 0;
+                for (int j = 0; j < n; j++) {
+                    value += columns[j][a] * columns[j][b];
+                }
+                assertEquals(sigma[a][b], value, tolerance);
+            }
+        }
+    }
+
+    private static double[][] sampleCovariance(int n, int periods, long seed) {
+        Random random = new Random(seed);
+        List<RealEstateAsset> assets = new ArrayList<>();
+        double[] factor = random.doubles(periods, -0.2, 0.2).toArray();
+        for (int i = 0; i < n; i++) {
+            List<Double> history = new ArrayList<>();
+            double beta = 0.5 + random.nextDouble();
+            for (int t = 0; t < periods; t++) {
+                history.add(beta * factor[t] + 0.05 * random.nextGaussian());
+            }
+            assets.add(new RealEstateAsset(0.05, history));
+        }
+        return PortfolioUtils.computeCovarianceMatrix(assets);
+    }
+
+    private static double quadratic(double[][] sigma, double[] x) {
+        double value = 0;
+        for (int i = 0; i < x.length; i++) {
+            for (int j = 0; j < x.length; j++) {
+                value += x[i] * sigma[i][j] * x[j];
+            }
+        }
+        return value;
+    }
+}
@@ -0,0 +1,143 @@
+package com.realestate.mpt;
+
+import org.apache.commons.math3.optim.linear.NoFeasibleSolutionException;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class EfficientFrontierTest {
+
+    private static final double DELTA = 1e-6;
+
+    @Test
+    public void testMatchesSimplexAcrossBudgets() {
+        MPT mpt = portfolio(60, 48);
+        try (EfficientFrontier frontier = new EfficientFrontier(mpt)) {
+            assertFrontierMatchesSimplex(mpt, frontier);
+        }
+    }
+
+    @Test
+    public void testSetterChangeRedrawsFrontier() {
+        MPT mpt = portfolio(60, 49);
+        try (EfficientFrontier frontier = new EfficientFrontier(mpt)) {
+            long rebuilds = frontier.getRebuildCount();
+            RealEstateAsset asset = mpt.getAssets().get(17);
+
+            // Derived return through a setter: a large rent makes the asset the best one
+            asset.setAnnualRentalIncome(asset.getAnnualRentalIncome() + 0.5 * asset.getInitialPropertyValue());
+            assertEquals(rebuilds + 1, frontier.getRebuildCount());
+            assertEquals(asset, frontier.getVertices().get(frontier.getVertices().size() - 1));
+            assertFrontierMatchesSimplex(mpt, frontier);
+
+            // Direct override, then back down so it drops off the frontier
+            asset.setExpectedReturn(-1);
+            assertEquals(rebuilds + 2, frontier.getRebuildCount());
+            assertTrue(!frontier.getVertices().contains(asset));
+            assertFrontierMatchesSimplex(mpt, frontier);
+
+            // Setting the same value again is not a change
+            asset.setExpectedReturn(-1);
+            assertEquals(rebuilds + 2, frontier.getRebuildCount());
+        }
+    }
+
+    @Test
+    public void testClosedFrontierStopsListening() {
+        MPT mpt = portfolio(10, 50);
+        EfficientFrontier frontier = new EfficientFrontier(mpt);
+        frontier.close();
+        long rebuilds = frontier.getRebuildCount();
+        mpt.getAssets().get(3).setExpectedReturn(0.5);
+        assertEquals(rebuilds, frontier.getRebuildCount());
+    }
+
+    @Test
+    public void testInteractiveUpdatesOnLargeUniverse() {
+        MPT mpt = portfolio(1000, 51);
+        try (EfficientFrontier frontier = new EfficientFrontier(mpt)) {
+            double[] budgets = new double[50];
+            for (int p = 0; p < budgets.length; p++) {
+                budgets[p] = frontier.getMinRisk() + (frontier.getMaxRisk() - frontier.getMinRisk()) * p / (budgets.length - 1);
+            }
+            Random random = new Random(3);
+            long start = System.nanoTime();
+            for (int edit = 0; edit < 200; edit++) {
+                mpt.getAssets().get(random.nextInt(1000)).setExpectedReturn(0.02 + 0.1 * random.nextDouble());
+                frontier.maxExpectedReturns(budgets);
+            }
+            double millisPerEdit = (System.nanoTime() - start) / 1e6 / 200;
+            assertTrue("Took " + millisPerEdit + " ms per edit", millisPerEdit < 10);
+
+            // The redrawn frontier is still concave and rising
+            double[] values = frontier.maxExpectedReturns(budgets);
+            for (int p = 1; p < values.length; p++) {
+                assertTrue(values[p] >= values[p - 1] - 1e-12);
+            }
+            for (int p = 1; p < values.length - 1; p++) {
+                assertTrue(values[p] >= (values[p - 1] + values[p + 1]) / 2 - 1e-12);
+            }
+        }
+    }
+
+    @Test(expected = NoFeasibleSolutionException.class)
+    public void testBudgetBelowLeastRiskyAsset() {
+        MPT mpt = portfolio(10, 52);
+        try (EfficientFrontier frontier = new EfficientFrontier(mpt)) {
+            frontier.maxExpectedReturn(frontier.getMinRisk() - 1e-6);
+        }
+    }
+
+    //------------------------------------- Helper classes/ methods -------------------------------------//
+
+    private static void assertFrontierMatchesSimplex(MPT mpt, EfficientFrontier frontier) {
+        double low = frontier.getMinRisk();
+        double high = frontier.getMaxRisk();
+        for (double t : new double[]{0.0, 0.1, 0.33, 0.5, 0.8, 1.0, 1.5}) {
+            double budget = low + t * (high - low);
+            double[] simplex = mpt.optimizedPortfolio(budget);
+            double simplexReturn = 0;
+            for (int i = 0; i < simplex.length; i++) {
+                simplexReturn += simplex[i] * mpt.getAssets().get(i).getExpectedReturn();
+            }
+            double[] weights = frontier.optimalWeights(budget);
+            double frontierReturn = 0;
+            double sum = 0;
+            for (int i = 0; i < weights.length; i++) {
+                frontierReturn += weights[i] * mpt.getAssets().get(i).getExpectedReturn();
+                sum += weights[i];
+            }
+            assertEquals(simplexReturn, frontier.maxExpectedReturn(budget), DELTA);
+            assertEquals(frontierReturn, frontier.maxExpectedReturn(budget), 1e-12);
+            assertEquals(1.0, sum, 1e-12);
+        }
+    }
+
+    /* One-factor histories with betas 0.5 - 1.5, so the risk coefficients 2Σw are O(0.1). With tiny coefficients the
+    simplex's 5e-4 tolerance would swallow the risk row and the cold solve could not serve as a reference. */
+    private static MPT portfolio(int n, long seed) {
+        Random random = new Random(seed);
+        double[] factor = new double[24];
+        for (int t = 0; t < factor.length; t++) {
+            factor[t] = 0.3 * random.nextGaussian();
+        }
+        List<RealEstateAsset> assets = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            List<Double> history = new ArrayList<>();
+            double beta = 0.5 + random.nextDouble();
+            double vol = 0.05 + 0.15 * random.nextDouble();
+            for (int t = 0; t < factor.length; t++) {
+                history.add(beta * factor[t] + vol * random.nextGaussian());
+            }
+            double value = 200000 + 300000 * random.nextDouble();
+            assets.add(new RealEstateAsset("F" + i, value * (0.04 + 0.03 * random.nextDouble()),
+                    value * 0.02 * random.nextDouble(), value * 0.01, value, history));
+        }
+        return new MPT(assets, new ArrayList<>(Collections.nCopies(n, 1.0 / n)));
+    }
+}
@@ -0,0 +1,154 @@
+package com.realestate.mpt;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class MPTSnapshotTest {
+
+    private static final double DELTA = 1e-12;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // Histories of different lengths so the MPT has to clean them before use
+    private static MPT portfolio(long seed) {
+        Random random = new Random(seed);
+        List<RealEstateAsset> assets = new ArrayList<>();
+        List<Double> weights = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            List<Double> history = new ArrayList<>();
+            for (int t = 0; t < 10 + i; t++) {
+                history.add(0.01 + 0.02 * random.nextGaussian());
+            }
+            assets.add(new RealEstateAsset("prop-" + i, 0.04 + 0.01 * i, history));
+            weights.add(0.2);
+        }
+        return new MPT(assets, weights, "c");
+    }
+
+    @Test
+    public void testRoundTripServesSameAnswers() throws IOException {
+        MPT original = portfolio(1);
+        double[] optimal = original.optimizedPortfolio(1000);
+        Path path = folder.getRoot().toPath().resolve("mpt.snapshot");
+        MPTSnapshot.write(original, path);
+
+        MPT restored = MPTSnapshot.read(path);
+        Assert.assertEquals(5, restored.getAssets().size());
+        Assert.assertEquals("prop-3", restored.getAssets().get(3).getPropertyId());
+        Assert.assertEquals(original.getAssets().get(3).getHistoricalReturns(), restored.getAssets().get(3).getHistoricalReturns());
+        Assert.assertArrayEquals(optimal, restored.getLastOptimalWeights(), 0.0);
+        Assert.assertArrayEquals(original.covarianceMatrix()[2], restored.covarianceMatrix()[2], 0.0);
+        Assert.assertEquals(original.portfolioVolatility(), restored.portfolioVolatility(), DELTA);
+        Assert.assertEquals(original.sharpeRatio(0.01), restored.sharpeRatio(0.01), DELTA);
+        Assert.assertArrayEquals(original.optimizedPortfolio(1000), restored.optimizedPortfolio(1000), DELTA);
+    }
+
+    @Test
+    public void testOffHeapSnapshotUsesMappedCovariance() throws IOException {
+        MPT original = portfolio(2);
+        original.setOffHeapCovariance(true);
+        Path path = folder.getRoot().toPath().resolve("offheap.snapshot");
+        MPTSnapshot.write(original, path);
+
+        MPT restored = MPTSnapshot.read(path);
+        Assert.assertTrue(restored.isOffHeapCovariance());
+        Assert.assertTrue(restored.covarianceOperator() instanceof OffHeapCovariance);
+        Assert.assertNull(restored.getLastOptimalWeights());
+        Assert.assertEquals(original.portfolioVolatility(), restored.portfolioVolatility(), DELTA);
+        Assert.assertArrayEquals(original.minimumVariancePortfolio(), restored.minimumVariancePortfolio(), 1e-9);
+    }
+
+    @Test
+    public void testFingerprintDetectsChangedInputs() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("fingerprint.snapshot");
+        MPTSnapshot.write(portfolio(3), path);
+
+        // Same raw data, not yet cleaned
+        Assert.assertTrue(MPTSnapshot.isCurrent(path, portfolio(3)));
+        Assert.assertFalse(MPTSnapshot.isCurrent(path, portfolio(4)));
+        MPT changed = portfolio(3);
+        changed.addAsset(new RealEstateAsset("new", 0.05, Arrays.asList(0.01, 0.02)), 0.0);
+        Assert.assertFalse(MPTSnapshot.isCurrent(path, changed));
+        // A restored MPT keeps the fingerprint of the raw inputs
+        Assert.assertTrue(MPTSnapshot.isCurrent(path, MPTSnapshot.read(path)));
+    }
+
+    @Test
+    public void testEditsAfterWriteAreDetected() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("edited.snapshot");
+        MPT mpt = portfolio(6);
+        MPTSnapshot.write(mpt, path); // Cleans the unequal histories first
+        Assert.assertTrue(MPTSnapshot.isCurrent(path, mpt));
+        mpt.getAssets().get(1).setExpectedReturn(0.20);
+        Assert.assertFalse(MPTSnapshot.isCurrent(path, mpt));
+        mpt.getAssets().get(1).setExpectedReturn(0.05);
+        Assert.assertTrue(MPTSnapshot.isCurrent(path, mpt));
+
+        // The same holds for an MPT restored from the snapshot
+        MPT restored = MPTSnapshot.read(path);
+        Assert.assertTrue(MPTSnapshot.isCurrent(path, restored));
+        restored.getAssets().get(4).setExpectedReturn(0.20);
+        Assert.assertFalse(MPTSnapshot.isCurrent(path, restored));
+    }
+
+    @Test
+    public void testHistoriesMappedAcrossChunks() throws IOException {
+        MPT original = portfolio(6);
+        original.optimizedPortfolio(1000);
+        Path path = folder.getRoot().toPath().resolve("chunked.snapshot");
+        MPTSnapshot.write(original, path);
+
+        // 4-double chunks: histories, optimal weights and covariance all span several mappings
+        MPT restored = MPTSnapshot.read(path, 2);
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals(original.getAssets().get(i).getHistoricalReturns(), restored.getAssets().get(i).getHistoricalReturns());
+        }
+        Assert.assertArrayEquals(original.getLastOptimalWeights(), restored.getLastOptimalWeights(), 0.0);
+        Assert.assertEquals(original.portfolioVolatility(), restored.portfolioVolatility(), DELTA);
+    }
+
+    @Test
+    public void testFailedWriteLeavesNoTemporaryFile() throws IOException {
+        // A non-empty directory in the way makes the final move fail
+        Path path = folder.newFolder("taken.snapshot").toPath();
+        Files.createFile(path.resolve("occupant"));
+        try {
+            MPTSnapshot.write(portfolio(7), path);
+            Assert.fail("Expected the write to fail.");
+        } catch (IOException e) {
+            Assert.assertFalse(Files.exists(path.resolveSibling("taken.snapshot.tmp")));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testCorruptionIsDetected() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("corrupt.snapshot");
+        MPTSnapshot.write(portfolio(5), path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{42}), channel.size() - 3);
+        }
+        MPTSnapshot.read(path);
+    }
+
+    @Test(expected = IOException.class)
+    public void testWrongMagicRejected() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("other.bin");
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(64));
+        }
+        MPTSnapshot.read(path);
+    }
+}
@@ -111,6 +111,29 @@ public class MPTTest {
 
     }
 
+    @Test
+    public void testReplacedHistoryRebuildsCovariance() {
+        RealEstateAsset asset1 = new RealEstateAsset(0.05, Arrays.asList(0.01, 0.03, -0.02, 0.04, 0.02, 0.01));
+        RealEstateAsset asset2 = new RealEstateAsset(0.07, Arrays.asList(0.02, -0.01, 0.05, 0.00, 0.03, 0.04));
+        RealEstateAsset asset3 = new RealEstateAsset(0.06, Arrays.asList(-0.01, 0.02, 0.01, 0.03, 0.00, 0.02));
+        MPT mptInstance = new MPT(Arrays.asList(asset1, asset2, asset3), Arrays.asList(0.4, 0.3, 0.3));
+        double before = mptInstance.portfolioVolatility();
+        CovarianceFactorization factorization = mptInstance.covarianceFactorization();
+
+        // Same length: the cached covariance and factorization must not be reused
+        asset2.setHistoricalReturns(Arrays.asList(0.08, -0.06, 0.09, -0.05, 0.07, -0.04));
+        double after = mptInstance.portfolioVolatility();
+        Assert.assertNotEquals(before, after, 1e-9);
+        Assert.assertEquals(new MPT(Arrays.asList(asset1, asset2, asset3), Arrays.asList(0.4, 0.3, 0.3)).portfolioVolatility(), after, 1e-15);
+        Assert.assertNotSame(factorization, mptInstance.covarianceFactorization());
+
+        // Different length: the histories are cleaned again before the covariance is rebuilt
+        asset3.setHistoricalReturns(Arrays.asList(0.01, 0.02, 0.03));
+        double cleaned = mptInstance.portfolioVolatility();
+        Assert.assertEquals(6, asset3.getHistoricalReturns().size());
+        Assert.assertEquals(new MPT(Arrays.asList(asset1, asset2, asset3), Arrays.asList(0.4, 0.3, 0.3)).portfolioVolatility(), cleaned, 1e-15);
+    }
+
     @Test
     public void testOptimizedPortfolioApprox() {
         // Define four RealEstateAssets with different historical returns
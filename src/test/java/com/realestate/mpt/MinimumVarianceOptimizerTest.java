@@ -0,0 +1,127 @@
+package com.realestate.mpt;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class MinimumVarianceOptimizerTest {
+
+    private static final double DELTA = 1e-6;
+
+    @Test
+    public void testTwoAssetClosedForm() {
+        double s1 = 0.2;
+        double s2 = 0.3;
+        double rho = 0.25;
+        double cov = rho * s1 * s2;
+        double[][] covariance = {{s1 * s1, cov}, {cov, s2 * s2}};
+        double[] weights = new MinimumVarianceOptimizer().optimize(new DenseCovariance(covariance));
+        double expected = (s2 * s2 - cov) / (s1 * s1 + s2 * s2 - 2 * cov);
+        Assert.assertEquals(expected, weights[0], DELTA);
+        Assert.assertEquals(1 - expected, weights[1], DELTA);
+    }
+
+    @Test
+    public void testLongOnlyConstraintBinds() {
+        // Highly correlated, higher-variance asset would get a negative unconstrained weight
+        double[][] covariance = {{0.04, 0.057}, {0.057, 0.09}};
+        double[] weights = new MinimumVarianceOptimizer().optimize(new DenseCovariance(covariance));
+        Assert.assertEquals(1.0, weights[0], DELTA);
+        Assert.assertEquals(0.0, weights[1], DELTA);
+    }
+
+    @Test
+    public void testKktConditionsOnLargeUniverse() {
+        int n = 400;
+        Random random = new Random(3);
+        double[][] loadings = new double[n][3];
+        double[] specific = new double[n];
+        for (int i = 0; i < n; i++) {
+            for (int p = 0; p < 3; p++) {
+                loadings[i][p] = 0.2 * random.nextGaussian();
+            }
+            specific[i] = 0.005 + 0.05 * random.nextDouble();
+        }
+        double[][] factorCovariance = {{1, 0, 0}, {0, 1, 0}, {0, 0, 1}};
+        FactorCovariance covariance = new FactorCovariance(loadings, factorCovariance, specific);
+        double[] weights = new MinimumVarianceOptimizer().optimize(covariance);
+
+        Assert.assertEquals(1.0, Arrays.stream(weights).sum(), 1e-9);
+        double[] gradient = new double[n];
+        covariance.multiply(weights, gradient);
+        double variance = 0;
+        for (int i = 0; i < n; i++) {
+            Assert.assertTrue(weights[i] >= 0);
+            variance += weights[i] * gradient[i];
+        }
+        // At the optimum every held asset has (Σw)_i = w'Σw and no excluded asset has less
+        for (int i = 0; i < n; i++) {
+            if (weights[i] > 1e-6) {
+                Assert.assertEquals(variance, gradient[i], 1e-6);
+            } else {
+                Assert.assertTrue(gradient[i] >= variance - 1e-6);
+            }
+        }
+    }
+
+    @Test
+    public void testConvergesWellBeforeTheCap() {
+        // Full-rank sample covariances, where rounding used to make the restart loop run to maxIterations
+        for (long seed = 1; seed <= 8; seed++) {
+            Random random = new Random(seed);
+            int n = 30;
+            double[][] returns = new double[120][n];
+            for (double[] period : returns) {
+                double market = 0.04 * random.nextGaussian();
+                for (int i = 0; i < n; i++) {
+                    period[i] = market + (0.01 + 0.05 * i / n) * random.nextGaussian();
+                }
+            }
+            DenseCovariance covariance = new DenseCovariance(PortfolioUtils.computeCovarianceMatrix(returns));
+            MinimumVarianceOptimizer optimizer = new MinimumVarianceOptimizer();
+            double[] weights = optimizer.optimize(covariance);
+            Assert.assertTrue("Seed " + seed + " took " + optimizer.getIterations() + " iterations",
+                    optimizer.getIterations() < MinimumVarianceOptimizer.DEFAULT_MAX_ITERATIONS / 5);
+
+            double[] gradient = new double[n];
+            covariance.multiply(weights, gradient);
+            double variance = covariance.quadraticForm(weights);
+            for (int i = 0; i < n; i++) {
+                if (weights[i] > 1e-6) {
+                    Assert.assertEquals(variance, gradient[i], 1e-8);
+                } else {
+                    Assert.assertTrue(gradient[i] >= variance - 1e-8);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testProjectOntoSimplex() {
+        double[] v = {0.5, 0.5, 0.5};
+        MinimumVarianceOptimizer.projectOntoSimplex(v);
+        Assert.assertArrayEquals(new double[]{1.0 / 3, 1.0 / 3, 1.0 / 3}, v, 1e-12);
+
+        double[] w = {2, 0, -1};
+        MinimumVarianceOptimizer.projectOntoSimplex(w);
+        Assert.assertArrayEquals(new double[]{1, 0, 0}, w, 1e-12);
+    }
+
+    @Test
+    public void testMPTPortfolios() {
+        MPT mpt = new MPT(Arrays.asList(
+                new RealEstateAsset("a", 0.05, Arrays.asList(0.01, 0.03, -0.02, 0.04, 0.02, 0.01)),
+                new RealEstateAsset("b", 0.07, Arrays.asList(0.02, -0.01, 0.05, 0.00, 0.03, 0.04)),
+                new RealEstateAsset("c", 0.06, Arrays.asList(-0.01, 0.02, 0.01, 0.03, 0.00, 0.02))),
+                Arrays.asList(0.4, 0.3, 0.3));
+        double[] minimumVariance = mpt.minimumVariancePortfolio();
+        double[] riskParity = mpt.riskParityPortfolio();
+        Assert.assertEquals(1.0, Arrays.stream(minimumVariance).sum(), 1e-9);
+        Assert.assertEquals(1.0, Arrays.stream(riskParity).sum(), 1e-9);
+
+        double[][] covariance = mpt.covarianceMatrix();
+        double minimum = RiskDecomposition.of(covariance, minimumVariance).getVolatility();
+        Assert.assertTrue(minimum <= RiskDecomposition.of(covariance, riskParity).getVolatility() + 1e-12);
+    }
+}
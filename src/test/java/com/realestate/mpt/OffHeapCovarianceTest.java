@@ -0,0 +1,105 @@
+package com.realestate.mpt;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class OffHeapCovarianceTest {
+
+    private static final double DELTA = 1e-12;
+
+    private static List<RealEstateAsset> assets(int n, int m, long seed) {
+        Random random = new Random(seed);
+        List<RealEstateAsset> assets = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            double beta = random.nextDouble();
+            List<Double> history = new ArrayList<>();
+            Random market = new Random(seed + 1);
+            for (int t = 0; t < m; t++) {
+                history.add(beta * market.nextGaussian() * 0.02 + 0.01 * random.nextGaussian());
+            }
+            assets.add(new RealEstateAsset("p" + i, 0.05, history));
+        }
+        return assets;
+    }
+
+    @Test
+    public void testMatchesHeapCovariance() {
+        List<RealEstateAsset> assets = assets(20, 24, 1);
+        double[][] expected = PortfolioUtils.computeCovarianceMatrix(assets);
+        OffHeapCovariance covariance = OffHeapCovariance.of(OffHeapReturns.fromAssets(assets));
+
+        for (int i = 0; i < 20; i++) {
+            Assert.assertArrayEquals(expected[i], covariance.toArray()[i], DELTA);
+            Assert.assertEquals(expected[i][i], covariance.diagonal(i), DELTA);
+        }
+        Assert.assertEquals(expected[3][7], covariance.get(7, 3), DELTA);
+        Assert.assertEquals(20 * 21 / 2 * Double.BYTES, covariance.getOffHeapBytes());
+    }
+
+    @Test
+    public void testParallelMultiplyAndQuadraticForm() {
+        int n = 700;
+        List<RealEstateAsset> assets = assets(n, 30, 2);
+        OffHeapCovariance offHeap = OffHeapCovariance.of(OffHeapReturns.fromAssets(assets));
+        DenseCovariance dense = new DenseCovariance(offHeap.toArray());
+
+        double[] x = new double[n];
+        Random random = new Random(3);
+        for (int i = 0; i < n; i++) {
+            x[i] = random.nextDouble();
+        }
+        double[] expected = new double[n];
+        double[] actual = new double[n];
+        dense.multiply(x, expected);
+        offHeap.multiply(x, actual);
+        Assert.assertArrayEquals(expected, actual, 1e-12);
+        Assert.assertEquals(dense.quadraticForm(x), offHeap.quadraticForm(x), 1e-10);
+    }
+
+    @Test
+    public void testSetIsSymmetric() {
+        OffHeapCovariance covariance = new OffHeapCovariance(3);
+        covariance.set(0, 2, 0.5);
+        Assert.assertEquals(0.5, covariance.get(2, 0), 0.0);
+        Assert.assertEquals(0.0, covariance.get(1, 1), 0.0);
+    }
+
+    @Test
+    public void testChunkBoundaries() {
+        OffHeapDoubles values = new OffHeapDoubles(100, 4);
+        Assert.assertEquals(7, values.chunkCount());
+        for (int i = 0; i < 100; i++) {
+            values.set(i, i * 0.5);
+        }
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(i * 0.5, values.get(i), 0.0);
+        }
+    }
+
+    @Test
+    public void testMPTOffHeapModeMatchesDense() {
+        List<RealEstateAsset> assets = assets(6, 12, 4);
+        List<Double> weights = Arrays.asList(0.1, 0.2, 0.3, 0.1, 0.2, 0.1);
+        MPT dense = new MPT(assets, weights);
+        MPT offHeap = new MPT(assets, weights);
+        offHeap.setOffHeapCovariance(true);
+
+        Assert.assertTrue(offHeap.covarianceOperator() instanceof OffHeapCovariance);
+        Assert.assertEquals(dense.portfolioVolatility(), offHeap.portfolioVolatility(), DELTA);
+        Assert.assertArrayEquals(dense.linearizedPortfolioVarianceConstraint(new double[]{0.2, 0.2, 0.2, 0.2, 0.1, 0.1}),
+                offHeap.linearizedPortfolioVarianceConstraint(new double[]{0.2, 0.2, 0.2, 0.2, 0.1, 0.1}), DELTA);
+        Assert.assertArrayEquals(dense.minimumVariancePortfolio(), offHeap.minimumVariancePortfolio(), 1e-7);
+        Assert.assertArrayEquals(dense.riskParityPortfolio(), offHeap.riskParityPortfolio(), 1e-7);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnalignedHistoriesRejected() {
+        List<RealEstateAsset> assets = assets(2, 12, 5);
+        assets.add(new RealEstateAsset("short", 0.05, Arrays.asList(0.01, 0.02)));
+        OffHeapReturns.fromAssets(assets);
+    }
+}
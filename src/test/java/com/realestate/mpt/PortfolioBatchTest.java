@@ -0,0 +1,120 @@
+package com.realestate.mpt;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class PortfolioBatchTest {
+
+    private static final double DELTA = 1e-12;
+    private static final double RISK_FREE_RATE = 0.03;
+
+    @Test
+    public void testMatchesSinglePortfolioCalls() {
+        List<RealEstateAsset> assets = assets(12, 7);
+        MPT mpt = new MPT(new ArrayList<>(assets), new ArrayList<>(Collections.nCopies(12, 1.0 / 12)));
+        double[][] weights = candidates(11, 12, 8); // Not a multiple of 4, so the tail path runs too
+        PortfolioBatch batch = mpt.evaluatePortfolios(weights, RISK_FREE_RATE);
+        assertEquals(11, batch.size());
+        for (int c = 0; c < weights.length; c++) {
+            List<Double> candidate = Arrays.stream(weights[c]).boxed().toList();
+            MPT single = new MPT(new ArrayList<>(assets), new ArrayList<>(candidate));
+            assertEquals(single.portfolioVolatility(), batch.getVolatility(c), DELTA);
+            assertEquals(single.portfolioExpectedReturn(), batch.getExpectedReturn(c), DELTA);
+            assertEquals(single.sharpeRatio(RISK_FREE_RATE), batch.getSharpeRatio(c), 1e-9);
+        }
+        // The portfolio's own weights are untouched
+        assertEquals(1.0 / 12, mpt.getWeights()[0], 0.0);
+    }
+
+    @Test
+    public void testLargeParallelBatch() {
+        List<RealEstateAsset> assets = assets(300, 9);
+        MPT mpt = new MPT(new ArrayList<>(assets), new ArrayList<>(Collections.nCopies(300, 1.0 / 300)));
+        double[][] weights = candidates(1003, 300, 10);
+        PortfolioBatch batch = mpt.evaluatePortfolios(weights, RISK_FREE_RATE);
+
+        DenseCovariance covariance = new DenseCovariance(mpt.covarianceMatrix());
+        double[] volatilities = batch.getVolatilities();
+        int best = 0;
+        for (int c = 0; c < weights.length; c++) {
+            assertEquals(Math.sqrt(covariance.quadraticForm(weights[c])), volatilities[c], DELTA);
+            if (batch.getSharpeRatio(c) > batch.getSharpeRatio(best)) {
+                best = c;
+            }
+        }
+        assertEquals(best, batch.maxSharpeIndex());
+    }
+
+    @Test
+    public void testOffHeapAndUniverseAgree() {
+        List<RealEstateAsset> assets = assets(20, 11);
+        double[][] weights = candidates(70, 20, 12);
+        MPT dense = new MPT(new ArrayList<>(assets), new ArrayList<>(Collections.nCopies(20, 0.05)));
+        MPT offHeap = new MPT(new ArrayList<>(assets), new ArrayList<>(Collections.nCopies(20, 0.05)));
+        offHeap.setOffHeapCovariance(true);
+        PortfolioUniverse universe = new PortfolioUniverse(assets);
+
+        PortfolioBatch expected = dense.evaluatePortfolios(weights, RISK_FREE_RATE);
+        PortfolioBatch fromOffHeap = offHeap.evaluatePortfolios(weights, RISK_FREE_RATE);
+        PortfolioBatch fromUniverse = universe.evaluatePortfolios(weights, RISK_FREE_RATE);
+        for (int c = 0; c < weights.length; c++) {
+            assertEquals(expected.getVolatility(c), fromOffHeap.getVolatility(c), DELTA);
+            assertEquals(expected.getVolatility(c), fromUniverse.getVolatility(c), DELTA);
+            assertEquals(universe.portfolio(weights[c]).portfolioVolatility(), fromUniverse.getVolatility(c), DELTA);
+            assertEquals(expected.getSharpeRatio(c), fromUniverse.getSharpeRatio(c), 1e-9);
+        }
+    }
+
+    @Test
+    public void testEmptyBatch() {
+        PortfolioBatch batch = PortfolioBatch.evaluate(new double[][]{{0.04}}, new double[]{0.05}, new double[0][], RISK_FREE_RATE);
+        assertEquals(0, batch.size());
+        assertEquals(-1, batch.maxSharpeIndex());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCandidateOfWrongSize() {
+        PortfolioBatch.evaluate(new double[][]{{0.04, 0.01}, {0.01, 0.09}}, new double[]{0.05, 0.07},
+                new double[][]{{0.5, 0.5}, {1.0}}, RISK_FREE_RATE);
+    }
+
+    //------------------------------------- Helper classes/ methods -------------------------------------//
+
+    private static List<RealEstateAsset> assets(int n, long seed) {
+        Random random = new Random(seed);
+        double[] factor = random.doubles(36, -0.1, 0.1).toArray();
+        List<RealEstateAsset> assets = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            List<Double> history = new ArrayList<>();
+            double beta = 0.5 + random.nextDouble();
+            for (double f : factor) {
+                history.add(beta * f + 0.03 * random.nextGaussian());
+            }
+            assets.add(new RealEstateAsset("B" + i, 0.03 + 0.06 * random.nextDouble(), history));
+        }
+        return assets;
+    }
+
+    // Random long-only weightings summing to one
+    private static double[][] candidates(int k, int n, long seed) {
+        Random random = new Random(seed);
+        double[][] weights = new double[k][n];
+        for (double[] candidate : weights) {
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                candidate[i] = random.nextDouble();
+                sum += candidate[i];
+            }
+            for (int i = 0; i < n; i++) {
+                candidate[i] /= sum;
+            }
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,99 @@
+package com.realestate.mpt;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class PortfolioConstraintsTest {
+
+    private static final double DELTA = 1e-6;
+    private static final double LOOSE_RISK = 1e6;
+
+    // Expected returns 0.04, 0.05, ... so the unconstrained optimum puts everything in the last asset
+    private static MPT portfolio(int n) {
+        Random random = new Random(5);
+        List<RealEstateAsset> assets = new ArrayList<>();
+        List<Double> weights = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            List<Double> history = new ArrayList<>();
+            for (int t = 0; t < 12; t++) {
+                history.add(0.01 * random.nextGaussian());
+            }
+            assets.add(new RealEstateAsset("p" + i, 0.04 + 0.01 * i, history));
+            weights.add(1.0 / n);
+        }
+        return new MPT(assets, weights);
+    }
+
+    @Test
+    public void testNoConstraintsPicksBestAsset() {
+        double[] weights = portfolio(4).optimizedPortfolio(LOOSE_RISK);
+        Assert.assertArrayEquals(new double[]{0, 0, 0, 1}, weights, DELTA);
+    }
+
+    @Test
+    public void testMaxWeightCaps() {
+        PortfolioConstraints constraints = new PortfolioConstraints();
+        constraints.setMaxWeight(0.4);
+        constraints.setMaxWeight(2, 0.1);
+        double[] weights = portfolio(4).optimizedPortfolio(LOOSE_RISK, constraints);
+        Assert.assertArrayEquals(new double[]{0.1, 0.4, 0.1, 0.4}, weights, DELTA);
+    }
+
+    @Test
+    public void testGroupLimitsByLabel() {
+        PortfolioConstraints constraints = new PortfolioConstraints();
+        Map<String, Double> limits = new HashMap<>();
+        limits.put("west", 0.3);
+        constraints.addGroupLimits(new String[]{"east", "east", "west", "west"}, limits);
+        constraints.addGroupLimit("sponsor-a", new int[]{0}, 0.2, 1.0);
+        Assert.assertEquals(2, constraints.getGroupCount());
+
+        double[] weights = portfolio(4).optimizedPortfolio(LOOSE_RISK, constraints);
+        Assert.assertEquals(0.3, weights[2] + weights[3], DELTA);
+        Assert.assertEquals(0.3, weights[3], DELTA);
+        Assert.assertEquals(0.2, weights[0], DELTA);
+        Assert.assertEquals(0.5, weights[1], DELTA);
+    }
+
+    @Test
+    public void testTurnoverLimit() {
+        double[] current = {0.25, 0.25, 0.25, 0.25};
+        PortfolioConstraints constraints = new PortfolioConstraints();
+        constraints.setTurnoverLimit(current, 0.5);
+        double[] weights = portfolio(4).optimizedPortfolio(LOOSE_RISK, constraints);
+
+        Assert.assertEquals(4, weights.length);
+        double turnover = 0;
+        for (int i = 0; i < 4; i++) {
+            turnover += Math.abs(weights[i] - current[i]);
+        }
+        Assert.assertEquals(0.5, turnover, DELTA);
+        Assert.assertEquals(0.5, weights[3], DELTA);
+        Assert.assertEquals(1.0, Arrays.stream(weights).sum(), DELTA);
+    }
+
+    @Test
+    public void testLargeUniverseNeedsNoBoundRows() {
+        int n = 2000;
+        PortfolioConstraints constraints = new PortfolioConstraints();
+        constraints.addGroupLimit("top", new int[]{n - 1, n - 2}, 0.5);
+        Assert.assertEquals(1, constraints.toLinearConstraints(n).size());
+
+        double[] weights = portfolio(n).optimizedPortfolio(LOOSE_RISK, constraints);
+        Assert.assertEquals(0.5, weights[n - 1], DELTA);
+        Assert.assertEquals(0.5, weights[n - 3], DELTA);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGroupIndexOutsidePortfolio() {
+        PortfolioConstraints constraints = new PortfolioConstraints();
+        constraints.addGroupLimit("bad", new int[]{7}, 0.5);
+        portfolio(4).optimizedPortfolio(LOOSE_RISK, constraints);
+    }
+}
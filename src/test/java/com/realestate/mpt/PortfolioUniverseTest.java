@@ -0,0 +1,156 @@
+package com.realestate.mpt;
+
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+public class PortfolioUniverseTest {
+
+    private static final double DELTA = 1e-12;
+
+    @Test
+    public void testMatchesMptWithoutMutatingAssets() {
+        for (String cleanMethod : new String[]{"i", "c"}) {
+            List<RealEstateAsset> assets = assets(12, 46);
+            List<List<Double>> before = new ArrayList<>();
+            for (RealEstateAsset asset : assets) {
+                before.add(new ArrayList<>(asset.getHistoricalReturns()));
+            }
+            PortfolioUniverse universe = new PortfolioUniverse(assets, cleanMethod);
+            for (int i = 0; i < assets.size(); i++) {
+                assertEquals(before.get(i), assets.get(i).getHistoricalReturns());
+            }
+
+            // A client holding assets 0, 1, 3, 5, ... compared with an MPT over copies of the same assets. The subset
+            // has the universe's shortest and longest history, so both clean methods align it the same way.
+            Map<RealEstateAsset, Double> holdings = new LinkedHashMap<>();
+            Map<RealEstateAsset, Double> copies = new LinkedHashMap<>();
+            for (int i = 0; i < assets.size(); i = i == 0 ? 1 : i + 2) {
+                double weight = (i + 1) / 37.0;
+                holdings.put(assets.get(i), weight);
+                copies.put(copy(assets.get(i)), weight);
+            }
+            PortfolioView view = universe.portfolio(holdings);
+            MPT mpt = new MPT(copies, cleanMethod);
+            assertEquals(mpt.portfolioVolatility(), view.portfolioVolatility(), DELTA);
+            assertEquals(mpt.sharpeRatio(0.01), view.sharpeRatio(0.01), DELTA);
+            assertArrayEquals(mpt.minimumVariancePortfolio(), view.minimumVariancePortfolio(), 1e-9);
+            assertEquals(mpt.portfolioExpectedReturn(), view.portfolioExpectedReturn(), DELTA);
+
+            // Whole-universe view against an MPT over copies of every asset
+            double[] weights = new double[assets.size()];
+            Map<RealEstateAsset, Double> all = new LinkedHashMap<>();
+            for (int i = 0; i < weights.length; i++) {
+                weights[i] = 1.0 / weights.length;
+                all.put(copy(assets.get(i)), weights[i]);
+            }
+            MPT full = new MPT(all, cleanMethod);
+            PortfolioView fullView = universe.portfolio(weights);
+            assertEquals(full.portfolioVolatility(), fullView.portfolioVolatility(), DELTA);
+            assertArrayEquals(full.riskParityPortfolio(), fullView.riskParityPortfolio(), 1e-9);
+            assertArrayEquals(full.optimizedPortfolio(0.5), fullView.optimizedPortfolio(0.5), 1e-9);
+            assertArrayEquals(full.riskDecomposition().getComponentContributions(),
+                    fullView.riskDecomposition().getComponentContributions(), DELTA);
+        }
+    }
+
+    @Test
+    public void testSubsetReadsSharedMatrix() {
+        List<RealEstateAsset> assets = assets(30, 7);
+        PortfolioUniverse universe = new PortfolioUniverse(assets, "c");
+        int[] indices = {17, 3, 25, 9};
+        double[] weights = {0.1, 0.4, 0.3, 0.2};
+        PortfolioView view = universe.portfolio(indices, weights);
+
+        double variance = 0;
+        for (int a = 0; a < indices.length; a++) {
+            for (int b = 0; b < indices.length; b++) {
+                variance += weights[a] * weights[b] * universe.getCovariance(indices[a], indices[b]);
+            }
+        }
+        assertEquals(Math.sqrt(variance), view.portfolioVolatility(), DELTA);
+        assertEquals(assets.get(17), view.getAssets().get(0));
+        assertEquals(universe.getCovariance(25, 25), view.covarianceOperator().diagonal(2), DELTA);
+
+        PortfolioView optimal = view.withWeights(view.minimumVariancePortfolio());
+        assertEquals(1.0, Arrays.stream(optimal.getWeights()).sum(), 1e-9);
+        assertTrue(optimal.portfolioVolatility() <= view.portfolioVolatility() + DELTA);
+    }
+
+    @Test
+    public void testConcurrentViews() {
+        List<RealEstateAsset> assets = assets(40, 11);
+        PortfolioUniverse universe = new PortfolioUniverse(assets);
+        Random random = new Random(5);
+        int clients = 300;
+        List<PortfolioView> views = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            int[] indices = random.ints(0, assets.size()).distinct().limit(3 + random.nextInt(20)).toArray();
+            double[] weights = new double[indices.length];
+            for (int k = 0; k < weights.length; k++) {
+                weights[k] = 1.0 / weights.length;
+            }
+            views.add(universe.portfolio(indices, weights));
+        }
+        double[] sequential = new double[clients];
+        double[][] sequentialWeights = new double[clients][];
+        for (int c = 0; c < clients; c++) {
+            sequential[c] = views.get(c).sharpeRatio(0.02);
+            sequentialWeights[c] = views.get(c).minimumVariancePortfolio();
+        }
+        double[] parallel = new double[clients];
+        double[][] parallelWeights = new double[clients][];
+        IntStream.range(0, clients).parallel().forEach(c -> {
+            parallel[c] = views.get(c).sharpeRatio(0.02);
+            parallelWeights[c] = views.get(c).minimumVariancePortfolio();
+        });
+        assertArrayEquals(sequential, parallel, 0.0);
+        for (int c = 0; c < clients; c++) {
+            assertArrayEquals(sequentialWeights[c], parallelWeights[c], 0.0);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAssetOutsideUniverse() {
+        List<RealEstateAsset> assets = assets(5, 1);
+        PortfolioUniverse universe = new PortfolioUniverse(assets.subList(0, 4));
+        Map<RealEstateAsset, Double> holdings = new LinkedHashMap<>();
+        holdings.put(assets.get(4), 1.0);
+        universe.portfolio(holdings);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateIndex() {
+        new PortfolioUniverse(assets(5, 1)).portfolio(new int[]{1, 1}, new double[]{0.5, 0.5});
+    }
+
+    //------------------------------------- Helper classes/ methods -------------------------------------//
+
+    // Histories of 20 to 40 periods; assets 0 and 1 have the shortest and the longest
+    private static List<RealEstateAsset> assets(int n, long seed) {
+        Random random = new Random(seed);
+        List<RealEstateAsset> assets = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            int length = i == 0 ? 20 : i == 1 ? 40 : 20 + random.nextInt(21);
+            List<Double> history = new ArrayList<>();
+            for (int t = 0; t < length; t++) {
+                history.add(0.01 * random.nextGaussian() + 0.002 * (i % 5));
+            }
+            assets.add(new RealEstateAsset("P" + i, 0.03 + 0.005 * i, history));
+        }
+        return assets;
+    }
+
+    private static RealEstateAsset copy(RealEstateAsset asset) {
+        return new RealEstateAsset(asset.getPropertyId(), asset.getExpectedReturn(), new ArrayList<>(asset.getHistoricalReturns()));
+    }
+}
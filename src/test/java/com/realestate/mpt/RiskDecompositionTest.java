@@ -0,0 +1,89 @@
+package com.realestate.mpt;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class RiskDecompositionTest {
+
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void testTwoAssetContributions() {
+        double[][] covariance = {{0.04, 0.006}, {0.006, 0.09}};
+        double[] weights = {0.6, 0.4};
+        RiskDecomposition decomposition = RiskDecomposition.of(covariance, weights);
+
+        double variance = 0.36 * 0.04 + 2 * 0.6 * 0.4 * 0.006 + 0.16 * 0.09;
+        double volatility = Math.sqrt(variance);
+        Assert.assertEquals(volatility, decomposition.getVolatility(), DELTA);
+        Assert.assertEquals((0.04 * 0.6 + 0.006 * 0.4) / volatility, decomposition.getMarginalContribution(0), DELTA);
+        Assert.assertEquals((0.6 * 0.2 + 0.4 * 0.3) / volatility, decomposition.getDiversificationRatio(), DELTA);
+        Assert.assertEquals(volatility, Arrays.stream(decomposition.getComponentContributions()).sum(), DELTA);
+        Assert.assertEquals(1.0, Arrays.stream(decomposition.getPercentContributions()).sum(), DELTA);
+    }
+
+    @Test
+    public void testParallelBlocksMatchSequentialSum() {
+        int n = 300;
+        Random random = new Random(7);
+        double[][] factors = new double[n][4];
+        for (double[] row : factors) {
+            for (int k = 0; k < 4; k++) {
+                row[k] = random.nextGaussian();
+            }
+        }
+        double[][] covariance = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                double sum = i == j ? 0.5 : 0;
+                for (int k = 0; k < 4; k++) {
+                    sum += factors[i][k] * factors[j][k];
+                }
+                covariance[i][j] = sum;
+            }
+        }
+        double[] weights = new double[n];
+        Arrays.fill(weights, 1.0 / n);
+
+        RiskDecomposition decomposition = RiskDecomposition.of(covariance, weights);
+        for (int i = 0; i < n; i += 37) {
+            double sum = 0;
+            for (int j = 0; j < n; j++) {
+                sum += covariance[i][j] * weights[j];
+            }
+            Assert.assertEquals(sum / decomposition.getVolatility(), decomposition.getMarginalContribution(i), DELTA);
+        }
+        Assert.assertEquals(decomposition.getVolatility(), Arrays.stream(decomposition.getComponentContributions()).sum(), 1e-9);
+        Assert.assertTrue(decomposition.getDiversificationRatio() > 1);
+    }
+
+    @Test
+    public void testMPTDecompositionMatchesVolatilityAndOrder() {
+        List<RealEstateAsset> assets = new ArrayList<>();
+        assets.add(new RealEstateAsset("a", 0.05, Arrays.asList(0.01, 0.03, -0.02, 0.04, 0.02)));
+        assets.add(new RealEstateAsset("b", 0.07, Arrays.asList(0.02, -0.01, 0.05, 0.00, 0.03)));
+        assets.add(new RealEstateAsset("c", 0.06, Arrays.asList(-0.01, 0.02, 0.01, 0.03, 0.00)));
+        MPT mpt = new MPT(assets, Arrays.asList(0.5, 0.3, 0.2));
+
+        Assert.assertEquals(assets, mpt.getAssets());
+        RiskDecomposition decomposition = mpt.riskDecomposition();
+        Assert.assertEquals(mpt.portfolioVolatility(), decomposition.getVolatility(), DELTA);
+        Assert.assertEquals(3, decomposition.size());
+    }
+
+    @Test
+    public void testCovarianceCacheInvalidatedByNewAsset() {
+        MPT mpt = new MPT(Arrays.asList(
+                new RealEstateAsset("a", 0.05, Arrays.asList(0.01, 0.03, -0.02, 0.04)),
+                new RealEstateAsset("b", 0.07, Arrays.asList(0.02, -0.01, 0.05, 0.00))), Arrays.asList(0.5, 0.5));
+        double[][] first = mpt.covarianceMatrix();
+        Assert.assertSame(first, mpt.covarianceMatrix());
+
+        mpt.addAsset(new RealEstateAsset("c", 0.06, Arrays.asList(-0.01, 0.02, 0.01, 0.03)), 0.0);
+        Assert.assertEquals(3, mpt.covarianceMatrix().length);
+    }
+}
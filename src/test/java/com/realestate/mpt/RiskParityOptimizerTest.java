@@ -0,0 +1,87 @@
+package com.realestate.mpt;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class RiskParityOptimizerTest {
+
+    private static final double DELTA = 1e-8;
+
+    @Test
+    public void testUncorrelatedAssetsGetInverseVolatilityWeights() {
+        double[][] covariance = {{0.04, 0, 0}, {0, 0.09, 0}, {0, 0, 0.16}};
+        double[] weights = new RiskParityOptimizer().optimize(new DenseCovariance(covariance));
+        double total = 1 / 0.2 + 1 / 0.3 + 1 / 0.4;
+        Assert.assertEquals((1 / 0.2) / total, weights[0], DELTA);
+        Assert.assertEquals((1 / 0.3) / total, weights[1], DELTA);
+        Assert.assertEquals((1 / 0.4) / total, weights[2], DELTA);
+    }
+
+    @Test
+    public void testCorrelatedAssetsHaveEqualRiskContributions() {
+        double[][] covariance = {{0.04, 0.018, 0.012}, {0.018, 0.09, 0.03}, {0.012, 0.03, 0.16}};
+        double[] weights = new RiskParityOptimizer().optimize(new DenseCovariance(covariance));
+        RiskDecomposition decomposition = RiskDecomposition.of(covariance, weights);
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(1.0 / 3, decomposition.getPercentContribution(i), DELTA);
+        }
+        Assert.assertEquals(1.0, Arrays.stream(weights).sum(), DELTA);
+    }
+
+    @Test
+    public void testRiskBudgets() {
+        double[][] covariance = {{0.04, 0.018}, {0.018, 0.09}};
+        double[] weights = new RiskParityOptimizer().optimize(new DenseCovariance(covariance), new double[]{3, 1});
+        RiskDecomposition decomposition = RiskDecomposition.of(covariance, weights);
+        Assert.assertEquals(0.75, decomposition.getPercentContribution(0), DELTA);
+        Assert.assertEquals(0.25, decomposition.getPercentContribution(1), DELTA);
+    }
+
+    @Test
+    public void testLargeFactorModelMatchesDenseOperator() {
+        int n = 600;
+        int k = 5;
+        Random random = new Random(11);
+        double[][] loadings = new double[n][k];
+        double[] specific = new double[n];
+        for (int i = 0; i < n; i++) {
+            for (int p = 0; p < k; p++) {
+                loadings[i][p] = 0.1 * random.nextGaussian();
+            }
+            specific[i] = 0.01 + 0.02 * random.nextDouble();
+        }
+        double[][] factorCovariance = new double[k][k];
+        for (int p = 0; p < k; p++) {
+            factorCovariance[p][p] = 1 + p;
+        }
+        FactorCovariance factor = new FactorCovariance(loadings, factorCovariance, specific);
+        double[][] dense = new double[n][n];
+        double[] unit = new double[n];
+        for (int j = 0; j < n; j++) {
+            unit[j] = 1;
+            double[] column = new double[n];
+            factor.multiply(unit, column);
+            for (int i = 0; i < n; i++) {
+                dense[i][j] = column[i];
+            }
+            unit[j] = 0;
+        }
+
+        RiskParityOptimizer optimizer = new RiskParityOptimizer();
+        double[] fromFactor = optimizer.optimize(factor);
+        double[] fromDense = optimizer.optimize(new DenseCovariance(dense));
+        Assert.assertArrayEquals(fromDense, fromFactor, 1e-9);
+
+        RiskDecomposition decomposition = RiskDecomposition.of(factor, fromFactor);
+        for (int i = 0; i < n; i++) {
+            Assert.assertEquals(1.0 / n, decomposition.getPercentContribution(i), 1e-8);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonPositiveBudgetRejected() {
+        new RiskParityOptimizer().optimize(new DenseCovariance(new double[][]{{0.04, 0}, {0, 0.09}}), new double[]{1, 0});
+    }
+}
@@ -0,0 +1,107 @@
+package com.realestate.projection;
+
+import com.realestate.mortgage.ARMMortgage;
+import com.realestate.mortgage.ARMMortgage.RateChange;
+import com.realestate.mortgage.FixedRateMortgage;
+import com.realestate.mpt.RealEstateAsset;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class CashFlowProjectorTest {
+
+    private static final double DELTA = 1e-6;
+    private static final List<Double> HISTORY = Arrays.asList(0.01, 0.02, 0.015);
+
+    private static ProjectionAssumptions flat() {
+        ProjectionAssumptions assumptions = new ProjectionAssumptions();
+        assumptions.setRentGrowth(0);
+        assumptions.setExpenseInflation(0);
+        assumptions.setVacancyRate(0);
+        assumptions.setAppreciationRate(0);
+        assumptions.setSellingCostRate(0);
+        return assumptions;
+    }
+
+    @Test
+    public void testUnleveredFlatProjectionYieldsTheCapRate() {
+        RealEstateAsset asset = new RealEstateAsset("A", 60000, 0, 20000, 500000, HISTORY);
+        ProjectionResults results = CashFlowProjector.project(asset, flat());
+        assertEquals(40000, results.getNetOperatingIncome(0, 1), DELTA);
+        assertEquals(40000, results.getNetOperatingIncome(0, 10), DELTA);
+        assertEquals(0.08, results.getUnleveredIrr(0), 1e-9);
+        assertEquals(0.08, results.getLeveredIrr(0), 1e-9);
+        assertEquals(0.08, results.getCashOnCash(0), 1e-9);
+    }
+
+    @Test
+    public void testGrowthVacancyAndFinancing() {
+        RealEstateAsset asset = new RealEstateAsset("B", 60000, 10000, 20000, 500000, HISTORY);
+        FixedRateMortgage loan = new FixedRateMortgage(350000, 0.05, 30, "y");
+        asset.setFinancing(loan);
+        ProjectionAssumptions assumptions = new ProjectionAssumptions();
+        assumptions.setHoldingYears(7);
+        ProjectionResults results = CashFlowProjector.project(asset, assumptions);
+
+        double noi3 = 60000 * 1.03 * 1.03 * 0.95 - 20000 * 1.025 * 1.025;
+        assertEquals(noi3, results.getNetOperatingIncome(0, 3), DELTA);
+        assertEquals(12 * loan.calculateMonthlyPayment(), results.getDebtService(0, 1), DELTA);
+        assertEquals(150000, results.getEquity(0), 0.0);
+        assertEquals(results.getCashFlow(0, 1) / 150000, results.getCashOnCash(0), 1e-12);
+        double sale = 500000 * Math.pow(1.02, 7) * 0.94 - loan.calculateRemainingBalance(84);
+        assertEquals(sale, results.getNetSaleProceeds(0), DELTA);
+
+        // The levered IRR prices the equity cash flows at zero
+        double irr = results.getLeveredIrr(0);
+        double npv = -150000;
+        for (int year = 1; year <= 7; year++) {
+            npv += (results.getCashFlow(0, year) + (year == 7 ? sale : 0)) / Math.pow(1 + irr, year);
+        }
+        assertEquals(0, npv, 1e-4);
+    }
+
+    @Test
+    public void testLoanShorterThanHoldingPeriodIsPaidOff() {
+        RealEstateAsset asset = new RealEstateAsset("C", 50000, 5000, 10000, 400000, HISTORY);
+        asset.setFinancing(new FixedRateMortgage(100000, 0.04, 5, "y"));
+        ProjectionResults results = CashFlowProjector.project(asset, flat());
+        assertEquals(0, results.getDebtService(0, 6), 0.0);
+        assertEquals(400000, results.getNetSaleProceeds(0), DELTA);
+    }
+
+    @Test
+    public void testLargeBookSharesSchedulesAndMatchesSingleProjections() {
+        List<RealEstateAsset> book = new ArrayList<>();
+        for (int k = 0; k < 3000; k++) {
+            RealEstateAsset asset = new RealEstateAsset("P" + k, 40000 + k, 5000, 12000, 450000, HISTORY);
+            if (k % 3 == 0) {
+                asset.setFinancing(new FixedRateMortgage(300000, 0.055, 30, "y"));
+            } else if (k % 3 == 1) {
+                asset.setFinancing(new ARMMortgage(300000, 0.045, 30, "y", new RateChange(61, 0.065)));
+            }
+            book.add(asset);
+        }
+        assertSame(book.get(0).getFinancing(), book.get(2997).getFinancing());
+        assertSame(book.get(1).getFinancing(), book.get(2998).getFinancing());
+
+        ProjectionAssumptions assumptions = new ProjectionAssumptions();
+        ProjectionResults results = CashFlowProjector.project(book, assumptions);
+        assertEquals(3000, results.size());
+        for (int k : new int[]{0, 1, 2, 1500, 2999}) {
+            ProjectionResults single = CashFlowProjector.project(book.get(k), assumptions);
+            assertEquals(single.getLeveredIrr(0), results.getLeveredIrr(k), 0.0);
+            assertEquals(single.getNetOperatingIncome(0, 10), results.getNetOperatingIncome(k, 10), 0.0);
+            assertEquals(single.getCashOnCash(0), results.getCashOnCash(k), 0.0);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLoanLargerThanValueRejected() {
+        RealEstateAsset asset = new RealEstateAsset("D", 50000, 5000, 10000, 400000, HISTORY);
+        asset.setFinancing(new FixedRateMortgage(400000, 0.04, 30, "y"));
+    }
+}
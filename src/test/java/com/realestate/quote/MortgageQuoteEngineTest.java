@@ -0,0 +1,108 @@
+package com.realestate.quote;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import com.realestate.mortgage.ARMMortgage;
+import com.realestate.mortgage.ARMMortgage.RateChange;
+import com.realestate.mortgage.FixedRateMortgage;
+
+public class MortgageQuoteEngineTest {
+
+    private static final double DELTA = 1e-6;
+
+    @Test
+    public void testFixedAndArmQuotesMatchMortgageClasses() throws Exception {
+        try (MortgageQuoteEngine engine = new MortgageQuoteEngine()) {
+            CompletableFuture<Quote> fixed = engine.submit(100000, 0.05, 360);
+            CompletableFuture<Quote> arm = engine.submit(new QuoteRequest(200000, 0.04, 360, List.of(new RateChange(60, 0.06))));
+
+            FixedRateMortgage fixedMortgage = new FixedRateMortgage(100000, 0.05, 30, "y");
+            assertEquals(fixedMortgage.calculateMonthlyPayment(), fixed.get().getMonthlyPayment(), DELTA);
+            assertEquals(fixedMortgage.calculateTotalCost(), fixed.get().getTotalCost(), DELTA);
+
+            ARMMortgage armMortgage = new ARMMortgage(200000, 0.04, 30, "y", new RateChange(60, 0.06));
+            assertEquals(armMortgage.calculateMonthlyPayment(1), arm.get().getMonthlyPayment(), DELTA);
+            assertEquals(armMortgage.calculateMonthlyPayment(60), arm.get().getMaxMonthlyPayment(), DELTA);
+            assertEquals(armMortgage.calculateTotalInterest(), arm.get().getTotalInterest(), DELTA);
+        }
+    }
+
+    @Test
+    public void testLoadGeneratorCompletesAllRequestsInBatches() throws InterruptedException {
+        try (MortgageQuoteEngine engine = new MortgageQuoteEngine(Duration.ofNanos(500_000), 128)) {
+            List<CompletableFuture<Quote>> futures = QuoteLoadGenerator.run(engine, 4, 5_000);
+            assertEquals(20_000, futures.size());
+            for (CompletableFuture<Quote> future : futures) {
+                assertTrue(future.isDone() && !future.isCompletedExceptionally());
+                assertTrue(future.join().getMonthlyPayment() > 0);
+            }
+            assertEquals(20_000, engine.getLatencyHistogram().getCount());
+            assertTrue(engine.getBatchSizeHistogram().getMax() <= 128);
+            assertTrue(engine.getBatchSizeHistogram().getMean() > 1);
+            assertTrue(engine.getP99LatencyNanos() >= engine.getP50LatencyNanos());
+        }
+    }
+
+    @Test
+    public void testExternalWorkerExecutor() throws Exception {
+        ExecutorService worker = Executors.newSingleThreadExecutor();
+        try (MortgageQuoteEngine engine = new MortgageQuoteEngine(Duration.ZERO, 16, worker)) {
+            assertTrue(engine.submit(300000, 0.06, 180).get().getTotalInterest() > 0);
+        } finally {
+            worker.shutdown();
+        }
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void testSubmitAfterClose() throws Throwable {
+        MortgageQuoteEngine engine = new MortgageQuoteEngine();
+        engine.close();
+        try {
+            engine.submit(100000, 0.05, 360).get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Test
+    public void testSubmitRacingCloseAlwaysCompletes() throws Exception {
+        for (int round = 0; round < 50; round++) {
+            MortgageQuoteEngine engine = new MortgageQuoteEngine(Duration.ZERO, 16);
+            List<CompletableFuture<Quote>> futures = new CopyOnWriteArrayList<>();
+            CountDownLatch started = new CountDownLatch(1);
+            Thread submitter = new Thread(() -> {
+                started.countDown();
+                for (int i = 0; i < 2_000; i++) {
+                    futures.add(engine.submit(100000, 0.05, 360));
+                }
+            });
+            submitter.start();
+            started.await();
+            engine.close();
+            submitter.join();
+            for (CompletableFuture<Quote> future : futures) {
+                try {
+                    assertTrue(future.get(10, TimeUnit.SECONDS).getMonthlyPayment() > 0);
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof RejectedExecutionException);
+                }
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRequestFailsOnCallerThread() {
+        new QuoteRequest(100000, 0.05, 360, List.of(new RateChange(400, 0.06)));
+    }
+}
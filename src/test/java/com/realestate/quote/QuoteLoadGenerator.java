@@ -0,0 +1,68 @@
+package com.realestate.quote;
+
+import com.realestate.mortgage.ARMMortgage.RateChange;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/* Local load generator for MortgageQuoteEngine. Several closed-loop client threads fire a mix of fixed-rate and ARM
+quote requests at the engine, each keeping at most MAX_IN_FLIGHT requests outstanding like a web tier would. Run main() for a standalone report, e.g.
+java -cp target/classes:target/test-classes com.realestate.quote.QuoteLoadGenerator 8 200000 */
+public class QuoteLoadGenerator {
+    static final int MAX_IN_FLIGHT = 64;
+
+    // Returns every future in submission order (per client thread, then by thread)
+    public static List<CompletableFuture<Quote>> run(MortgageQuoteEngine engine, int clients, int requestsPerClient) throws InterruptedException {
+        AtomicReferenceArray<CompletableFuture<Quote>> futures = new AtomicReferenceArray<>(clients * requestsPerClient);
+        Thread[] threads = new Thread[clients];
+        for (int c = 0; c < clients; c++) {
+            int client = c;
+            threads[c] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < requestsPerClient; i++) {
+                    double principal = 50_000 + random.nextInt(950_000);
+                    double rate = 0.02 + random.nextInt(64) * 0.00125;
+                    int term = (random.nextBoolean() ? 30 : 15) * 12;
+                    QuoteRequest request = random.nextInt(4) == 0
+                            ? new QuoteRequest(principal, rate, term, List.of(new RateChange(60, rate + 0.01), new RateChange(72, rate + 0.02)))
+                            : new QuoteRequest(principal, rate, term);
+                    if (i >= MAX_IN_FLIGHT) {
+                        futures.get(client * requestsPerClient + i - MAX_IN_FLIGHT).join();
+                    }
+                    futures.set(client * requestsPerClient + i, engine.submit(request));
+                }
+            });
+            threads[c].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        CompletableFuture<?>[] all = new CompletableFuture<?>[futures.length()];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = futures.get(i);
+        }
+        CompletableFuture.allOf(all).join();
+        List<CompletableFuture<Quote>> result = new ArrayList<>(all.length);
+        for (int i = 0; i < all.length; i++) {
+            result.add(futures.get(i));
+        }
+        return result;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        try (MortgageQuoteEngine engine = new MortgageQuoteEngine(Duration.ofNanos(200_000), 512)) {
+            long start = System.nanoTime();
+            run(engine, clients, requests);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%d quotes in %.2f s (%.0f quotes/s)%n", clients * requests, seconds, clients * requests / seconds);
+            System.out.println("Latency (ns): " + engine.getLatencyHistogram());
+            System.out.println("Batch sizes: " + engine.getBatchSizeHistogram());
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.realestate.reset;
+
+import com.realestate.mortgage.ARMMortgage;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+public class RateResetPipelineTest {
+
+    private static final double DELTA = 1e-9;
+    private static final long SEED = 47;
+    private static final int MONTHS = 120;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "rate-reset-test");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testUpdatesMatchFullRebuild() throws InterruptedException {
+        ResetBook book = book(1500);
+        RateFeedSimulator feed = new RateFeedSimulator(SEED, 0.03, 0.002, 1, executor, 8);
+        RateResetPipeline pipeline = new RateResetPipeline(book, executor, 16);
+        Collector collector = new Collector(64);
+        feed.subscribe(pipeline);
+        pipeline.subscribe(collector);
+        feed.start(MONTHS);
+        assertTrue(collector.done.await(60, TimeUnit.SECONDS));
+        assertEquals(null, collector.error);
+
+        assertEquals(MONTHS, pipeline.getTickCount());
+        assertEquals(book.getResetCount(), pipeline.getUpdateCount());
+        assertEquals(book.getResetCount(), collector.updates.size());
+        assertTrue(collector.updates.size() > 5000);
+        assertTrue(pipeline.getLatencyHistogram().getCount() == MONTHS && pipeline.getP99LatencyNanos() > 0);
+        assertTrue(pipeline.getThroughput() > 0);
+
+        // Index value of each book month, from a twin of the feed
+        RateFeedSimulator twin = new RateFeedSimulator(SEED, 0.03, 0.002, 1);
+        double[] index = new double[MONTHS + 1];
+        for (int month = 1; month <= MONTHS; month++) {
+            index[month] = twin.nextTick().getIndexRate();
+        }
+        twin.close();
+
+        // Every emitted payment equals the one of an ARMMortgage built from scratch with the resets so far
+        Map<Long, ARMMortgage> rebuilt = new HashMap<>();
+        for (int k = 0; k < book.size(); k++) {
+            rebuilt.put(book.getId(k), book.toMortgage(k));
+        }
+        Map<Long, Double> margins = margins(book.size());
+        for (PaymentUpdate update : collector.updates) {
+            ARMMortgage mortgage = rebuilt.get(update.getLoanId());
+            assertEquals(Math.max(0.0001, index[update.getBookMonth()] + margins.get(update.getLoanId())), update.getRate(), 0.0);
+            assertEquals(mortgage.getRateForMonth(update.getLoanMonth()), update.getRate(), 0.0);
+            assertEquals(mortgage.calculateMonthlyPayment(update.getLoanMonth()), update.getPayment(), DELTA);
+            assertEquals(mortgage.generateAmortizationSchedule().get(update.getLoanMonth() - 1).getBeginningBalance(),
+                    update.getBalance(), DELTA);
+        }
+        for (int k = 0; k < book.size(); k++) {
+            int next = book.getNextResetMonth(k);
+            assertTrue(next == 0 || next > MONTHS);
+        }
+    }
+
+    @Test
+    public void testBackpressureStallsTheFeed() throws InterruptedException {
+        ResetBook book = book(400);
+        RateFeedSimulator feed = new RateFeedSimulator(SEED, 0.03, 0.002, 1, executor, 4);
+        RateResetPipeline pipeline = new RateResetPipeline(book, executor, 4);
+        Collector collector = new Collector(0); // Requests nothing until told to
+        feed.subscribe(pipeline);
+        pipeline.subscribe(collector);
+        Thread producer = feed.start(MONTHS);
+
+        Thread.sleep(300);
+        // The pipeline is stuck submitting into a full buffer, the feed is stuck behind it
+        assertTrue(pipeline.getTickCount() < 20);
+        assertTrue(producer.isAlive());
+        assertTrue(collector.updates.isEmpty());
+
+        collector.subscription.request(Long.MAX_VALUE);
+        assertTrue(collector.done.await(60, TimeUnit.SECONDS));
+        assertEquals(MONTHS, pipeline.getTickCount());
+        assertEquals(book.getResetCount(), collector.updates.size());
+    }
+
+    @Test
+    public void testMissedMonthsAreCaughtUp() {
+        ResetBook book = new ResetBook();
+        book.add(1, 200000, 0.04, 360, 1, 13, 12, 0.025);
+        book.add(2, 150000, 0.05, 360, 5, 7, 6, 0.02);
+        assertEquals(13, book.getNextResetMonth(0));
+        assertEquals(11, book.getNextResetMonth(1));
+        assertEquals(0, book.apply(new RateTick(10, 0.03)).size());
+
+        // A single tick for month 20 resets both loans, loan 2 once for month 11 and once for month 17
+        List<PaymentUpdate> updates = book.apply(new RateTick(20, 0.03));
+        assertEquals(3, updates.size());
+        assertEquals(2, updates.get(0).getLoanId());
+        assertEquals(11, updates.get(0).getBookMonth());
+        assertEquals(0.05, updates.get(0).getRate(), DELTA);
+        assertEquals(1, updates.get(1).getLoanId());
+        assertEquals(0.055, book.getRate(0), DELTA);
+        assertEquals(23, book.getNextResetMonth(1));
+        assertEquals(book.toMortgage(1).calculateMonthlyPayment(13), book.getPayment(1), DELTA);
+
+        // Negative index plus margin is floored
+        book.apply(new RateTick(30, -0.1));
+        assertEquals(0.0001, book.getRate(1), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testResetAtFirstMonth() {
+        new ResetBook().add(1, 100000, 0.04, 360, 1, 1, 12, 0.02);
+    }
+
+    //------------------------------------- Helper classes/ methods -------------------------------------//
+
+    private static final class Collector implements Flow.Subscriber<PaymentUpdate> {
+        final List<PaymentUpdate> updates = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch done = new CountDownLatch(1);
+        final long batch;
+        volatile Flow.Subscription subscription;
+        volatile Throwable error;
+
+        Collector(long batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (batch > 0) {
+                subscription.request(batch);
+            }
+        }
+
+        @Override
+        public void onNext(PaymentUpdate item) {
+            updates.add(item);
+            if (batch > 0 && updates.size() % batch == 0) {
+                subscription.request(batch);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+    }
+
+    // 30-year loans on 1, 3, 5 and 7 year teasers, resetting every 6 or 12 months, originated over two years
+    private static ResetBook book(int n) {
+        Random random = new Random(SEED);
+        Map<Long, Double> margins = margins(n);
+        ResetBook book = new ResetBook();
+        int[] teasers = {13, 37, 61, 85};
+        for (int k = 0; k < n; k++) {
+            book.add(k, 100000 + 400000 * random.nextDouble(), 0.03 + 0.001 * random.nextInt(30), 360,
+                    1 + random.nextInt(24), teasers[k % teasers.length], k % 3 == 0 ? 6 : 12, margins.get((long) k));
+        }
+        return book;
+    }
+
+    private static Map<Long, Double> margins(int n) {
+        Map<Long, Double> margins = new HashMap<>();
+        for (int k = 0; k < n; k++) {
+            margins.put((long) k, 0.0200 + 0.0025 * (k % 5));
+        }
+        return margins;
+    }
+}
@@ -0,0 +1,107 @@
+package com.realestate.scenario;
+
+import com.realestate.mortgage.LoanTape;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+public class ScenarioCoordinatorTest {
+
+    private static final double DELTA = 1e-4;
+    private static final double[] SHIFTS = {-0.01, 0, 0.01, 0.02, 0.03};
+
+    private static LoanTape randomTape(int n) {
+        Random random = new Random(38);
+        long[] ids = new long[n];
+        double[] principals = new double[n];
+        double[] rates = new double[n];
+        int[] terms = new int[n];
+        int[] offsets = new int[n + 1];
+        int[] months = new int[2 * n];
+        double[] resetRates = new double[2 * n];
+        int r = 0;
+        for (int k = 0; k < n; k++) {
+            ids[k] = 1000 + 7L * (n - k);
+            principals[k] = 50000 + random.nextInt(500000);
+            rates[k] = 0.02 + random.nextDouble() * 0.05;
+            terms[k] = 120 + 12 * random.nextInt(21);
+            if (k % 2 == 0) {
+                months[r] = 60;
+                resetRates[r++] = rates[k] + 0.01;
+                months[r] = 84;
+                resetRates[r++] = rates[k] + 0.02;
+            }
+            offsets[k + 1] = r;
+        }
+        return new LoanTape(ids, principals, rates, terms, offsets,
+                Arrays.copyOf(months, r), Arrays.copyOf(resetRates, r));
+    }
+
+    private static void assertSameTotals(ScenarioAggregate expected, ScenarioAggregate actual) {
+        assertEquals(expected.getLoanCount(), actual.getLoanCount());
+        assertEquals(expected.getScenarioCount(), actual.getScenarioCount());
+        for (int s = 0; s < expected.getScenarioCount(); s++) {
+            assertEquals(expected.getTotalInterest(s), actual.getTotalInterest(s), DELTA);
+            assertEquals(expected.getTotalFirstPayment(s), actual.getTotalFirstPayment(s), DELTA);
+            assertEquals(expected.getTotalMaxPayment(s), actual.getTotalMaxPayment(s), DELTA);
+            assertEquals(expected.getLargestPayment(s), actual.getLargestPayment(s), 0.0);
+        }
+    }
+
+    @Test
+    public void testShardedAggregatesMatchLocalEvaluation() {
+        LoanTape tape = randomTape(300);
+        ScenarioAggregate local = ScenarioEngine.evaluate(tape, SHIFTS);
+        ScenarioAggregate merged = new ScenarioAggregate(SHIFTS);
+        for (LoanTape shard : tape.shardByIdRange(7)) {
+            merged.merge(ScenarioEngine.evaluate(shard, SHIFTS));
+        }
+        assertEquals(300, local.getLoanCount());
+        assertSameTotals(local, merged);
+        // Higher rates, more interest
+        assertEquals(true, local.getTotalInterest(4) > local.getTotalInterest(0));
+    }
+
+    @Test
+    public void testWorkerProcessesMatchLocalEvaluation() throws IOException, InterruptedException {
+        LoanTape tape = randomTape(400);
+        try (ScenarioCoordinator coordinator = new ScenarioCoordinator(2)) {
+            ScenarioAggregate distributed = coordinator.run(tape, SHIFTS, 6);
+            assertSameTotals(ScenarioEngine.evaluate(tape, SHIFTS), distributed);
+            // Workers are reused across runs
+            assertSameTotals(ScenarioEngine.evaluate(tape, SHIFTS), coordinator.run(tape, SHIFTS, 3));
+            assertEquals(0, coordinator.getRetryCount());
+        }
+    }
+
+    @Test
+    public void testFailedShardIsRetriedOnAReplacementWorker() throws IOException, InterruptedException {
+        LoanTape tape = randomTape(200);
+        try (ScenarioCoordinator coordinator = new ScenarioCoordinator(2, Collections.singletonList("--fail-shard=1"))) {
+            ScenarioAggregate distributed = coordinator.run(tape, SHIFTS, 4);
+            assertSameTotals(ScenarioEngine.evaluate(tape, SHIFTS), distributed);
+            assertEquals(1, coordinator.getRetryCount());
+        }
+    }
+
+    @Test(timeout = 60_000) // Without the shard timeout this run never returns
+    public void testHungShardTimesOutAndIsRetried() throws IOException, InterruptedException {
+        LoanTape tape = randomTape(200);
+        try (ScenarioCoordinator coordinator = new ScenarioCoordinator(2, Collections.singletonList("--hang-shard=2"))) {
+            coordinator.setShardTimeout(Duration.ofSeconds(2));
+            ScenarioAggregate distributed = coordinator.run(tape, SHIFTS, 4);
+            assertSameTotals(ScenarioEngine.evaluate(tape, SHIFTS), distributed);
+            assertEquals(1, coordinator.getRetryCount());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMismatchedScenariosCannotMerge() {
+        new ScenarioAggregate(SHIFTS).merge(new ScenarioAggregate(new double[]{0}));
+    }
+}
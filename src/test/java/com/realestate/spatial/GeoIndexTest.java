@@ -0,0 +1,114 @@
+package com.realestate.spatial;
+
+import com.realestate.mpt.MPT;
+import com.realestate.mpt.PortfolioUtils;
+import com.realestate.mpt.RealEstateAsset;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+public class GeoIndexTest {
+
+    private static final double DELTA = 1e-9;
+
+    private static List<RealEstateAsset> assets;
+    private static GeoIndex index;
+
+    @BeforeClass
+    public static void build() {
+        Random random = new Random(44);
+        assets = new ArrayList<>();
+        for (int k = 0; k < 20000; k++) {
+            RealEstateAsset asset = new RealEstateAsset("A" + k, 0.05, Arrays.asList(random.nextGaussian(), random.nextGaussian()));
+            if (k < 15000) {
+                // Clustered around a few cities, plus a cluster straddling the antimeridian
+                double[][] centers = {{40.71, -74.0}, {51.5, -0.12}, {-36.85, 174.76}, {-17.7, 179.9}};
+                double[] center = centers[k % centers.length];
+                double lon = center[1] + random.nextGaussian() * 0.5;
+                lon = lon > 180 ? lon - 360 : lon;
+                asset.setLocation(Math.max(-90, Math.min(90, center[0] + random.nextGaussian() * 0.5)), lon);
+            } else {
+                asset.setLocation(Math.toDegrees(Math.asin(2 * random.nextDouble() - 1)), -180 + 360 * random.nextDouble());
+            }
+            assets.add(asset);
+        }
+        index = new GeoIndex(assets);
+    }
+
+    private static double distance(RealEstateAsset asset, double lat, double lon) {
+        return GeoIndex.distanceKm(lat, lon, asset.getLatitude(), asset.getLongitude());
+    }
+
+    @Test
+    public void testDistance() {
+        // New York - London, about 5570 km
+        assertEquals(5570, GeoIndex.distanceKm(40.7128, -74.0060, 51.5074, -0.1278), 10);
+        assertEquals(0, GeoIndex.distanceKm(10, 179.999999, 10, -179.999999), 1e-3);
+    }
+
+    @Test
+    public void testRadiusMatchesLinearScan() {
+        double[][] queries = {{40.71, -74.0, 5}, {40.71, -74.0, 50}, {-17.7, 179.95, 30}, {-17.7, -179.95, 100}, {89.5, 10, 500}, {0, 0, 2000}};
+        for (double[] q : queries) {
+            List<RealEstateAsset> expected = assets.stream().filter(a -> distance(a, q[0], q[1]) <= q[2])
+                    .sorted(Comparator.comparingDouble(a -> distance(a, q[0], q[1]))).collect(Collectors.toList());
+            List<RealEstateAsset> actual = index.withinRadius(q[0], q[1], q[2]);
+            assertEquals(expected.size(), actual.size());
+            assertEquals(new HashSet<>(expected), new HashSet<>(actual));
+            for (int i = 1; i < actual.size(); i++) {
+                assertTrue(distance(actual.get(i - 1), q[0], q[1]) <= distance(actual.get(i), q[0], q[1]) + DELTA);
+            }
+        }
+    }
+
+    @Test
+    public void testBoxMatchesLinearScanIncludingAntimeridian() {
+        List<RealEstateAsset> box = index.withinBox(40, -75, 41.5, -73);
+        long expected = assets.stream().filter(a -> a.getLatitude() >= 40 && a.getLatitude() <= 41.5
+                && a.getLongitude() >= -75 && a.getLongitude() <= -73).count();
+        assertEquals(expected, box.size());
+
+        List<RealEstateAsset> wrapped = index.withinBox(-19, 179, -16, -179);
+        long expectedWrapped = assets.stream().filter(a -> a.getLatitude() >= -19 && a.getLatitude() <= -16
+                && (a.getLongitude() >= 179 || a.getLongitude() <= -179)).count();
+        assertEquals(expectedWrapped, wrapped.size());
+        assertTrue(expectedWrapped > 100);
+    }
+
+    @Test
+    public void testNearestMatchesLinearScan() {
+        double[][] queries = {{51.5, -0.12}, {-17.7, -179.99}, {-89, 0}, {10, 100}};
+        for (double[] q : queries) {
+            List<RealEstateAsset> expected = assets.stream()
+                    .sorted(Comparator.comparingDouble(a -> distance(a, q[0], q[1]))).limit(25).collect(Collectors.toList());
+            List<RealEstateAsset> actual = index.nearest(q[0], q[1], 25);
+            assertEquals(25, actual.size());
+            for (int i = 0; i < 25; i++) {
+                assertEquals(distance(expected.get(i), q[0], q[1]), distance(actual.get(i), q[0], q[1]), DELTA);
+            }
+        }
+        assertEquals(assets.size(), index.nearest(0, 0, 1000000).size());
+    }
+
+    @Test
+    public void testQueryResultFeedsMPT() {
+        List<RealEstateAsset> comparables = index.nearest(40.71, -74.0, 10);
+        MPT mpt = new MPT(PortfolioUtils.equalWeights(comparables), "c");
+        assertEquals(10, mpt.getAssets().size());
+        assertEquals(0.1, mpt.getWeights()[0], DELTA);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAssetsNeedALocation() {
+        new GeoIndex(Arrays.asList(new RealEstateAsset(0.05, Arrays.asList(0.01, 0.02))));
+    }
+}
@@ -0,0 +1,222 @@
+package com.realestate.valuation;
+
+import com.realestate.mpt.MPT;
+import com.realestate.mpt.RealEstateAsset;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class ComparableSalesTest {
+
+    private static final double DELTA = 1e-12;
+
+    private static List<RealEstateAsset> comps;
+    private static double[] sizes;
+    private static double[] ages;
+    private static double recentSigma;
+
+    @BeforeClass
+    public static void build() {
+        Random random = new Random(45);
+        int n = 40000; // Above the parallel threshold
+        comps = new ArrayList<>();
+        sizes = new double[n];
+        ages = new double[n];
+        for (int k = 0; k < n; k++) {
+            List<Double> history = new ArrayList<>();
+            for (int t = 0; t < 16; t++) {
+                history.add(0.01 * random.nextGaussian());
+            }
+            RealEstateAsset comp = new RealEstateAsset("C" + k, 0.03 + 0.05 * random.nextDouble(), history);
+            comp.setLocation(40.7 + 0.2 * random.nextGaussian(), -74.0 + 0.2 * random.nextGaussian());
+            comps.add(comp);
+            sizes[k] = 800 + 2000 * random.nextDouble();
+            ages[k] = 60 * random.nextDouble();
+        }
+        double[] recent = comps.stream().mapToDouble(ComparableSalesTest::recent).toArray();
+        double mean = Arrays.stream(recent).average().orElse(0);
+        recentSigma = Math.sqrt(Arrays.stream(recent).map(r -> (r - mean) * (r - mean)).average().orElse(0));
+    }
+
+    @Test
+    public void testMatchesBruteForce() {
+        ComparableSales engine = new ComparableSales(comps, sizes, ages);
+        engine.setWeights(1, 0.5, 2, 0.25);
+        RealEstateAsset subject = subject(40.75, -73.98);
+        ComparableResult result = engine.findComparables(subject, 1500, 20, 25);
+
+        double[] scores = IntStream.range(0, comps.size())
+                .mapToDouble(i -> bruteForce(subject, 1500, 20, i, 1, 0.5, 2, 0.25)).toArray();
+        List<Integer> expected = IntStream.range(0, comps.size()).boxed()
+                .sorted(Comparator.comparingDouble((Integer i) -> -scores[i]).thenComparingInt(i -> i))
+                .limit(25).collect(Collectors.toList());
+        assertEquals(25, result.size());
+        for (int i = 0; i < 25; i++) {
+            assertEquals((int) expected.get(i), result.getIndex(i));
+            assertSame(comps.get(expected.get(i)), result.getAsset(i));
+            assertEquals(scores[expected.get(i)], result.getSimilarity(i), 1e-9);
+        }
+        for (int i = 1; i < 25; i++) {
+            assertTrue(result.getSimilarity(i) <= result.getSimilarity(i - 1));
+        }
+    }
+
+    @Test
+    public void testSmallUniverseAndSelfExclusion() {
+        List<RealEstateAsset> small = comps.subList(0, 500);
+        ComparableSales engine = new ComparableSales(small, Arrays.copyOf(sizes, 500), Arrays.copyOf(ages, 500));
+        RealEstateAsset self = small.get(7);
+        ComparableResult result = engine.findComparables(self, sizes[7], ages[7], 10);
+        for (int i = 0; i < result.size(); i++) {
+            assertTrue(result.getIndex(i) != 7);
+        }
+
+        // An identical twin that is not the same object is found with similarity 1
+        RealEstateAsset twin = new RealEstateAsset("twin", 0.05, self.getHistoricalReturns());
+        twin.setLocation(self.getLatitude(), self.getLongitude());
+        ComparableResult twinResult = engine.findComparables(twin, sizes[7], ages[7], 1);
+        assertEquals(7, twinResult.getIndex(0));
+        assertEquals(1.0, twinResult.getSimilarity(0), DELTA);
+
+        // k beyond the universe returns everything but the subject
+        assertEquals(499, engine.findComparables(self, sizes[7], ages[7], 1000).size());
+    }
+
+    @Test
+    public void testTiesGoToLowerIndex() {
+        RealEstateAsset template = comps.get(0);
+        List<RealEstateAsset> clones = new ArrayList<>();
+        for (int k = 0; k < 6; k++) {
+            RealEstateAsset clone = new RealEstateAsset("T" + k, 0.04 + 0.01 * k, template.getHistoricalReturns());
+            clone.setLocation(template.getLatitude(), template.getLongitude());
+            clones.add(clone);
+        }
+        double[] cloneSizes = new double[6];
+        Arrays.fill(cloneSizes, 1000);
+        ComparableSales engine = new ComparableSales(clones, cloneSizes, new double[6]);
+        ComparableResult result = engine.findComparables(subject(40.0, -74.0), 1200, 5, 3);
+        assertEquals(0, result.getIndex(0));
+        assertEquals(1, result.getIndex(1));
+        assertEquals(2, result.getIndex(2));
+    }
+
+    @Test
+    public void testCompsBeyondTheScaleStayRanked() {
+        // 180 - 430 km north of the subject, farthest first; exp(-d²) underflows to 0 for all of them
+        RealEstateAsset template = comps.get(0);
+        List<RealEstateAsset> far = new ArrayList<>();
+        for (int k = 0; k < 5; k++) {
+            RealEstateAsset comp = new RealEstateAsset("F" + k, 0.02 * (k + 1), template.getHistoricalReturns());
+            comp.setLocation(43.9 - 0.55 * k, -74.0);
+            far.add(comp);
+        }
+        double[] farSizes = new double[5];
+        Arrays.fill(farSizes, 1000);
+        ComparableSales engine = new ComparableSales(far, farSizes, new double[5]);
+        RealEstateAsset subject = new RealEstateAsset("S", 0.0, template.getHistoricalReturns());
+        subject.setLocation(40.0, -74.0);
+
+        ComparableResult result = engine.findComparables(subject, 1000, 0, 2);
+        assertEquals(4, result.getIndex(0));
+        assertEquals(3, result.getIndex(1));
+        assertEquals(0.0, result.getSimilarity(0), 0.0);
+
+        // Still weighted by similarity relative to the closest comp, not a plain mean of arbitrary comps
+        assertEquals(0.10, engine.estimateExpectedReturn(subject, 1000, 0, 2), DELTA);
+    }
+
+    @Test
+    public void testEstimateFeedsMpt() {
+        ComparableSales engine = new ComparableSales(comps, sizes, ages);
+        List<RealEstateAsset> subjects = new ArrayList<>();
+        for (int s = 0; s < 3; s++) {
+            subjects.add(subject(40.7 + 0.05 * s, -74.0));
+        }
+        double[] subjectSizes = {1200, 1600, 2200};
+        double[] subjectAges = {5, 25, 50};
+
+        double[] manual = new double[3];
+        for (int s = 0; s < 3; s++) {
+            ComparableResult result = engine.findComparables(subjects.get(s), subjectSizes[s], subjectAges[s], 15);
+            double weighted = 0;
+            double total = 0;
+            for (int i = 0; i < result.size(); i++) {
+                weighted += result.getSimilarity(i) * result.getAsset(i).getExpectedReturn();
+                total += result.getSimilarity(i);
+            }
+            manual[s] = weighted / total;
+            assertEquals(manual[s], engine.estimateExpectedReturn(subjects.get(s), subjectSizes[s], subjectAges[s], 15), DELTA);
+        }
+
+        double[] estimates = engine.applyEstimates(subjects, subjectSizes, subjectAges, 15);
+        double mean = 0;
+        for (int s = 0; s < 3; s++) {
+            assertEquals(manual[s], estimates[s], DELTA);
+            assertEquals(estimates[s], subjects.get(s).getExpectedReturn(), DELTA);
+            assertTrue(estimates[s] >= 0.03 && estimates[s] <= 0.08);
+            mean += estimates[s] / 3;
+        }
+        MPT mpt = new MPT(subjects, Collections.nCopies(3, 1.0 / 3));
+        assertEquals(mean, mpt.portfolioExpectedReturn(), DELTA);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCompWithoutLocation() {
+        RealEstateAsset comp = new RealEstateAsset("x", 0.05, Arrays.asList(0.01, 0.02));
+        new ComparableSales(Collections.singletonList(comp), new double[]{1000}, new double[]{10});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSubjectIsTheOnlyComp() {
+        RealEstateAsset only = subject(40.7, -74.0);
+        ComparableSales engine = new ComparableSales(Collections.singletonList(only), new double[]{1000}, new double[]{10});
+        assertEquals(0, engine.findComparables(only, 1000, 10, 5).size());
+        engine.estimateExpectedReturn(only, 1000, 10, 5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonPositiveSize() {
+        new ComparableSales(comps, sizes, ages).findComparables(subject(40.7, -74.0), 0, 10, 5);
+    }
+
+    //------------------------------------- Helper classes/ methods -------------------------------------//
+
+    private static RealEstateAsset subject(double latitude, double longitude) {
+        RealEstateAsset subject = new RealEstateAsset("S" + latitude, 0.0, Arrays.asList(0.004, -0.002, 0.006));
+        subject.setLocation(latitude, longitude);
+        return subject;
+    }
+
+    private static double bruteForce(RealEstateAsset subject, double size, double age, int i,
+                                     double wSize, double wAge, double wLocation, double wReturns) {
+        RealEstateAsset comp = comps.get(i);
+        double lat1 = Math.toRadians(subject.getLatitude());
+        double lat2 = Math.toRadians(comp.getLatitude());
+        double dLon = Math.toRadians(comp.getLongitude() - subject.getLongitude());
+        // Chord between the two points on the unit sphere
+        double cosAngle = Math.sin(lat1) * Math.sin(lat2) + Math.cos(lat1) * Math.cos(lat2) * Math.cos(dLon);
+        double chordKm = 6371.0088 * Math.sqrt(Math.max(0, 2 - 2 * cosAngle));
+        double ds = Math.log(sizes[i] / size);
+        double da = (ages[i] - age) / 10;
+        double dl = chordKm / 5;
+        double dr = (recent(comp) - recent(subject)) / recentSigma;
+        return Math.exp(-(wSize * ds * ds + wAge * da * da + wLocation * dl * dl + wReturns * dr * dr));
+    }
+
+    private static double recent(RealEstateAsset asset) {
+        List<Double> history = asset.getHistoricalReturns();
+        return history.subList(Math.max(0, history.size() - 12), history.size()).stream()
+                .mapToDouble(Double::doubleValue).average().orElse(0);
+    }
+}